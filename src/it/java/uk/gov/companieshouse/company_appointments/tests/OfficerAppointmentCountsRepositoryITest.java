@@ -0,0 +1,133 @@
+package uk.gov.companieshouse.company_appointments.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.IOUtils;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
+import uk.gov.companieshouse.company_appointments.model.data.OfficerAppointmentCounts;
+import uk.gov.companieshouse.company_appointments.repository.OfficerAppointmentCountsRepository;
+
+@Testcontainers
+@AutoConfigureMockMvc
+@SpringBootTest(classes = CompanyAppointmentsApplication.class, webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class OfficerAppointmentCountsRepositoryITest {
+
+    private static final String OFFICER_ID = "5VEOBB4a9dlB_iugw_vieHjWpCk";
+    private static final String ORPHANED_OFFICER_ID = "orphanedOfficerId";
+
+    @Autowired
+    private OfficerAppointmentCountsRepository repository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Container
+    private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:5");
+
+    @BeforeAll
+    static void start() {
+        System.setProperty("spring.data.mongodb.uri", mongoDBContainer.getReplicaSetUrl());
+        System.setProperty("company-metrics-api.endpoint", "localhost");
+    }
+
+    @BeforeEach
+    void setup() throws IOException {
+        mongoTemplate.dropCollection("delta_appointments");
+        mongoTemplate.dropCollection(OfficerAppointmentCounts.class);
+        for (String resource : new String[]{"/appointment-data.json", "/appointment-data2.json",
+                "/appointment-data4.json", "/appointment-data6.json"}) {
+            mongoTemplate.insert(Document.parse(IOUtils.resourceToString(resource, StandardCharsets.UTF_8)),
+                    "delta_appointments");
+        }
+    }
+
+    @DisplayName("Repository increments the counts of an officer that has counts")
+    @Test
+    void incrementCounts() {
+        // given
+        repository.save(counts(OFFICER_ID, 5, 2, 1));
+
+        // when
+        repository.incrementCounts(OFFICER_ID, 1, 0, 1);
+        repository.incrementCounts(OFFICER_ID, 1, 1, -1);
+
+        // then
+        assertEquals(counts(OFFICER_ID, 7, 3, 1), repository.findById(OFFICER_ID).orElseThrow());
+    }
+
+    @DisplayName("Repository does not create partial counts for an officer that has none")
+    @Test
+    void incrementCountsLeavesMissingCountsToReconciliation() {
+        // when
+        repository.incrementCounts(OFFICER_ID, -1, 0, 0);
+
+        // then
+        assertFalse(repository.existsById(OFFICER_ID));
+    }
+
+    @DisplayName("Repository corrects drifted counts and removes counts for officers without appointments")
+    @Test
+    void reconcileCounts() {
+        // given
+        repository.save(counts(OFFICER_ID, 9, 0, 0));
+        repository.save(counts(ORPHANED_OFFICER_ID, 1, 0, 0));
+
+        // when
+        long corrected = repository.reconcileCounts();
+
+        // then
+        assertEquals(2, corrected);
+        assertEquals(counts(OFFICER_ID, 4, 2, 1), repository.findById(OFFICER_ID).orElseThrow());
+        assertFalse(repository.existsById(ORPHANED_OFFICER_ID));
+    }
+
+    @DisplayName("Repository seeds counts for an officer that has none")
+    @Test
+    void reconcileCountsSeedsMissingCounts() {
+        // when
+        long corrected = repository.reconcileCounts();
+
+        // then
+        assertEquals(1, corrected);
+        assertEquals(counts(OFFICER_ID, 4, 2, 1), repository.findById(OFFICER_ID).orElseThrow());
+    }
+
+    @DisplayName("Repository leaves counts that have not drifted untouched")
+    @Test
+    void reconcileCountsNoDrift() {
+        // given
+        repository.save(counts(OFFICER_ID, 4, 2, 1));
+
+        // when
+        long corrected = repository.reconcileCounts();
+
+        // then
+        assertEquals(0, corrected);
+    }
+
+    private static OfficerAppointmentCounts counts(String officerId, int totalResults, int resignedCount,
+            int inactiveCount) {
+        return new OfficerAppointmentCounts()
+                .officerId(officerId)
+                .totalResults(totalResults)
+                .resignedCount(resignedCount)
+                .inactiveCount(inactiveCount);
+    }
+}
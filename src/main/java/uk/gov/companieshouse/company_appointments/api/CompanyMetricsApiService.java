@@ -21,12 +21,18 @@ public class CompanyMetricsApiService {
     private static final Logger LOGGER = LoggerFactory.getLogger(APPLICATION_NAME_SPACE);
 
     private final Supplier<InternalApiClient> metricsApiClient;
+    private final CompanyMetricsCache cache;
 
-    public CompanyMetricsApiService(Supplier<InternalApiClient> metricsApiClient) {
+    public CompanyMetricsApiService(Supplier<InternalApiClient> metricsApiClient, CompanyMetricsCache cache) {
         this.metricsApiClient = metricsApiClient;
+        this.cache = cache;
     }
 
     public ApiResponse<MetricsApi> invokeGetMetricsApi(String companyNumber) {
+        return cache.get(companyNumber, () -> fetchMetrics(companyNumber));
+    }
+
+    private ApiResponse<MetricsApi> fetchMetrics(String companyNumber) {
         try {
             return metricsApiClient.get()
                     .privateCompanyMetricsResourceHandler()
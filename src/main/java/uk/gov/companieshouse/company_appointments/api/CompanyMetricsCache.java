@@ -0,0 +1,125 @@
+package uk.gov.companieshouse.company_appointments.api;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.metrics.MetricsApi;
+import uk.gov.companieshouse.api.model.ApiResponse;
+import uk.gov.companieshouse.company_appointments.exception.NotFoundException;
+
+/**
+ * An in-process, size- and TTL-bounded cache of company-metrics-api responses by company number, so every page,
+ * filter and register view of a company shares one metrics call. Companies the API does not know are cached as
+ * negative entries; other failures are not cached. Entries are evicted when this service writes one of the company's
+ * appointments. company-metrics-api recomputes the metrics some time after the write, so metrics loaded within the
+ * recompute window after an eviction may not reflect it yet, and are only cached until the window ends rather than for
+ * the full time to live.
+ */
+@Component
+public class CompanyMetricsCache {
+
+    static final String CACHE_NAME = "company.metrics";
+
+    private final boolean enabled;
+    private final Duration timeToLive;
+    private final Duration recomputeWindow;
+    private final Cache<String, Entry> cache;
+    private final Cache<String, Long> recentEvictions;
+    private final Counter invalidations;
+
+    CompanyMetricsCache(@Value("${company-metrics-api.cache.enabled}") boolean enabled,
+            @Value("${company-metrics-api.cache.maximum-size}") long maximumSize,
+            @Value("${company-metrics-api.cache.time-to-live}") Duration timeToLive,
+            @Value("${company-metrics-api.cache.recompute-window}") Duration recomputeWindow,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.timeToLive = timeToLive;
+        this.recomputeWindow = recomputeWindow;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String companyNumber, Entry entry, long currentTime) {
+                        return entry.timeToLiveNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String companyNumber, Entry entry, long currentTime,
+                            long currentDuration) {
+                        return entry.timeToLiveNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String companyNumber, Entry entry, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        this.recentEvictions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(recomputeWindow)
+                .build();
+        this.invalidations = Counter.builder("company.metrics.cache.invalidations")
+                .description("Company metrics evicted because one of the company's appointments changed")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached metrics for the company, loading and caching them on a miss. A cached 404 is thrown again as
+     * a {@link NotFoundException} without calling the API.
+     */
+    ApiResponse<MetricsApi> get(String companyNumber, Supplier<ApiResponse<MetricsApi>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Entry entry = cache.get(companyNumber, key -> {
+            long timeToLiveNanos = timeToLiveNanos(key);
+            try {
+                return new Entry(loader.get(), timeToLiveNanos);
+            } catch (NotFoundException ex) {
+                return new Entry(null, timeToLiveNanos);
+            }
+        });
+        if (entry.response() == null) {
+            throw new NotFoundException("Company Metrics API responded with 404 Not Found");
+        }
+        return entry.response();
+    }
+
+    public void evict(String companyNumber) {
+        if (!enabled || companyNumber == null) {
+            return;
+        }
+        recentEvictions.put(companyNumber, System.nanoTime());
+        if (cache.asMap().remove(companyNumber) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * The time to live of metrics loaded now: the rest of the company's recompute window while one is open, otherwise
+     * the full time to live.
+     */
+    private long timeToLiveNanos(String companyNumber) {
+        Long evictedAt = recentEvictions.getIfPresent(companyNumber);
+        if (evictedAt == null) {
+            return timeToLive.toNanos();
+        }
+        long untilRecomputed = recomputeWindow.toNanos() - (System.nanoTime() - evictedAt);
+        return Math.max(0, Math.min(untilRecomputed, timeToLive.toNanos()));
+    }
+
+    private record Entry(@Nullable ApiResponse<MetricsApi> response, long timeToLiveNanos) {
+    }
+}
@@ -8,18 +8,15 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.text.SimpleDateFormat;
 import java.time.Clock;
-import java.util.function.Supplier;
-import org.springframework.beans.factory.annotation.Value;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-import uk.gov.companieshouse.api.InternalApiClient;
-import uk.gov.companieshouse.api.http.ApiKeyHttpClient;
 import uk.gov.companieshouse.company_appointments.interceptor.AuthenticationInterceptor;
 import uk.gov.companieshouse.company_appointments.interceptor.FullRecordAuthenticationInterceptor;
-import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
 import uk.gov.companieshouse.company_appointments.util.EmptyFieldDeserializer;
 
 @Configuration
@@ -30,19 +27,11 @@ public class Config implements WebMvcConfigurer {
 
     private final AuthenticationInterceptor authenticationInterceptor;
     private final FullRecordAuthenticationInterceptor fullRecordAuthenticationInterceptor;
-    private final String apiKey;
-    private final String metricsUrl;
-    private final String internalApiUrl;
 
     public Config(AuthenticationInterceptor authenticationInterceptor,
-            FullRecordAuthenticationInterceptor fullRecordAuthenticationInterceptor,
-            @Value("${chs.kafka.api.key}") String apiKey, @Value("${company-metrics-api.endpoint}") String metricsUrl,
-            @Value("${chs.kafka.api.endpoint}") String internalApiUrl) {
+            FullRecordAuthenticationInterceptor fullRecordAuthenticationInterceptor) {
         this.authenticationInterceptor = authenticationInterceptor;
         this.fullRecordAuthenticationInterceptor = fullRecordAuthenticationInterceptor;
-        this.apiKey = apiKey;
-        this.metricsUrl = metricsUrl;
-        this.internalApiUrl = internalApiUrl;
     }
 
     @Override
@@ -65,6 +54,17 @@ public class Config implements WebMvcConfigurer {
         return Clock.systemUTC();
     }
 
+    /**
+     * Obtains an executor that starts a new virtual thread for each task, for fanning out independent blocking calls
+     * made while handling a request.
+     *
+     * @return a virtual-thread-per-task executor, closed on shutdown
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService virtualThreadExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
     @Bean
     @Primary
     public ObjectMapper objectMapper() {
@@ -76,24 +76,4 @@ public class Config implements WebMvcConfigurer {
                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
                 .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
     }
-
-    @Bean
-    public Supplier<InternalApiClient> metricsApiClient() {
-        return () -> buildInternalApiClient(metricsUrl);
-    }
-
-    @Bean
-    public Supplier<InternalApiClient> chsKafkaApiClient() {
-        return () -> buildInternalApiClient(internalApiUrl);
-    }
-
-    private InternalApiClient buildInternalApiClient(final String url) {
-        ApiKeyHttpClient apiKeyHttpClient = new ApiKeyHttpClient(apiKey);
-        apiKeyHttpClient.setRequestId(DataMapHolder.getRequestId());
-
-        InternalApiClient internalApiClient = new InternalApiClient(apiKeyHttpClient);
-        internalApiClient.setBasePath(url);
-
-        return internalApiClient;
-    }
 }
@@ -0,0 +1,173 @@
+package uk.gov.companieshouse.company_appointments.config;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Pattern;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.gov.companieshouse.api.InternalApiClient;
+
+/**
+ * Builds the clients for company-metrics-api and chs-kafka-api once, over a single keep-alive connection pool, rather
+ * than a new client and connection per call. The pool's saturation, the connections it opens (from which the reuse
+ * rate follows against the request count) and per-endpoint request latency are all published as metrics. They are
+ * bound directly rather than through Micrometer's HttpClient 4 binders, which are deprecated, under the names those
+ * binders used.
+ */
+@Configuration
+public class InternalApiClientConfig {
+
+    static final String POOL_NAME = "internal-api";
+    private static final String POOL_METRIC_PREFIX = "httpcomponents.httpclient.pool.";
+    private static final String REQUEST_METRIC = "httpcomponents.httpclient.request";
+    private static final Pattern COMPANY_NUMBER = Pattern.compile("^/company/[^/]+/");
+
+    private final String apiKey;
+    private final String metricsUrl;
+    private final String internalApiUrl;
+
+    public InternalApiClientConfig(@Value("${chs.kafka.api.key}") String apiKey,
+            @Value("${company-metrics-api.endpoint}") String metricsUrl,
+            @Value("${chs.kafka.api.endpoint}") String internalApiUrl) {
+        this.apiKey = apiKey;
+        this.metricsUrl = metricsUrl;
+        this.internalApiUrl = internalApiUrl;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public HttpTransport internalApiHttpTransport(MeterRegistry meterRegistry,
+            @Value("${internal-api.http-client.max-connections}") int maxConnections,
+            @Value("${internal-api.http-client.max-connections-per-route}") int maxConnectionsPerRoute,
+            @Value("${internal-api.http-client.connection-time-to-live}") Duration connectionTimeToLive) {
+        Counter connectionsOpened = Counter.builder("internal.api.client.connections.opened")
+                .description("Connections opened by the internal API connection pool rather than reused")
+                .register(meterRegistry);
+        HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory = (route, config) -> {
+            connectionsOpened.increment();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        };
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                        .build(),
+                connectionFactory, null, null, connectionTimeToLive.toMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        bindPoolGauges(connectionManager, meterRegistry);
+
+        return new ApacheHttpTransport(ApacheHttpTransport.newDefaultHttpClientBuilder()
+                .setConnectionManager(connectionManager)
+                .setRequestExecutor(new TimedHttpRequestExecutor(meterRegistry))
+                .build());
+    }
+
+    @Bean
+    public Supplier<InternalApiClient> metricsApiClient(HttpTransport internalApiHttpTransport) {
+        InternalApiClient internalApiClient = buildInternalApiClient(metricsUrl, internalApiHttpTransport);
+        return () -> internalApiClient;
+    }
+
+    @Bean
+    public Supplier<InternalApiClient> chsKafkaApiClient(HttpTransport internalApiHttpTransport) {
+        InternalApiClient internalApiClient = buildInternalApiClient(internalApiUrl, internalApiHttpTransport);
+        return () -> internalApiClient;
+    }
+
+    /**
+     * Replaces the company number in request paths so latency is recorded per endpoint rather than per company.
+     */
+    static String uriTemplate(HttpRequest request) {
+        String path = URI.create(request.getRequestLine().getUri()).getPath();
+        return COMPANY_NUMBER.matcher(path).replaceFirst("/company/{company_number}/");
+    }
+
+    private static void bindPoolGauges(PoolingHttpClientConnectionManager connectionManager,
+            MeterRegistry meterRegistry) {
+        poolGauge("total.max", null, PoolStats::getMax, connectionManager, meterRegistry);
+        poolGauge("total.connections", "available", PoolStats::getAvailable, connectionManager, meterRegistry);
+        poolGauge("total.connections", "leased", PoolStats::getLeased, connectionManager, meterRegistry);
+        poolGauge("total.pending", null, PoolStats::getPending, connectionManager, meterRegistry);
+    }
+
+    private static void poolGauge(String name, String state, ToDoubleFunction<PoolStats> value,
+            PoolingHttpClientConnectionManager connectionManager, MeterRegistry meterRegistry) {
+        Gauge.Builder<PoolingHttpClientConnectionManager> gauge = Gauge.builder(POOL_METRIC_PREFIX + name,
+                        connectionManager, manager -> value.applyAsDouble(manager.getTotalStats()))
+                .tag("httpclient", POOL_NAME);
+        if (state != null) {
+            gauge.tag("state", state);
+        }
+        gauge.register(meterRegistry);
+    }
+
+    private InternalApiClient buildInternalApiClient(final String url, final HttpTransport transport) {
+        InternalApiClient internalApiClient = new InternalApiClient(new PooledApiKeyHttpClient(apiKey, transport));
+        internalApiClient.setBasePath(url);
+
+        return internalApiClient;
+    }
+
+    /**
+     * Times each request by method, endpoint, status and target host.
+     */
+    private static final class TimedHttpRequestExecutor extends HttpRequestExecutor {
+
+        private final MeterRegistry meterRegistry;
+
+        private TimedHttpRequestExecutor(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request, HttpClientConnection connection, HttpContext context)
+                throws IOException, HttpException {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String status = "IO_ERROR";
+            try {
+                HttpResponse response = super.execute(request, connection, context);
+                status = Integer.toString(response.getStatusLine().getStatusCode());
+                return response;
+            } finally {
+                HttpHost target = (HttpHost) context.getAttribute(HttpCoreContext.HTTP_TARGET_HOST);
+                sample.stop(Timer.builder(REQUEST_METRIC)
+                        .description("Duration of HTTP client requests")
+                        .tag("method", request.getRequestLine().getMethod())
+                        .tag("uri", uriTemplate(request))
+                        .tag("status", status)
+                        .tag("target.host", target != null ? target.getHostName() : "UNKNOWN")
+                        .register(meterRegistry));
+            }
+        }
+    }
+}
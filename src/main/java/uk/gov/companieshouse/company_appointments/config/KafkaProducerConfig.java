@@ -15,13 +15,24 @@ import uk.gov.companieshouse.officermerge.OfficerMerge;
 @Configuration
 public class KafkaProducerConfig {
 
+    /**
+     * Idempotent producer, so that its retries neither duplicate nor reorder officer-merge messages. The linger,
+     * batch size and compression let messages sent without waiting for acknowledgement share requests to the broker.
+     */
     @Bean
     public ProducerFactory<String, OfficerMerge> producerFactory(
-            @Value("${spring.kafka.bootstrap-servers}") String bootstrapAddress) {
+            @Value("${spring.kafka.bootstrap-servers}") String bootstrapAddress,
+            @Value("${kafka.officer-merge.linger-ms}") int lingerMs,
+            @Value("${kafka.officer-merge.batch-size}") int batchSize,
+            @Value("${kafka.officer-merge.compression-type}") String compressionType) {
         return new DefaultKafkaProducerFactory<>(
                 Map.of(
                         ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress,
                         ProducerConfig.ACKS_CONFIG, "all",
+                        ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                        ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                        ProducerConfig.BATCH_SIZE_CONFIG, batchSize,
+                        ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType,
                         ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
                         ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, OfficerMergeSerialiser.class));
     }
@@ -1,10 +1,16 @@
 package uk.gov.companieshouse.company_appointments.config;
 
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
 import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Configuration
 public class MongoDbConfig implements InitializingBean {
@@ -20,4 +26,15 @@ public class MongoDbConfig implements InitializingBean {
     public void afterPropertiesSet() {
         mappingMongoConverter.setTypeMapper(new DefaultMongoTypeMapper(null));
     }
+
+    /**
+     * Transactions for writing appointments together with their outbox events, which need MongoDB to run as a replica
+     * set. Writes are not made transactional while the outbox is disabled.
+     */
+    @Bean
+    public TransactionOperations appointmentEventTransactions(MongoDatabaseFactory mongoDatabaseFactory,
+            @Value("${company-appointments.outbox.enabled}") boolean outboxEnabled) {
+        return outboxEnabled ? new TransactionTemplate(new MongoTransactionManager(mongoDatabaseFactory))
+                : TransactionOperations.withoutTransaction();
+    }
 }
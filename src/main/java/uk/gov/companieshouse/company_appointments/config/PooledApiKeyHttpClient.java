@@ -0,0 +1,36 @@
+package uk.gov.companieshouse.company_appointments.config;
+
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpTransport;
+import uk.gov.companieshouse.api.http.ApiKeyHttpClient;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+
+/**
+ * An API key HTTP client that sends every request over one shared, pooled transport and reads the request ID of the
+ * request being handled when each call is made, so a single client can be reused across requests and threads.
+ */
+final class PooledApiKeyHttpClient extends ApiKeyHttpClient {
+
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    private final HttpTransport transport;
+    private final HttpRequestInitializer apiKeyInitializer;
+
+    PooledApiKeyHttpClient(String apiKey, HttpTransport transport) {
+        super(apiKey);
+        this.transport = transport;
+        // keep the SDK's API key authentication, but apply it to requests built on the shared transport
+        this.apiKeyInitializer = super.getHttpRequestFactory().getInitializer();
+    }
+
+    @Override
+    public HttpRequestFactory getHttpRequestFactory() {
+        return transport.createRequestFactory(request -> {
+            if (apiKeyInitializer != null) {
+                apiKeyInitializer.initialize(request);
+            }
+            request.getHeaders().set(REQUEST_ID_HEADER, DataMapHolder.getRequestId());
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package uk.gov.companieshouse.company_appointments.controller;
+
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import uk.gov.companieshouse.api.appointment.FullRecordCompanyOfficerApi;
+import uk.gov.companieshouse.api.appointment.OfficerSummary;
+import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
+import uk.gov.companieshouse.company_appointments.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.model.AppointmentDeltasResult;
+import uk.gov.companieshouse.company_appointments.model.AppointmentsBatch;
+import uk.gov.companieshouse.company_appointments.model.AppointmentsBatchRequest;
+import uk.gov.companieshouse.company_appointments.model.view.CompanyAppointmentFullRecordView;
+import uk.gov.companieshouse.company_appointments.service.CompanyAppointmentBatchService;
+import uk.gov.companieshouse.company_appointments.service.CompanyAppointmentBulkUpsertService;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+@Controller
+@RequestMapping(path = "/company/{company_number}/appointments", produces = "application/json")
+public class CompanyAppointmentBatchController {
+
+    private final CompanyAppointmentBatchService companyAppointmentBatchService;
+    private final CompanyAppointmentBulkUpsertService companyAppointmentBulkUpsertService;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompanyAppointmentsApplication.APPLICATION_NAME_SPACE);
+
+    public CompanyAppointmentBatchController(CompanyAppointmentBatchService companyAppointmentBatchService,
+            CompanyAppointmentBulkUpsertService companyAppointmentBulkUpsertService) {
+        this.companyAppointmentBatchService = companyAppointmentBatchService;
+        this.companyAppointmentBulkUpsertService = companyAppointmentBulkUpsertService;
+    }
+
+    @PostMapping(path = "/batch", consumes = "application/json")
+    public ResponseEntity<AppointmentsBatch<OfficerSummary>> fetchAppointments(
+            @PathVariable("company_number") String companyNumber,
+            @RequestBody AppointmentsBatchRequest batchRequest) {
+
+        DataMapHolder.get()
+                .companyNumber(companyNumber);
+        LOGGER.info("Fetching batch of company appointments", DataMapHolder.getLogMap());
+
+        try {
+            return ResponseEntity.ok(companyAppointmentBatchService.fetchAppointments(companyNumber,
+                    batchRequest.appointmentIds()));
+        } catch (BadRequestException e) {
+            LOGGER.info(e.getMessage(), DataMapHolder.getLogMap());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping(path = "/full_record/batch", consumes = "application/json")
+    public ResponseEntity<AppointmentsBatch<CompanyAppointmentFullRecordView>> fetchFullRecordAppointments(
+            @PathVariable("company_number") String companyNumber,
+            @RequestBody AppointmentsBatchRequest batchRequest) {
+
+        DataMapHolder.get()
+                .companyNumber(companyNumber);
+        LOGGER.info("Fetching batch of full records of company appointments", DataMapHolder.getLogMap());
+
+        try {
+            return ResponseEntity.ok(companyAppointmentBatchService.fetchFullRecordAppointments(companyNumber,
+                    batchRequest.appointmentIds()));
+        } catch (BadRequestException e) {
+            LOGGER.info(e.getMessage(), DataMapHolder.getLogMap());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PutMapping(path = "/full_record/batch", consumes = "application/json")
+    public ResponseEntity<AppointmentDeltasResult> submitOfficerData(
+            @PathVariable("company_number") String companyNumber,
+            @RequestBody List<FullRecordCompanyOfficerApi> companyAppointmentData) {
+
+        DataMapHolder.get()
+                .companyNumber(companyNumber);
+        LOGGER.info("Updating full records of %d company appointments".formatted(companyAppointmentData.size()),
+                DataMapHolder.getLogMap());
+
+        try {
+            return ResponseEntity.ok(companyAppointmentBulkUpsertService.upsertAppointmentDeltas(companyNumber,
+                    companyAppointmentData));
+        } catch (BadRequestException e) {
+            LOGGER.info(e.getMessage(), DataMapHolder.getLogMap());
+            return ResponseEntity.badRequest().build();
+        } catch (ServiceUnavailableException e) {
+            LOGGER.error(e.getMessage(), DataMapHolder.getLogMap());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
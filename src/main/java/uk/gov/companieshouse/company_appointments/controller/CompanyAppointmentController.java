@@ -1,10 +1,13 @@
 package uk.gov.companieshouse.company_appointments.controller;
 
+import java.util.Optional;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import uk.gov.companieshouse.api.appointment.OfficerList;
@@ -14,8 +17,10 @@ import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
 import uk.gov.companieshouse.company_appointments.exception.NotFoundException;
 import uk.gov.companieshouse.company_appointments.exception.ServiceUnavailableException;
 import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.model.CompanyAppointmentsSlice;
 import uk.gov.companieshouse.company_appointments.model.FetchAppointmentsRequest;
 import uk.gov.companieshouse.company_appointments.service.CompanyAppointmentService;
+import uk.gov.companieshouse.company_appointments.util.EntityTags;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
 
@@ -23,6 +28,8 @@ import uk.gov.companieshouse.logging.LoggerFactory;
 @RequestMapping(path = "/company/{company_number}", produces = "application/json")
 public class CompanyAppointmentController {
 
+    public static final String CONTINUATION_TOKEN_HEADER = "X-Continuation-Token";
+
     private final CompanyAppointmentService companyAppointmentService;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CompanyAppointmentsApplication.APPLICATION_NAME_SPACE);
@@ -33,14 +40,24 @@ public class CompanyAppointmentController {
 
     @GetMapping(path = "/appointments/{appointment_id}")
     public ResponseEntity<OfficerSummary> fetchAppointment(@PathVariable("company_number") String companyNumber,
-            @PathVariable("appointment_id") String appointmentID) {
+            @PathVariable("appointment_id") String appointmentID,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         DataMapHolder.get()
                 .companyNumber(companyNumber);
         LOGGER.info("Fetching appointment %s".formatted(appointmentID), DataMapHolder.getLogMap());
 
         try {
-            return ResponseEntity.ok(companyAppointmentService.fetchAppointment(companyNumber, appointmentID));
+            if (ifNoneMatch != null) {
+                Optional<String> entityTag = companyAppointmentService.fetchAppointmentEntityTag(companyNumber,
+                        appointmentID);
+                if (entityTag.isPresent() && EntityTags.matches(ifNoneMatch, entityTag.get())) {
+                    return notModified(entityTag.get());
+                }
+            }
+            OfficerSummary officerSummary = companyAppointmentService.fetchAppointment(companyNumber, appointmentID);
+            return withEntityTag(ResponseEntity.ok(), companyAppointmentService.entityTagOf(officerSummary))
+                    .body(officerSummary);
         } catch (NotFoundException e) {
             LOGGER.info(e.getMessage(), DataMapHolder.getLogMap());
             return ResponseEntity.notFound().build();
@@ -55,7 +72,9 @@ public class CompanyAppointmentController {
             @RequestParam(required = false, name = "start_index") Integer startIndex,
             @RequestParam(required = false, name = "items_per_page") Integer itemsPerPage,
             @RequestParam(required = false, name = "register_view") Boolean registerView,
-            @RequestParam(required = false, name = "register_type") String registerType) {
+            @RequestParam(required = false, name = "register_type") String registerType,
+            @RequestParam(required = false, name = "continuation_token") String continuationToken,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         DataMapHolder.get()
                 .companyNumber(companyNumber);
@@ -69,9 +88,20 @@ public class CompanyAppointmentController {
                 .withItemsPerPage(itemsPerPage)
                 .withRegisterView(registerView)
                 .withRegisterType(registerType)
+                .withContinuationToken(continuationToken)
                 .build();
         try {
-            return ResponseEntity.ok(companyAppointmentService.fetchAppointmentsForCompany(request));
+            CompanyAppointmentsSlice slice = companyAppointmentService.fetchAppointmentsForCompany(request,
+                    ifNoneMatch);
+            if (slice.isNotModified()) {
+                return notModified(slice.entityTag());
+            }
+            ResponseEntity.BodyBuilder response = withEntityTag(ResponseEntity.ok(),
+                    Optional.ofNullable(slice.entityTag()));
+            if (slice.nextContinuationToken() != null) {
+                response.header(CONTINUATION_TOKEN_HEADER, slice.nextContinuationToken());
+            }
+            return response.body(slice.officerList());
         } catch (NotFoundException e) {
             LOGGER.info(e.getMessage(), DataMapHolder.getLogMap());
             return ResponseEntity.notFound().build();
@@ -83,4 +113,14 @@ public class CompanyAppointmentController {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
     }
+
+    private static <T> ResponseEntity<T> notModified(String entityTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+    }
+
+    private static ResponseEntity.BodyBuilder withEntityTag(ResponseEntity.BodyBuilder response,
+            Optional<String> entityTag) {
+        entityTag.ifPresent(response::eTag);
+        return response;
+    }
 }
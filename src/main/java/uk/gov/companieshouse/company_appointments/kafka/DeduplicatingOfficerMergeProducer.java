@@ -0,0 +1,121 @@
+package uk.gov.companieshouse.company_appointments.kafka;
+
+import static uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication.APPLICATION_NAME_SPACE;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.repository.OfficerMergeMarkers;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * Suppresses an officer merge already published for the same officer and previous officer within the window, as when
+ * the delta stream re-sends every appointment of an officer whose ID has changed. Recent merges are held in a
+ * size-bounded in-process set and, when distributed, also marked in {@link OfficerMergeMarkers} so that merges
+ * published by other instances are suppressed too. A merge whose marker cannot be claimed or that fails to publish is
+ * forgotten, so it can be retried.
+ */
+@Component
+@Primary
+public class DeduplicatingOfficerMergeProducer implements OfficerMergeProducer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(APPLICATION_NAME_SPACE);
+
+    private final OfficerMergeProducer delegate;
+    private final Optional<OfficerMergeMarkers> markers;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Duration window;
+    private final Cache<String, Instant> recent;
+    private final Counter suppressedLocally;
+    private final Counter suppressedByMarker;
+
+    DeduplicatingOfficerMergeProducer(OfficerMergeKafkaProducer delegate,
+            Optional<OfficerMergeMarkers> markers,
+            Clock clock,
+            @Value("${kafka.officer-merge.dedup.enabled}") boolean enabled,
+            @Value("${kafka.officer-merge.dedup.window}") Duration window,
+            @Value("${kafka.officer-merge.dedup.maximum-size}") long maximumSize,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.markers = markers;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.window = window;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window)
+                .build();
+        this.suppressedLocally = suppressedCounter(meterRegistry, "local");
+        this.suppressedByMarker = suppressedCounter(meterRegistry, "marker");
+    }
+
+    @Override
+    public void invokeOfficerMerge(String officerId, String previousOfficerId) {
+        if (!enabled) {
+            delegate.invokeOfficerMerge(officerId, previousOfficerId);
+            return;
+        }
+        String key = officerId + "/" + previousOfficerId;
+        Instant now = clock.instant().truncatedTo(ChronoUnit.MILLIS);
+        Instant expiresAt = now.plus(window);
+
+        if (recent.asMap().putIfAbsent(key, expiresAt) != null) {
+            suppressed(suppressedLocally, officerId, previousOfficerId);
+            return;
+        }
+        // from here on any failure, including one to claim the marker, forgets the merge so that it can be retried
+        boolean claimed = false;
+        try {
+            if (markers.isPresent()) {
+                if (!markers.get().claim(key, now, expiresAt)) {
+                    suppressed(suppressedByMarker, officerId, previousOfficerId);
+                    return;
+                }
+                claimed = true;
+            }
+            delegate.invokeOfficerMerge(officerId, previousOfficerId);
+        } catch (RuntimeException | Error ex) {
+            recent.asMap().remove(key, expiresAt);
+            if (claimed) {
+                release(key, expiresAt, ex);
+            }
+            throw ex;
+        }
+    }
+
+    private void release(String key, Instant expiresAt, Throwable failure) {
+        try {
+            markers.ifPresent(m -> m.release(key, expiresAt));
+        } catch (RuntimeException ex) {
+            failure.addSuppressed(ex);
+        }
+    }
+
+    private static void suppressed(Counter counter, String officerId, String previousOfficerId) {
+        counter.increment();
+        DataMapHolder.get()
+                .officerId(officerId)
+                .previousOfficerId(previousOfficerId);
+        LOGGER.debug("Suppressed officer merge published within the de-duplication window",
+                DataMapHolder.getLogMap());
+    }
+
+    private static Counter suppressedCounter(MeterRegistry meterRegistry, String by) {
+        return Counter.builder("officer.merge.dedup.suppressed")
+                .description("Officer merges not published because the same merge was published within the window")
+                .tag("by", by)
+                .register(meterRegistry);
+    }
+}
@@ -2,7 +2,15 @@ package uk.gov.companieshouse.company_appointments.kafka;
 
 import static uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication.APPLICATION_NAME_SPACE;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Map;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -13,6 +21,14 @@ import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
 import uk.gov.companieshouse.officermerge.OfficerMerge;
 
+/**
+ * Publishes officer-merge messages, either waiting for each to be acknowledged or, when async is enabled, returning
+ * once the message is handed to the producer and confirming its delivery in a callback. Async sends are bounded by a
+ * window of messages awaiting acknowledgement; a send that cannot enter the window in time fails as if the broker
+ * were unavailable. An async message that the producer fails to deliver after its own retries is logged and counted,
+ * but not reported to the caller, so async is ignored while the outbox is enabled: its dispatcher is then the only
+ * caller and removes each event once this returns, so every send must wait for its acknowledgement.
+ */
 @Component
 public class OfficerMergeKafkaProducer implements OfficerMergeProducer {
 
@@ -20,29 +36,111 @@ public class OfficerMergeKafkaProducer implements OfficerMergeProducer {
 
     private final KafkaTemplate<String, OfficerMerge> kafkaTemplate;
     private final String officerMergeTopic;
+    private final boolean asyncEnabled;
+    private final Semaphore inFlight;
+    private final Duration inFlightTimeout;
+    private final Timer acknowledgementLatency;
+    private final Counter delivered;
+    private final Counter failed;
 
     public OfficerMergeKafkaProducer(KafkaTemplate<String, OfficerMerge> kafkaTemplate,
-            @Value("${kafka.officer-merge.topic}") String officerMergeTopic) {
+            @Value("${kafka.officer-merge.topic}") String officerMergeTopic,
+            @Value("${kafka.officer-merge.async-enabled}") boolean asyncEnabled,
+            @Value("${company-appointments.outbox.enabled}") boolean outboxEnabled,
+            @Value("${kafka.officer-merge.max-in-flight}") int maxInFlight,
+            @Value("${kafka.officer-merge.in-flight-timeout}") Duration inFlightTimeout,
+            MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
         this.officerMergeTopic = officerMergeTopic;
+        this.asyncEnabled = asyncEnabled && !outboxEnabled;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.inFlightTimeout = inFlightTimeout;
+        this.acknowledgementLatency = Timer.builder("officer.merge.kafka.acknowledgement.latency")
+                .description("Time from sending an officer-merge message to its acknowledgement or failure")
+                .register(meterRegistry);
+        this.delivered = sendsCounter(meterRegistry, "delivered");
+        this.failed = sendsCounter(meterRegistry, "failed");
+        Gauge.builder("officer.merge.kafka.in.flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                .description("Officer-merge messages sent asynchronously and awaiting acknowledgement")
+                .register(meterRegistry);
     }
 
     public void invokeOfficerMerge(String officerId, String previousOfficerId) {
+        DataMapHolder.get()
+                .officerId(officerId)
+                .previousOfficerId(previousOfficerId);
+        OfficerMerge officerMerge = new OfficerMerge(officerId, previousOfficerId, DataMapHolder.getRequestId());
+        if (asyncEnabled) {
+            sendAsync(officerMerge);
+        } else {
+            sendAndWait(officerMerge);
+        }
+    }
+
+    private void sendAndWait(OfficerMerge officerMerge) {
+        long start = System.nanoTime();
         try {
-            DataMapHolder.get()
-                    .officerId(officerId)
-                    .previousOfficerId(previousOfficerId);
-            OfficerMerge officerMerge = new OfficerMerge(officerId, previousOfficerId, DataMapHolder.getRequestId());
             kafkaTemplate.send(officerMergeTopic, officerMerge).join();
         } catch (CompletionException ex) {
+            acknowledged(start, false);
             final String msg = "Completion error during Kafka send Future";
             LOGGER.info(msg, DataMapHolder.getLogMap());
             throw new BadGatewayException(msg, ex);
         } catch (KafkaException ex) {
+            acknowledged(start, false);
             final String msg = "Error publishing to officer-merge topic";
             LOGGER.info(msg, DataMapHolder.getLogMap());
             throw new BadGatewayException(msg, ex);
         }
+        acknowledged(start, true);
         LOGGER.info("Successfully published message to officer-merge topic", DataMapHolder.getLogMap());
     }
+
+    private void sendAsync(OfficerMerge officerMerge) {
+        enterInFlightWindow();
+        long start = System.nanoTime();
+        Map<String, Object> logMap = DataMapHolder.getLogMap();
+        try {
+            kafkaTemplate.send(officerMergeTopic, officerMerge).whenComplete((result, ex) -> {
+                inFlight.release();
+                acknowledged(start, ex == null);
+                if (ex == null) {
+                    LOGGER.info("Successfully published message to officer-merge topic", logMap);
+                } else {
+                    LOGGER.error("Failed to publish message to officer-merge topic", ex, logMap);
+                }
+            });
+        } catch (KafkaException ex) {
+            inFlight.release();
+            acknowledged(start, false);
+            final String msg = "Error publishing to officer-merge topic";
+            LOGGER.info(msg, logMap);
+            throw new BadGatewayException(msg, ex);
+        }
+    }
+
+    private void enterInFlightWindow() {
+        try {
+            if (inFlight.tryAcquire(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        final String msg = "Too many officer-merge messages awaiting acknowledgement";
+        LOGGER.info(msg, DataMapHolder.getLogMap());
+        throw new BadGatewayException(msg, null);
+    }
+
+    private void acknowledged(long start, boolean success) {
+        acknowledgementLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        (success ? delivered : failed).increment();
+    }
+
+    private static Counter sendsCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("officer.merge.kafka.sends")
+                .description("Officer-merge messages sent, by whether they were delivered")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 }
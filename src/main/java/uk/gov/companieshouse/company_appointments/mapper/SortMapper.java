@@ -11,6 +11,8 @@ public class SortMapper {
     public static final String SURNAME = "surname";
     public static final String RESIGNED_ON = "resigned_on";
 
+    private static final String ID = "_id";
+
     private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.ASC, "officer_role_sort_order")
             .and(Sort.by(Sort.Direction.ASC, "data.company_name", "data.surname"))
             .and(Sort.by(Sort.Direction.ASC, "data.forename"))
@@ -32,4 +34,17 @@ public class SortMapper {
             throw new BadRequestException(String.format("Invalid order by parameter [%s]", orderBy));
         }
     }
+
+    /**
+     * The sort for the given order with _id as the final tie-breaker, in the direction of the last sort field, so
+     * every appointment has a unique position that a continuation token can seek past.
+     */
+    public Sort getKeysetSort(String orderBy) throws BadRequestException {
+        Sort sort = getSort(orderBy);
+        Sort.Direction direction = sort.stream()
+                .reduce((first, second) -> second)
+                .map(Sort.Order::getDirection)
+                .orElse(Sort.Direction.ASC);
+        return sort.and(Sort.by(direction, ID));
+    }
 }
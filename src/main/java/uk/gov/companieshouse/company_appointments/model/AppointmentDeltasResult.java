@@ -0,0 +1,17 @@
+package uk.gov.companieshouse.company_appointments.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import org.springframework.lang.Nullable;
+
+/**
+ * The result of upserting a batch of appointment deltas, with one item per delta in request order. Each item's status
+ * is the one a single full record PUT of its delta would have returned: 200 when written, 400 when invalid, 409 when
+ * stale and 503 when it is to be retried.
+ */
+public record AppointmentDeltasResult(@JsonProperty("items") List<Item> items) {
+
+    public record Item(@JsonProperty("appointment_id") @Nullable String appointmentId,
+                       @JsonProperty("status") int status) {
+    }
+}
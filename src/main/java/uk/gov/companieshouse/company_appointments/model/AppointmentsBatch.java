@@ -0,0 +1,46 @@
+package uk.gov.companieshouse.company_appointments.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+
+/**
+ * The result of fetching a batch of a company's appointments, with one item per requested ID in request order. An
+ * appointment that was not found is reported inline by its item's status rather than failing the batch.
+ */
+public record AppointmentsBatch<T>(@JsonProperty("items") List<Item<T>> items) {
+
+    public record Item<T>(@JsonProperty("appointment_id") String appointmentId,
+                          @JsonProperty("status") int status,
+                          @JsonProperty("appointment") @Nullable T appointment) {
+
+        public static <T> Item<T> found(String appointmentId, T appointment) {
+            return new Item<>(appointmentId, HttpStatus.OK.value(), appointment);
+        }
+
+        public static <T> Item<T> notFound(String appointmentId) {
+            return new Item<>(appointmentId, HttpStatus.NOT_FOUND.value(), null);
+        }
+    }
+
+    /**
+     * The batch for the requested appointment IDs, mapping the documents found for them.
+     */
+    public static <T> AppointmentsBatch<T> of(List<String> appointmentIds,
+            List<CompanyAppointmentDocument> documents, Function<CompanyAppointmentDocument, T> mapper) {
+        Map<String, CompanyAppointmentDocument> documentsById = documents.stream()
+                .collect(Collectors.toMap(CompanyAppointmentDocument::getId, Function.identity()));
+        return new AppointmentsBatch<>(appointmentIds.stream()
+                .map(appointmentId -> {
+                    CompanyAppointmentDocument document = documentsById.get(appointmentId);
+                    return document != null ? Item.found(appointmentId, mapper.apply(document))
+                            : Item.<T>notFound(appointmentId);
+                })
+                .toList());
+    }
+}
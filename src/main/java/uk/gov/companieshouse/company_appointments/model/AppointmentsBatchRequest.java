@@ -0,0 +1,10 @@
+package uk.gov.companieshouse.company_appointments.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * The IDs of a company's appointments to fetch in one request.
+ */
+public record AppointmentsBatchRequest(@JsonProperty("appointment_ids") List<String> appointmentIds) {
+}
@@ -0,0 +1,68 @@
+package uk.gov.companieshouse.company_appointments.model;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonParseException;
+import org.bson.json.JsonWriterSettings;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
+
+/**
+ * Opaque position in a company's appointments list: the order_by it was issued for, the values of each field of
+ * that order (ending with the _id tie-breaker) for the last appointment returned, and how many appointments have
+ * been returned so far.
+ * <p>
+ * A blank token is the position before the first appointment.
+ */
+public record CompanyAppointmentsContinuationToken(String orderBy, List<Object> position, int offset) {
+
+    private static final String VERSION = "1";
+    private static final String DELIMITER = "|";
+    private static final String POSITION = "position";
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder()
+            .outputMode(JsonMode.EXTENDED)
+            .build();
+
+    public boolean isStart() {
+        return position.isEmpty();
+    }
+
+    public String encode() {
+        String token = String.join(DELIMITER, VERSION,
+                StringUtils.defaultString(orderBy),
+                String.valueOf(offset),
+                new Document(POSITION, position).toJson(JSON_SETTINGS));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(UTF_8));
+    }
+
+    /**
+     * Decodes a token issued for the given order_by; a token from a different order describes a position in
+     * another sequence and is rejected.
+     */
+    public static CompanyAppointmentsContinuationToken decode(String token, String orderBy) {
+        if (StringUtils.isBlank(token)) {
+            return new CompanyAppointmentsContinuationToken(orderBy, List.of(), 0);
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), UTF_8)
+                    .split("\\" + DELIMITER, 4);
+            if (parts.length != 4 || !VERSION.equals(parts[0])
+                    || !Objects.equals(StringUtils.defaultString(orderBy), parts[1])) {
+                throw new BadRequestException("Invalid continuation token supplied: %s".formatted(token));
+            }
+            int offset = Integer.parseInt(parts[2]);
+            List<Object> position = Document.parse(parts[3]).getList(POSITION, Object.class);
+            if (offset < 0 || position == null || position.isEmpty()) {
+                throw new BadRequestException("Invalid continuation token supplied: %s".formatted(token));
+            }
+            return new CompanyAppointmentsContinuationToken(orderBy, position, offset);
+        } catch (IllegalArgumentException | JsonParseException | ClassCastException ex) {
+            throw new BadRequestException("Invalid continuation token supplied: %s".formatted(token));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package uk.gov.companieshouse.company_appointments.model;
+
+import org.springframework.lang.Nullable;
+import uk.gov.companieshouse.api.appointment.OfficerList;
+
+/**
+ * A page of a company's appointments, with the continuation token for the following page while more remain and the
+ * page's entity tag while conditional GET requests are enabled. A slice without an officer list is one whose entity
+ * tag matched the request's If-None-Match header.
+ */
+public record CompanyAppointmentsSlice(@Nullable OfficerList officerList, @Nullable String nextContinuationToken,
+                                       @Nullable String entityTag) {
+
+    public CompanyAppointmentsSlice(OfficerList officerList, @Nullable String nextContinuationToken) {
+        this(officerList, nextContinuationToken, null);
+    }
+
+    public static CompanyAppointmentsSlice notModified(String entityTag) {
+        return new CompanyAppointmentsSlice(null, null, entityTag);
+    }
+
+    public boolean isNotModified() {
+        return officerList == null;
+    }
+}
@@ -11,6 +11,7 @@ public class FetchAppointmentsRequest {
     private final Integer itemsPerPage;
     private final Boolean registerView;
     private final String registerType;
+    private final String continuationToken;
 
     private FetchAppointmentsRequest(Builder builder) {
         companyNumber = builder.companyNumber;
@@ -20,6 +21,7 @@ public class FetchAppointmentsRequest {
         itemsPerPage = builder.itemsPerPage;
         registerView = builder.registerView;
         registerType = builder.registerType;
+        continuationToken = builder.continuationToken;
     }
 
     public String getCompanyNumber() {
@@ -50,6 +52,10 @@ public class FetchAppointmentsRequest {
         return registerType;
     }
 
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
     public static final class Builder {
         private String companyNumber;
         private String filter;
@@ -58,6 +64,7 @@ public class FetchAppointmentsRequest {
         private Integer itemsPerPage;
         private Boolean registerView;
         private String registerType;
+        private String continuationToken;
 
         private Builder() {
         }
@@ -101,6 +108,11 @@ public class FetchAppointmentsRequest {
             return this;
         }
 
+        public Builder withContinuationToken(String continuationToken) {
+            this.continuationToken = continuationToken;
+            return this;
+        }
+
         public FetchAppointmentsRequest build() {
             return new FetchAppointmentsRequest(this);
         }
@@ -121,11 +133,13 @@ public class FetchAppointmentsRequest {
                 Objects.equals(startIndex, request.startIndex) &&
                 Objects.equals(itemsPerPage, request.itemsPerPage) &&
                 Objects.equals(registerView, request.registerView) &&
-                Objects.equals(registerType, request.registerType);
+                Objects.equals(registerType, request.registerType) &&
+                Objects.equals(continuationToken, request.continuationToken);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(companyNumber, filter, orderBy, startIndex, itemsPerPage, registerView, registerType);
+        return Objects.hash(companyNumber, filter, orderBy, startIndex, itemsPerPage, registerView, registerType,
+                continuationToken);
     }
 }
@@ -0,0 +1,153 @@
+package uk.gov.companieshouse.company_appointments.model.data;
+
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * A resource-changed or officer-merge event waiting in the outbox to be published for an appointment write. Events
+ * are published in _id order per appointment, each becoming due again at next_attempt_at while it is being published
+ * or after it has failed.
+ */
+@Document(collection = "appointment_events_outbox")
+public class AppointmentEvent {
+
+    public enum Type {
+        RESOURCE_CHANGED,
+        OFFICER_MERGE
+    }
+
+    @Id
+    private String id;
+    @Field("type")
+    private Type type;
+    @Field("company_number")
+    private String companyNumber;
+    @Field("appointment_id")
+    private String appointmentId;
+    @Field("officer_data")
+    private Object officerData;
+    @Field("is_delete")
+    private Boolean delete;
+    @Field("officer_id")
+    private String officerId;
+    @Field("previous_officer_id")
+    private String previousOfficerId;
+    @Field("request_id")
+    private String requestId;
+    @Field("created_at")
+    private Instant createdAt;
+    @Field("next_attempt_at")
+    private Instant nextAttemptAt;
+    @Field("attempts")
+    private int attempts;
+
+    public String getId() {
+        return id;
+    }
+
+    public AppointmentEvent id(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public AppointmentEvent type(Type type) {
+        this.type = type;
+        return this;
+    }
+
+    public String getCompanyNumber() {
+        return companyNumber;
+    }
+
+    public AppointmentEvent companyNumber(String companyNumber) {
+        this.companyNumber = companyNumber;
+        return this;
+    }
+
+    public String getAppointmentId() {
+        return appointmentId;
+    }
+
+    public AppointmentEvent appointmentId(String appointmentId) {
+        this.appointmentId = appointmentId;
+        return this;
+    }
+
+    public Object getOfficerData() {
+        return officerData;
+    }
+
+    public AppointmentEvent officerData(Object officerData) {
+        this.officerData = officerData;
+        return this;
+    }
+
+    public Boolean getDelete() {
+        return delete;
+    }
+
+    public AppointmentEvent delete(Boolean delete) {
+        this.delete = delete;
+        return this;
+    }
+
+    public String getOfficerId() {
+        return officerId;
+    }
+
+    public AppointmentEvent officerId(String officerId) {
+        this.officerId = officerId;
+        return this;
+    }
+
+    public String getPreviousOfficerId() {
+        return previousOfficerId;
+    }
+
+    public AppointmentEvent previousOfficerId(String previousOfficerId) {
+        this.previousOfficerId = previousOfficerId;
+        return this;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public AppointmentEvent requestId(String requestId) {
+        this.requestId = requestId;
+        return this;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public AppointmentEvent createdAt(Instant createdAt) {
+        this.createdAt = createdAt;
+        return this;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public AppointmentEvent nextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+        return this;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public AppointmentEvent attempts(int attempts) {
+        this.attempts = attempts;
+        return this;
+    }
+}
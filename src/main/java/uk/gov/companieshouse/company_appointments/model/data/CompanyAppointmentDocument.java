@@ -39,6 +39,14 @@ public class CompanyAppointmentDocument {
     private String companyName;
     @Field("company_status")
     private String companyStatus;
+    @Field("sort_bucket")
+    private Integer sortBucket;
+    @Field("sort_date")
+    private Instant sortDate;
+    @Field("register_type")
+    private String registerType;
+    @Field("is_active")
+    private Boolean active;
 
     public String getId() {
         return id;
@@ -178,6 +186,57 @@ public class CompanyAppointmentDocument {
         return this;
     }
 
+    /**
+     * The bucket of the officer appointments ordering: {@link SortKeys#ACTIVE_BUCKET} or
+     * {@link SortKeys#RESIGNED_BUCKET}.
+     */
+    public Integer getSortBucket() {
+        return sortBucket;
+    }
+
+    public CompanyAppointmentDocument sortBucket(Integer sortBucket) {
+        this.sortBucket = sortBucket;
+        return this;
+    }
+
+    /**
+     * The date the appointment is ordered on within its bucket: resigned_on for resigned appointments, otherwise
+     * appointed_on or, failing that, appointed_before.
+     */
+    public Instant getSortDate() {
+        return sortDate;
+    }
+
+    public CompanyAppointmentDocument sortDate(Instant sortDate) {
+        this.sortDate = sortDate;
+        return this;
+    }
+
+    /**
+     * The register the officer role is kept on: directors, secretaries or llp_members, or null for roles on none of
+     * them.
+     */
+    public String getRegisterType() {
+        return registerType;
+    }
+
+    public CompanyAppointmentDocument registerType(String registerType) {
+        this.registerType = registerType;
+        return this;
+    }
+
+    /**
+     * Whether the officer has not resigned from the appointment.
+     */
+    public Boolean getActive() {
+        return active;
+    }
+
+    public CompanyAppointmentDocument active(Boolean active) {
+        this.active = active;
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -201,14 +260,18 @@ public class CompanyAppointmentDocument {
                 && Objects.equals(created, that.created)
                 && Objects.equals(deltaAt, that.deltaAt)
                 && Objects.equals(companyName, that.companyName)
-                && Objects.equals(companyStatus, that.companyStatus);
+                && Objects.equals(companyStatus, that.companyStatus)
+                && Objects.equals(sortBucket, that.sortBucket)
+                && Objects.equals(sortDate, that.sortDate)
+                && Objects.equals(registerType, that.registerType)
+                && Objects.equals(active, that.active);
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(id, data, sensitiveData, internalId, appointmentId, officerId, previousOfficerId, companyNumber, updated, updatedBy, created, deltaAt, officerRoleSortOrder,
                 companyName,
-                companyStatus);
+                companyStatus, sortBucket, sortDate, registerType, active);
     }
 
     @Override
@@ -229,6 +292,10 @@ public class CompanyAppointmentDocument {
                 ", officerRoleSortOrder=" + officerRoleSortOrder +
                 ", companyName='" + companyName + '\'' +
                 ", companyStatus='" + companyStatus + '\'' +
+                ", sortBucket=" + sortBucket +
+                ", sortDate=" + sortDate +
+                ", registerType='" + registerType + '\'' +
+                ", active=" + active +
                 '}';
     }
 }
\ No newline at end of file
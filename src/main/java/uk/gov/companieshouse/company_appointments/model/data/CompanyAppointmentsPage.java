@@ -0,0 +1,88 @@
+package uk.gov.companieshouse.company_appointments.model.data;
+
+import java.util.List;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * A page of a company's appointments together with the appointment counts that accompany it.
+ */
+public class CompanyAppointmentsPage {
+
+    @Field("items")
+    private List<CompanyAppointmentDocument> items;
+    @Field("total_count")
+    private int totalCount;
+    @Field("active_count")
+    private int activeCount;
+    @Field("resigned_count")
+    private int resignedCount;
+    @Field("active_directors_count")
+    private int activeDirectorsCount;
+    @Field("active_secretaries_count")
+    private int activeSecretariesCount;
+    @Field("active_llp_members_count")
+    private int activeLlpMembersCount;
+
+    public List<CompanyAppointmentDocument> getItems() {
+        return items;
+    }
+
+    public CompanyAppointmentsPage items(List<CompanyAppointmentDocument> items) {
+        this.items = items;
+        return this;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public CompanyAppointmentsPage totalCount(int totalCount) {
+        this.totalCount = totalCount;
+        return this;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public CompanyAppointmentsPage activeCount(int activeCount) {
+        this.activeCount = activeCount;
+        return this;
+    }
+
+    public int getResignedCount() {
+        return resignedCount;
+    }
+
+    public CompanyAppointmentsPage resignedCount(int resignedCount) {
+        this.resignedCount = resignedCount;
+        return this;
+    }
+
+    public int getActiveDirectorsCount() {
+        return activeDirectorsCount;
+    }
+
+    public CompanyAppointmentsPage activeDirectorsCount(int activeDirectorsCount) {
+        this.activeDirectorsCount = activeDirectorsCount;
+        return this;
+    }
+
+    public int getActiveSecretariesCount() {
+        return activeSecretariesCount;
+    }
+
+    public CompanyAppointmentsPage activeSecretariesCount(int activeSecretariesCount) {
+        this.activeSecretariesCount = activeSecretariesCount;
+        return this;
+    }
+
+    public int getActiveLlpMembersCount() {
+        return activeLlpMembersCount;
+    }
+
+    public CompanyAppointmentsPage activeLlpMembersCount(int activeLlpMembersCount) {
+        this.activeLlpMembersCount = activeLlpMembersCount;
+        return this;
+    }
+}
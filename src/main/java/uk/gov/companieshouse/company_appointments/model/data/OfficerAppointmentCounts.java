@@ -0,0 +1,105 @@
+package uk.gov.companieshouse.company_appointments.model.data;
+
+import java.util.Objects;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Appointment counts for one officer, maintained on write so the officer appointments endpoint does not have to count
+ * the officer's appointments on every request.
+ */
+@Document(collection = "officer_appointment_counts")
+public class OfficerAppointmentCounts {
+
+    @Id
+    private String officerId;
+    @Field("total_results")
+    private int totalResults;
+    @Field("resigned_count")
+    private int resignedCount;
+    @Field("inactive_count")
+    private int inactiveCount;
+
+    public String getOfficerId() {
+        return officerId;
+    }
+
+    public OfficerAppointmentCounts officerId(String officerId) {
+        this.officerId = officerId;
+        return this;
+    }
+
+    public int getTotalResults() {
+        return totalResults;
+    }
+
+    public OfficerAppointmentCounts totalResults(int totalResults) {
+        this.totalResults = totalResults;
+        return this;
+    }
+
+    public int getResignedCount() {
+        return resignedCount;
+    }
+
+    public OfficerAppointmentCounts resignedCount(int resignedCount) {
+        this.resignedCount = resignedCount;
+        return this;
+    }
+
+    public int getInactiveCount() {
+        return inactiveCount;
+    }
+
+    public OfficerAppointmentCounts inactiveCount(int inactiveCount) {
+        this.inactiveCount = inactiveCount;
+        return this;
+    }
+
+    /**
+     * The number of active appointments at companies that are not closed, i.e. the total when the active filter is
+     * applied.
+     */
+    public int getActiveCount() {
+        return totalResults - resignedCount - inactiveCount;
+    }
+
+    /**
+     * Whether the counts could describe an officer's appointments. Counts decremented below zero cannot, and are not
+     * to be trusted until reconciled.
+     */
+    public boolean isConsistent() {
+        return totalResults >= 0 && resignedCount >= 0 && inactiveCount >= 0 && getActiveCount() >= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        OfficerAppointmentCounts that = (OfficerAppointmentCounts) o;
+        return totalResults == that.totalResults
+                && resignedCount == that.resignedCount
+                && inactiveCount == that.inactiveCount
+                && Objects.equals(officerId, that.officerId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(officerId, totalResults, resignedCount, inactiveCount);
+    }
+
+    @Override
+    public String toString() {
+        return "OfficerAppointmentCounts{" +
+                "officerId='" + officerId + '\'' +
+                ", totalResults=" + totalResults +
+                ", resignedCount=" + resignedCount +
+                ", inactiveCount=" + inactiveCount +
+                '}';
+    }
+}
@@ -0,0 +1,27 @@
+package uk.gov.companieshouse.company_appointments.model.data;
+
+import java.time.Instant;
+
+/**
+ * Normalised keys for the active-then-resigned ordering of an officer's appointments, persisted on each document so
+ * the ordering can be read from an index rather than computed per request.
+ */
+public final class SortKeys {
+
+    public static final int ACTIVE_BUCKET = 0;
+    public static final int RESIGNED_BUCKET = 1;
+
+    private SortKeys() {
+    }
+
+    public static int bucket(DeltaOfficerData data) {
+        return data.getResignedOn() != null ? RESIGNED_BUCKET : ACTIVE_BUCKET;
+    }
+
+    public static Instant date(DeltaOfficerData data) {
+        if (data.getResignedOn() != null) {
+            return data.getResignedOn();
+        }
+        return data.getAppointedOn() != null ? data.getAppointedOn() : data.getAppointedBefore();
+    }
+}
@@ -6,6 +6,9 @@ import uk.gov.companieshouse.api.appointment.FullRecordCompanyOfficerApi;
 import uk.gov.companieshouse.api.appointment.InternalData;
 import uk.gov.companieshouse.company_appointments.exception.FailedToTransformException;
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaOfficerData;
+import uk.gov.companieshouse.company_appointments.model.data.SortKeys;
+import uk.gov.companieshouse.company_appointments.roles.RegisterTypes;
 
 @Component
 public class DeltaAppointmentTransformer implements Transformative<FullRecordCompanyOfficerApi, CompanyAppointmentDocument> {
@@ -36,7 +39,9 @@ public class DeltaAppointmentTransformer implements Transformative<FullRecordCom
             ExternalData externalData = api.getExternalData();
             InternalData internalData = api.getInternalData();
 
-            return entity.data(officerDataTransformer.transform(externalData.getData()))
+            DeltaOfficerData data = officerDataTransformer.transform(externalData.getData());
+
+            entity.data(data)
                     .sensitiveData(externalData.getSensitiveData() != null ?
                             sensitiveDataTransformer.transform(externalData.getSensitiveData()) : null)
                     .id(externalData.getAppointmentId())
@@ -49,7 +54,13 @@ public class DeltaAppointmentTransformer implements Transformative<FullRecordCom
                     .updatedBy(internalData.getUpdatedBy())
                     .officerRoleSortOrder(internalData.getOfficerRoleSortOrder())
                     .companyName(externalData.getCompanyName())
-                    .companyStatus(externalData.getCompanyStatus().getValue());
+                    .companyStatus(externalData.getCompanyStatus().getValue())
+                    .sortBucket(SortKeys.bucket(data))
+                    .sortDate(SortKeys.date(data))
+                    .registerType(RegisterTypes.of(data.getOfficerRole()))
+                    .active(RegisterTypes.isActive(data));
+            data.setEtag(DeltaContentEtag.of(entity));
+            return entity;
         } catch(Exception e) {
             throw new FailedToTransformException(String.format("Failed to transform API payload: %s", e.getMessage()));
         }
@@ -0,0 +1,59 @@
+package uk.gov.companieshouse.company_appointments.model.transformer;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaOfficerData;
+
+/**
+ * The etag of an appointment, derived from its content so that a delta which changes nothing gets the etag already
+ * stored. The appointment is canonicalised as JSON of its fields in name order, leaving out the etag itself and the
+ * delta_at, audit and timestamp fields that every delta changes, and hashed with SHA-256. The etag is the first 40 hex
+ * digits of the hash, the same length as the random etags it replaces.
+ */
+final class DeltaContentEtag {
+
+    private static final int ETAG_LENGTH = 40;
+    private static final ObjectWriter CANONICAL_WRITER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .visibility(PropertyAccessor.ALL, Visibility.NONE)
+            .visibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .addMixIn(CompanyAppointmentDocument.class, ExcludedDocumentFields.class)
+            .addMixIn(DeltaOfficerData.class, ExcludedDataFields.class)
+            .build()
+            .writer();
+
+    private DeltaContentEtag() {
+    }
+
+    static String of(CompanyAppointmentDocument document) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(CANONICAL_WRITER.writeValueAsBytes(document));
+            return HexFormat.of().formatHex(hash).substring(0, ETAG_LENGTH);
+        } catch (NoSuchAlgorithmException | JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @JsonIgnoreProperties({"deltaAt", "updated", "updatedBy", "created"})
+    private abstract static class ExcludedDocumentFields {
+    }
+
+    @JsonIgnoreProperties({"etag"})
+    private abstract static class ExcludedDataFields {
+    }
+}
@@ -0,0 +1,70 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.Instant;
+import java.util.Base64;
+import org.apache.commons.lang3.StringUtils;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaOfficerData;
+import uk.gov.companieshouse.company_appointments.model.data.SortKeys;
+
+/**
+ * Opaque position in the active-then-resigned ordering of an officer's appointments: the bucket, sort date and ID of
+ * the last appointment returned, and how many appointments have been returned so far.
+ * <p>
+ * A blank token is the position before the first appointment.
+ */
+record ContinuationToken(boolean resigned, Instant sortDate, String id, int offset) {
+
+    static final ContinuationToken START = new ContinuationToken(false, null, null, 0);
+
+    private static final String VERSION = "1";
+    private static final String DELIMITER = "|";
+    private static final String ACTIVE_BUCKET = "A";
+    private static final String RESIGNED_BUCKET = "R";
+
+    boolean isStart() {
+        return id == null;
+    }
+
+    static ContinuationToken after(CompanyAppointmentDocument document, int offset) {
+        DeltaOfficerData data = document.getData();
+        return new ContinuationToken(SortKeys.bucket(data) == SortKeys.RESIGNED_BUCKET, SortKeys.date(data),
+                document.getId(), offset);
+    }
+
+    String encode() {
+        String token = String.join(DELIMITER, VERSION,
+                resigned ? RESIGNED_BUCKET : ACTIVE_BUCKET,
+                sortDate != null ? String.valueOf(sortDate.toEpochMilli()) : "",
+                String.valueOf(offset),
+                id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(UTF_8));
+    }
+
+    static ContinuationToken decode(String token) {
+        if (StringUtils.isBlank(token)) {
+            return START;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), UTF_8)
+                    .split("\\" + DELIMITER, 5);
+            if (parts.length != 5 || !VERSION.equals(parts[0]) || StringUtils.isBlank(parts[4])
+                    || !(ACTIVE_BUCKET.equals(parts[1]) || RESIGNED_BUCKET.equals(parts[1]))) {
+                throw new BadRequestException("Invalid continuation token supplied: %s".formatted(token));
+            }
+            int offset = Integer.parseInt(parts[3]);
+            if (offset < 0) {
+                throw new BadRequestException("Invalid continuation token supplied: %s".formatted(token));
+            }
+            return new ContinuationToken(RESIGNED_BUCKET.equals(parts[1]),
+                    parts[2].isEmpty() ? null : Instant.ofEpochMilli(Long.parseLong(parts[2])),
+                    parts[4],
+                    offset);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid continuation token supplied: %s".formatted(token));
+        }
+    }
+}
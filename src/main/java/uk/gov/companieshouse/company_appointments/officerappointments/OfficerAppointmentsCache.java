@@ -0,0 +1,151 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import static uk.gov.companieshouse.company_appointments.interceptor.AuthenticationHelperImpl.hasInternalAppPrivileges;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.officer.AppointmentList;
+
+/**
+ * An in-process, size- and TTL-bounded cache of mapped officer appointments pages. Entries are evicted by officer ID
+ * when an appointment is written; as each instance holds its own cache, writes handled by other instances are only
+ * picked up once the entry expires. The cached pages of each officer are indexed by officer ID, so an eviction only
+ * visits that officer's pages. A page loaded while one of the officer's appointments was written may hold the data
+ * the write replaced, so a page is only cached if no eviction of its officer happened while it was loaded.
+ */
+@Component
+public class OfficerAppointmentsCache {
+
+    static final String CACHE_NAME = "officer.appointments.pages";
+
+    private final boolean enabled;
+    private final Cache<Key, AppointmentList> cache;
+    // the pages and in-flight loads of each officer, only changed within compute for the officer ID
+    private final ConcurrentHashMap<String, Officer> officers = new ConcurrentHashMap<>();
+    private final Counter invalidations;
+
+    OfficerAppointmentsCache(@Value("${officer-appointments.cache.enabled}") boolean enabled,
+            @Value("${officer-appointments.cache.maximum-size}") long maximumSize,
+            @Value("${officer-appointments.cache.time-to-live}") Duration timeToLive,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .removalListener((Key key, AppointmentList page, RemovalCause cause) -> {
+                    if (key != null && cause != RemovalCause.REPLACED) {
+                        unindex(key);
+                    }
+                })
+                .recordStats()
+                .build();
+        this.invalidations = Counter.builder("officer.appointments.cache.invalidations")
+                .description("Officer appointments pages evicted because one of the officer's appointments changed")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached page for the request, loading it on a miss. The loaded page is cached unless the officer
+     * was evicted while it was loaded, and officers without appointments are not cached. The load runs outside the
+     * cache, so a slow load does not hold up other requests.
+     */
+    Optional<AppointmentList> get(OfficerAppointmentsRequest params, Supplier<Optional<AppointmentList>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = Key.of(params);
+        AppointmentList cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long[] evictions = new long[1];
+        officers.compute(key.officerId(), (officerId, officer) -> {
+            officer = officer != null ? officer : new Officer();
+            officer.loads++;
+            evictions[0] = officer.evictions;
+            return officer;
+        });
+        Optional<AppointmentList> page = Optional.empty();
+        try {
+            page = loader.get();
+        } finally {
+            Optional<AppointmentList> loaded = page;
+            officers.compute(key.officerId(), (officerId, officer) -> {
+                officer.loads--;
+                if (loaded.isPresent() && officer.evictions == evictions[0]) {
+                    cache.put(key, loaded.get());
+                    officer.keys.add(key);
+                }
+                return officer.isEmpty() ? null : officer;
+            });
+        }
+        return page;
+    }
+
+    public void evict(String officerId) {
+        if (!enabled || officerId == null) {
+            return;
+        }
+        boolean[] invalidated = new boolean[1];
+        officers.computeIfPresent(officerId, (id, officer) -> {
+            officer.evictions++;
+            invalidated[0] = !officer.keys.isEmpty();
+            cache.invalidateAll(officer.keys);
+            officer.keys.clear();
+            return officer.isEmpty() ? null : officer;
+        });
+        if (invalidated[0]) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Drops a page that has left the cache from its officer's index, unless it has been cached again since.
+     */
+    private void unindex(Key key) {
+        officers.computeIfPresent(key.officerId(), (officerId, officer) -> {
+            if (!cache.asMap().containsKey(key)) {
+                officer.keys.remove(key);
+            }
+            return officer.isEmpty() ? null : officer;
+        });
+    }
+
+    /**
+     * The cached pages of an officer and the loads of its pages in progress, with the number of evictions so far so
+     * that a load can tell whether one happened while it ran.
+     */
+    private static final class Officer {
+
+        private final Set<Key> keys = new HashSet<>();
+        private int loads;
+        private long evictions;
+
+        private boolean isEmpty() {
+            return keys.isEmpty() && loads == 0;
+        }
+    }
+
+    private record Key(String officerId, String filter, Integer startIndex, Integer itemsPerPage,
+                       boolean internalApp) {
+
+        static Key of(OfficerAppointmentsRequest params) {
+            return new Key(params.officerId(), params.filter(), params.startIndex(), params.itemsPerPage(),
+                    hasInternalAppPrivileges(params.authPrivileges()));
+        }
+    }
+}
@@ -2,6 +2,9 @@ package uk.gov.companieshouse.company_appointments.officerappointments;
 
 import static uk.gov.companieshouse.company_appointments.interceptor.AuthenticationHelperImpl.ERIC_AUTHORISED_KEY_PRIVILEGES_HEADER;
 
+import java.util.Optional;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,6 +15,7 @@ import uk.gov.companieshouse.api.officer.AppointmentList;
 import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
 import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
 import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.util.EntityTags;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
 
@@ -19,6 +23,7 @@ import uk.gov.companieshouse.logging.LoggerFactory;
 class OfficerAppointmentsController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CompanyAppointmentsApplication.APPLICATION_NAME_SPACE);
+    static final String CONTINUATION_TOKEN_HEADER = "X-Continuation-Token";
 
     private final OfficerAppointmentsService service;
 
@@ -32,7 +37,9 @@ class OfficerAppointmentsController {
             @RequestParam(value = "filter", required = false) String filter,
             @RequestParam(value = "start_index", required = false) Integer startIndex,
             @RequestParam(value = "items_per_page", required = false) Integer itemsPerPage,
-            @RequestHeader(value = ERIC_AUTHORISED_KEY_PRIVILEGES_HEADER, required = false) String authPrivileges) {
+            @RequestHeader(value = ERIC_AUTHORISED_KEY_PRIVILEGES_HEADER, required = false) String authPrivileges,
+            @RequestParam(value = "continuation_token", required = false) String continuationToken,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             DataMapHolder.get()
                     .officerId(officerId);
@@ -44,11 +51,25 @@ class OfficerAppointmentsController {
                     .startIndex(startIndex)
                     .itemsPerPage(itemsPerPage)
                     .authPrivileges(authPrivileges)
+                    .continuationToken(continuationToken)
                     .build();
 
+            // the entity tag is read before the appointments, so a write in between leaves it older than the body
+            // and the next conditional request misses rather than returning a stale body as not modified
+            final Optional<String> entityTag = service.getOfficerAppointmentsEntityTag(request);
+            if (ifNoneMatch != null && entityTag.isPresent() && EntityTags.matches(ifNoneMatch, entityTag.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag.get()).build();
+            }
+
+            if (continuationToken != null) {
+                return getOfficerAppointmentsAfter(request, entityTag);
+            }
+
             final var officerAppointments = service.getOfficerAppointments(request);
             if (officerAppointments.isPresent()) {
-                return ResponseEntity.ok(officerAppointments.get());
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                entityTag.ifPresent(response::eTag);
+                return response.body(officerAppointments.get());
             }
 
             LOGGER.info(String.format("No appointments found for officer ID %s", officerId),
@@ -56,9 +77,27 @@ class OfficerAppointmentsController {
 
             return ResponseEntity.notFound().build();
         } catch (BadRequestException ex) {
-            LOGGER.info(String.format("Invalid filter parameter supplied: %s, officer ID %s", filter, officerId),
+            LOGGER.info(String.format("Bad request for officer ID %s: %s", officerId, ex.getMessage()),
                     DataMapHolder.getLogMap());
             return ResponseEntity.badRequest().build();
         }
     }
+
+    private ResponseEntity<AppointmentList> getOfficerAppointmentsAfter(OfficerAppointmentsRequest request,
+            Optional<String> entityTag) {
+        final var officerAppointments = service.getOfficerAppointmentsAfter(request);
+        if (officerAppointments.isEmpty()) {
+            LOGGER.info(String.format("No appointments found for officer ID %s", request.officerId()),
+                    DataMapHolder.getLogMap());
+            return ResponseEntity.notFound().build();
+        }
+
+        OfficerAppointmentsSlice slice = officerAppointments.get();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        entityTag.ifPresent(response::eTag);
+        if (slice.nextContinuationToken() != null) {
+            response.header(CONTINUATION_TOKEN_HEADER, slice.nextContinuationToken());
+        }
+        return response.body(slice.appointmentList());
+    }
 }
\ No newline at end of file
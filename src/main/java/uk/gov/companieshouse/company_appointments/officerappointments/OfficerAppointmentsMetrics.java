@@ -0,0 +1,39 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+@Component
+class OfficerAppointmentsMetrics {
+
+    static final String SINGLE_ROUND_TRIP = "single";
+    static final String MULTIPLE_ROUND_TRIPS = "multiple";
+    static final String KEYSET = "keyset";
+
+    private final DistributionSummary singleRoundTrips;
+    private final DistributionSummary multipleRoundTrips;
+    private final DistributionSummary keysetRoundTrips;
+
+    OfficerAppointmentsMetrics(MeterRegistry meterRegistry) {
+        this.singleRoundTrips = roundTripsSummary(meterRegistry, SINGLE_ROUND_TRIP);
+        this.multipleRoundTrips = roundTripsSummary(meterRegistry, MULTIPLE_ROUND_TRIPS);
+        this.keysetRoundTrips = roundTripsSummary(meterRegistry, KEYSET);
+    }
+
+    void recordRoundTrips(String queryMode, int roundTrips) {
+        DistributionSummary summary = switch (queryMode) {
+            case SINGLE_ROUND_TRIP -> singleRoundTrips;
+            case KEYSET -> keysetRoundTrips;
+            default -> multipleRoundTrips;
+        };
+        summary.record(roundTrips);
+    }
+
+    private static DistributionSummary roundTripsSummary(MeterRegistry meterRegistry, String queryMode) {
+        return DistributionSummary.builder("officer.appointments.mongo.round.trips")
+                .description("MongoDB round trips made to build one officer appointments response")
+                .tag("mode", queryMode)
+                .register(meterRegistry);
+    }
+}
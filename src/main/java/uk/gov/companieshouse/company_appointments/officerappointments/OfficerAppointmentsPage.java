@@ -0,0 +1,68 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import java.util.List;
+import org.springframework.data.mongodb.core.mapping.Field;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+
+/**
+ * A page of officer appointments together with the counts and fallback appointment that accompany it, as returned by
+ * a single aggregation round trip.
+ */
+public class OfficerAppointmentsPage {
+
+    @Field("items")
+    private List<CompanyAppointmentDocument> items;
+    @Field("total_results")
+    private int totalResults;
+    @Field("resigned_count")
+    private int resignedCount;
+    @Field("inactive_count")
+    private int inactiveCount;
+    @Field("latest_appointment")
+    private CompanyAppointmentDocument latestAppointment;
+
+    public List<CompanyAppointmentDocument> getItems() {
+        return items;
+    }
+
+    public OfficerAppointmentsPage items(List<CompanyAppointmentDocument> items) {
+        this.items = items;
+        return this;
+    }
+
+    public int getTotalResults() {
+        return totalResults;
+    }
+
+    public OfficerAppointmentsPage totalResults(int totalResults) {
+        this.totalResults = totalResults;
+        return this;
+    }
+
+    public int getResignedCount() {
+        return resignedCount;
+    }
+
+    public OfficerAppointmentsPage resignedCount(int resignedCount) {
+        this.resignedCount = resignedCount;
+        return this;
+    }
+
+    public int getInactiveCount() {
+        return inactiveCount;
+    }
+
+    public OfficerAppointmentsPage inactiveCount(int inactiveCount) {
+        this.inactiveCount = inactiveCount;
+        return this;
+    }
+
+    public CompanyAppointmentDocument getLatestAppointment() {
+        return latestAppointment;
+    }
+
+    public OfficerAppointmentsPage latestAppointment(CompanyAppointmentDocument latestAppointment) {
+        this.latestAppointment = latestAppointment;
+        return this;
+    }
+}
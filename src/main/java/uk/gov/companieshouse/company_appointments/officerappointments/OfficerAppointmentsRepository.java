@@ -1,5 +1,7 @@
 package uk.gov.companieshouse.company_appointments.officerappointments;
 
+import static uk.gov.companieshouse.company_appointments.repository.DeltaAppointmentsProjections.OFFICER_APPOINTMENTS_LIST;
+
 import java.util.List;
 import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.Meta;
@@ -18,9 +20,19 @@ import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentD
  * <p>
  * If filter = false, the aggregation matches on records where data.resigned_on either exists or does not - which
  * effectively just finds all records (i.e., both active and resigned appointments).
+ * <p>
+ * The same ordering is persisted on each document as sort_bucket (0 active, 1 resigned) and sort_date, so the
+ * *BySortKeys queries can read each bucket in order from the officer_id, sort_bucket, sort_date, _id index.
+ * <p>
+ * Queries returning a page of appointments end with the officer appointments list projection, so only the fields the
+ * officer appointments mappers read are returned.
+ * <p>
+ * Sorts on computed fields cannot use an index, so each is followed by a $limit of the most entries the page can take
+ * from it, letting MongoDB keep only the top entries in memory rather than sorting everything matched.
  */
 @Repository
-interface OfficerAppointmentsRepository extends MongoRepository<CompanyAppointmentDocument, String> {
+interface OfficerAppointmentsRepository extends MongoRepository<CompanyAppointmentDocument, String>,
+        OfficerAppointmentsRepositoryExtension {
 
     @Aggregation(pipeline = {
             "{ $match: { "
@@ -49,12 +61,14 @@ interface OfficerAppointmentsRepository extends MongoRepository<CompanyAppointme
             "{ $facet: {"
                     + "'active': ["
                     + "{ $match: {'data.resigned_on': {$exists: false} } },"
-                    + "{ $sort:  {'__sort_active__': -1 } }"
+                    + "{ $sort:  {'__sort_active__': -1 } },"
+                    + "{ $limit: ?#{[3] + [4]} },"
                     + "{ $project: { '_id': 1 } }"
                     + "],"
                     + "'resigned': ["
                     + "{ $match: {'data.resigned_on': {$exists: true} } },"
-                    + "{ $sort:  {'data.resigned_on': -1} }"
+                    + "{ $sort:  {'data.resigned_on': -1} },"
+                    + "{ $limit: ?#{[3] + [4]} },"
                     + "{ $project: { '_id': 1 } }"
                     + "]"
                     + "}"
@@ -83,7 +97,8 @@ interface OfficerAppointmentsRepository extends MongoRepository<CompanyAppointme
                     + "}",
             "{ $sort:  {'data.appointed_on': -1, 'data.appointed_before': -1} }",
             "{ $skip: ?3 }",
-            "{ $limit: ?4 }"
+            "{ $limit: ?4 }",
+            OFFICER_APPOINTMENTS_LIST
     })
     @Meta(allowDiskUse = true)
     List<CompanyAppointmentDocument> findRecentOfficerAppointments(String officerId, boolean filterEnabled,
@@ -97,10 +112,11 @@ interface OfficerAppointmentsRepository extends MongoRepository<CompanyAppointme
                     + "}"
                     + "}",
 
-            "{ $sort: { '__sort_order__': 1 } }"
-                    + "}"
+            "{ $sort: { '__sort_order__': 1 } }",
+            "{ $limit: ?#{[0].size()} }",
+            OFFICER_APPOINTMENTS_LIST
     })
-    List<CompanyAppointmentDocument> findFullOfficerAppointments(Iterable<String> ids);
+    List<CompanyAppointmentDocument> findFullOfficerAppointments(List<String> ids);
 
     @Query(value = "{ $and: [ "
             + "{'officer_id': ?0 },"
@@ -131,4 +147,35 @@ interface OfficerAppointmentsRepository extends MongoRepository<CompanyAppointme
             "{ $limit: 1 }"
     })
     CompanyAppointmentDocument findLatestAppointment(String officerId);
+
+    @Aggregation(pipeline = {
+            "{ $match: { 'officer_id': ?0, 'sort_bucket': 0, 'company_status': { $nin: ?1 } } }",
+            "{ $sort: { 'sort_date': -1, '_id': -1 } }",
+            "{ $skip: ?2 }",
+            "{ $limit: ?3 }",
+            OFFICER_APPOINTMENTS_LIST
+    })
+    List<CompanyAppointmentDocument> findActiveOfficerAppointmentsBySortKeys(String officerId,
+            List<String> filterStatuses, int startIndex, int pageSize);
+
+    @Aggregation(pipeline = {
+            "{ $match: { 'officer_id': ?0, 'sort_bucket': 1 } }",
+            "{ $sort: { 'sort_date': -1, '_id': -1 } }",
+            "{ $skip: ?1 }",
+            "{ $limit: ?2 }",
+            OFFICER_APPOINTMENTS_LIST
+    })
+    List<CompanyAppointmentDocument> findResignedOfficerAppointmentsBySortKeys(String officerId, int startIndex,
+            int pageSize);
+
+    @Query(value = "{ 'officer_id': ?0, 'sort_bucket': 0, 'company_status': { $nin: ?1 } }", count = true)
+    int countActiveBySortKeys(String officerId, List<String> filterStatuses);
+
+    @Aggregation(pipeline = {
+            "{ $match: { 'officer_id': ?0 } }",
+            "{ $sort: { 'updated.at': -1 } }",
+            "{ $limit: 1 }",
+            "{ $project: { '_id': 1, 'updated': 1 } }"
+    })
+    CompanyAppointmentDocument findLastUpdatedAppointment(String officerId);
 }
@@ -0,0 +1,24 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import java.util.List;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+
+interface OfficerAppointmentsRepositoryExtension {
+
+    /**
+     * Fetches a page of officer appointments, the total, resigned and inactive counts and the latest appointment for
+     * the officer in a single aggregation round trip.
+     *
+     * @param sortingThreshold the total results at or below which the page is sorted active-then-resigned; -1 to
+     *                         always sort active-then-resigned
+     */
+    OfficerAppointmentsPage findOfficerAppointmentsPage(String officerId, boolean filterEnabled,
+            List<String> filterStatuses, int startIndex, int pageSize, int sortingThreshold);
+
+    /**
+     * Fetches the page of officer appointments that follows the given continuation token in active-then-resigned
+     * order, seeking past the token on the appointment dates rather than skipping earlier appointments.
+     */
+    List<CompanyAppointmentDocument> findOfficerAppointmentsAfter(String officerId, boolean filterEnabled,
+            List<String> filterStatuses, ContinuationToken continuationToken, int pageSize);
+}
@@ -0,0 +1,267 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import static uk.gov.companieshouse.company_appointments.model.data.CompanyStatus.CLOSED;
+import static uk.gov.companieshouse.company_appointments.model.data.CompanyStatus.CONVERTED_CLOSED;
+import static uk.gov.companieshouse.company_appointments.model.data.CompanyStatus.DISSOLVED;
+import static uk.gov.companieshouse.company_appointments.repository.DeltaAppointmentsProjections.OFFICER_APPOINTMENTS_LIST;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+
+/**
+ * Builds the officer appointments page in one aggregation. The officer's appointments are matched once, projected down
+ * to the fields the facets match and sort on, and fanned out with $facet into the three counts, the latest appointment
+ * ID and the candidate page IDs. Each sorted facet is limited to the end of the requested page so MongoDB only keeps
+ * the top entries rather than sorting the officer's whole appointment set, and only the IDs of the selected page and
+ * the latest appointment are looked up, with the fields of the list projection.
+ */
+@Component
+class OfficerAppointmentsRepositoryImpl implements OfficerAppointmentsRepositoryExtension {
+
+    private static final String COLLECTION = "delta_appointments";
+    private static final String ID_FIELD = "_id";
+    private static final String OFFICER_ID_FIELD = "officer_id";
+    private static final String COMPANY_STATUS_FIELD = "company_status";
+    private static final String DATA_RESIGNED_ON_FIELD = "data.resigned_on";
+    private static final String DATA_APPOINTED_ON_FIELD = "data.appointed_on";
+    private static final String DATA_APPOINTED_BEFORE_FIELD = "data.appointed_before";
+    private static final String SORT_ACTIVE_FIELD = "__sort_active__";
+    private static final String BUCKET_FIELD = "__bucket__";
+    private static final String SORT_DATE_FIELD = "__sort_date__";
+    private static final int ACTIVE_BUCKET = 0;
+    private static final int RESIGNED_BUCKET = 1;
+    private static final List<String> INACTIVE_STATUSES = List.of(DISSOLVED.getStatus(), CLOSED.getStatus(),
+            CONVERTED_CLOSED.getStatus());
+
+    private static final Document ACTIVE = new Document(DATA_RESIGNED_ON_FIELD, new Document("$exists", false));
+    private static final Document RESIGNED = new Document(DATA_RESIGNED_ON_FIELD, new Document("$exists", true));
+    private static final Document INACTIVE = new Document(DATA_RESIGNED_ON_FIELD, new Document("$exists", false))
+            .append(COMPANY_STATUS_FIELD, new Document("$in", INACTIVE_STATUSES));
+    private static final Document COUNT = new Document("$count", "count");
+    private static final Document PROJECT_ID = new Document("$project", new Document(ID_FIELD, 1));
+    private static final Document FACET_FIELDS_PROJECTION = new Document("$project", new Document(ID_FIELD, 1)
+            .append(COMPANY_STATUS_FIELD, 1)
+            .append(DATA_RESIGNED_ON_FIELD, 1)
+            .append(DATA_APPOINTED_ON_FIELD, 1)
+            .append(DATA_APPOINTED_BEFORE_FIELD, 1));
+    private static final Document LIST_PROJECTION = Document.parse(OFFICER_APPOINTMENTS_LIST);
+    private static final Document SORT_BY_APPOINTED = new Document("$sort", new Document(DATA_APPOINTED_ON_FIELD, -1)
+            .append(DATA_APPOINTED_BEFORE_FIELD, -1));
+
+    private final MongoTemplate mongoTemplate;
+
+    OfficerAppointmentsRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public OfficerAppointmentsPage findOfficerAppointmentsPage(String officerId, boolean filterEnabled,
+            List<String> filterStatuses, int startIndex, int pageSize, int sortingThreshold) {
+        final Document filter = filterEnabled ? new Document(DATA_RESIGNED_ON_FIELD, new Document("$exists", false))
+                .append(COMPANY_STATUS_FIELD, new Document("$nin", filterStatuses)) : new Document();
+        final int pageEnd = startIndex + pageSize;
+
+        Document facets = new Document()
+                .append("total", List.of(match(filter), COUNT))
+                .append("resigned", List.of(match(RESIGNED), COUNT))
+                .append("inactive", List.of(match(INACTIVE), COUNT))
+                .append("active_ids", List.of(
+                        match(and(filter, ACTIVE)),
+                        new Document("$addFields", new Document(SORT_ACTIVE_FIELD,
+                                new Document("$ifNull", List.of("$" + DATA_APPOINTED_ON_FIELD,
+                                        new Document("$toDate", "$" + DATA_APPOINTED_BEFORE_FIELD))))),
+                        new Document("$sort", new Document(SORT_ACTIVE_FIELD, -1)),
+                        new Document("$limit", pageEnd),
+                        PROJECT_ID))
+                .append("resigned_ids", List.of(
+                        match(and(filter, RESIGNED)),
+                        new Document("$sort", new Document(DATA_RESIGNED_ON_FIELD, -1)),
+                        new Document("$limit", pageEnd),
+                        PROJECT_ID))
+                .append("latest", List.of(SORT_BY_APPOINTED, new Document("$limit", 1), PROJECT_ID));
+
+        Object ids = new Document("$slice", List.of(
+                new Document("$concatArrays", List.of("$active_ids._id", "$resigned_ids._id")), startIndex, pageSize));
+        if (sortingThreshold != -1) {
+            facets.append("recent_ids", List.of(
+                    match(filter),
+                    SORT_BY_APPOINTED,
+                    new Document("$skip", startIndex),
+                    new Document("$limit", pageSize),
+                    PROJECT_ID));
+            ids = new Document("$cond", List.of(
+                    new Document("$lte", List.of(count("$total"), sortingThreshold)), ids, "$recent_ids._id"));
+        }
+
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(match(new Document(OFFICER_ID_FIELD, officerId)));
+        pipeline.add(FACET_FIELDS_PROJECTION);
+        pipeline.add(new Document("$facet", facets));
+        pipeline.add(new Document("$project", new Document()
+                .append("total_results", count("$total"))
+                .append("resigned_count", count("$resigned"))
+                .append("inactive_count", count("$inactive"))
+                .append("latest_id", "$latest._id")
+                .append("ids", ids)));
+        pipeline.add(lookup("ids", "items"));
+        pipeline.add(lookup("latest_id", "latest_appointment"));
+        // $lookup does not preserve the order of the local IDs, so restore the page order
+        pipeline.add(new Document("$addFields", new Document("items", new Document("$map", new Document()
+                .append("input", "$ids")
+                .append("as", "id")
+                .append("in", new Document("$arrayElemAt", List.of(
+                        new Document("$filter", new Document()
+                                .append("input", "$items")
+                                .append("as", "item")
+                                .append("cond", new Document("$eq", List.of("$$item._id", "$$id")))),
+                        0)))))
+                .append("latest_appointment", new Document("$arrayElemAt", List.of("$latest_appointment", 0)))));
+
+        Aggregation aggregation = Aggregation.newAggregation(pipeline.stream()
+                        .map(OfficerAppointmentsRepositoryImpl::stage)
+                        .toList())
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        return mongoTemplate.aggregate(aggregation, COLLECTION, OfficerAppointmentsPage.class)
+                .getUniqueMappedResult();
+    }
+
+    /**
+     * The active-then-resigned ordering is split into streams that are each sorted on a stored date field: active
+     * appointments by appointed_on, active appointments without an appointed_on by appointed_before, active
+     * appointments with neither, and resigned appointments by resigned_on. Each stream seeks past the token and is
+     * limited to the page size, then the streams are merged with $unionWith and only the first page of the merged
+     * result is kept, so the cost of a page does not depend on how deep it is.
+     */
+    @Override
+    public List<CompanyAppointmentDocument> findOfficerAppointmentsAfter(String officerId, boolean filterEnabled,
+            List<String> filterStatuses, ContinuationToken continuationToken, int pageSize) {
+        final Document filter = new Document(OFFICER_ID_FIELD, officerId);
+        if (filterEnabled) {
+            filter.append(COMPANY_STATUS_FIELD, new Document("$nin", filterStatuses));
+        }
+
+        List<List<Document>> streams = new ArrayList<>();
+        if (!continuationToken.resigned()) {
+            // once the token is in the undated tail of the active appointments the dated streams are exhausted
+            if (continuationToken.isStart() || continuationToken.sortDate() != null) {
+                streams.add(stream(and(filter, new Document(ACTIVE)
+                                .append(DATA_APPOINTED_ON_FIELD, new Document("$ne", null))),
+                        DATA_APPOINTED_ON_FIELD, ACTIVE_BUCKET, continuationToken, pageSize));
+                streams.add(stream(and(filter, new Document(ACTIVE)
+                                .append(DATA_APPOINTED_ON_FIELD, null)
+                                .append(DATA_APPOINTED_BEFORE_FIELD, new Document("$ne", null))),
+                        DATA_APPOINTED_BEFORE_FIELD, ACTIVE_BUCKET, continuationToken, pageSize));
+            }
+            streams.add(stream(and(filter, new Document(ACTIVE)
+                            .append(DATA_APPOINTED_ON_FIELD, null)
+                            .append(DATA_APPOINTED_BEFORE_FIELD, null)),
+                    null, ACTIVE_BUCKET, continuationToken, pageSize));
+        }
+        if (!filterEnabled) {
+            streams.add(stream(and(filter, RESIGNED), DATA_RESIGNED_ON_FIELD, RESIGNED_BUCKET, continuationToken,
+                    pageSize));
+        }
+
+        if (streams.isEmpty()) {
+            return List.of();
+        }
+
+        List<Document> pipeline = new ArrayList<>(streams.getFirst());
+        streams.stream()
+                .skip(1)
+                .forEach(stream -> pipeline.add(new Document("$unionWith", new Document()
+                        .append("coll", COLLECTION)
+                        .append("pipeline", stream))));
+        pipeline.add(new Document("$sort", new Document(BUCKET_FIELD, 1)
+                .append(SORT_DATE_FIELD, -1)
+                .append(ID_FIELD, -1)));
+        pipeline.add(new Document("$limit", pageSize));
+        pipeline.add(LIST_PROJECTION);
+
+        Aggregation aggregation = Aggregation.newAggregation(pipeline.stream()
+                .map(OfficerAppointmentsRepositoryImpl::stage)
+                .toList());
+
+        return mongoTemplate.aggregate(aggregation, COLLECTION, CompanyAppointmentDocument.class)
+                .getMappedResults();
+    }
+
+    private static List<Document> stream(Document criteria, String sortField, int bucket,
+            ContinuationToken continuationToken, int pageSize) {
+        Document match = criteria;
+        boolean tokenInStream = !continuationToken.isStart() && continuationToken.resigned() == (bucket
+                == RESIGNED_BUCKET);
+        if (tokenInStream) {
+            match = and(criteria, seek(sortField, continuationToken));
+        }
+
+        Document sort = new Document();
+        if (sortField != null) {
+            sort.append(sortField, -1);
+        }
+        sort.append(ID_FIELD, -1);
+
+        return List.of(
+                match(match),
+                new Document("$sort", sort),
+                new Document("$limit", pageSize),
+                new Document("$addFields", new Document(BUCKET_FIELD, bucket)
+                        .append(SORT_DATE_FIELD, sortField != null ? "$" + sortField : null)));
+    }
+
+    /**
+     * Matches the entries of a stream that sort after the token in descending (sort date, _id) order. Entries
+     * without a sort date sort after every dated entry, so a dated token leaves the undated stream unrestricted.
+     */
+    private static Document seek(String sortField, ContinuationToken continuationToken) {
+        final Document idAfter = new Document(ID_FIELD, new Document("$lt", continuationToken.id()));
+        if (continuationToken.sortDate() == null) {
+            return sortField == null ? idAfter : new Document(idAfter).append(sortField, null);
+        }
+        if (sortField == null) {
+            return new Document();
+        }
+        final Date sortDate = Date.from(continuationToken.sortDate());
+        return new Document("$or", List.of(
+                new Document(sortField, new Document("$lt", sortDate)),
+                new Document(sortField, sortDate).append(ID_FIELD, new Document("$lt", continuationToken.id()))));
+    }
+
+    /**
+     * Looks up the appointments with the given IDs on the _id index, returning only the fields of the list
+     * projection.
+     */
+    private static Document lookup(String localField, String as) {
+        return new Document("$lookup", new Document()
+                .append("from", COLLECTION)
+                .append("localField", localField)
+                .append("foreignField", ID_FIELD)
+                .append("pipeline", List.of(LIST_PROJECTION))
+                .append("as", as));
+    }
+
+    private static AggregationOperation stage(Document stage) {
+        return context -> stage;
+    }
+
+    private static Document match(Document criteria) {
+        return new Document("$match", criteria);
+    }
+
+    private static Document and(Document first, Document second) {
+        return new Document("$and", List.of(first, second));
+    }
+
+    private static Document count(String facet) {
+        return new Document("$ifNull", List.of(new Document("$arrayElemAt", List.of(facet + ".count", 0)), 0));
+    }
+}
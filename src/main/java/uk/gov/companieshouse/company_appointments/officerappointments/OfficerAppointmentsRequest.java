@@ -1,7 +1,12 @@
 package uk.gov.companieshouse.company_appointments.officerappointments;
 
 record OfficerAppointmentsRequest(String officerId, String filter, Integer startIndex, Integer itemsPerPage,
-                                  String authPrivileges) {
+                                  String authPrivileges, String continuationToken) {
+
+    OfficerAppointmentsRequest(String officerId, String filter, Integer startIndex, Integer itemsPerPage,
+            String authPrivileges) {
+        this(officerId, filter, startIndex, itemsPerPage, authPrivileges, null);
+    }
 
     OfficerAppointmentsRequest(String officerId, String filter, Integer startIndex, Integer itemsPerPage) {
         this(officerId, filter, startIndex, itemsPerPage, null);
@@ -18,6 +23,7 @@ record OfficerAppointmentsRequest(String officerId, String filter, Integer start
         private Integer startIndex;
         private Integer itemsPerPage;
         private String authPrivileges;
+        private String continuationToken;
 
         private Builder() {
         }
@@ -47,8 +53,14 @@ record OfficerAppointmentsRequest(String officerId, String filter, Integer start
             return this;
         }
 
+        Builder continuationToken(String continuationToken) {
+            this.continuationToken = continuationToken;
+            return this;
+        }
+
         OfficerAppointmentsRequest build() {
-            return new OfficerAppointmentsRequest(officerId, filter, startIndex, itemsPerPage, authPrivileges);
+            return new OfficerAppointmentsRequest(officerId, filter, startIndex, itemsPerPage, authPrivileges,
+                    continuationToken);
         }
     }
 }
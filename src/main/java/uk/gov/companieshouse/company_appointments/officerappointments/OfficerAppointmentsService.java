@@ -1,16 +1,34 @@
 package uk.gov.companieshouse.company_appointments.officerappointments;
 
+import static uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication.APPLICATION_NAME_SPACE;
+import static uk.gov.companieshouse.company_appointments.officerappointments.OfficerAppointmentsMetrics.KEYSET;
+import static uk.gov.companieshouse.company_appointments.officerappointments.OfficerAppointmentsMetrics.MULTIPLE_ROUND_TRIPS;
+import static uk.gov.companieshouse.company_appointments.officerappointments.OfficerAppointmentsMetrics.SINGLE_ROUND_TRIP;
+
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import uk.gov.companieshouse.api.officer.AppointmentList;
 import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.OfficerAppointmentCounts;
 import uk.gov.companieshouse.company_appointments.officerappointments.OfficerAppointmentsMapper.MapperRequest;
+import uk.gov.companieshouse.company_appointments.repository.OfficerAppointmentCountsRepository;
+import uk.gov.companieshouse.company_appointments.util.EntityTags;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
 
 @Service
 class OfficerAppointmentsService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(APPLICATION_NAME_SPACE);
     private static final int DEFAULT_START_INDEX = 0;
 
     private final OfficerAppointmentsRepository repository;
@@ -18,60 +36,334 @@ class OfficerAppointmentsService {
     private final FilterService filterService;
     private final ItemsPerPageService itemsPerPageService;
     private final SortingThresholdService sortingThresholdService;
+    private final OfficerAppointmentsMetrics metrics;
+    private final boolean singleRoundTripEnabled;
+    private final boolean persistedSortKeysEnabled;
+    private final OfficerAppointmentCountsRepository countsRepository;
+    private final boolean materialisedCountsEnabled;
+    private final OfficerAppointmentsCache cache;
+    private final ExecutorService queryExecutor;
+    private final boolean concurrentQueriesEnabled;
+    private final boolean conditionalGetEnabled;
 
     OfficerAppointmentsService(OfficerAppointmentsRepository repository, OfficerAppointmentsMapper mapper,
             FilterService filterService, ItemsPerPageService itemsPerPageService,
-            SortingThresholdService sortingThresholdService) {
+            SortingThresholdService sortingThresholdService, OfficerAppointmentsMetrics metrics,
+            @Value("${officer-appointments.single-round-trip-enabled}") boolean singleRoundTripEnabled,
+            @Value("${officer-appointments.persisted-sort-keys-enabled}") boolean persistedSortKeysEnabled,
+            OfficerAppointmentCountsRepository countsRepository,
+            @Value("${officer-appointments.materialised-counts-enabled}") boolean materialisedCountsEnabled,
+            OfficerAppointmentsCache cache, ExecutorService queryExecutor,
+            @Value("${officer-appointments.concurrent-queries-enabled}") boolean concurrentQueriesEnabled,
+            @Value("${officer-appointments.conditional-get-enabled}") boolean conditionalGetEnabled) {
         this.repository = repository;
         this.mapper = mapper;
         this.filterService = filterService;
         this.itemsPerPageService = itemsPerPageService;
         this.sortingThresholdService = sortingThresholdService;
+        this.metrics = metrics;
+        this.singleRoundTripEnabled = singleRoundTripEnabled;
+        this.persistedSortKeysEnabled = persistedSortKeysEnabled;
+        this.countsRepository = countsRepository;
+        this.materialisedCountsEnabled = materialisedCountsEnabled;
+        this.cache = cache;
+        this.queryExecutor = queryExecutor;
+        this.concurrentQueriesEnabled = concurrentQueriesEnabled;
+        this.conditionalGetEnabled = conditionalGetEnabled;
     }
 
     Optional<AppointmentList> getOfficerAppointments(OfficerAppointmentsRequest params) {
+        return cache.get(params, () -> fetchOfficerAppointments(params));
+    }
+
+    private Optional<AppointmentList> fetchOfficerAppointments(OfficerAppointmentsRequest params) {
         final String officerId = params.officerId();
         final String authPrivileges = params.authPrivileges();
         final int startIndex = getStartIndex(params.startIndex());
         final int adjustedItemsPerPage = itemsPerPageService.adjustItemsPerPage(params.itemsPerPage(), authPrivileges);
 
         Filter filter = filterService.prepareFilter(params.filter(), params.officerId());
-        boolean filterEnabled = filter.isFilterEnabled();
-        List<String> filterStatuses = filter.filterStatuses();
 
-        final int totalResults = repository.countTotal(officerId, filterEnabled, filterStatuses);
+        MapperRequest.Builder mapperRequest = MapperRequest.builder()
+                .startIndex(startIndex)
+                .itemsPerPage(adjustedItemsPerPage);
+
+        final int roundTrips;
+        final String queryMode;
+        if (singleRoundTripEnabled) {
+            queryMode = SINGLE_ROUND_TRIP;
+            roundTrips = fetchInSingleRoundTrip(officerId, filter, startIndex, adjustedItemsPerPage, authPrivileges,
+                    mapperRequest);
+        } else {
+            queryMode = MULTIPLE_ROUND_TRIPS;
+            roundTrips = fetchInMultipleRoundTrips(officerId, filter, startIndex, adjustedItemsPerPage,
+                    authPrivileges, mapperRequest);
+        }
+        metrics.recordRoundTrips(queryMode, roundTrips);
+        LOGGER.debug("Fetched officer appointments in %d MongoDB round trip(s)".formatted(roundTrips),
+                DataMapHolder.getLogMap());
+
+        return mapper.mapOfficerAppointments(mapperRequest.build());
+    }
+
+    /**
+     * The entity tag of the officer appointments response for the request. It is derived from the officer's counts
+     * and the time the officer's most recently written appointment was written rather than from just the page,
+     * because the page's ordering, counts and first appointment depend on all of the officer's appointments: every
+     * write to one of them advances that time, and every delete changes the total count. Both are read on indexes,
+     * so the cost does not grow with the number of appointments the officer holds. Empty when conditional GET
+     * requests are disabled or the officer has no appointments.
+     */
+    Optional<String> getOfficerAppointmentsEntityTag(OfficerAppointmentsRequest params) {
+        if (!conditionalGetEnabled) {
+            return Optional.empty();
+        }
+        CompanyAppointmentDocument lastUpdated = repository.findLastUpdatedAppointment(params.officerId());
+        if (lastUpdated == null) {
+            return Optional.empty();
+        }
+        AppointmentCounts counts = countAppointments(params.officerId(), false, List.of());
+        return Optional.of(EntityTags.of(Arrays.asList(params.filter(), params.startIndex(), params.itemsPerPage(),
+                params.authPrivileges(), params.continuationToken(), counts.totalResults(), counts.resignedCount(),
+                counts.inactiveCount(), lastUpdated.getUpdated() != null ? lastUpdated.getUpdated().getAt() : null)));
+    }
+
+    /**
+     * Fetches the page of officer appointments following the request's continuation token. Appointments are always
+     * returned active-then-resigned, and the page is found by seeking past the token's position rather than by
+     * skipping start_index appointments.
+     */
+    Optional<OfficerAppointmentsSlice> getOfficerAppointmentsAfter(OfficerAppointmentsRequest params) {
+        final String officerId = params.officerId();
+        final ContinuationToken continuationToken = ContinuationToken.decode(params.continuationToken());
+        final int startIndex = continuationToken.offset();
+        final int adjustedItemsPerPage = itemsPerPageService.adjustItemsPerPage(params.itemsPerPage(),
+                params.authPrivileges());
+        DataMapHolder.get().startIndex(String.valueOf(startIndex));
+
+        Filter filter = filterService.prepareFilter(params.filter(), officerId);
+        final boolean filterEnabled = filter.isFilterEnabled();
+        final List<String> filterStatuses = filter.filterStatuses();
+
+        final AppointmentCounts counts;
+        final List<CompanyAppointmentDocument> documents;
+        if (concurrentQueriesEnabled) {
+            try (ShutdownOnFailureScope scope = new ShutdownOnFailureScope(queryExecutor)) {
+                Supplier<AppointmentCounts> countsTask = scope.fork(
+                        () -> countAppointments(officerId, filterEnabled, filterStatuses));
+                Supplier<List<CompanyAppointmentDocument>> documentsTask = scope.fork(
+                        () -> repository.findOfficerAppointmentsAfter(officerId, filterEnabled, filterStatuses,
+                                continuationToken, adjustedItemsPerPage));
+                scope.join();
+                counts = countsTask.get();
+                documents = documentsTask.get();
+            }
+        } else {
+            counts = countAppointments(officerId, filterEnabled, filterStatuses);
+            documents = repository.findOfficerAppointmentsAfter(officerId, filterEnabled, filterStatuses,
+                    continuationToken, adjustedItemsPerPage);
+        }
+        final int totalResults = counts.totalResults();
+        int roundTrips = counts.roundTrips() + 1;
+
+        Optional<CompanyAppointmentDocument> firstActiveAppointment = filterService.findFirstActiveAppointment(
+                documents);
+        CompanyAppointmentDocument firstAppointment;
+        if (firstActiveAppointment.isPresent()) {
+            firstAppointment = firstActiveAppointment.get();
+        } else {
+            firstAppointment = repository.findLatestAppointment(officerId);
+            roundTrips++;
+        }
+        metrics.recordRoundTrips(KEYSET, roundTrips);
+
+        final int nextOffset = startIndex + documents.size();
+        final String nextContinuationToken = documents.size() == adjustedItemsPerPage && nextOffset < totalResults
+                ? ContinuationToken.after(documents.getLast(), nextOffset).encode() : null;
+
+        return mapper.mapOfficerAppointments(MapperRequest.builder()
+                        .startIndex(startIndex)
+                        .itemsPerPage(adjustedItemsPerPage)
+                        .firstAppointment(firstAppointment)
+                        .officerAppointments(documents)
+                        .totalResults(totalResults)
+                        .resignedCount(counts.resignedCount())
+                        .inactiveCount(counts.inactiveCount())
+                        .build())
+                .map(appointmentList -> new OfficerAppointmentsSlice(appointmentList, nextContinuationToken));
+    }
+
+    private int fetchInSingleRoundTrip(String officerId, Filter filter, int startIndex, int itemsPerPage,
+            String authPrivileges, MapperRequest.Builder mapperRequest) {
+        final boolean filterEnabled = filter.isFilterEnabled();
+
+        final int sortingThreshold = sortingThresholdService.getSortingThreshold(authPrivileges);
+        final long start = System.nanoTime();
+        OfficerAppointmentsPage page = repository.findOfficerAppointmentsPage(officerId, filterEnabled,
+                filter.filterStatuses(), startIndex, itemsPerPage, sortingThreshold);
+        final boolean activeThenResigned = sortingThreshold == -1 || page.getTotalResults() <= sortingThreshold;
+        sortingThresholdService.countDecision(authPrivileges, activeThenResigned);
+        if (activeThenResigned) {
+            sortingThresholdService.recordSortedAggregation(page.getTotalResults(), authPrivileges,
+                    Duration.ofNanos(System.nanoTime() - start));
+        }
+        List<CompanyAppointmentDocument> documents = page.getItems();
+
+        mapperRequest
+                .firstAppointment(filterService.findFirstActiveAppointment(documents)
+                        .orElseGet(page::getLatestAppointment))
+                .officerAppointments(documents)
+                .totalResults(page.getTotalResults())
+                .resignedCount(filterEnabled ? 0 : page.getResignedCount())
+                .inactiveCount(filterEnabled ? 0 : page.getInactiveCount());
+        return 1;
+    }
+
+    private int fetchInMultipleRoundTrips(String officerId, Filter filter, int startIndex, int itemsPerPage,
+            String authPrivileges, MapperRequest.Builder mapperRequest) {
+        final boolean filterEnabled = filter.isFilterEnabled();
+        final List<String> filterStatuses = filter.filterStatuses();
+
+        final AppointmentCounts counts;
+        final AppointmentsPage page;
+        if (concurrentQueriesEnabled && !sortOrderDependsOnTotal(authPrivileges)) {
+            try (ShutdownOnFailureScope scope = new ShutdownOnFailureScope(queryExecutor)) {
+                Supplier<AppointmentCounts> countsTask = scope.fork(
+                        () -> countAppointments(officerId, filterEnabled, filterStatuses));
+                Supplier<AppointmentsPage> pageTask = scope.fork(
+                        () -> fetchPage(officerId, filter, startIndex, itemsPerPage, true));
+                scope.join();
+                counts = countsTask.get();
+                page = pageTask.get();
+            }
+            // a disabled threshold still decides the order; persisted sort keys leave it no decision to make
+            if (!persistedSortKeysEnabled) {
+                sortingThresholdService.countDecision(authPrivileges, true);
+            }
+        } else {
+            counts = countAppointments(officerId, filterEnabled, filterStatuses);
+            page = fetchPage(officerId, filter, startIndex, itemsPerPage, persistedSortKeysEnabled
+                    || sortingThresholdService.shouldSortByActiveThenResigned(counts.totalResults(), authPrivileges));
+        }
+        if (page.sortLatency() != null) {
+            sortingThresholdService.recordSortedAggregation(counts.totalResults(), authPrivileges,
+                    page.sortLatency());
+        }
+        List<CompanyAppointmentDocument> documents = page.documents();
+        int roundTrips = counts.roundTrips() + page.roundTrips();
+
+        Optional<CompanyAppointmentDocument> firstActiveAppointment = filterService.findFirstActiveAppointment(
+                documents);
+        CompanyAppointmentDocument firstAppointment;
+        if (firstActiveAppointment.isPresent()) {
+            firstAppointment = firstActiveAppointment.get();
+        } else {
+            firstAppointment = repository.findLatestAppointment(officerId);
+            roundTrips++;
+        }
+
+        mapperRequest
+                .firstAppointment(firstAppointment)
+                .officerAppointments(documents)
+                .totalResults(counts.totalResults())
+                .resignedCount(counts.resignedCount())
+                .inactiveCount(counts.inactiveCount());
+        return roundTrips;
+    }
+
+    /**
+     * The persisted sort keys and a disabled sorting threshold both order appointments active-then-resigned whatever
+     * the officer's total, so only a configured threshold makes the page fetch wait for the counts.
+     */
+    private boolean sortOrderDependsOnTotal(String authPrivileges) {
+        return !persistedSortKeysEnabled && sortingThresholdService.getSortingThreshold(authPrivileges) != -1;
+    }
+
+    private AppointmentsPage fetchPage(String officerId, Filter filter, int startIndex, int itemsPerPage,
+            boolean activeThenResigned) {
+        final boolean filterEnabled = filter.isFilterEnabled();
+        final List<String> filterStatuses = filter.filterStatuses();
+        int roundTrips = 0;
+        Duration sortLatency = null;
 
         List<CompanyAppointmentDocument> documents;
 
-        if (sortingThresholdService.shouldSortByActiveThenResigned(totalResults, authPrivileges)) {
-            List<String> appointmentsIds = repository.findOfficerAppointmentsIds(officerId, filterEnabled, filterStatuses,
-                    startIndex, adjustedItemsPerPage).getIds();
+        if (persistedSortKeysEnabled) {
+            // the persisted sort keys are indexed, so the full ordering is cheap regardless of the sorting threshold
+            documents = repository.findActiveOfficerAppointmentsBySortKeys(officerId, filterStatuses, startIndex,
+                    itemsPerPage);
+            roundTrips++;
+
+            if (!filterEnabled && documents.size() < itemsPerPage) {
+                int resignedStartIndex = 0;
+                if (documents.isEmpty() && startIndex > 0) {
+                    resignedStartIndex = Math.max(0,
+                            startIndex - repository.countActiveBySortKeys(officerId, filterStatuses));
+                    roundTrips++;
+                }
+                List<CompanyAppointmentDocument> resigned = repository.findResignedOfficerAppointmentsBySortKeys(
+                        officerId, resignedStartIndex, itemsPerPage - documents.size());
+                roundTrips++;
+
+                documents = Stream.concat(documents.stream(), resigned.stream()).toList();
+            }
+        } else if (activeThenResigned) {
+            final long start = System.nanoTime();
+            List<String> appointmentsIds = repository.findOfficerAppointmentsIds(officerId, filterEnabled,
+                    filterStatuses, startIndex, itemsPerPage).getIds();
+            roundTrips++;
+            sortLatency = Duration.ofNanos(System.nanoTime() - start);
 
             if (!appointmentsIds.isEmpty()) {
                 documents = repository.findFullOfficerAppointments(appointmentsIds);
+                roundTrips++;
             } else {
                 documents = List.of();
             }
         } else {
             documents = repository.findRecentOfficerAppointments(officerId, filterEnabled, filterStatuses, startIndex,
-                    adjustedItemsPerPage);
+                    itemsPerPage);
+            roundTrips++;
         }
+        return new AppointmentsPage(documents, roundTrips, sortLatency);
+    }
 
-        final int resignedCount = filterEnabled ? 0 : repository.countResigned(officerId);
-        final int inactiveCount = filterEnabled ? 0 : repository.countInactive(officerId);
-
-        CompanyAppointmentDocument firstAppointment = filterService.findFirstActiveAppointment(documents)
-                .orElseGet(() -> repository.findLatestAppointment(officerId));
+    /**
+     * Reads the officer's materialised counts when enabled, falling back to counting the officer's appointments for
+     * officers that have no materialised counts yet or whose counts are inconsistent.
+     */
+    private AppointmentCounts countAppointments(String officerId, boolean filterEnabled,
+            List<String> filterStatuses) {
+        int roundTrips = 0;
+        if (materialisedCountsEnabled) {
+            Optional<OfficerAppointmentCounts> materialisedCounts = countsRepository.findById(officerId)
+                    .filter(OfficerAppointmentCounts::isConsistent);
+            roundTrips++;
+            if (materialisedCounts.isPresent()) {
+                OfficerAppointmentCounts counts = materialisedCounts.get();
+                return filterEnabled ? new AppointmentCounts(counts.getActiveCount(), 0, 0, roundTrips)
+                        : new AppointmentCounts(counts.getTotalResults(), counts.getResignedCount(),
+                                counts.getInactiveCount(), roundTrips);
+            }
+        }
 
-        return mapper.mapOfficerAppointments(MapperRequest.builder()
-                .startIndex(startIndex)
-                .itemsPerPage(adjustedItemsPerPage)
-                .firstAppointment(firstAppointment)
-                .officerAppointments(documents)
-                .totalResults(totalResults)
-                .resignedCount(resignedCount)
-                .inactiveCount(inactiveCount)
-                .build());
+        if (filterEnabled) {
+            return new AppointmentCounts(repository.countTotal(officerId, true, filterStatuses), 0, 0,
+                    roundTrips + 1);
+        }
+        if (concurrentQueriesEnabled) {
+            try (ShutdownOnFailureScope scope = new ShutdownOnFailureScope(queryExecutor)) {
+                Supplier<Integer> totalResults = scope.fork(
+                        () -> repository.countTotal(officerId, false, filterStatuses));
+                Supplier<Integer> resignedCount = scope.fork(() -> repository.countResigned(officerId));
+                Supplier<Integer> inactiveCount = scope.fork(() -> repository.countInactive(officerId));
+                scope.join();
+                return new AppointmentCounts(totalResults.get(), resignedCount.get(), inactiveCount.get(),
+                        roundTrips + 3);
+            }
+        }
+        return new AppointmentCounts(repository.countTotal(officerId, false, filterStatuses),
+                repository.countResigned(officerId), repository.countInactive(officerId), roundTrips + 3);
     }
 
     private static int getStartIndex(Integer requestStartIndex) {
@@ -84,4 +376,17 @@ class OfficerAppointmentsService {
         DataMapHolder.get().startIndex(String.valueOf(startIndex));
         return startIndex;
     }
+
+    private record AppointmentCounts(int totalResults, int resignedCount, int inactiveCount, int roundTrips) {
+
+    }
+
+    /**
+     * A page of appointments and the round trips made to fetch it, with the latency of the active-then-resigned
+     * aggregation when that was used to sort the page.
+     */
+    private record AppointmentsPage(List<CompanyAppointmentDocument> documents, int roundTrips,
+                                    @Nullable Duration sortLatency) {
+
+    }
 }
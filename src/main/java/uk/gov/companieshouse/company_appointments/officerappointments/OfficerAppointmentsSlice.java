@@ -0,0 +1,11 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import uk.gov.companieshouse.api.officer.AppointmentList;
+
+/**
+ * A page of officer appointments fetched by continuation token, with the token for the following page or null when
+ * there are no more appointments.
+ */
+record OfficerAppointmentsSlice(AppointmentList appointmentList, String nextContinuationToken) {
+
+}
@@ -0,0 +1,82 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import uk.gov.companieshouse.company_appointments.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+
+/**
+ * Runs a fixed set of subtasks concurrently with the semantics of {@code StructuredTaskScope.ShutdownOnFailure}, which
+ * is still a preview API on Java 21: the first subtask to fail cancels the others and its exception is rethrown
+ * unchanged from {@link #join()}, and closing the scope cancels any subtask still running. Subtasks run with the
+ * caller's request ID so that their log entries can be correlated with the request.
+ */
+final class ShutdownOnFailureScope implements AutoCloseable {
+
+    private final CompletionService<Object> completionService;
+    private final List<Future<Object>> futures = new ArrayList<>();
+
+    ShutdownOnFailureScope(ExecutorService executor) {
+        this.completionService = new ExecutorCompletionService<>(executor);
+    }
+
+    /**
+     * Starts the subtask, returning a supplier of its result which may only be called after {@link #join()} has
+     * returned normally.
+     */
+    @SuppressWarnings("unchecked")
+    <T> Supplier<T> fork(Callable<? extends T> task) {
+        final String requestId = DataMapHolder.getRequestId();
+        Future<Object> future = completionService.submit(() -> {
+            DataMapHolder.initialise(requestId);
+            try {
+                return task.call();
+            } finally {
+                DataMapHolder.clear();
+            }
+        });
+        futures.add(future);
+        return () -> (T) future.resultNow();
+    }
+
+    void join() {
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                Future<Object> completed = completionService.take();
+                if (completed.state() == Future.State.FAILED) {
+                    cancelAll();
+                    throw propagate(completed.exceptionNow());
+                }
+            }
+        } catch (InterruptedException ex) {
+            cancelAll();
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for officer appointments queries");
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+    }
+
+    private void cancelAll() {
+        futures.forEach(future -> future.cancel(true));
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+}
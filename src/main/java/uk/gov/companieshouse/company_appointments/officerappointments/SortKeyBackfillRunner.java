@@ -0,0 +1,82 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import static uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication.APPLICATION_NAME_SPACE;
+
+import com.mongodb.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.repository.DeltaAppointmentsIndexes;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * One-off migration that creates the sort keys index and sets sort_bucket and sort_date on delta_appointments
+ * documents written before the keys were persisted. Documents are updated in batches of IDs using an update
+ * pipeline, so the keys are derived server side with the same rules as {@link
+ * uk.gov.companieshouse.company_appointments.model.data.SortKeys}. Safe to re-run: only documents without a
+ * sort_bucket are touched.
+ */
+@Component
+@ConditionalOnProperty(prefix = "officer-appointments", name = "sort-key-backfill-enabled")
+class SortKeyBackfillRunner implements ApplicationRunner {
+
+    static final String SORT_KEYS_INDEX = DeltaAppointmentsIndexes.SORT_KEYS.name();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(APPLICATION_NAME_SPACE);
+    private static final String COLLECTION = "delta_appointments";
+    private static final String ID_FIELD = "_id";
+    private static final Document MISSING_SORT_KEYS = new Document("sort_bucket", new Document("$exists", false));
+    private static final List<Document> SET_SORT_KEYS = List.of(new Document("$set", new Document()
+            .append("sort_bucket", new Document("$cond", List.of(
+                    new Document("$in", List.of(new Document("$type", "$data.resigned_on"),
+                            List.of("missing", "null"))),
+                    0,
+                    1)))
+            .append("sort_date", new Document("$ifNull", List.of("$data.resigned_on",
+                    new Document("$ifNull", List.of("$data.appointed_on",
+                            new Document("$toDate", "$data.appointed_before"))))))));
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    SortKeyBackfillRunner(MongoTemplate mongoTemplate,
+            @Value("${officer-appointments.sort-key-backfill-batch-size}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+
+        collection.createIndexes(List.of(DeltaAppointmentsIndexes.SORT_KEYS.toIndexModel()));
+        LOGGER.info("Ensured index %s on %s".formatted(SORT_KEYS_INDEX, COLLECTION), DataMapHolder.getLogMap());
+
+        long backfilled = 0;
+        List<Object> ids;
+        do {
+            ids = collection.find(MISSING_SORT_KEYS)
+                    .projection(new Document(ID_FIELD, 1))
+                    .limit(batchSize)
+                    .map(document -> document.get(ID_FIELD))
+                    .into(new ArrayList<>());
+            if (!ids.isEmpty()) {
+                backfilled += collection.updateMany(
+                        new Document(ID_FIELD, new Document("$in", ids)).append("sort_bucket",
+                                new Document("$exists", false)),
+                        SET_SORT_KEYS).getModifiedCount();
+            }
+        } while (ids.size() == batchSize);
+
+        LOGGER.info("Backfilled sort keys on %d %s documents".formatted(backfilled, COLLECTION),
+                DataMapHolder.getLogMap());
+    }
+}
@@ -2,23 +2,167 @@ package uk.gov.companieshouse.company_appointments.officerappointments;
 
 import static uk.gov.companieshouse.company_appointments.interceptor.AuthenticationHelperImpl.hasInternalAppPrivileges;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Decides whether an officer's appointments are few enough to sort active-then-resigned. In adaptive mode each
+ * privilege tier's threshold starts from its configured value and is then tuned, within the configured bounds, to the
+ * number of appointments the active-then-resigned aggregation can sort inside the latency SLO. The aggregation's
+ * latency is modelled as a fixed cost plus a cost per appointment, fitted by exponentially weighted least squares to
+ * the observed latencies, so that the fixed cost of sorting a few appointments is not mistaken for a high cost per
+ * appointment, which would otherwise pull the threshold down to the smaller officers it then only samples.
+ */
 @Component
 class SortingThresholdService {
 
-    private final int internalSortingThreshold;
-    private final int externalSortingThreshold;
+    static final String INTERNAL = "internal";
+    static final String EXTERNAL = "external";
 
-    SortingThresholdService(@Value("${officer-appointments.sorting-threshold-internal}") final int internalSortingThreshold,
-            @Value("${officer-appointments.sorting-threshold-external}") final int externalSortingThreshold) {
-        this.internalSortingThreshold = internalSortingThreshold;
-        this.externalSortingThreshold = externalSortingThreshold;
+    private static final double SMOOTHING = 0.2;
+    private static final double HYSTERESIS = 0.1;
+    private static final int MIN_SAMPLES = 5;
+    // the smallest coefficient of variation of the sampled totals that separates the fixed cost from the per
+    // appointment cost
+    private static final double MIN_SPREAD = 0.1;
+
+    private final boolean adaptive;
+    private final long latencySloNanos;
+    private final int minThreshold;
+    private final int maxThreshold;
+    private final Tier internal;
+    private final Tier external;
+
+    SortingThresholdService(
+            @Value("${officer-appointments.sorting-threshold-internal}") final int internalSortingThreshold,
+            @Value("${officer-appointments.sorting-threshold-external}") final int externalSortingThreshold,
+            @Value("${officer-appointments.adaptive-sorting-threshold.enabled}") final boolean adaptive,
+            @Value("${officer-appointments.adaptive-sorting-threshold.latency-slo}") final Duration latencySlo,
+            @Value("${officer-appointments.adaptive-sorting-threshold.min}") final int minThreshold,
+            @Value("${officer-appointments.adaptive-sorting-threshold.max}") final int maxThreshold,
+            MeterRegistry meterRegistry) {
+        this.adaptive = adaptive;
+        this.latencySloNanos = latencySlo.toNanos();
+        this.minThreshold = minThreshold;
+        this.maxThreshold = maxThreshold;
+        this.internal = new Tier(INTERNAL, initialThreshold(internalSortingThreshold), meterRegistry);
+        this.external = new Tier(EXTERNAL, initialThreshold(externalSortingThreshold), meterRegistry);
     }
 
     boolean shouldSortByActiveThenResigned(int totalResults, String authPrivileges) {
-        int sortingThreshold = hasInternalAppPrivileges(authPrivileges) ? internalSortingThreshold : externalSortingThreshold;
-        return sortingThreshold == -1 || totalResults <= sortingThreshold;
+        Tier tier = tier(authPrivileges);
+        int sortingThreshold = tier.threshold;
+        boolean activeThenResigned = sortingThreshold == -1 || totalResults <= sortingThreshold;
+        countDecision(authPrivileges, activeThenResigned);
+        return activeThenResigned;
+    }
+
+    /**
+     * Counts a sort order chosen without {@link #shouldSortByActiveThenResigned}, as by the single round trip
+     * aggregation against the threshold it was given, or when the order does not depend on the officer's total.
+     */
+    void countDecision(String authPrivileges, boolean activeThenResigned) {
+        Tier tier = tier(authPrivileges);
+        (activeThenResigned ? tier.activeThenResignedDecisions : tier.recentDecisions).increment();
+    }
+
+    int getSortingThreshold(String authPrivileges) {
+        return tier(authPrivileges).threshold;
+    }
+
+    /**
+     * Records how long the active-then-resigned aggregation took to sort an officer's appointments, retuning the
+     * caller's tier threshold when in adaptive mode.
+     */
+    void recordSortedAggregation(int totalResults, String authPrivileges, Duration latency) {
+        if (!adaptive || totalResults <= 0) {
+            return;
+        }
+        tier(authPrivileges).record(totalResults, latency.toNanos());
+    }
+
+    private Tier tier(String authPrivileges) {
+        return hasInternalAppPrivileges(authPrivileges) ? internal : external;
+    }
+
+    private int initialThreshold(int configuredThreshold) {
+        if (!adaptive) {
+            return configuredThreshold;
+        }
+        return configuredThreshold == -1 ? maxThreshold : clamp(configuredThreshold);
+    }
+
+    private int clamp(long threshold) {
+        return (int) Math.clamp(threshold, minThreshold, maxThreshold);
+    }
+
+    private final class Tier {
+
+        private final Counter activeThenResignedDecisions;
+        private final Counter recentDecisions;
+        private final Counter increases;
+        private final Counter decreases;
+        private volatile int threshold;
+        private long samples;
+        private double meanTotal;
+        private double meanNanos;
+        private double meanTotalSquared;
+        private double meanTotalNanos;
+
+        private Tier(String name, int threshold, MeterRegistry meterRegistry) {
+            this.threshold = threshold;
+            Gauge.builder("officer.appointments.sorting.threshold", this, tier -> tier.threshold)
+                    .description("Largest number of appointments sorted active-then-resigned")
+                    .tag("tier", name)
+                    .register(meterRegistry);
+            this.activeThenResignedDecisions = decisions(meterRegistry, name, "active_then_resigned");
+            this.recentDecisions = decisions(meterRegistry, name, "recent");
+            this.increases = adjustments(meterRegistry, name, "increase");
+            this.decreases = adjustments(meterRegistry, name, "decrease");
+        }
+
+        private synchronized void record(int totalResults, long nanos) {
+            double weight = samples == 0 ? 1 : SMOOTHING;
+            samples++;
+            meanTotal += weight * (totalResults - meanTotal);
+            meanNanos += weight * (nanos - meanNanos);
+            meanTotalSquared += weight * ((double) totalResults * totalResults - meanTotalSquared);
+            meanTotalNanos += weight * ((double) totalResults * nanos - meanTotalNanos);
+
+            double totalVariance = meanTotalSquared - meanTotal * meanTotal;
+            if (samples < MIN_SAMPLES || totalVariance < Math.pow(MIN_SPREAD * meanTotal, 2)) {
+                return;
+            }
+            double nanosPerAppointment = (meanTotalNanos - meanTotal * meanNanos) / totalVariance;
+            if (nanosPerAppointment <= 0) {
+                return;
+            }
+            double fixedNanos = meanNanos - nanosPerAppointment * meanTotal;
+            int target = clamp(Math.round((latencySloNanos - fixedNanos) / nanosPerAppointment));
+            if (Math.abs(target - threshold) > threshold * HYSTERESIS) {
+                (target > threshold ? increases : decreases).increment();
+                threshold = target;
+            }
+        }
+
+        private static Counter decisions(MeterRegistry meterRegistry, String tier, String order) {
+            return Counter.builder("officer.appointments.sorting.decisions")
+                    .description("Officer appointments requests by the sort order chosen for them")
+                    .tag("tier", tier)
+                    .tag("order", order)
+                    .register(meterRegistry);
+        }
+
+        private static Counter adjustments(MeterRegistry meterRegistry, String tier, String direction) {
+            return Counter.builder("officer.appointments.sorting.threshold.adjustments")
+                    .description("Times the adaptive sorting threshold was retuned")
+                    .tag("tier", tier)
+                    .tag("direction", direction)
+                    .register(meterRegistry);
+        }
     }
 }
@@ -0,0 +1,11 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import uk.gov.companieshouse.company_appointments.model.data.AppointmentEvent;
+
+@Repository
+public interface AppointmentEventRepository extends MongoRepository<AppointmentEvent, String>,
+        AppointmentEventRepositoryExtension {
+
+}
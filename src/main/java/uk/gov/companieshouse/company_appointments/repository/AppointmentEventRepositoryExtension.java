@@ -0,0 +1,39 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import java.time.Instant;
+import java.util.List;
+import uk.gov.companieshouse.company_appointments.model.data.AppointmentEvent;
+
+public interface AppointmentEventRepositoryExtension {
+
+    /**
+     * The oldest events in the outbox of the appointments whose earliest event is due at now, in the order they were
+     * appended. Appointments whose earliest event is backing off or leased are left out, so they cannot hold up those
+     * of other appointments.
+     */
+    List<AppointmentEvent> findDue(Instant now, int limit);
+
+    /**
+     * Creates the indexes {@link #findDue} reads the outbox with, on {next_attempt_at, _id} to find the due events and
+     * on {appointment_id, _id} to read the events of an appointment in order, unless they already exist.
+     */
+    void ensureIndexes();
+
+    /**
+     * Leases the event to the caller by moving its next attempt to the given time, provided no other dispatcher has
+     * leased or rescheduled it since it was read with the given next attempt time.
+     *
+     * @return whether the event was leased
+     */
+    boolean claim(String id, Instant nextAttemptAt, Instant leasedUntil);
+
+    /**
+     * Records a failed attempt to publish the event and when it is next due.
+     */
+    void retryLater(String id, int attempts, Instant nextAttemptAt);
+
+    /**
+     * Moves an event that could not be published to appointment_events_dead_letter.
+     */
+    void deadLetter(AppointmentEvent event);
+}
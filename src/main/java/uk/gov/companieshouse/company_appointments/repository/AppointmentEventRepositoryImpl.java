@@ -0,0 +1,110 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.limit;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.Indexes;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.model.data.AppointmentEvent;
+
+@Component
+public class AppointmentEventRepositoryImpl implements AppointmentEventRepositoryExtension {
+
+    private static final String ID_FIELD = "_id";
+    private static final String NEXT_ATTEMPT_AT_FIELD = "next_attempt_at";
+    private static final String ATTEMPTS_FIELD = "attempts";
+    private static final String APPOINTMENT_ID_FIELD = "appointment_id";
+    private static final String FIRST_ID_FIELD = "first_id";
+    private static final String EARLIEST_FIELD = "earliest";
+    private static final String DEAD_LETTER_COLLECTION = "appointment_events_dead_letter";
+
+    private final MongoTemplate mongoTemplate;
+
+    AppointmentEventRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Finds the appointments with a due event on the next_attempt_at index, keeps those whose earliest event is due,
+     * looking it up on the appointment_id index, then reads their events, so that events of an appointment are still
+     * published in order. Only due events are grouped, rather than the whole outbox.
+     */
+    @Override
+    public List<AppointmentEvent> findDue(Instant now, int limit) {
+        String collection = mongoTemplate.getCollectionName(AppointmentEvent.class);
+        Date dueBy = Date.from(now);
+        List<String> appointmentIds = mongoTemplate.aggregate(newAggregation(
+                                match(where(NEXT_ATTEMPT_AT_FIELD).lte(dueBy)),
+                                group(APPOINTMENT_ID_FIELD).min(ID_FIELD).as(FIRST_ID_FIELD),
+                                context -> new Document("$lookup", new Document()
+                                        .append("from", collection)
+                                        .append("localField", ID_FIELD)
+                                        .append("foreignField", APPOINTMENT_ID_FIELD)
+                                        .append("pipeline", List.of(
+                                                new Document("$sort", new Document(ID_FIELD, 1)),
+                                                new Document("$limit", 1),
+                                                new Document("$project", new Document(NEXT_ATTEMPT_AT_FIELD, 1))))
+                                        .append("as", EARLIEST_FIELD)),
+                                match(where(EARLIEST_FIELD + "." + NEXT_ATTEMPT_AT_FIELD).lte(dueBy)),
+                                sort(Sort.Direction.ASC, FIRST_ID_FIELD),
+                                limit(limit)),
+                        collection, Document.class)
+                .getMappedResults().stream()
+                .map(document -> document.getString(ID_FIELD))
+                .toList();
+        if (appointmentIds.isEmpty()) {
+            return List.of();
+        }
+        return mongoTemplate.find(new Query(where(APPOINTMENT_ID_FIELD).in(appointmentIds))
+                .with(Sort.by(ID_FIELD))
+                .limit(limit), AppointmentEvent.class);
+    }
+
+    @Override
+    public void ensureIndexes() {
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(AppointmentEvent.class)).createIndexes(List.of(
+                new IndexModel(Indexes.ascending(NEXT_ATTEMPT_AT_FIELD, ID_FIELD)),
+                new IndexModel(Indexes.ascending(APPOINTMENT_ID_FIELD, ID_FIELD))));
+    }
+
+    @Override
+    public boolean claim(String id, Instant nextAttemptAt, Instant leasedUntil) {
+        return mongoTemplate.updateFirst(
+                query(where(ID_FIELD).is(id).and(NEXT_ATTEMPT_AT_FIELD).is(nextAttemptAt)),
+                new Update().set(NEXT_ATTEMPT_AT_FIELD, leasedUntil),
+                AppointmentEvent.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public void retryLater(String id, int attempts, Instant nextAttemptAt) {
+        mongoTemplate.updateFirst(query(where(ID_FIELD).is(id)),
+                new Update()
+                        .set(ATTEMPTS_FIELD, attempts)
+                        .set(NEXT_ATTEMPT_AT_FIELD, nextAttemptAt),
+                AppointmentEvent.class);
+    }
+
+    /**
+     * Saves the event to the dead letter collection before removing it from the outbox, so that it is kept, though
+     * perhaps retried once more, if the removal fails.
+     */
+    @Override
+    public void deadLetter(AppointmentEvent event) {
+        mongoTemplate.save(event, DEAD_LETTER_COLLECTION);
+        mongoTemplate.remove(query(where(ID_FIELD).is(event.getId())), AppointmentEvent.class);
+    }
+}
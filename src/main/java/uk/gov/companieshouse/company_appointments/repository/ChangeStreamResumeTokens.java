@@ -0,0 +1,108 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The resume token of each change stream read by this service, kept in change_stream_resume_tokens so that a stream
+ * is resumed after the last change it finished handling when this or any other instance reopens it. Each document
+ * also holds a lease on its stream, so that only one instance reads the stream at a time; the resume token is only
+ * saved or forgotten by the instance holding the lease.
+ */
+@Component
+@ConditionalOnProperty(prefix = "company-appointments.change-stream", name = "enabled")
+public class ChangeStreamResumeTokens {
+
+    static final String COLLECTION = "change_stream_resume_tokens";
+
+    private static final String ID_FIELD = "_id";
+    private static final String TOKEN_FIELD = "token";
+    private static final String UPDATED_AT_FIELD = "updated_at";
+    private static final String OWNER_FIELD = "owner";
+    private static final String LEASE_EXPIRES_AT_FIELD = "lease_expires_at";
+
+    private final MongoTemplate mongoTemplate;
+    private final Clock clock;
+
+    public ChangeStreamResumeTokens(MongoTemplate mongoTemplate, Clock clock) {
+        this.mongoTemplate = mongoTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes or renews the lease on the stream for the owner until the given time, unless another owner holds a lease
+     * that has not expired at now.
+     *
+     * @return whether the owner holds the lease
+     */
+    public boolean acquireLease(String stream, String owner, Instant now, Instant expiresAt) {
+        try {
+            collection().updateOne(Filters.and(Filters.eq(ID_FIELD, stream), Filters.or(
+                            Filters.eq(OWNER_FIELD, owner),
+                            Filters.lte(LEASE_EXPIRES_AT_FIELD, Date.from(now)),
+                            Filters.exists(LEASE_EXPIRES_AT_FIELD, false))),
+                    Updates.combine(Updates.set(OWNER_FIELD, owner),
+                            Updates.set(LEASE_EXPIRES_AT_FIELD, Date.from(expiresAt))),
+                    new UpdateOptions().upsert(true));
+            return true;
+        } catch (MongoWriteException ex) {
+            if (ex.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                return false;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Gives up the owner's lease on the stream, so that another instance can take it without waiting for it to expire.
+     */
+    public void releaseLease(String stream, String owner) {
+        collection().updateOne(Filters.and(Filters.eq(ID_FIELD, stream), Filters.eq(OWNER_FIELD, owner)),
+                Updates.unset(LEASE_EXPIRES_AT_FIELD));
+    }
+
+    public Optional<BsonDocument> find(String stream) {
+        return Optional.ofNullable(collection().withDocumentClass(BsonDocument.class)
+                        .find(new Document(ID_FIELD, stream))
+                        .first())
+                .filter(document -> document.isDocument(TOKEN_FIELD))
+                .map(document -> document.getDocument(TOKEN_FIELD));
+    }
+
+    /**
+     * Saves the resume token of the stream if the owner still holds the lease on it.
+     *
+     * @return whether the token was saved
+     */
+    public boolean save(String stream, String owner, BsonDocument token) {
+        return collection().updateOne(Filters.and(Filters.eq(ID_FIELD, stream), Filters.eq(OWNER_FIELD, owner)),
+                Updates.combine(Updates.set(TOKEN_FIELD, token),
+                        Updates.set(UPDATED_AT_FIELD, Date.from(clock.instant())))).getMatchedCount() > 0;
+    }
+
+    /**
+     * Forgets the resume token of the stream if the owner still holds the lease on it, so that the stream is next
+     * opened at the current time.
+     */
+    public void forget(String stream, String owner) {
+        collection().updateOne(Filters.and(Filters.eq(ID_FIELD, stream), Filters.eq(OWNER_FIELD, owner)),
+                Updates.unset(TOKEN_FIELD));
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(COLLECTION);
+    }
+}
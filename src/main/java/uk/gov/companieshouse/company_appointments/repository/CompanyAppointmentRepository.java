@@ -1,5 +1,7 @@
 package uk.gov.companieshouse.company_appointments.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
@@ -14,10 +16,22 @@ public interface CompanyAppointmentRepository extends
     Optional<CompanyAppointmentDocument> readByCompanyNumberAndAppointmentID(String companyNumber,
             String appointmentId);
 
+    @Query(value = "{'company_number' : '?0', '_id' : '?1'}", fields = "{'data.etag' : 1}")
+    Optional<CompanyAppointmentDocument> readEtagByCompanyNumberAndAppointmentID(String companyNumber,
+            String appointmentId);
+
     @Query("{'company_number' : '?0', '_id' : '?1'}")
     Optional<CompanyAppointmentDocument> readByCompanyNumberAndID(String companyNumber,
             String appointmentId);
 
+    @Query("{'company_number' : '?0', '_id' : { $in : ?1 }}")
+    List<CompanyAppointmentDocument> readByCompanyNumberAndIDs(String companyNumber,
+            Collection<String> appointmentIds);
+
+    @Query(value = "{'_id' : { $in : ?0 }}", fields = "{'officer_id' : 1, 'company_status' : 1, 'delta_at' : 1, "
+            + "'created' : 1, 'data.etag' : 1, 'data.resigned_on' : 1}")
+    List<CompanyAppointmentDocument> readDeltaStatesByIDs(Collection<String> appointmentIds);
+
     @Query(value = "{'company_number' : '?0', '_id' : '?1'}", delete = true)
     void deleteByCompanyNumberAndID(String companyNumber, String appointmentId);
 }
@@ -1,11 +1,79 @@
 package uk.gov.companieshouse.company_appointments.repository;
 
 import java.util.List;
+import java.util.Optional;
+import org.springframework.lang.Nullable;
+import uk.gov.companieshouse.company_appointments.model.CompanyAppointmentsContinuationToken;
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentsPage;
 
 public interface CompanyAppointmentRepositoryExtension {
 
     List<CompanyAppointmentDocument> getCompanyAppointments(String companyNumber,
             String orderBy, String registerType, int startIndex, int itemsPerPage,
             boolean registerView, boolean filterEnabled);
-}
\ No newline at end of file
+
+    /**
+     * Fetches the same page as {@link #getCompanyAppointments} together with the company's total, active, resigned
+     * and active per-register appointment counts, read by a separate aggregation rather than alongside the page.
+     */
+    CompanyAppointmentsPage getCompanyAppointmentsPage(String companyNumber,
+            String orderBy, String registerType, int startIndex, int itemsPerPage,
+            boolean registerView, boolean filterEnabled);
+
+    /**
+     * Fetches up to {@code limit} appointments after the token's position in the order's keyset sort, seeking on the
+     * company's index for that order instead of skipping the earlier appointments.
+     */
+    List<CompanyAppointmentDocument> getCompanyAppointmentsAfter(String companyNumber,
+            String orderBy, String registerType, CompanyAppointmentsContinuationToken after, int limit,
+            boolean registerView, boolean filterEnabled);
+
+    /**
+     * Fetches the same page as {@link #getCompanyAppointmentsAfter}, with its own keyset seek, together with the
+     * counts read by {@link #getCompanyAppointmentsPage}.
+     */
+    CompanyAppointmentsPage getCompanyAppointmentsPageAfter(String companyNumber,
+            String orderBy, String registerType, CompanyAppointmentsContinuationToken after, int limit,
+            boolean registerView, boolean filterEnabled);
+
+    /**
+     * Fetches the etags, company status and order's sort fields of the appointments on the same page as
+     * {@link #getCompanyAppointments}, without the rest of each appointment, together with the counts read by
+     * {@link #getCompanyAppointmentsPage}.
+     */
+    CompanyAppointmentsPage getCompanyAppointmentEtagsPage(String companyNumber,
+            String orderBy, String registerType, int startIndex, int itemsPerPage,
+            boolean registerView, boolean filterEnabled);
+
+    /**
+     * Fetches the fields read by {@link #getCompanyAppointmentEtagsPage} for the same page as
+     * {@link #getCompanyAppointmentsAfter}, together with the counts.
+     */
+    CompanyAppointmentsPage getCompanyAppointmentEtagsPageAfter(String companyNumber,
+            String orderBy, String registerType, CompanyAppointmentsContinuationToken after, int limit,
+            boolean registerView, boolean filterEnabled);
+
+    /**
+     * The token for the position of the given appointment in the order's keyset sort.
+     */
+    CompanyAppointmentsContinuationToken continuationTokenAfter(String orderBy, CompanyAppointmentDocument document,
+            int offset);
+
+    /**
+     * Replaces or inserts the appointment in a single conditional write unless its stored appointment has a later
+     * delta_at, keeping the created timestamp of an appointment that already exists.
+     *
+     * @return the {@link DeltaAppointmentsProjections#DELTA_STATE} fields of the appointment as it was before the
+     *         write, or empty when the appointment was inserted
+     * @throws org.springframework.dao.DuplicateKeyException when the stored appointment has a later delta_at or,
+     *         when unchanged deltas are skipped, the same etag
+     */
+    Optional<CompanyAppointmentDocument> upsertOneUnlessStale(CompanyAppointmentDocument document);
+
+    /**
+     * Moves the stored delta_at of each appointment forward to its delta_at, leaving the rest of the appointment as it
+     * is, so that a delta skipped because it changed nothing still makes earlier deltas stale.
+     */
+    void advanceDeltaAts(List<CompanyAppointmentDocument> documents);
+}
@@ -1,5 +1,6 @@
 package uk.gov.companieshouse.company_appointments.repository;
 
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
 import static org.springframework.data.mongodb.core.query.Criteria.where;
 import static org.springframework.data.mongodb.core.query.Query.query;
 import static uk.gov.companieshouse.company_appointments.model.data.CompanyStatus.CLOSED;
@@ -18,13 +19,30 @@ import static uk.gov.companieshouse.company_appointments.roles.SecretarialRoles.
 import static uk.gov.companieshouse.company_appointments.roles.SecretarialRoles.NOMINEE_SECRETARY;
 import static uk.gov.companieshouse.company_appointments.roles.SecretarialRoles.SECRETARY;
 
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
 import uk.gov.companieshouse.company_appointments.mapper.SortMapper;
+import uk.gov.companieshouse.company_appointments.model.CompanyAppointmentsContinuationToken;
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentsPage;
 
 @Component
 public class CompanyAppointmentRepositoryImpl implements CompanyAppointmentRepositoryExtension {
@@ -33,12 +51,32 @@ public class CompanyAppointmentRepositoryImpl implements CompanyAppointmentRepos
     private static final String COMPANY_NUMBER_FIELD = "company_number";
     private static final String DATA_RESIGNED_ON_FIELD = "data.resigned_on";
     private static final String COMPANY_STATUS_FIELD = "company_status";
+    private static final String REGISTER_TYPE_FIELD = "register_type";
+    private static final String IS_ACTIVE_FIELD = "is_active";
+    private static final String COLLECTION = "delta_appointments";
+    private static final String ID_FIELD = "_id";
+    private static final String DELTA_AT_FIELD = "delta_at";
+    private static final String DATA_ETAG_FIELD = "data.etag";
+    private static final String CREATED_FIELD = "created";
+    private static final String DIRECTORS = "directors";
+    private static final String SECRETARIES = "secretaries";
+    private static final String LLP_MEMBERS = "llp_members";
+    private static final String[] LIST_FIELDS = DeltaAppointmentsProjections.COMPANY_APPOINTMENTS_LIST
+            .toArray(String[]::new);
+    private static final Document DELTA_STATE_PROJECTION = DeltaAppointmentsProjections.project(
+            DeltaAppointmentsProjections.DELTA_STATE).get("$project", Document.class);
     private final MongoTemplate mongoTemplate;
     private final SortMapper sortMapper;
+    private final boolean registerClassificationEnabled;
+    private final boolean skipUnchangedDeltasEnabled;
 
-    CompanyAppointmentRepositoryImpl(MongoTemplate mongoTemplate, SortMapper sortMapper) {
+    CompanyAppointmentRepositoryImpl(MongoTemplate mongoTemplate, SortMapper sortMapper,
+            @Value("${company-appointments.register-classification-enabled}") boolean registerClassificationEnabled,
+            @Value("${company-appointments.skip-unchanged-deltas-enabled}") boolean skipUnchangedDeltasEnabled) {
         this.mongoTemplate = mongoTemplate;
         this.sortMapper = sortMapper;
+        this.registerClassificationEnabled = registerClassificationEnabled;
+        this.skipUnchangedDeltasEnabled = skipUnchangedDeltasEnabled;
     }
 
     @Override
@@ -46,53 +84,273 @@ public class CompanyAppointmentRepositoryImpl implements CompanyAppointmentRepos
             String orderBy, String registerType, int startIndex, int itemsPerPage,
             boolean registerView, boolean filterEnabled) {
 
+        return findAppointments(companyNumber, orderBy, registerType, null, startIndex, itemsPerPage, registerView,
+                filterEnabled, LIST_FIELDS);
+    }
+
+    /**
+     * The page is read with the same indexed find as {@link #getCompanyAppointments}, and the counts that would
+     * otherwise be read from company-metrics-api with a separate aggregation over the company's appointments.
+     */
+    @Override
+    public CompanyAppointmentsPage getCompanyAppointmentsPage(String companyNumber,
+            String orderBy, String registerType, int startIndex, int itemsPerPage,
+            boolean registerView, boolean filterEnabled) {
+
+        return countAppointments(companyNumber).items(findAppointments(companyNumber, orderBy, registerType, null,
+                startIndex, itemsPerPage, registerView, filterEnabled, LIST_FIELDS));
+    }
+
+    @Override
+    public List<CompanyAppointmentDocument> getCompanyAppointmentsAfter(String companyNumber,
+            String orderBy, String registerType, CompanyAppointmentsContinuationToken after, int limit,
+            boolean registerView, boolean filterEnabled) {
+
+        return findAppointments(companyNumber, orderBy, registerType, after, 0, limit, registerView, filterEnabled,
+                LIST_FIELDS);
+    }
+
+    @Override
+    public CompanyAppointmentsPage getCompanyAppointmentsPageAfter(String companyNumber,
+            String orderBy, String registerType, CompanyAppointmentsContinuationToken after, int limit,
+            boolean registerView, boolean filterEnabled) {
+
+        return countAppointments(companyNumber).items(findAppointments(companyNumber, orderBy, registerType, after, 0,
+                limit, registerView, filterEnabled, LIST_FIELDS));
+    }
+
+    @Override
+    public CompanyAppointmentsPage getCompanyAppointmentEtagsPage(String companyNumber,
+            String orderBy, String registerType, int startIndex, int itemsPerPage,
+            boolean registerView, boolean filterEnabled) {
+
+        return countAppointments(companyNumber).items(findAppointments(companyNumber, orderBy, registerType, null,
+                startIndex, itemsPerPage, registerView, filterEnabled, etagFields(orderBy)));
+    }
+
+    @Override
+    public CompanyAppointmentsPage getCompanyAppointmentEtagsPageAfter(String companyNumber,
+            String orderBy, String registerType, CompanyAppointmentsContinuationToken after, int limit,
+            boolean registerView, boolean filterEnabled) {
+
+        return countAppointments(companyNumber).items(findAppointments(companyNumber, orderBy, registerType, after, 0,
+                limit, registerView, filterEnabled, etagFields(orderBy)));
+    }
+
+    @Override
+    public CompanyAppointmentsContinuationToken continuationTokenAfter(String orderBy,
+            CompanyAppointmentDocument document, int offset) {
+        Document stored = new Document();
+        mongoTemplate.getConverter().write(document, stored);
+        return new CompanyAppointmentsContinuationToken(orderBy,
+                KeysetCriteria.positionOf(sortMapper.getKeysetSort(orderBy), stored), offset);
+    }
+
+    /**
+     * The write matches the appointment only while its stored delta_at is not later than the incoming one, so a stale
+     * delta makes the upsert attempt an insert with an existing _id, which fails with a duplicate key error. When
+     * unchanged deltas are skipped, an appointment whose stored etag is the incoming one is not matched either. Fields
+     * the incoming appointment does not have are unset, as a replacement would drop them.
+     */
+    @Override
+    public Optional<CompanyAppointmentDocument> upsertOneUnlessStale(CompanyAppointmentDocument document) {
+        Document stored = new Document();
+        mongoTemplate.getConverter().write(document, stored);
+
+        Document set = new Document(stored);
+        set.remove(ID_FIELD);
+        Object created = set.remove(CREATED_FIELD);
+        Document unset = new Document();
+        mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(CompanyAppointmentDocument.class)
+                .doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> {
+                    String field = property.getFieldName();
+                    if (!property.isIdProperty() && !CREATED_FIELD.equals(field) && !stored.containsKey(field)) {
+                        unset.append(field, "");
+                    }
+                });
+        Document update = new Document("$set", set);
+        if (created != null) {
+            update.append("$setOnInsert", new Document(CREATED_FIELD, created));
+        }
+        if (!unset.isEmpty()) {
+            update.append("$unset", unset);
+        }
+
+        Document filter = new Document(ID_FIELD, document.getId())
+                .append(DELTA_AT_FIELD, new Document("$lte", stored.get(DELTA_AT_FIELD)));
+        if (skipUnchangedDeltasEnabled) {
+            filter.append(DATA_ETAG_FIELD, new Document("$ne", etag(document)));
+        }
+        Document previous = mongoTemplate.execute(COLLECTION, collection -> collection.findOneAndUpdate(filter,
+                update, new FindOneAndUpdateOptions()
+                        .upsert(true)
+                        .returnDocument(ReturnDocument.BEFORE)
+                        .projection(DELTA_STATE_PROJECTION)));
+        return Optional.ofNullable(previous)
+                .map(existing -> mongoTemplate.getConverter().read(CompanyAppointmentDocument.class, existing));
+    }
+
+    @Override
+    public void advanceDeltaAts(List<CompanyAppointmentDocument> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkMode.UNORDERED, CompanyAppointmentDocument.class);
+        documents.forEach(document -> bulkOperations.updateOne(query(where(ID_FIELD).is(document.getId())),
+                new Update().max(DELTA_AT_FIELD, document.getDeltaAt())));
+        bulkOperations.execute();
+    }
+
+    @Nullable
+    private static String etag(CompanyAppointmentDocument document) {
+        return document.getData() != null ? document.getData().getEtag() : null;
+    }
+
+    /**
+     * Pages by skipping start_index appointments, or by seeking after the token's position when one is given.
+     */
+    private List<CompanyAppointmentDocument> findAppointments(String companyNumber, String orderBy,
+            String registerType, @Nullable CompanyAppointmentsContinuationToken after, int startIndex, int limit,
+            boolean registerView, boolean filterEnabled, String[] fields) {
+
+        Criteria criteria = pageCriteria(companyNumber, registerType, registerView, filterEnabled);
+        Query query;
+        if (after == null) {
+            query = query(criteria)
+                    .with(sortMapper.getSort(orderBy))
+                    .skip(startIndex)
+                    .limit(limit);
+        } else {
+            Sort sort = sortMapper.getKeysetSort(orderBy);
+            query = query(seekCriteria(criteria, sort, after))
+                    .with(sort)
+                    .limit(limit);
+        }
+        query.fields().include(fields);
+
+        return mongoTemplate.find(query, CompanyAppointmentDocument.class);
+    }
+
+    private String[] etagFields(String orderBy) {
+        return Stream.concat(DeltaAppointmentsProjections.COMPANY_APPOINTMENTS_ETAGS.stream(),
+                        sortMapper.getKeysetSort(orderBy).stream().map(Sort.Order::getProperty))
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Counts the company's appointments with a single $group over its appointments matched on the company number
+     * index, projected down to the fields the counts read, so no page is sorted or buffered to count them.
+     */
+    private CompanyAppointmentsPage countAppointments(String companyNumber) {
+        Document projection = new Document(ID_FIELD, 0).append(DATA_RESIGNED_ON_FIELD, 1);
+        if (registerClassificationEnabled) {
+            projection.append(REGISTER_TYPE_FIELD, 1).append(IS_ACTIVE_FIELD, 1);
+        } else {
+            projection.append(DATA_OFFICER_ROLE, 1);
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                match(where(COMPANY_NUMBER_FIELD).is(companyNumber)),
+                context -> new Document("$project", projection),
+                context -> new Document("$group", new Document(ID_FIELD, null)
+                        .append("total_count", new Document("$sum", 1))
+                        .append("active_count", countIf(activeExpression()))
+                        .append("resigned_count", countIf(new Document("$not", List.of(activeResignedOn()))))
+                        .append("active_directors_count", countIf(activeRegisterExpression(DIRECTORS)))
+                        .append("active_secretaries_count", countIf(activeRegisterExpression(SECRETARIES)))
+                        .append("active_llp_members_count", countIf(activeRegisterExpression(LLP_MEMBERS)))));
+
+        CompanyAppointmentsPage counts = mongoTemplate.aggregate(aggregation, COLLECTION,
+                CompanyAppointmentsPage.class).getUniqueMappedResult();
+        return counts != null ? counts : new CompanyAppointmentsPage();
+    }
+
+    private static Criteria seekCriteria(Criteria criteria, Sort sort, CompanyAppointmentsContinuationToken after) {
+        if (after.isStart()) {
+            return criteria;
+        }
+        if (after.position().size() != sort.toList().size()) {
+            throw new BadRequestException("Invalid continuation token supplied for order by [%s]"
+                    .formatted(after.orderBy()));
+        }
+        return criteria.andOperator(KeysetCriteria.after(sort, after.position()));
+    }
+
+    /**
+     * With the register classification persisted, register view and active filters match single values of
+     * register_type and is_active, which the active register index can serve, rather than an $exists and a list of
+     * roles.
+     */
+    private Criteria pageCriteria(String companyNumber, String registerType, boolean registerView,
+            boolean filterEnabled) {
         Criteria criteria = where(COMPANY_NUMBER_FIELD).is(companyNumber);
 
         if (registerView) {
-            criteria.and(DATA_RESIGNED_ON_FIELD).exists(false);
-            filterByRegisterType(criteria, registerType);
+            // also rejects an invalid register type
+            List<String> roles = registerRoles(registerType);
+            if (registerClassificationEnabled) {
+                criteria.and(REGISTER_TYPE_FIELD).is(registerType)
+                        .and(IS_ACTIVE_FIELD).is(true);
+            } else {
+                criteria.and(DATA_RESIGNED_ON_FIELD).exists(false)
+                        .and(DATA_OFFICER_ROLE).in(roles);
+            }
         } else if (filterEnabled) {
-            criteria.and(DATA_RESIGNED_ON_FIELD).exists(false)
-                    .and(COMPANY_STATUS_FIELD).nin(List.of(DISSOLVED.getStatus(), CONVERTED_CLOSED.getStatus(), CLOSED.getStatus()));
+            Criteria active = registerClassificationEnabled
+                    ? criteria.and(IS_ACTIVE_FIELD).is(true)
+                    : criteria.and(DATA_RESIGNED_ON_FIELD).exists(false);
+            active.and(COMPANY_STATUS_FIELD).nin(List.of(DISSOLVED.getStatus(), CONVERTED_CLOSED.getStatus(), CLOSED.getStatus()));
         }
+        return criteria;
+    }
 
-        Query query = query(criteria)
-                .with(sortMapper.getSort(orderBy))
-                .skip(startIndex)
-                .limit(itemsPerPage);
+    private Document activeRegisterExpression(String registerType) {
+        List<String> roles = registerRoles(registerType);
+        return registerClassificationEnabled
+                ? new Document("$and", List.of(
+                        new Document("$eq", List.of("$" + REGISTER_TYPE_FIELD, registerType)),
+                        new Document("$eq", List.of("$" + IS_ACTIVE_FIELD, true))))
+                : new Document("$and", List.of(
+                        activeResignedOn(),
+                        new Document("$in", List.of("$" + DATA_OFFICER_ROLE, roles))));
+    }
 
-        return mongoTemplate.find(query, CompanyAppointmentDocument.class);
+    private Document activeExpression() {
+        return registerClassificationEnabled
+                ? new Document("$eq", List.of("$" + IS_ACTIVE_FIELD, true))
+                : activeResignedOn();
     }
 
-    private void filterByRegisterType(Criteria criteria, String registerType) {
-
-        switch (registerType) {
-            case "directors":
-                criteria.and(DATA_OFFICER_ROLE)
-                        .in(List.of(
-                                DIRECTOR.getRole(),
-                                CORPORATE_DIRECTOR.getRole(),
-                                NOMINEE_DIRECTOR.getRole(),
-                                CORPORATE_NOMINEE_DIRECTOR.getRole()));
-                break;
-            case "secretaries":
-                criteria.and(DATA_OFFICER_ROLE)
-                        .in(List.of(
-                                SECRETARY.getRole(),
-                                CORPORATE_SECRETARY.getRole(),
-                                NOMINEE_SECRETARY.getRole(),
-                                CORPORATE_NOMINEE_SECRETARY.getRole()));
-                break;
-            case "llp_members":
-                criteria.and(DATA_OFFICER_ROLE)
-                        .in(List.of(
-                                LLP_MEMBER.getRole(),
-                                CORPORATE_LLP_MEMBER.getRole(),
-                                LLP_DESIGNATED_MEMBER.getRole(),
-                                CORPORATE_LLP_DESIGNATED_MEMBER.getRole()));
-                break;
-            default:
-                throw new IllegalArgumentException("Invalid registerType of " + registerType);
-        }
+    /**
+     * The expression form of {@code data.resigned_on $exists false}.
+     */
+    private static Document activeResignedOn() {
+        return new Document("$eq", List.of(new Document("$type", "$" + DATA_RESIGNED_ON_FIELD), "missing"));
+    }
+
+    private static Document countIf(Document condition) {
+        return new Document("$sum", new Document("$cond", List.of(condition, 1, 0)));
+    }
+
+    private static List<String> registerRoles(String registerType) {
+        return switch (registerType) {
+            case DIRECTORS -> List.of(
+                    DIRECTOR.getRole(),
+                    CORPORATE_DIRECTOR.getRole(),
+                    NOMINEE_DIRECTOR.getRole(),
+                    CORPORATE_NOMINEE_DIRECTOR.getRole());
+            case SECRETARIES -> List.of(
+                    SECRETARY.getRole(),
+                    CORPORATE_SECRETARY.getRole(),
+                    NOMINEE_SECRETARY.getRole(),
+                    CORPORATE_NOMINEE_SECRETARY.getRole());
+            case LLP_MEMBERS -> List.of(
+                    LLP_MEMBER.getRole(),
+                    CORPORATE_LLP_MEMBER.getRole(),
+                    LLP_DESIGNATED_MEMBER.getRole(),
+                    CORPORATE_LLP_DESIGNATED_MEMBER.getRole());
+            default -> throw new IllegalArgumentException("Invalid registerType of " + registerType);
+        };
     }
 }
\ No newline at end of file
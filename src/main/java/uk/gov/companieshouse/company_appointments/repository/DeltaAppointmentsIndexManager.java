@@ -0,0 +1,122 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import static uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication.APPLICATION_NAME_SPACE;
+import static uk.gov.companieshouse.company_appointments.repository.DeltaAppointmentsIndexes.COLLECTION;
+
+import com.mongodb.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.repository.DeltaAppointmentsIndexes.IndexDeclaration;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * Checks the indexes on delta_appointments against {@link DeltaAppointmentsIndexes} at startup. Missing indexes are
+ * optionally created in the background without holding up startup. Any drift is logged and, when failing on drift,
+ * also reported as DOWN by the healthcheck until it is resolved. An index whose declared name is taken by a different
+ * definition is never replaced automatically.
+ */
+@Component
+@ConditionalOnProperty(prefix = "delta-appointments.indexes", name = "enabled")
+public class DeltaAppointmentsIndexManager implements ApplicationRunner, HealthIndicator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(APPLICATION_NAME_SPACE);
+
+    private final MongoTemplate mongoTemplate;
+    private final ExecutorService executor;
+    private final boolean createMissing;
+    private final boolean failOnDrift;
+    private volatile List<String> drift = List.of();
+
+    DeltaAppointmentsIndexManager(MongoTemplate mongoTemplate, ExecutorService executor,
+            @Value("${delta-appointments.indexes.create-missing}") boolean createMissing,
+            @Value("${delta-appointments.indexes.fail-on-drift}") boolean failOnDrift) {
+        this.mongoTemplate = mongoTemplate;
+        this.executor = executor;
+        this.createMissing = createMissing;
+        this.failOnDrift = failOnDrift;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ensureIndexes();
+    }
+
+    /**
+     * Checks for drift and, when enabled, starts creating the missing indexes, returning once they are built.
+     */
+    public CompletableFuture<Void> ensureIndexes() {
+        List<IndexDeclaration> missing = checkIndexes();
+        if (!createMissing || missing.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+                    LOGGER.info("Creating %d missing %s indexes".formatted(missing.size(), COLLECTION),
+                            DataMapHolder.getLogMap());
+                    mongoTemplate.getCollection(COLLECTION).createIndexes(missing.stream()
+                            .map(IndexDeclaration::toIndexModel)
+                            .toList());
+                }, executor)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        LOGGER.error("Failed to create missing %s indexes".formatted(COLLECTION), ex,
+                                DataMapHolder.getLogMap());
+                    }
+                    checkIndexes();
+                });
+    }
+
+    @Override
+    public Health health() {
+        List<String> currentDrift = drift;
+        if (failOnDrift && !currentDrift.isEmpty()) {
+            return Health.down().withDetail("drift", currentDrift).build();
+        }
+        return Health.up().build();
+    }
+
+    /**
+     * Records the drift between the declared and existing indexes, returning the declared indexes that can be
+     * created.
+     */
+    List<IndexDeclaration> checkIndexes() {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+        List<Document> existing = collection.listIndexes().into(new ArrayList<>());
+
+        List<IndexDeclaration> missing = new ArrayList<>();
+        List<String> currentDrift = new ArrayList<>();
+        for (IndexDeclaration declared : DeltaAppointmentsIndexes.ALL) {
+            if (existing.stream().anyMatch(declared::matches)) {
+                continue;
+            }
+            if (existing.stream().anyMatch(index -> declared.name().equals(index.getString("name")))) {
+                currentDrift.add("Index %s differs from its declaration %s".formatted(declared.name(),
+                        declared.keys().toJson()));
+            } else {
+                currentDrift.add("Index %s %s is missing".formatted(declared.name(), declared.keys().toJson()));
+                missing.add(declared);
+            }
+        }
+
+        currentDrift.forEach(message -> LOGGER.error("%s on %s".formatted(message, COLLECTION),
+                DataMapHolder.getLogMap()));
+        if (currentDrift.isEmpty()) {
+            LOGGER.info("All %d declared %s indexes exist".formatted(DeltaAppointmentsIndexes.ALL.size(),
+                    COLLECTION), DataMapHolder.getLogMap());
+        }
+        drift = List.copyOf(currentDrift);
+        return missing;
+    }
+}
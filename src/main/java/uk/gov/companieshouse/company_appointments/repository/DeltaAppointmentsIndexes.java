@@ -0,0 +1,154 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.lang.Nullable;
+
+/**
+ * The indexes on delta_appointments that the company and officer appointments queries rely on to avoid collection
+ * scans and in-memory sorts.
+ */
+public final class DeltaAppointmentsIndexes {
+
+    public static final String COLLECTION = "delta_appointments";
+
+    /**
+     * The company appointments list in each {@link uk.gov.companieshouse.company_appointments.mapper.SortMapper} order,
+     * ending in the _id tie-breaker so that continuation token pages seek on the index rather than skipping.
+     */
+    public static final IndexDeclaration COMPANY_DEFAULT_ORDER = new IndexDeclaration("company_number_default_order_id",
+            new Document("company_number", 1)
+                    .append("officer_role_sort_order", 1)
+                    .append("data.company_name", 1)
+                    .append("data.surname", 1)
+                    .append("data.forename", 1)
+                    .append("data.appointed_on", -1)
+                    .append("data.appointed_before", -1)
+                    .append("_id", -1), null);
+    public static final IndexDeclaration COMPANY_APPOINTED_ON_ORDER = new IndexDeclaration(
+            "company_number_appointed_on_order_id", new Document("company_number", 1)
+            .append("data.appointed_on", -1)
+            .append("data.appointed_before", -1)
+            .append("_id", -1), null);
+    public static final IndexDeclaration COMPANY_SURNAME_ORDER = new IndexDeclaration(
+            "company_number_surname_order_id", new Document("company_number", 1)
+            .append("data.company_name", 1)
+            .append("data.surname", 1)
+            .append("_id", 1), null);
+    public static final IndexDeclaration COMPANY_RESIGNED_ON_ORDER = new IndexDeclaration(
+            "company_number_resigned_on_order_id", new Document("company_number", 1)
+            .append("data.resigned_on", -1)
+            .append("_id", -1), null);
+
+    /**
+     * Register view pages: a company's active appointments on one register, in the default order. Only active
+     * appointments are indexed.
+     */
+    public static final IndexDeclaration COMPANY_ACTIVE_REGISTER = new IndexDeclaration(
+            "company_number_active_register_default_order", new Document("company_number", 1)
+            .append("register_type", 1)
+            .append("officer_role_sort_order", 1)
+            .append("data.company_name", 1)
+            .append("data.surname", 1)
+            .append("data.forename", 1)
+            .append("data.appointed_on", -1)
+            .append("data.appointed_before", -1)
+            .append("_id", -1),
+            new Document("is_active", true));
+
+    /**
+     * The officer's total, resigned and inactive counts.
+     */
+    public static final IndexDeclaration OFFICER_COUNTS = new IndexDeclaration("officer_id_counts",
+            new Document("officer_id", 1)
+                    .append("data.resigned_on", 1)
+                    .append("company_status", 1), null);
+    /**
+     * The officer's most recent appointments and latest appointment.
+     */
+    public static final IndexDeclaration OFFICER_RECENT_ORDER = new IndexDeclaration("officer_id_recent_order",
+            new Document("officer_id", 1)
+                    .append("data.appointed_on", -1)
+                    .append("data.appointed_before", -1), null);
+    /**
+     * The officer's most recently written appointment, read for the officer appointments entity tag.
+     */
+    public static final IndexDeclaration OFFICER_LAST_UPDATED = new IndexDeclaration("officer_id_last_updated",
+            new Document("officer_id", 1)
+                    .append("updated.at", -1), null);
+    /**
+     * The active-then-resigned ranges read by the persisted sort keys.
+     */
+    public static final IndexDeclaration SORT_KEYS = new IndexDeclaration(
+            "officer_id_1_sort_bucket_1_sort_date_-1__id_-1", new Document("officer_id", 1)
+            .append("sort_bucket", 1)
+            .append("sort_date", -1)
+            .append("_id", -1), null);
+    /**
+     * The continuation token streams of active appointments, by appointed_on and, with an appointed_on of null, by
+     * _id alone.
+     */
+    public static final IndexDeclaration OFFICER_APPOINTED_ON_SEEK = new IndexDeclaration("officer_id_appointed_on_seek",
+            new Document("officer_id", 1)
+                    .append("data.appointed_on", -1)
+                    .append("_id", -1), null);
+    public static final IndexDeclaration OFFICER_APPOINTED_BEFORE_SEEK = new IndexDeclaration(
+            "officer_id_appointed_before_seek", new Document("officer_id", 1)
+            .append("data.appointed_before", -1)
+            .append("_id", -1), null);
+    /**
+     * The continuation token stream of resigned appointments. Partial filters cannot express a missing field, so
+     * only the resigned side of the ordering can use a partial index.
+     */
+    public static final IndexDeclaration OFFICER_RESIGNED_ON_SEEK = new IndexDeclaration("officer_id_resigned_on_seek",
+            new Document("officer_id", 1)
+                    .append("data.resigned_on", -1)
+                    .append("_id", -1),
+            new Document("data.resigned_on", new Document("$exists", true)));
+
+    public static final List<IndexDeclaration> ALL = List.of(COMPANY_DEFAULT_ORDER, COMPANY_APPOINTED_ON_ORDER,
+            COMPANY_SURNAME_ORDER, COMPANY_RESIGNED_ON_ORDER, COMPANY_ACTIVE_REGISTER, OFFICER_COUNTS,
+            OFFICER_RECENT_ORDER, OFFICER_LAST_UPDATED, SORT_KEYS, OFFICER_APPOINTED_ON_SEEK, OFFICER_APPOINTED_BEFORE_SEEK,
+            OFFICER_RESIGNED_ON_SEEK);
+
+    private DeltaAppointmentsIndexes() {
+    }
+
+    public record IndexDeclaration(String name, Document keys, @Nullable Document partialFilterExpression) {
+
+        /**
+         * Builds the index in the background on servers that still honour the option; from MongoDB 4.2 every build
+         * only holds an exclusive lock at its start and end.
+         */
+        public IndexModel toIndexModel() {
+            IndexOptions options = new IndexOptions()
+                    .name(name)
+                    .background(true);
+            if (partialFilterExpression != null) {
+                options.partialFilterExpression(partialFilterExpression);
+            }
+            return new IndexModel(keys, options);
+        }
+
+        /**
+         * Whether an index listed by the server has the declared key pattern, in order, and partial filter.
+         */
+        boolean matches(Document index) {
+            Document existingKeys = index.get("key", Document.class);
+            Document existingFilter = index.get("partialFilterExpression", Document.class);
+            return existingKeys != null
+                    && keyPattern(existingKeys).equals(keyPattern(keys))
+                    && (partialFilterExpression == null ? existingFilter == null
+                    : existingFilter != null && existingFilter.toJson().equals(partialFilterExpression.toJson()));
+        }
+
+        private static List<String> keyPattern(Document keys) {
+            return keys.entrySet().stream()
+                    .map(entry -> entry.getKey() + ":" + (entry.getValue() instanceof Number number
+                            ? Integer.signum(number.intValue()) : entry.getValue()))
+                    .toList();
+        }
+    }
+}
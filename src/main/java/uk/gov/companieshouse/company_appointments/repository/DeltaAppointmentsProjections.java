@@ -0,0 +1,122 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import java.util.List;
+import org.bson.Document;
+
+/**
+ * The fields of delta_appointments that the company and officer appointments list endpoints read, so that list
+ * queries do not transfer the residential address, audit fields and sort keys that no list response includes. Each
+ * projection is the fields read by the mapper for that endpoint plus those its service reads from the page.
+ */
+public final class DeltaAppointmentsProjections {
+
+    /**
+     * The fields read by {@link uk.gov.companieshouse.company_appointments.mapper.CompanyAppointmentMapper}, the
+     * company status and etag read from the first appointment, the register type and the keyset sort fields.
+     */
+    public static final List<String> COMPANY_APPOINTMENTS_LIST = List.of(
+            "_id",
+            "company_status",
+            "officer_role_sort_order",
+            "register_type",
+            "data.etag",
+            "data.person_number",
+            "data.officer_role",
+            "data.appointed_on",
+            "data.appointed_before",
+            "data.resigned_on",
+            "data.is_pre_1992_appointment",
+            "data.company_name",
+            "data.surname",
+            "data.forename",
+            "data.other_forenames",
+            "data.title",
+            "data.country_of_residence",
+            "data.nationality",
+            "data.occupation",
+            "data.service_address",
+            "data.principal_office_address",
+            "data.contact_details",
+            "data.identification",
+            "data.identity_verification_details",
+            "data.former_names",
+            "data.responsibilities",
+            "data.links",
+            "data.contribution_currency_type",
+            "data.contribution_currency_value",
+            "data.contribution_sub_types",
+            "sensitive_data.date_of_birth");
+
+    /**
+     * The fields a conditional request for a company's appointments computes its entity tag from: the etags and the
+     * company status the counts depend on. The order's keyset sort fields are read alongside them.
+     */
+    public static final List<String> COMPANY_APPOINTMENTS_ETAGS = List.of(
+            "_id",
+            "company_status",
+            "data.etag");
+
+    /**
+     * The fields a delta write compares against or needs from the appointment it replaces: the delta_at staleness is
+     * judged on, the etag an unchanged delta is recognised by, the created timestamp it keeps, and those the officer
+     * counts and officer merge are derived from.
+     */
+    public static final List<String> DELTA_STATE = List.of(
+            "officer_id",
+            "company_status",
+            "delta_at",
+            "created",
+            "data.etag",
+            "data.resigned_on");
+
+    /**
+     * The fields read by the officer appointments items mapper and, from the first active appointment on the page, by
+     * the officer appointments mapper. Declared as a $project stage so that it can be used in repository
+     * {@code @Aggregation} pipelines.
+     */
+    public static final String OFFICER_APPOINTMENTS_LIST = "{ $project: { "
+            + "'_id': 1, "
+            + "'officer_id': 1, "
+            + "'company_name': 1, "
+            + "'company_status': 1, "
+            + "'data.etag': 1, "
+            + "'data.officer_role': 1, "
+            + "'data.appointed_on': 1, "
+            + "'data.appointed_before': 1, "
+            + "'data.resigned_on': 1, "
+            + "'data.is_pre_1992_appointment': 1, "
+            + "'data.company_number': 1, "
+            + "'data.company_name': 1, "
+            + "'data.surname': 1, "
+            + "'data.forename': 1, "
+            + "'data.other_forenames': 1, "
+            + "'data.title': 1, "
+            + "'data.honours': 1, "
+            + "'data.country_of_residence': 1, "
+            + "'data.nationality': 1, "
+            + "'data.occupation': 1, "
+            + "'data.service_address': 1, "
+            + "'data.principal_office_address': 1, "
+            + "'data.contact_details': 1, "
+            + "'data.identification': 1, "
+            + "'data.identity_verification_details': 1, "
+            + "'data.former_names': 1, "
+            + "'data.responsibilities': 1, "
+            + "'data.contribution_currency_type': 1, "
+            + "'data.contribution_currency_value': 1, "
+            + "'data.contribution_sub_types': 1, "
+            + "'sensitive_data.date_of_birth': 1 "
+            + "} }";
+
+    private DeltaAppointmentsProjections() {
+    }
+
+    /**
+     * The $project stage including the given fields.
+     */
+    public static Document project(List<String> fields) {
+        Document projection = new Document();
+        fields.forEach(field -> projection.append(field, 1));
+        return new Document("$project", projection);
+    }
+}
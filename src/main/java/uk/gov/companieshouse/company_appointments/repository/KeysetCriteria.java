@@ -0,0 +1,71 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Builds the criteria that seek past a position in a sort order, given the values of every sort field at that
+ * position, so that a page can start from the last document returned instead of skipping the earlier ones.
+ * <p>
+ * For sort fields (a, b, c) and position (x, y, z) the documents after it are
+ * (a after x) OR (a = x AND b after y) OR (a = x AND b = y AND c after z). MongoDB sorts a missing or null value
+ * before any other, so in ascending order every non-null value comes after null, and in descending order null comes
+ * after every other value and nothing comes after null.
+ */
+final class KeysetCriteria {
+
+    private KeysetCriteria() {
+    }
+
+    static Criteria after(Sort sort, List<Object> position) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() != position.size()) {
+            throw new IllegalArgumentException(
+                    "Position has %d values for %d sort fields".formatted(position.size(), orders.size()));
+        }
+
+        List<Criteria> branches = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Criteria strictlyAfter = strictlyAfter(orders.get(i), position.get(i));
+            if (strictlyAfter == null) {
+                continue;
+            }
+            List<Criteria> branch = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                branch.add(where(orders.get(j).getProperty()).is(position.get(j)));
+            }
+            branch.add(strictlyAfter);
+            branches.add(branch.size() == 1 ? strictlyAfter : new Criteria().andOperator(branch));
+        }
+        return new Criteria().orOperator(branches);
+    }
+
+    /**
+     * Reads the values of the sort fields, which may be dotted paths into embedded documents, from a document as
+     * stored.
+     */
+    static List<Object> positionOf(Sort sort, Document document) {
+        List<Object> position = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Object value = document;
+            for (String key : order.getProperty().split("\\.")) {
+                value = value instanceof Document embedded ? embedded.get(key) : null;
+            }
+            position.add(value);
+        }
+        return position;
+    }
+
+    private static Criteria strictlyAfter(Sort.Order order, Object value) {
+        String field = order.getProperty();
+        if (order.isAscending()) {
+            return value == null ? where(field).ne(null) : where(field).gt(value);
+        }
+        return value == null ? null : new Criteria().orOperator(where(field).lt(value), where(field).is(null));
+    }
+}
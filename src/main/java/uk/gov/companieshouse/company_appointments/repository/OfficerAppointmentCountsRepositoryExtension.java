@@ -0,0 +1,20 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+public interface OfficerAppointmentCountsRepositoryExtension {
+
+    /**
+     * Atomically adds the given deltas to the officer's counts if the officer has counts. Counts are not created here,
+     * as deltas applied to an officer whose appointments pre-date the counts would give partial counts; they are
+     * seeded by {@link #reconcileCounts()}.
+     */
+    void incrementCounts(String officerId, int totalResults, int resignedCount, int inactiveCount);
+
+    /**
+     * Recomputes every officer's counts from delta_appointments, rewriting only counts that have drifted and removing
+     * counts for officers that no longer have appointments. Counts incremented while being recomputed are left for the
+     * next run rather than overwritten.
+     *
+     * @return the number of officers whose counts were corrected
+     */
+    long reconcileCounts();
+}
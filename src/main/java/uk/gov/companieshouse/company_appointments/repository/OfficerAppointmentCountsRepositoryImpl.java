@@ -0,0 +1,150 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static uk.gov.companieshouse.company_appointments.model.data.CompanyStatus.CLOSED;
+import static uk.gov.companieshouse.company_appointments.model.data.CompanyStatus.CONVERTED_CLOSED;
+import static uk.gov.companieshouse.company_appointments.model.data.CompanyStatus.DISSOLVED;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.model.data.OfficerAppointmentCounts;
+
+@Component
+public class OfficerAppointmentCountsRepositoryImpl implements OfficerAppointmentCountsRepositoryExtension {
+
+    private static final String APPOINTMENTS_COLLECTION = "delta_appointments";
+    private static final String COUNTS_COLLECTION = "officer_appointment_counts";
+    private static final String ID_FIELD = "_id";
+    private static final String TOTAL_RESULTS_FIELD = "total_results";
+    private static final String RESIGNED_COUNT_FIELD = "resigned_count";
+    private static final String INACTIVE_COUNT_FIELD = "inactive_count";
+    private static final String CURRENT_FIELD = "current";
+    private static final List<String> COUNT_FIELDS = List.of(TOTAL_RESULTS_FIELD, RESIGNED_COUNT_FIELD,
+            INACTIVE_COUNT_FIELD);
+    private static final List<String> INACTIVE_STATUSES = List.of(DISSOLVED.getStatus(), CONVERTED_CLOSED.getStatus(),
+            CLOSED.getStatus());
+    private static final Document IS_ACTIVE = new Document("$in",
+            List.of(new Document("$type", "$data.resigned_on"), List.of("missing", "null")));
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    OfficerAppointmentCountsRepositoryImpl(MongoTemplate mongoTemplate,
+            @Value("${officer-appointments.counts-reconciliation.batch-size}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void incrementCounts(String officerId, int totalResults, int resignedCount, int inactiveCount) {
+        mongoTemplate.updateFirst(query(where(ID_FIELD).is(officerId)),
+                new Update()
+                        .inc(TOTAL_RESULTS_FIELD, totalResults)
+                        .inc(RESIGNED_COUNT_FIELD, resignedCount)
+                        .inc(INACTIVE_COUNT_FIELD, inactiveCount),
+                OfficerAppointmentCounts.class);
+    }
+
+    @Override
+    public long reconcileCounts() {
+        List<Document> drifted = List.of(
+                new Document("$group", new Document(ID_FIELD, "$officer_id")
+                        .append(TOTAL_RESULTS_FIELD, new Document("$sum", 1))
+                        .append(RESIGNED_COUNT_FIELD, new Document("$sum",
+                                new Document("$cond", List.of(IS_ACTIVE, 0, 1))))
+                        .append(INACTIVE_COUNT_FIELD, new Document("$sum",
+                                new Document("$cond", List.of(new Document("$and", List.of(IS_ACTIVE,
+                                        new Document("$in", List.of("$company_status", INACTIVE_STATUSES)))), 1, 0))))),
+                new Document("$lookup", new Document("from", COUNTS_COLLECTION)
+                        .append("localField", ID_FIELD)
+                        .append("foreignField", ID_FIELD)
+                        .append("as", CURRENT_FIELD)),
+                new Document("$set", new Document(CURRENT_FIELD,
+                        new Document("$arrayElemAt", List.of("$" + CURRENT_FIELD, 0)))),
+                new Document("$match", new Document("$expr", new Document("$or", List.of(
+                        differs(TOTAL_RESULTS_FIELD),
+                        differs(RESIGNED_COUNT_FIELD),
+                        differs(INACTIVE_COUNT_FIELD))))));
+
+        List<Document> orphaned = List.of(
+                new Document("$lookup", new Document("from", APPOINTMENTS_COLLECTION)
+                        .append("let", new Document("officerId", "$" + ID_FIELD))
+                        .append("pipeline", List.of(
+                                new Document("$match", new Document("$expr",
+                                        new Document("$eq", List.of("$officer_id", "$$officerId")))),
+                                new Document("$limit", 1),
+                                new Document("$project", new Document(ID_FIELD, 1))))
+                        .append("as", "appointments")),
+                new Document("$match", new Document("appointments", new Document("$size", 0))),
+                new Document("$project", new Document(ID_FIELD, 1)));
+
+        MongoCollection<Document> counts = mongoTemplate.getCollection(COUNTS_COLLECTION);
+        long corrected = 0;
+        List<WriteModel<Document>> writes = new ArrayList<>(batchSize);
+
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(APPOINTMENTS_COLLECTION).aggregate(drifted)
+                .allowDiskUse(true)
+                .cursor()) {
+            while (cursor.hasNext()) {
+                writes.add(correction(cursor.next()));
+                corrected += flushIfFull(counts, writes);
+            }
+        }
+        try (MongoCursor<Document> cursor = counts.aggregate(orphaned).cursor()) {
+            while (cursor.hasNext()) {
+                writes.add(new DeleteOneModel<>(new Document(ID_FIELD, cursor.next().get(ID_FIELD))));
+                corrected += flushIfFull(counts, writes);
+            }
+        }
+        return corrected + flush(counts, writes);
+    }
+
+    /**
+     * Replaces the counts only if they still hold the values read alongside the recomputed ones, so an increment made
+     * since is not overwritten; such counts are left for the next run. Missing counts are inserted unless they have
+     * been created since.
+     */
+    private static WriteModel<Document> correction(Document recomputed) {
+        Document current = (Document) recomputed.remove(CURRENT_FIELD);
+        Document filter = new Document(ID_FIELD, recomputed.get(ID_FIELD));
+        if (current == null) {
+            return new UpdateOneModel<>(filter, new Document("$setOnInsert", recomputed),
+                    new UpdateOptions().upsert(true));
+        }
+        COUNT_FIELDS.forEach(field -> filter.append(field, current.get(field)));
+        return new ReplaceOneModel<>(filter, recomputed);
+    }
+
+    private static Document differs(String field) {
+        return new Document("$ne", List.of("$" + field,
+                new Document("$ifNull", List.of("$current." + field, -1))));
+    }
+
+    private int flushIfFull(MongoCollection<Document> counts, List<WriteModel<Document>> writes) {
+        return writes.size() >= batchSize ? flush(counts, writes) : 0;
+    }
+
+    private static int flush(MongoCollection<Document> counts, List<WriteModel<Document>> writes) {
+        if (writes.isEmpty()) {
+            return 0;
+        }
+        BulkWriteResult result = counts.bulkWrite(new ArrayList<>(writes), new BulkWriteOptions().ordered(false));
+        writes.clear();
+        return result.getModifiedCount() + result.getUpserts().size() + result.getDeletedCount();
+    }
+}
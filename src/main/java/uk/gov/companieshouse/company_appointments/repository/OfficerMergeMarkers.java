@@ -0,0 +1,65 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived markers in officer_merge_markers recording which officer merges have been published recently by any
+ * instance of this service. A TTL index removes markers once they expire, but a marker past its expiry is treated as
+ * absent whether or not it has been removed yet.
+ */
+@Component
+@ConditionalOnProperty(prefix = "kafka.officer-merge.dedup", name = "distributed")
+public class OfficerMergeMarkers implements ApplicationRunner {
+
+    static final String COLLECTION = "officer_merge_markers";
+
+    private static final String ID_FIELD = "_id";
+    private static final String EXPIRES_AT_FIELD = "expires_at";
+
+    private final MongoTemplate mongoTemplate;
+
+    OfficerMergeMarkers(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index(EXPIRES_AT_FIELD, Sort.Direction.ASC)
+                .expire(0, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Sets the marker for the key to expire at the given time, unless a marker for the key is still live at now.
+     *
+     * @return whether the marker was set
+     */
+    public boolean claim(String key, Instant now, Instant expiresAt) {
+        try {
+            mongoTemplate.upsert(query(where(ID_FIELD).is(key).and(EXPIRES_AT_FIELD).lte(now)),
+                    new Update().set(EXPIRES_AT_FIELD, expiresAt), COLLECTION);
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Removes the marker for the key if it is still the one set to expire at the given time.
+     */
+    public void release(String key, Instant expiresAt) {
+        mongoTemplate.remove(query(where(ID_FIELD).is(key).and(EXPIRES_AT_FIELD).is(expiresAt)), COLLECTION);
+    }
+}
@@ -0,0 +1,87 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import static uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication.APPLICATION_NAME_SPACE;
+
+import com.mongodb.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.roles.RegisterTypes;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * One-off migration that creates the active register index and sets register_type and is_active on
+ * delta_appointments documents written before the classification was persisted. Documents are updated in batches of
+ * IDs using an update pipeline, so the classification is derived server side with the same rules as
+ * {@link RegisterTypes}. Safe to re-run: only documents without an is_active flag are touched.
+ */
+@Component
+@ConditionalOnProperty(prefix = "company-appointments", name = "register-classification-backfill-enabled")
+class RegisterClassificationBackfillRunner implements ApplicationRunner {
+
+    static final String ACTIVE_REGISTER_INDEX = DeltaAppointmentsIndexes.COMPANY_ACTIVE_REGISTER.name();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(APPLICATION_NAME_SPACE);
+    private static final String COLLECTION = DeltaAppointmentsIndexes.COLLECTION;
+    private static final String ID_FIELD = "_id";
+    private static final Document MISSING_CLASSIFICATION = new Document("is_active", new Document("$exists", false));
+    private static final List<Document> SET_CLASSIFICATION = List.of(new Document("$set", new Document()
+            .append("register_type", new Document("$switch", new Document()
+                    .append("branches", List.of(
+                            registerBranch(RegisterTypes.DIRECTORS),
+                            registerBranch(RegisterTypes.SECRETARIES),
+                            registerBranch(RegisterTypes.LLP_MEMBERS)))
+                    .append("default", null)))
+            .append("is_active", new Document("$in", List.of(new Document("$type", "$data.resigned_on"),
+                    List.of("missing", "null"))))));
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    RegisterClassificationBackfillRunner(MongoTemplate mongoTemplate,
+            @Value("${company-appointments.register-classification-backfill-batch-size}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+
+        collection.createIndexes(List.of(DeltaAppointmentsIndexes.COMPANY_ACTIVE_REGISTER.toIndexModel()));
+        LOGGER.info("Ensured index %s on %s".formatted(ACTIVE_REGISTER_INDEX, COLLECTION), DataMapHolder.getLogMap());
+
+        long backfilled = 0;
+        List<Object> ids;
+        do {
+            ids = collection.find(MISSING_CLASSIFICATION)
+                    .projection(new Document(ID_FIELD, 1))
+                    .limit(batchSize)
+                    .map(document -> document.get(ID_FIELD))
+                    .into(new ArrayList<>());
+            if (!ids.isEmpty()) {
+                backfilled += collection.updateMany(
+                        new Document(ID_FIELD, new Document("$in", ids)).append("is_active",
+                                new Document("$exists", false)),
+                        SET_CLASSIFICATION).getModifiedCount();
+            }
+        } while (ids.size() == batchSize);
+
+        LOGGER.info("Backfilled register classification on %d %s documents".formatted(backfilled, COLLECTION),
+                DataMapHolder.getLogMap());
+    }
+
+    private static Document registerBranch(String registerType) {
+        return new Document("case", new Document("$in", List.of("$data.officer_role",
+                RegisterTypes.roles(registerType))))
+                .append("then", registerType);
+    }
+}
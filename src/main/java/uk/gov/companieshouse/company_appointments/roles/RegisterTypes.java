@@ -0,0 +1,59 @@
+package uk.gov.companieshouse.company_appointments.roles;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaOfficerData;
+
+/**
+ * The register each officer role is kept on, persisted on each document as register_type alongside an is_active
+ * flag so that register view and active officer queries match on single values rather than lists of roles.
+ */
+public final class RegisterTypes {
+
+    public static final String DIRECTORS = "directors";
+    public static final String SECRETARIES = "secretaries";
+    public static final String LLP_MEMBERS = "llp_members";
+
+    private static final Map<String, String> REGISTER_TYPES_BY_ROLE = new HashMap<>();
+
+    static {
+        DirectorRoles.stream().forEach(role -> REGISTER_TYPES_BY_ROLE.put(role.getRole(), DIRECTORS));
+        SecretarialRoles.stream().forEach(role -> REGISTER_TYPES_BY_ROLE.put(role.getRole(), SECRETARIES));
+        LlpRoles.stream().forEach(role -> REGISTER_TYPES_BY_ROLE.put(role.getRole(), LLP_MEMBERS));
+    }
+
+    private RegisterTypes() {
+    }
+
+    /**
+     * The register the role is kept on, or null for roles on none of the registers.
+     */
+    public static String of(String officerRole) {
+        return officerRole != null ? REGISTER_TYPES_BY_ROLE.get(officerRole) : null;
+    }
+
+    /**
+     * The persisted register type of the appointment, falling back to its role for documents written before the
+     * register type was persisted.
+     */
+    public static String of(CompanyAppointmentDocument companyAppointment) {
+        if (companyAppointment.getRegisterType() != null) {
+            return companyAppointment.getRegisterType();
+        }
+        return companyAppointment.getData() != null ? of(companyAppointment.getData().getOfficerRole()) : null;
+    }
+
+    public static boolean isActive(DeltaOfficerData data) {
+        return data.getResignedOn() == null;
+    }
+
+    public static List<String> roles(String registerType) {
+        return REGISTER_TYPES_BY_ROLE.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(registerType))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+    }
+}
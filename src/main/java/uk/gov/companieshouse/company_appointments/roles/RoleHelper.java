@@ -1,5 +1,9 @@
 package uk.gov.companieshouse.company_appointments.roles;
 
+import static uk.gov.companieshouse.company_appointments.roles.RegisterTypes.DIRECTORS;
+import static uk.gov.companieshouse.company_appointments.roles.RegisterTypes.LLP_MEMBERS;
+import static uk.gov.companieshouse.company_appointments.roles.RegisterTypes.SECRETARIES;
+
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
 
 public class RoleHelper {
@@ -8,21 +12,18 @@ public class RoleHelper {
     }
 
     public static boolean isSecretary(CompanyAppointmentDocument companyAppointment) {
-        return SecretarialRoles.stream()
-                .anyMatch(s -> s.getRole().equals(companyAppointment.getData().getOfficerRole()));
+        return SECRETARIES.equals(RegisterTypes.of(companyAppointment));
     }
 
     public static boolean isDirector(CompanyAppointmentDocument companyAppointment) {
-        return DirectorRoles.stream().anyMatch(d -> d.getRole().equals(companyAppointment.getData().getOfficerRole()));
+        return DIRECTORS.equals(RegisterTypes.of(companyAppointment));
     }
 
     public static boolean isLlpMember(CompanyAppointmentDocument companyAppointment) {
-        return LlpRoles.stream().anyMatch(l -> l.getRole().equals(companyAppointment.getData().getOfficerRole()));
+        return LLP_MEMBERS.equals(RegisterTypes.of(companyAppointment));
     }
 
     public static boolean isRegisterType(CompanyAppointmentDocument companyAppointment, String registerType) {
-        return registerType.equals("directors") && isDirector(companyAppointment)
-                || registerType.equals("secretaries") && isSecretary(companyAppointment)
-                || registerType.equals("llp_members") && isLlpMember(companyAppointment);
+        return registerType.equals(RegisterTypes.of(companyAppointment));
     }
 }
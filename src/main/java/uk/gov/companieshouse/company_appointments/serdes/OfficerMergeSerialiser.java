@@ -2,30 +2,52 @@ package uk.gov.companieshouse.company_appointments.serdes;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumWriter;
-import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.reflect.ReflectDatumWriter;
 import org.apache.kafka.common.serialization.Serializer;
 import uk.gov.companieshouse.company_appointments.exception.SerDesException;
 import uk.gov.companieshouse.officermerge.OfficerMerge;
 
+/**
+ * Serialises officer-merge messages with one Avro writer, which is thread-safe once built, and output buffers and
+ * encoders borrowed from a small pool shared by every thread, so that they are reused across messages even when each
+ * message is sent from a new virtual thread. A buffer is built when the pool is empty and dropped when it is full.
+ */
 public class OfficerMergeSerialiser implements Serializer<OfficerMerge> {
 
+    private static final DatumWriter<OfficerMerge> WRITER = new ReflectDatumWriter<>(OfficerMerge.class);
+    private static final Queue<Buffer> BUFFERS =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
     @Override
     public byte[] serialize(String topic, OfficerMerge message) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        Encoder encoder = EncoderFactory.get().directBinaryEncoder(outputStream, null);
-        DatumWriter<OfficerMerge> writer = getDatumWriter();
+        Buffer buffer = BUFFERS.poll();
+        if (buffer == null) {
+            buffer = new Buffer();
+        }
         try {
-            writer.write(message, encoder);
+            buffer.outputStream.reset();
+            buffer.encoder = EncoderFactory.get().directBinaryEncoder(buffer.outputStream, buffer.encoder);
+            getDatumWriter().write(message, buffer.encoder);
+            return buffer.outputStream.toByteArray();
         } catch (IOException ex) {
             throw new SerDesException("Error serialising OfficerMerge message", ex);
+        } finally {
+            BUFFERS.offer(buffer);
         }
-        return outputStream.toByteArray();
     }
 
     public DatumWriter<OfficerMerge> getDatumWriter() {
-        return new ReflectDatumWriter<>(OfficerMerge.class);
+        return WRITER;
+    }
+
+    private static class Buffer {
+
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        private BinaryEncoder encoder;
     }
 }
@@ -0,0 +1,372 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication.APPLICATION_NAME_SPACE;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.api.ResourceChangedApiService;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.ResourceChangedRequest;
+import uk.gov.companieshouse.company_appointments.repository.ChangeStreamResumeTokens;
+import uk.gov.companieshouse.company_appointments.repository.DeltaAppointmentsIndexes;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * Publishes a resource-changed event to chs-kafka-api for every insert, update, replace and delete on
+ * delta_appointments, read from a change stream on the collection, so that request threads only write to MongoDB
+ * and writes made outside this service's endpoints are published too. Deletes are published with the deleted
+ * appointment read from the pre-image of the change, which needs pre-images enabled on the collection (MongoDB 6.0
+ * or later); this is attempted at startup. Updates that only advance delta_at or set fields derived from the rest
+ * of the appointment, such as those written by the sort key and register classification backfills, are not published.
+ * <p>
+ * Only the instance holding the lease on the stream in change_stream_resume_tokens reads it; the lease is renewed on
+ * each poll and a resume token is only saved while it is held. Each poll reads a batch of changes and publishes those
+ * of different appointments concurrently, up to a limit, and those of one appointment in order. The resume token is
+ * saved only once the whole batch is published, and the stream is reopened from the saved token after a failure, with
+ * exponential backoff, so every change is published at least once. A change that still fails after the maximum
+ * number of attempts is logged and skipped, so that it does not hold up the stream.
+ */
+@Component
+@ConditionalOnProperty(prefix = "company-appointments.change-stream", name = "enabled")
+class AppointmentChangeStreamPublisher implements ApplicationRunner, DisposableBean {
+
+    static final String STREAM = DeltaAppointmentsIndexes.COLLECTION;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(APPLICATION_NAME_SPACE);
+    private static final String ID_FIELD = "_id";
+    private static final String COMPANY_NUMBER_FIELD = "company_number";
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final Set<String> UNPUBLISHED_FIELDS = Set.of("delta_at", "sort_bucket", "sort_date",
+            "register_type", "is_active");
+    private static final List<Bson> PIPELINE = List.of(Aggregates.match(Filters.in("operationType",
+            OperationType.INSERT.getValue(), OperationType.UPDATE.getValue(), OperationType.REPLACE.getValue(),
+            OperationType.DELETE.getValue())));
+
+    private final MongoTemplate mongoTemplate;
+    private final ChangeStreamResumeTokens resumeTokens;
+    private final String owner = UUID.randomUUID().toString();
+    private final ResourceChangedApiService resourceChangedApiService;
+    private final ResourceChangedDataCleaner resourceChangedDataCleaner;
+    private final ExecutorService executor;
+    private final Clock clock;
+    private final int batchSize;
+    private final Semaphore permits;
+    private final Duration maxAwait;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+    private final Timer latency;
+    private final Counter failures;
+    private final Counter skipped;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Map<BsonDocument, Integer> attempts = new ConcurrentHashMap<>();
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+    private Instant retryAt = Instant.MIN;
+
+    AppointmentChangeStreamPublisher(MongoTemplate mongoTemplate,
+            ChangeStreamResumeTokens resumeTokens,
+            ResourceChangedApiService resourceChangedApiService,
+            ResourceChangedDataCleaner resourceChangedDataCleaner,
+            ExecutorService executor,
+            Clock clock,
+            @Value("${company-appointments.change-stream.batch-size}") int batchSize,
+            @Value("${company-appointments.change-stream.max-concurrency}") int maxConcurrency,
+            @Value("${company-appointments.change-stream.max-await}") Duration maxAwait,
+            @Value("${company-appointments.change-stream.lease}") Duration lease,
+            @Value("${company-appointments.change-stream.initial-backoff}") Duration initialBackoff,
+            @Value("${company-appointments.change-stream.max-backoff}") Duration maxBackoff,
+            @Value("${company-appointments.change-stream.max-attempts}") int maxAttempts,
+            MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.resumeTokens = resumeTokens;
+        this.resourceChangedApiService = resourceChangedApiService;
+        this.resourceChangedDataCleaner = resourceChangedDataCleaner;
+        this.executor = executor;
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxAwait = maxAwait;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = maxAttempts;
+        this.latency = Timer.builder("appointment.events.change.stream.latency")
+                .description("Time from an appointment being written to its resource-changed event being published")
+                .register(meterRegistry);
+        this.failures = Counter.builder("appointment.events.change.stream.failures")
+                .description("Attempts to publish a resource-changed event from the change stream that failed")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("appointment.events.change.stream.skipped")
+                .description("Changes not published because every attempt to publish them failed")
+                .register(meterRegistry);
+        Gauge.builder("appointment.events.change.stream.lag", lagMillis, AtomicLong::get)
+                .description("Age in milliseconds of the newest change read from the change stream when last polled")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            mongoTemplate.getDb().runCommand(new Document("collMod", STREAM)
+                    .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+            LOGGER.info("Enabled change stream pre-images on %s".formatted(STREAM), DataMapHolder.getLogMap());
+        } catch (MongoException ex) {
+            LOGGER.error("Failed to enable change stream pre-images on %s; deleted appointments cannot be published"
+                    .formatted(STREAM), ex, DataMapHolder.getLogMap());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${company-appointments.change-stream.poll-interval-millis}")
+    public synchronized void publishChanges() {
+        Instant now = clock.instant();
+        try {
+            if (!resumeTokens.acquireLease(STREAM, owner, now, now.plus(lease))) {
+                close();
+                attempts.clear();
+                return;
+            }
+        } catch (MongoException ex) {
+            LOGGER.error("Failed to renew lease on change stream on %s".formatted(STREAM), ex,
+                    DataMapHolder.getLogMap());
+            close();
+            return;
+        }
+        if (now.isBefore(retryAt)) {
+            return;
+        }
+
+        List<ChangeStreamDocument<Document>> changes = new ArrayList<>();
+        BsonDocument resumeToken;
+        try {
+            if (cursor == null) {
+                cursor = open();
+            }
+            ChangeStreamDocument<Document> change;
+            while (changes.size() < batchSize && (change = cursor.tryNext()) != null) {
+                changes.add(change);
+            }
+            resumeToken = cursor.getResumeToken();
+        } catch (MongoException ex) {
+            if (ex.getCode() == CHANGE_STREAM_HISTORY_LOST) {
+                LOGGER.error(("Change stream on %s can no longer be resumed; reopening it from now, so changes since"
+                        + " it was last read are not published").formatted(STREAM), ex, DataMapHolder.getLogMap());
+                resumeTokens.forget(STREAM, owner);
+            } else {
+                LOGGER.error("Failed to read change stream on %s".formatted(STREAM), ex, DataMapHolder.getLogMap());
+            }
+            close();
+            return;
+        }
+        lagMillis.set(changes.isEmpty() ? 0 : Duration.between(writtenAt(changes.getLast()), clock.instant())
+                .toMillis());
+
+        if (!publish(changes)) {
+            retryAt = clock.instant().plus(backoff(attempts.values().stream()
+                    .mapToInt(Integer::intValue)
+                    .max()
+                    .orElse(1)));
+            close();
+            return;
+        }
+        try {
+            if (resumeToken != null && !resumeTokens.save(STREAM, owner, resumeToken)) {
+                LOGGER.info("Lost lease on change stream on %s".formatted(STREAM), DataMapHolder.getLogMap());
+                close();
+            }
+        } catch (MongoException ex) {
+            LOGGER.error("Failed to save change stream resume token for %s".formatted(STREAM), ex,
+                    DataMapHolder.getLogMap());
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        close();
+        try {
+            resumeTokens.releaseLease(STREAM, owner);
+        } catch (MongoException ex) {
+            LOGGER.info("Failed to release lease on change stream on %s".formatted(STREAM), DataMapHolder.getLogMap());
+        }
+    }
+
+    Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(STREAM).watch(PIPELINE)
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE)
+                .maxAwaitTime(maxAwait.toMillis(), TimeUnit.MILLISECONDS)
+                .batchSize(batchSize);
+        resumeTokens.find(STREAM).ifPresent(stream::resumeAfter);
+        return stream.cursor();
+    }
+
+    private void close() {
+        if (cursor != null) {
+            try {
+                cursor.close();
+            } catch (MongoException ex) {
+                LOGGER.info("Failed to close change stream on %s".formatted(STREAM), DataMapHolder.getLogMap());
+            }
+            cursor = null;
+        }
+    }
+
+    private boolean publish(List<ChangeStreamDocument<Document>> changes) {
+        List<Future<Boolean>> dispatches = new ArrayList<>();
+        try {
+            for (List<ChangeStreamDocument<Document>> appointmentChanges : changes.stream()
+                    .collect(groupingBy(ChangeStreamDocument::getDocumentKey, LinkedHashMap::new, toList()))
+                    .values()) {
+                permits.acquire();
+                dispatches.add(executor.submit(() -> {
+                    try {
+                        return publishInOrder(appointmentChanges);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            boolean published = true;
+            for (Future<Boolean> dispatch : dispatches) {
+                try {
+                    published &= dispatch.get();
+                } catch (ExecutionException ex) {
+                    LOGGER.error("Failed to publish appointment changes", ex.getCause(), DataMapHolder.getLogMap());
+                    published = false;
+                }
+            }
+            return published;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean publishInOrder(List<ChangeStreamDocument<Document>> appointmentChanges) {
+        for (ChangeStreamDocument<Document> change : appointmentChanges) {
+            if (!publish(change)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean publish(ChangeStreamDocument<Document> change) {
+        String appointmentId = change.getDocumentKey().getString(ID_FIELD).getValue();
+        DataMapHolder.initialise(UUID.randomUUID().toString());
+        try {
+            ResourceChangedRequest request = resourceChangedRequest(change, appointmentId);
+            if (request != null) {
+                resourceChangedApiService.invokeChsKafkaApi(request);
+                latency.record(Duration.between(writtenAt(change), clock.instant()));
+            }
+            attempts.remove(change.getResumeToken());
+            return true;
+        } catch (RuntimeException ex) {
+            failures.increment();
+            int attempt = attempts.merge(change.getResumeToken(), 1, Integer::sum);
+            if (attempt >= maxAttempts) {
+                attempts.remove(change.getResumeToken());
+                skipped.increment();
+                LOGGER.error("Giving up on %s of appointment %s after %d attempts; it is not published".formatted(
+                        change.getOperationTypeString(), appointmentId, attempt), ex, DataMapHolder.getLogMap());
+                return true;
+            }
+            LOGGER.info("Failed to publish %s of appointment %s on attempt %d".formatted(
+                    change.getOperationTypeString(), appointmentId, attempt), DataMapHolder.getLogMap());
+            return false;
+        } finally {
+            DataMapHolder.clear();
+        }
+    }
+
+    private ResourceChangedRequest resourceChangedRequest(ChangeStreamDocument<Document> change,
+            String appointmentId) {
+        if (change.getOperationType() == OperationType.DELETE) {
+            if (change.getFullDocumentBeforeChange() == null) {
+                LOGGER.error("No pre-image of deleted appointment %s; deletion not published".formatted(appointmentId),
+                        DataMapHolder.getLogMap());
+                return null;
+            }
+            CompanyAppointmentDocument document = mongoTemplate.getConverter()
+                    .read(CompanyAppointmentDocument.class, change.getFullDocumentBeforeChange());
+            return new ResourceChangedRequest(document.getCompanyNumber(), appointmentId,
+                    resourceChangedDataCleaner.cleanOutNullValues(document), true);
+        }
+        if (onlySetsUnpublishedFields(change.getUpdateDescription())) {
+            return null;
+        }
+        Document document = change.getFullDocument() != null ? change.getFullDocument()
+                : change.getFullDocumentBeforeChange();
+        if (document == null) {
+            LOGGER.info("Appointment %s deleted since changed; published with its deletion".formatted(appointmentId),
+                    DataMapHolder.getLogMap());
+            return null;
+        }
+        return new ResourceChangedRequest(document.getString(COMPANY_NUMBER_FIELD), appointmentId, null, false);
+    }
+
+    private static boolean onlySetsUnpublishedFields(UpdateDescription updateDescription) {
+        return updateDescription != null
+                && (updateDescription.getUpdatedFields() == null
+                        || UNPUBLISHED_FIELDS.containsAll(updateDescription.getUpdatedFields().keySet()))
+                && (updateDescription.getRemovedFields() == null
+                        || UNPUBLISHED_FIELDS.containsAll(updateDescription.getRemovedFields()))
+                && (updateDescription.getTruncatedArrays() == null
+                        || updateDescription.getTruncatedArrays().isEmpty());
+    }
+
+    private Instant writtenAt(ChangeStreamDocument<Document> change) {
+        return change.getClusterTime() == null ? clock.instant()
+                : Instant.ofEpochSecond(change.getClusterTime().getTime());
+    }
+}
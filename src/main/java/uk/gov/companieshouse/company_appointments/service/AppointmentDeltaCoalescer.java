@@ -0,0 +1,163 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.exception.ConflictException;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+
+/**
+ * Coalesces deltas for the same appointment that arrive within a short window of each other, as they do during bulk
+ * reloads, so that only the one with the latest delta_at is written. The first delta for an appointment opens the
+ * window and schedules the write of the latest delta received while it is open, which runs on the executor once it
+ * closes; no caller's thread is held for the window itself, and the caller of the latest delta waits for the outcome
+ * of that write. The caller of each delta superseded by a later one gets a {@link ConflictException}, as a stale delta
+ * would, without waiting for the window to close. Pending deltas are held in lock stripes chosen by appointment, so
+ * deltas for unrelated appointments do not contend.
+ */
+@Component
+public class AppointmentDeltaCoalescer {
+
+    private final boolean enabled;
+    private final Executor windowClosed;
+    private final Stripe[] stripes;
+    private final Counter superseded;
+
+    AppointmentDeltaCoalescer(@Value("${company-appointments.delta-coalescing.enabled}") boolean enabled,
+            @Value("${company-appointments.delta-coalescing.window}") Duration window,
+            @Value("${company-appointments.delta-coalescing.lock-stripes}") int lockStripes,
+            ExecutorService executor, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.windowClosed = CompletableFuture.delayedExecutor(window.toMillis(), TimeUnit.MILLISECONDS, executor);
+        this.stripes = new Stripe[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new Stripe(new ReentrantLock(), new HashMap<>());
+        }
+        this.superseded = Counter.builder("appointment.deltas.coalesced")
+                .description("Appointment deltas not written because a later delta for the appointment arrived "
+                        + "within the coalescing window")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the write for the delta, unless a delta for the same appointment with a later or equal delta_at arrives
+     * before the window closes.
+     *
+     * @throws ConflictException when the delta is superseded
+     */
+    public void coalesce(@Nullable String appointmentKey, @Nullable Instant deltaAt, Runnable write) {
+        if (!enabled || appointmentKey == null || deltaAt == null) {
+            write.run();
+            return;
+        }
+        Stripe stripe = stripes[Math.floorMod(appointmentKey.hashCode(), stripes.length)];
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
+
+        Pending pending;
+        boolean opensWindow;
+        stripe.lock().lock();
+        try {
+            pending = stripe.pending().get(appointmentKey);
+            opensWindow = pending == null;
+            if (opensWindow) {
+                pending = new Pending(deltaAt, write, outcome, DataMapHolder.getRequestId());
+                stripe.pending().put(appointmentKey, pending);
+            } else if (CompanyAppointmentFullRecordService.isDeltaStale(deltaAt, pending.deltaAt)) {
+                supersede(outcome);
+            } else {
+                supersede(pending.outcome);
+                pending.deltaAt = deltaAt;
+                pending.write = write;
+                pending.outcome = outcome;
+                pending.requestId = DataMapHolder.getRequestId();
+            }
+        } finally {
+            stripe.lock().unlock();
+        }
+
+        if (opensWindow) {
+            final Pending opened = pending;
+            windowClosed.execute(() -> closeWindow(stripe, appointmentKey, opened));
+        }
+        awaitOutcome(outcome);
+    }
+
+    private static void closeWindow(Stripe stripe, String appointmentKey, Pending pending) {
+        stripe.lock().lock();
+        try {
+            stripe.pending().remove(appointmentKey);
+        } finally {
+            stripe.lock().unlock();
+        }
+        DataMapHolder.initialise(pending.requestId);
+        try {
+            writeLatest(pending);
+        } finally {
+            DataMapHolder.clear();
+        }
+    }
+
+    private void supersede(CompletableFuture<Void> outcome) {
+        superseded.increment();
+        outcome.completeExceptionally(new ConflictException("Received superseded delta"));
+    }
+
+    private static void writeLatest(Pending pending) {
+        try {
+            pending.write.run();
+            pending.outcome.complete(null);
+        } catch (RuntimeException | Error ex) {
+            pending.outcome.completeExceptionally(ex);
+        }
+    }
+
+    private static void awaitOutcome(CompletableFuture<Void> outcome) {
+        try {
+            outcome.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private record Stripe(Lock lock, Map<String, Pending> pending) {
+    }
+
+    /**
+     * The latest delta received for an appointment while its window is open, with the request it arrived in. Only read
+     * or changed while holding the lock of its stripe, apart from by the task that writes it once the window has
+     * closed.
+     */
+    private static final class Pending {
+
+        private Instant deltaAt;
+        private Runnable write;
+        private CompletableFuture<Void> outcome;
+        private String requestId;
+
+        private Pending(Instant deltaAt, Runnable write, CompletableFuture<Void> outcome, String requestId) {
+            this.deltaAt = deltaAt;
+            this.write = write;
+            this.outcome = outcome;
+            this.requestId = requestId;
+        }
+    }
+}
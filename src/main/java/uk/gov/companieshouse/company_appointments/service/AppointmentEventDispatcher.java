@@ -0,0 +1,195 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication.APPLICATION_NAME_SPACE;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.api.ResourceChangedApiService;
+import uk.gov.companieshouse.company_appointments.kafka.OfficerMergeProducer;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.model.data.AppointmentEvent;
+import uk.gov.companieshouse.company_appointments.model.data.ResourceChangedRequest;
+import uk.gov.companieshouse.company_appointments.repository.AppointmentEventRepository;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * Drains appointment_events_outbox to chs-kafka-api and the officer-merge topic. Each poll reads the oldest events
+ * of the appointments whose earliest event is due and publishes those of different appointments concurrently, and
+ * those of one appointment in order, stopping at the first event that is not yet due or fails so that later events
+ * for the appointment wait behind it. An event is leased before it is published and removed once published, so it is
+ * published at least once even if this instance stops part way, and failed events are retried with exponential
+ * backoff until the maximum number of attempts, when they are moved to appointment_events_dead_letter.
+ */
+@Component
+@ConditionalOnProperty(prefix = "company-appointments.outbox", name = "enabled")
+class AppointmentEventDispatcher implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(APPLICATION_NAME_SPACE);
+
+    private final AppointmentEventRepository repository;
+    private final ResourceChangedApiService resourceChangedApiService;
+    private final OfficerMergeProducer officerMergeProducer;
+    private final ExecutorService executor;
+    private final Clock clock;
+    private final int batchSize;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+    private final Map<AppointmentEvent.Type, Timer> latencies = new EnumMap<>(AppointmentEvent.Type.class);
+    private final Map<AppointmentEvent.Type, Counter> failures = new EnumMap<>(AppointmentEvent.Type.class);
+    private final Map<AppointmentEvent.Type, Counter> deadLettered = new EnumMap<>(AppointmentEvent.Type.class);
+    private final AtomicLong oldestEventAgeMillis = new AtomicLong();
+
+    AppointmentEventDispatcher(AppointmentEventRepository repository,
+            ResourceChangedApiService resourceChangedApiService,
+            OfficerMergeProducer officerMergeProducer,
+            ExecutorService executor,
+            Clock clock,
+            @Value("${company-appointments.outbox.batch-size}") int batchSize,
+            @Value("${company-appointments.outbox.lease}") Duration lease,
+            @Value("${company-appointments.outbox.initial-backoff}") Duration initialBackoff,
+            @Value("${company-appointments.outbox.max-backoff}") Duration maxBackoff,
+            @Value("${company-appointments.outbox.max-attempts}") int maxAttempts,
+            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.resourceChangedApiService = resourceChangedApiService;
+        this.officerMergeProducer = officerMergeProducer;
+        this.executor = executor;
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = maxAttempts;
+        for (AppointmentEvent.Type type : AppointmentEvent.Type.values()) {
+            latencies.put(type, Timer.builder("appointment.events.outbox.latency")
+                    .description("Time from an event being appended to the outbox to it being published")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+            failures.put(type, Counter.builder("appointment.events.outbox.failures")
+                    .description("Attempts to publish an outbox event that failed and will be retried")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+            deadLettered.put(type, Counter.builder("appointment.events.outbox.dead.lettered")
+                    .description("Outbox events moved to the dead letter collection after every attempt failed")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("appointment.events.outbox.oldest.age", oldestEventAgeMillis, AtomicLong::get)
+                .description("Age in milliseconds of the oldest due event in the outbox when last polled")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        repository.ensureIndexes();
+    }
+
+    @Scheduled(fixedDelayString = "${company-appointments.outbox.poll-interval-millis}")
+    public void dispatchPendingEvents() {
+        Instant now = clock.instant();
+        List<AppointmentEvent> events;
+        try {
+            events = repository.findDue(now, batchSize);
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to read appointment events outbox", ex, DataMapHolder.getLogMap());
+            return;
+        }
+        oldestEventAgeMillis.set(events.isEmpty() ? 0
+                : Duration.between(events.getFirst().getCreatedAt(), now).toMillis());
+
+        List<Future<?>> dispatches = events.stream()
+                .collect(groupingBy(AppointmentEvent::getAppointmentId, LinkedHashMap::new, toList()))
+                .values().stream()
+                .<Future<?>>map(appointmentEvents -> executor.submit(() -> dispatchInOrder(appointmentEvents, now)))
+                .toList();
+        for (Future<?> dispatch : dispatches) {
+            try {
+                dispatch.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException ex) {
+                LOGGER.error("Failed to dispatch appointment events", ex.getCause(), DataMapHolder.getLogMap());
+            }
+        }
+    }
+
+    void dispatchInOrder(List<AppointmentEvent> appointmentEvents, Instant now) {
+        try {
+            for (AppointmentEvent event : appointmentEvents) {
+                if (event.getNextAttemptAt().isAfter(now)
+                        || !repository.claim(event.getId(), event.getNextAttemptAt(), now.plus(lease))) {
+                    return;
+                }
+                if (!publish(event)) {
+                    int attempts = event.getAttempts() + 1;
+                    if (attempts < maxAttempts) {
+                        repository.retryLater(event.getId(), attempts, now.plus(backoff(attempts)));
+                        return;
+                    }
+                    repository.deadLetter(event.attempts(attempts));
+                    deadLettered.get(event.getType()).increment();
+                    LOGGER.error("Moved %s event for appointment %s to the dead letter collection after %d attempts"
+                            .formatted(event.getType(), event.getAppointmentId(), attempts), DataMapHolder.getLogMap());
+                    continue;
+                }
+                repository.deleteById(event.getId());
+                latencies.get(event.getType()).record(Duration.between(event.getCreatedAt(), clock.instant()));
+            }
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to update appointment events outbox", ex, DataMapHolder.getLogMap());
+        }
+    }
+
+    Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private boolean publish(AppointmentEvent event) {
+        DataMapHolder.initialise(event.getRequestId());
+        try {
+            switch (event.getType()) {
+                case RESOURCE_CHANGED -> resourceChangedApiService.invokeChsKafkaApi(new ResourceChangedRequest(
+                        event.getCompanyNumber(), event.getAppointmentId(), event.getOfficerData(),
+                        event.getDelete()));
+                case OFFICER_MERGE -> officerMergeProducer.invokeOfficerMerge(event.getOfficerId(),
+                        event.getPreviousOfficerId());
+            }
+            return true;
+        } catch (RuntimeException ex) {
+            failures.get(event.getType()).increment();
+            LOGGER.info("Failed to publish %s event for appointment %s on attempt %d".formatted(event.getType(),
+                    event.getAppointmentId(), event.getAttempts() + 1), DataMapHolder.getLogMap());
+            return false;
+        } finally {
+            DataMapHolder.clear();
+        }
+    }
+}
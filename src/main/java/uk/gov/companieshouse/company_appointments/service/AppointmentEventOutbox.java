@@ -0,0 +1,122 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.gov.companieshouse.company_appointments.api.ResourceChangedApiService;
+import uk.gov.companieshouse.company_appointments.kafka.OfficerMergeProducer;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.model.data.AppointmentEvent;
+import uk.gov.companieshouse.company_appointments.model.data.ResourceChangedRequest;
+import uk.gov.companieshouse.company_appointments.repository.AppointmentEventRepository;
+
+/**
+ * Publishes the resource-changed and officer-merge events that follow appointment writes. When the outbox is enabled
+ * the events are appended to appointment_events_outbox, in the same MongoDB transaction as the write when made within
+ * {@link #inTransaction}, and published later by {@link AppointmentEventDispatcher}. Otherwise they are published
+ * synchronously. When the change stream publisher is enabled, resource-changed events that follow a write to
+ * delta_appointments are left to {@link AppointmentChangeStreamPublisher} instead.
+ */
+@Component
+public class AppointmentEventOutbox {
+
+    private final AppointmentEventRepository repository;
+    private final ResourceChangedApiService resourceChangedApiService;
+    private final OfficerMergeProducer officerMergeProducer;
+    private final TransactionOperations transactionOperations;
+    private final Clock clock;
+    private final boolean enabled;
+    private final boolean changeStreamEnabled;
+
+    AppointmentEventOutbox(AppointmentEventRepository repository,
+            ResourceChangedApiService resourceChangedApiService,
+            OfficerMergeProducer officerMergeProducer,
+            TransactionOperations transactionOperations,
+            Clock clock,
+            @Value("${company-appointments.outbox.enabled}") boolean enabled,
+            @Value("${company-appointments.change-stream.enabled}") boolean changeStreamEnabled) {
+        this.repository = repository;
+        this.resourceChangedApiService = resourceChangedApiService;
+        this.officerMergeProducer = officerMergeProducer;
+        this.transactionOperations = transactionOperations;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.changeStreamEnabled = changeStreamEnabled;
+    }
+
+    /**
+     * Runs the writes and the events they append as one transaction, so an appointment is not written without its
+     * events nor its events appended without the appointment.
+     */
+    public void inTransaction(Runnable writes) {
+        transactionOperations.executeWithoutResult(status -> writes.run());
+    }
+
+    /**
+     * Runs the action once the transaction started by {@link #inTransaction} on this thread has committed, or at once
+     * outside a transaction, so that caches it evicts are not reloaded with the data the writes replace.
+     */
+    public void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Publishes the event following a write to delta_appointments, unless the change stream publisher will publish
+     * it from the write.
+     */
+    public void resourceChanged(ResourceChangedRequest request) {
+        if (!changeStreamEnabled) {
+            resourceChangedWithoutWrite(request);
+        }
+    }
+
+    /**
+     * Publishes an event that follows no write to delta_appointments, which the change stream will therefore never
+     * see.
+     */
+    public void resourceChangedWithoutWrite(ResourceChangedRequest request) {
+        if (!enabled) {
+            resourceChangedApiService.invokeChsKafkaApi(request);
+            return;
+        }
+        repository.insert(newEvent(AppointmentEvent.Type.RESOURCE_CHANGED, request.appointmentId())
+                .companyNumber(request.companyNumber())
+                .officerData(request.officersData())
+                .delete(request.isDelete()));
+    }
+
+    public void officerMerge(String appointmentId, String officerId, String previousOfficerId) {
+        if (!enabled) {
+            officerMergeProducer.invokeOfficerMerge(officerId, previousOfficerId);
+            return;
+        }
+        repository.insert(newEvent(AppointmentEvent.Type.OFFICER_MERGE, appointmentId)
+                .officerId(officerId)
+                .previousOfficerId(previousOfficerId));
+    }
+
+    private AppointmentEvent newEvent(AppointmentEvent.Type type, String appointmentId) {
+        Instant now = clock.instant();
+        return new AppointmentEvent()
+                .id(new ObjectId().toHexString())
+                .type(type)
+                .appointmentId(appointmentId)
+                .requestId(DataMapHolder.getRequestId())
+                .createdAt(now)
+                .nextAttemptAt(now);
+    }
+}
@@ -0,0 +1,74 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.gov.companieshouse.api.appointment.OfficerSummary;
+import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.mapper.CompanyAppointmentMapper;
+import uk.gov.companieshouse.company_appointments.model.AppointmentsBatch;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.view.CompanyAppointmentFullRecordView;
+import uk.gov.companieshouse.company_appointments.repository.CompanyAppointmentRepository;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * Fetches batches of a company's appointments with one query, for callers that would otherwise fetch each
+ * appointment in turn.
+ */
+@Service
+public class CompanyAppointmentBatchService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompanyAppointmentsApplication.APPLICATION_NAME_SPACE);
+
+    private final CompanyAppointmentRepository companyAppointmentRepository;
+    private final CompanyAppointmentMapper companyAppointmentMapper;
+    private final int maxBatchSize;
+
+    public CompanyAppointmentBatchService(CompanyAppointmentRepository companyAppointmentRepository,
+            CompanyAppointmentMapper companyAppointmentMapper,
+            @Value("${company-appointments.batch-max-size}") int maxBatchSize) {
+        this.companyAppointmentRepository = companyAppointmentRepository;
+        this.companyAppointmentMapper = companyAppointmentMapper;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public AppointmentsBatch<OfficerSummary> fetchAppointments(String companyNumber, List<String> appointmentIds)
+            throws BadRequestException {
+        return fetchBatch(companyNumber, appointmentIds, companyAppointmentMapper::map);
+    }
+
+    public AppointmentsBatch<CompanyAppointmentFullRecordView> fetchFullRecordAppointments(String companyNumber,
+            List<String> appointmentIds) throws BadRequestException {
+        return fetchBatch(companyNumber, appointmentIds,
+                document -> CompanyAppointmentFullRecordView.Builder.view(document).build());
+    }
+
+    private <T> AppointmentsBatch<T> fetchBatch(String companyNumber, List<String> appointmentIds,
+            Function<CompanyAppointmentDocument, T> mapper) throws BadRequestException {
+        if (appointmentIds == null || appointmentIds.isEmpty()) {
+            throw new BadRequestException("No appointment IDs supplied");
+        }
+        if (appointmentIds.stream().anyMatch(Objects::isNull)) {
+            throw new BadRequestException("Null appointment ID supplied");
+        }
+        List<String> distinctIds = appointmentIds.stream()
+                .distinct()
+                .toList();
+        if (distinctIds.size() > maxBatchSize) {
+            throw new BadRequestException(String.format("Batch of %d appointment IDs exceeds the maximum of %d",
+                    distinctIds.size(), maxBatchSize));
+        }
+
+        LOGGER.debug(String.format("Fetching %d appointments for company [%s]", distinctIds.size(), companyNumber),
+                DataMapHolder.getLogMap());
+        List<CompanyAppointmentDocument> documents = companyAppointmentRepository.readByCompanyNumberAndIDs(
+                companyNumber, distinctIds);
+        return AppointmentsBatch.of(distinctIds, documents, mapper);
+    }
+}
@@ -0,0 +1,216 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import uk.gov.companieshouse.api.appointment.ExternalData;
+import uk.gov.companieshouse.api.appointment.FullRecordCompanyOfficerApi;
+import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
+import uk.gov.companieshouse.company_appointments.exception.ConflictException;
+import uk.gov.companieshouse.company_appointments.exception.FailedToTransformException;
+import uk.gov.companieshouse.company_appointments.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.model.AppointmentDeltasResult;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaTimestamp;
+import uk.gov.companieshouse.company_appointments.model.transformer.DeltaAppointmentTransformer;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * Upserts a batch of a company's appointment deltas, transforming and writing them concurrently rather than one after
+ * another. Each delta is written as a single full record PUT would write it, with one conditional upsert that returns
+ * the appointment it replaced and, with the outbox enabled, its events appended in the same transaction, so each gets
+ * the outcome that PUT would have had and one invalid or stale delta does not fail the rest of the batch.
+ */
+@Service
+public class CompanyAppointmentBulkUpsertService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompanyAppointmentsApplication.APPLICATION_NAME_SPACE);
+
+    private final DeltaAppointmentTransformer deltaAppointmentTransformer;
+    private final CompanyAppointmentFullRecordService companyAppointmentFullRecordService;
+    private final Clock clock;
+    private final ExecutorService executor;
+    private final int maxBatchSize;
+
+    public CompanyAppointmentBulkUpsertService(DeltaAppointmentTransformer deltaAppointmentTransformer,
+            CompanyAppointmentFullRecordService companyAppointmentFullRecordService,
+            Clock clock,
+            ExecutorService executor,
+            @Value("${company-appointments.batch-max-size}") int maxBatchSize) {
+        this.deltaAppointmentTransformer = deltaAppointmentTransformer;
+        this.companyAppointmentFullRecordService = companyAppointmentFullRecordService;
+        this.clock = clock;
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public AppointmentDeltasResult upsertAppointmentDeltas(String companyNumber,
+            List<FullRecordCompanyOfficerApi> deltas) throws BadRequestException, ServiceUnavailableException {
+        if (deltas == null || deltas.isEmpty()) {
+            throw new BadRequestException("No appointment deltas supplied");
+        }
+        if (deltas.size() > maxBatchSize) {
+            throw new BadRequestException(String.format("Batch of %d appointment deltas exceeds the maximum of %d",
+                    deltas.size(), maxBatchSize));
+        }
+
+        List<CompanyAppointmentDocument> documents = transform(companyNumber, deltas);
+        HttpStatus[] statuses = new HttpStatus[deltas.size()];
+
+        // only the latest delta for an appointment is written; any earlier one in the batch is stale
+        Map<String, Integer> latestDeltas = new HashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            if (documents.get(i) == null) {
+                statuses[i] = BAD_REQUEST;
+            } else {
+                latestDeltas.merge(documents.get(i).getId(), i, (current, next) ->
+                        isStale(documents.get(next), documents.get(current)) ? current : next);
+            }
+        }
+
+        DeltaTimestamp instant = new DeltaTimestamp(Instant.now(clock));
+        Map<Integer, Future<HttpStatus>> upserts = new HashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            CompanyAppointmentDocument document = documents.get(i);
+            if (statuses[i] != null) {
+                continue;
+            }
+            if (latestDeltas.get(document.getId()) != i) {
+                statuses[i] = CONFLICT;
+            } else {
+                upserts.put(i, submit(() -> upsert(document, instant)));
+            }
+        }
+        upserts.forEach((i, upsert) -> statuses[i] = awaitUpsert(upsert));
+
+        LOGGER.info(String.format("Upserted %d of %d appointment deltas for company [%s]", upserts.keySet().stream()
+                .filter(i -> statuses[i] == OK)
+                .count(), deltas.size(), companyNumber), DataMapHolder.getLogMap());
+
+        List<AppointmentDeltasResult.Item> items = new ArrayList<>();
+        for (int i = 0; i < deltas.size(); i++) {
+            items.add(new AppointmentDeltasResult.Item(appointmentId(deltas.get(i)), statuses[i].value()));
+        }
+        return new AppointmentDeltasResult(items);
+    }
+
+    /**
+     * Writes the delta as a full record PUT would, taking the staleness check, created timestamp and officer merge
+     * from the appointment the write itself replaced rather than from an earlier read.
+     */
+    private HttpStatus upsert(CompanyAppointmentDocument document, DeltaTimestamp instant) {
+        try {
+            companyAppointmentFullRecordService.upsertDocument(document, instant);
+            return OK;
+        } catch (ConflictException ex) {
+            return CONFLICT;
+        } catch (DataAccessException ex) {
+            LOGGER.error(String.format("%s: %s", ex.getClass().getName(), ex.getMessage()), DataMapHolder.getLogMap());
+            return SERVICE_UNAVAILABLE;
+        } catch (RuntimeException ex) {
+            LOGGER.error(String.format("Failed to complete upsert of appointment [%s]: %s", document.getId(),
+                    ex.getMessage()), DataMapHolder.getLogMap());
+            return SERVICE_UNAVAILABLE;
+        }
+    }
+
+    /**
+     * Transforms the deltas concurrently. A delta that cannot be transformed, or is for another company, is null.
+     */
+    private List<CompanyAppointmentDocument> transform(String companyNumber,
+            List<FullRecordCompanyOfficerApi> deltas) {
+        List<Future<CompanyAppointmentDocument>> transformations = deltas.stream()
+                .map(delta -> submit(() -> transformDelta(companyNumber, delta)))
+                .toList();
+        List<CompanyAppointmentDocument> documents = new ArrayList<>();
+        for (Future<CompanyAppointmentDocument> transformation : transformations) {
+            try {
+                documents.add(transformation.get());
+            } catch (ExecutionException ex) {
+                LOGGER.info(String.format("Failed to transform payload: %s", ex.getCause().getMessage()),
+                        DataMapHolder.getLogMap());
+                documents.add(null);
+            } catch (InterruptedException ex) {
+                transformations.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new ServiceUnavailableException("Interrupted while transforming appointment deltas");
+            }
+        }
+        return documents;
+    }
+
+    @Nullable
+    private CompanyAppointmentDocument transformDelta(String companyNumber, FullRecordCompanyOfficerApi delta) {
+        try {
+            CompanyAppointmentDocument document = deltaAppointmentTransformer.transform(delta);
+            if (document.getId() == null || !companyNumber.equals(document.getCompanyNumber())) {
+                LOGGER.info(String.format("Appointment delta [%s] is not for company [%s]", document.getId(),
+                        companyNumber), DataMapHolder.getLogMap());
+                return null;
+            }
+            return document;
+        } catch (FailedToTransformException ex) {
+            LOGGER.info(ex.getMessage(), DataMapHolder.getLogMap());
+            return null;
+        }
+    }
+
+    private HttpStatus awaitUpsert(Future<HttpStatus> upsert) {
+        try {
+            return upsert.get();
+        } catch (ExecutionException ex) {
+            LOGGER.error(String.format("Failed to complete upsert: %s", ex.getCause().getMessage()),
+                    DataMapHolder.getLogMap());
+            return SERVICE_UNAVAILABLE;
+        } catch (InterruptedException ex) {
+            upsert.cancel(true);
+            Thread.currentThread().interrupt();
+            return SERVICE_UNAVAILABLE;
+        }
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        final String requestId = DataMapHolder.getRequestId();
+        return executor.submit(() -> {
+            DataMapHolder.initialise(requestId);
+            try {
+                return task.call();
+            } finally {
+                DataMapHolder.clear();
+            }
+        });
+    }
+
+    private static boolean isStale(CompanyAppointmentDocument document, CompanyAppointmentDocument other) {
+        return CompanyAppointmentFullRecordService.isDeltaStale(document.getDeltaAt(), other.getDeltaAt());
+    }
+
+    @Nullable
+    private static String appointmentId(@Nullable FullRecordCompanyOfficerApi delta) {
+        return Optional.ofNullable(delta)
+                .map(FullRecordCompanyOfficerApi::getExternalData)
+                .map(ExternalData::getAppointmentId)
+                .orElse(null);
+    }
+}
@@ -2,27 +2,33 @@ package uk.gov.companieshouse.company_appointments.service;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Clock;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import uk.gov.companieshouse.api.appointment.FullRecordCompanyOfficerApi;
 import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
-import uk.gov.companieshouse.company_appointments.api.ResourceChangedApiService;
+import uk.gov.companieshouse.company_appointments.api.CompanyMetricsCache;
 import uk.gov.companieshouse.company_appointments.exception.ConflictException;
 import uk.gov.companieshouse.company_appointments.exception.FailedToTransformException;
 import uk.gov.companieshouse.company_appointments.exception.NotFoundException;
 import uk.gov.companieshouse.company_appointments.exception.ServiceUnavailableException;
-import uk.gov.companieshouse.company_appointments.kafka.OfficerMergeProducer;
 import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
 import uk.gov.companieshouse.company_appointments.model.data.DeltaTimestamp;
 import uk.gov.companieshouse.company_appointments.model.data.ResourceChangedRequest;
 import uk.gov.companieshouse.company_appointments.model.transformer.DeltaAppointmentTransformer;
 import uk.gov.companieshouse.company_appointments.model.view.CompanyAppointmentFullRecordView;
+import uk.gov.companieshouse.company_appointments.officerappointments.OfficerAppointmentsCache;
 import uk.gov.companieshouse.company_appointments.repository.CompanyAppointmentRepository;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
@@ -35,20 +41,35 @@ public class CompanyAppointmentFullRecordService {
 
     private final DeltaAppointmentTransformer deltaAppointmentTransformer;
     private final CompanyAppointmentRepository companyAppointmentRepository;
-    private final ResourceChangedApiService resourceChangedApiService;
+    private final AppointmentEventOutbox appointmentEventOutbox;
     private final Clock clock;
-    private final OfficerMergeProducer officerMergeProducer;
+    private final OfficerAppointmentCountsService officerAppointmentCountsService;
+    private final OfficerAppointmentsCache officerAppointmentsCache;
+    private final CompanyMetricsCache companyMetricsCache;
+    private final AppointmentDeltaCoalescer appointmentDeltaCoalescer;
+    private final Counter unchangedDeltas;
 
     public CompanyAppointmentFullRecordService(
             DeltaAppointmentTransformer deltaAppointmentTransformer,
             CompanyAppointmentRepository companyAppointmentRepository,
-            ResourceChangedApiService resourceChangedApiService,
-            Clock clock, OfficerMergeProducer officerMergeProducer) {
+            AppointmentEventOutbox appointmentEventOutbox,
+            Clock clock,
+            OfficerAppointmentCountsService officerAppointmentCountsService,
+            OfficerAppointmentsCache officerAppointmentsCache,
+            CompanyMetricsCache companyMetricsCache,
+            AppointmentDeltaCoalescer appointmentDeltaCoalescer,
+            MeterRegistry meterRegistry) {
         this.deltaAppointmentTransformer = deltaAppointmentTransformer;
         this.companyAppointmentRepository = companyAppointmentRepository;
-        this.resourceChangedApiService = resourceChangedApiService;
+        this.appointmentEventOutbox = appointmentEventOutbox;
         this.clock = clock;
-        this.officerMergeProducer = officerMergeProducer;
+        this.officerAppointmentCountsService = officerAppointmentCountsService;
+        this.officerAppointmentsCache = officerAppointmentsCache;
+        this.companyMetricsCache = companyMetricsCache;
+        this.appointmentDeltaCoalescer = appointmentDeltaCoalescer;
+        this.unchangedDeltas = Counter.builder("appointment.deltas.unchanged")
+                .description("Appointment deltas not written because they match the stored appointment")
+                .register(meterRegistry);
     }
 
     public CompanyAppointmentFullRecordView getAppointment(String companyNumber, String appointmentID)
@@ -76,12 +97,18 @@ public class CompanyAppointmentFullRecordService {
             throw new ServiceUnavailableException(String.format("Failed to transform payload: %s", ex.getMessage()));
         }
 
+        appointmentDeltaCoalescer.coalesce(
+                appointmentDocument.getCompanyNumber() + "/" + appointmentDocument.getId(),
+                appointmentDocument.getDeltaAt(),
+                () -> persistAppointmentDelta(appointmentDocument));
+    }
+
+    private void persistAppointmentDelta(CompanyAppointmentDocument appointmentDocument)
+            throws ServiceUnavailableException {
         DeltaTimestamp instant = new DeltaTimestamp(Instant.now(clock));
 
         try {
-            getExistingDelta(appointmentDocument).ifPresentOrElse(
-                    existingDocument -> updateDocument(appointmentDocument, existingDocument, instant),
-                    () -> insertDocument(appointmentDocument, instant));
+            upsertDocument(appointmentDocument, instant);
         } catch (DataAccessException e) {
             LOGGER.error(String.format("%s: %s", e.getClass().getName(), e.getMessage()), DataMapHolder.getLogMap());
             throw new ServiceUnavailableException("Error connecting to MongoDB");
@@ -91,80 +118,151 @@ public class CompanyAppointmentFullRecordService {
         }
     }
 
-    private Optional<CompanyAppointmentDocument> getExistingDelta(
-            final CompanyAppointmentDocument incomingAppointment) {
+    /**
+     * A delta the write rejects is either stale or, when unchanged deltas are skipped, has the etag of the stored
+     * appointment. Only then is the stored appointment read to tell which.
+     *
+     * @throws ConflictException when the delta is stale
+     */
+    void upsertDocument(CompanyAppointmentDocument document, DeltaTimestamp instant)
+            throws ServiceUnavailableException, ConflictException {
+        try {
+            appointmentEventOutbox.inTransaction(() -> writeDocument(document, instant));
+        } catch (DuplicateKeyException e) {
+            CompanyAppointmentDocument existingDocument = existingDeltaState(document.getId());
+            if (isUnchanged(document, existingDocument)) {
+                appointmentsUnchanged(List.of(document));
+                return;
+            }
+            logStaleIncomingDelta(document, existingDocument != null ? existingDocument.getDeltaAt() : null);
+            throw new ConflictException("Received stale delta");
+        }
+    }
 
-        final String id = incomingAppointment.getId();
-        final String companyNumber = incomingAppointment.getCompanyNumber();
+    /**
+     * Writes the appointment in one conditional upsert that also returns the appointment it replaced, so that the
+     * staleness check cannot be raced by a concurrent delta and the officer merge is decided without another read.
+     */
+    private void writeDocument(CompanyAppointmentDocument document, DeltaTimestamp instant) {
+        document.updated(instant);
+        document.created(instant);
 
-        return companyAppointmentRepository.readByCompanyNumberAndID(companyNumber, id);
-    }
+        CompanyAppointmentDocument existingDocument = companyAppointmentRepository.upsertOneUnlessStale(document)
+                .orElse(null);
 
-    private void updateDocument(CompanyAppointmentDocument document, CompanyAppointmentDocument existingDocument,
-            DeltaTimestamp instant) throws ServiceUnavailableException, ConflictException {
-        if (isDeltaStale(document.getDeltaAt(), existingDocument.getDeltaAt())) {
-            logStaleIncomingDelta(document, existingDocument.getDeltaAt());
-            throw new ConflictException("Received stale delta");
-        } else {
-            String previousOfficerId = null;
-            if (!document.getOfficerId().equals(existingDocument.getOfficerId()) &&
-                    !isBlank(existingDocument.getOfficerId())) {
-                previousOfficerId = existingDocument.getOfficerId();
-            } else if (!document.getOfficerId().equals(document.getPreviousOfficerId()) &&
-                    !isBlank(document.getPreviousOfficerId()) &&
-                    !DEFAULT_PREVIOUS_OFFICER_ID.equals(document.getPreviousOfficerId())) {
-                previousOfficerId = document.getPreviousOfficerId();
-            }
+        String previousOfficerId = null;
+        if (existingDocument != null) {
+            document.created(existingDocument.getCreated());
+            previousOfficerId = previousOfficerId(document, existingDocument);
+        }
 
-            try {
-                saveDocument(document, instant, existingDocument.getCreated(), previousOfficerId);
-            } catch (ServiceUnavailableException e) {
-                LOGGER.info("Call to Kafka API failed", DataMapHolder.getLogMap());
-                throw e;
-            }
+        try {
+            appointmentSaved(document, existingDocument, previousOfficerId);
+
+            appointmentEventOutbox.resourceChanged(
+                    new ResourceChangedRequest(document.getCompanyNumber(),
+                            document.getAppointmentId(), null, false));
+            LOGGER.debug(String.format("ChsKafka api CHANGED invoked updated successfully for company number: %s",
+                    document.getCompanyNumber()), DataMapHolder.getLogMap());
+        } catch (ServiceUnavailableException e) {
+            LOGGER.info("Call to Kafka API failed", DataMapHolder.getLogMap());
+            throw e;
         }
     }
 
-    private boolean isDeltaStale(final Instant incomingDelta, final Instant existingDelta) {
+    /**
+     * The officer ID whose appointments are to be merged into the updated appointment's officer, if any.
+     */
+    @Nullable
+    static String previousOfficerId(CompanyAppointmentDocument document,
+            CompanyAppointmentDocument existingDocument) {
+        if (!document.getOfficerId().equals(existingDocument.getOfficerId()) &&
+                !isBlank(existingDocument.getOfficerId())) {
+            return existingDocument.getOfficerId();
+        } else if (!document.getOfficerId().equals(document.getPreviousOfficerId()) &&
+                !isBlank(document.getPreviousOfficerId()) &&
+                !DEFAULT_PREVIOUS_OFFICER_ID.equals(document.getPreviousOfficerId())) {
+            return document.getPreviousOfficerId();
+        }
+        return null;
+    }
+
+    static boolean isDeltaStale(final Instant incomingDelta, final Instant existingDelta) {
         return incomingDelta.isBefore(existingDelta);
     }
 
-    private void logStaleIncomingDelta(final CompanyAppointmentDocument appointmentAPI, final Instant existingDelta) {
+    /**
+     * Whether the delta is not stale and has the etag, and so the content, of the stored appointment.
+     */
+    static boolean isUnchanged(CompanyAppointmentDocument document,
+            @Nullable CompanyAppointmentDocument existingDocument) {
+        return existingDocument != null
+                && etag(document) != null
+                && etag(document).equals(etag(existingDocument))
+                && !isDeltaStale(document.getDeltaAt(), existingDocument.getDeltaAt());
+    }
+
+    @Nullable
+    private static String etag(CompanyAppointmentDocument document) {
+        return document.getData() != null ? document.getData().getEtag() : null;
+    }
+
+    /**
+     * The state of the stored appointment that made a write reject a delta, read only once the write has been
+     * rejected.
+     */
+    @Nullable
+    private CompanyAppointmentDocument existingDeltaState(String appointmentId) {
+        return companyAppointmentRepository.readDeltaStatesByIDs(List.of(appointmentId)).stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Records deltas that were not written because they change nothing. Only their delta_at is stored, so that
+     * earlier deltas arriving after them are still rejected as stale; no events are published and no caches evicted.
+     */
+    void appointmentsUnchanged(List<CompanyAppointmentDocument> documents) {
+        companyAppointmentRepository.advanceDeltaAts(documents);
+        unchangedDeltas.increment(documents.size());
+        documents.forEach(document -> LOGGER.debug(String.format("Skipped unchanged delta for appointment [%s]",
+                document.getId()), DataMapHolder.getLogMap()));
+    }
+
+    private void logStaleIncomingDelta(final CompanyAppointmentDocument appointmentAPI,
+            @Nullable final Instant existingDelta) {
 
         Map<String, Object> logInfo = DataMapHolder.getLogMap();
         logInfo.put("incomingDeltaAt", appointmentAPI.getDeltaAt().toString());
-        logInfo.put("existingDeltaAt",
-                isBlank(existingDelta.toString()) ? "No existing delta" : existingDelta.toString());
+        logInfo.put("existingDeltaAt", existingDelta == null ? "No existing delta" : existingDelta.toString());
         final String context = appointmentAPI.getAppointmentId();
         LOGGER.errorContext(context, "Received stale delta", null, logInfo);
     }
 
-    private void insertDocument(CompanyAppointmentDocument document, DeltaTimestamp instant)
-            throws ServiceUnavailableException {
-        try {
-            saveDocument(document, instant, instant, null);
-        } catch (ServiceUnavailableException e) {
-            LOGGER.info("Call to Kafka API failed", DataMapHolder.getLogMap());
-            throw e;
-        }
-    }
-
-    private void saveDocument(CompanyAppointmentDocument document, DeltaTimestamp updatedAt, DeltaTimestamp createdAt,
+    /**
+     * Brings the officer counts and, once the write has committed, cached reads into step with a saved appointment,
+     * and merges the previous officer's appointments into its officer when there is one.
+     */
+    void appointmentSaved(CompanyAppointmentDocument document, @Nullable CompanyAppointmentDocument existingDocument,
             @Nullable String previousOfficerId) {
-        document.updated(updatedAt);
-        document.created(createdAt);
-
-        companyAppointmentRepository.save(document);
+        officerAppointmentCountsService.appointmentSaved(existingDocument, document);
+        appointmentEventOutbox.afterCommit(() -> {
+            evictOfficerAppointments(document.getOfficerId(),
+                    existingDocument != null ? existingDocument.getOfficerId() : null, previousOfficerId);
+            companyMetricsCache.evict(document.getCompanyNumber());
+        });
 
         if (!isBlank(previousOfficerId)) {
-            officerMergeProducer.invokeOfficerMerge(document.getOfficerId(), previousOfficerId);
+            appointmentEventOutbox.officerMerge(document.getAppointmentId(), document.getOfficerId(),
+                    previousOfficerId);
         }
+    }
 
-        resourceChangedApiService.invokeChsKafkaApi(
-                new ResourceChangedRequest(document.getCompanyNumber(),
-                        document.getAppointmentId(), null, false));
-        LOGGER.debug(String.format("ChsKafka api CHANGED invoked updated successfully for company number: %s",
-                document.getCompanyNumber()), DataMapHolder.getLogMap());
+    private void evictOfficerAppointments(String... officerIds) {
+        Stream.of(officerIds)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(officerAppointmentsCache::evict);
     }
 }
 
@@ -1,9 +1,20 @@
 package uk.gov.companieshouse.company_appointments.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import uk.gov.companieshouse.api.appointment.LinkTypes;
 import uk.gov.companieshouse.api.appointment.OfficerList;
@@ -18,10 +29,14 @@ import uk.gov.companieshouse.company_appointments.exception.NotFoundException;
 import uk.gov.companieshouse.company_appointments.exception.ServiceUnavailableException;
 import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
 import uk.gov.companieshouse.company_appointments.mapper.CompanyAppointmentMapper;
+import uk.gov.companieshouse.company_appointments.model.CompanyAppointmentsContinuationToken;
+import uk.gov.companieshouse.company_appointments.model.CompanyAppointmentsSlice;
 import uk.gov.companieshouse.company_appointments.model.FetchAppointmentsRequest;
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentsPage;
 import uk.gov.companieshouse.company_appointments.model.data.CompanyStatus;
 import uk.gov.companieshouse.company_appointments.repository.CompanyAppointmentRepository;
+import uk.gov.companieshouse.company_appointments.util.EntityTags;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
 
@@ -37,15 +52,27 @@ public class CompanyAppointmentService {
     private final CompanyAppointmentMapper companyAppointmentMapper;
     private final CompanyRegisterService companyRegisterService;
     private final CompanyMetricsApiService companyMetricsApiService;
+    private final boolean localCountsEnabled;
+    private final ExecutorService metricsExecutor;
+    private final boolean concurrentMetricsEnabled;
+    private final boolean conditionalGetEnabled;
 
     public CompanyAppointmentService(CompanyAppointmentRepository companyAppointmentRepository,
             CompanyAppointmentMapper companyAppointmentMapper,
             CompanyRegisterService companyRegisterService,
-            CompanyMetricsApiService companyMetricsApiService) {
+            CompanyMetricsApiService companyMetricsApiService,
+            @Value("${company-appointments.local-counts-enabled}") boolean localCountsEnabled,
+            ExecutorService metricsExecutor,
+            @Value("${company-appointments.concurrent-metrics-enabled}") boolean concurrentMetricsEnabled,
+            @Value("${company-appointments.conditional-get-enabled}") boolean conditionalGetEnabled) {
         this.companyAppointmentRepository = companyAppointmentRepository;
         this.companyAppointmentMapper = companyAppointmentMapper;
         this.companyRegisterService = companyRegisterService;
         this.companyMetricsApiService = companyMetricsApiService;
+        this.localCountsEnabled = localCountsEnabled;
+        this.metricsExecutor = metricsExecutor;
+        this.concurrentMetricsEnabled = concurrentMetricsEnabled;
+        this.conditionalGetEnabled = conditionalGetEnabled;
     }
 
     public OfficerSummary fetchAppointment(String companyNumber, String appointmentID) throws NotFoundException {
@@ -58,13 +85,27 @@ public class CompanyAppointmentService {
         return companyAppointmentMapper.map(appointmentDocument);
     }
 
-    public OfficerList fetchAppointmentsForCompany(FetchAppointmentsRequest request)
-            throws NotFoundException, ServiceUnavailableException {
+    /**
+     * Fetches the page of appointments for the request, seeking past the position in its continuation token on the
+     * order's keyset sort rather than skipping start_index appointments when one is given, with the token for the
+     * following page while more remain.
+     * <p>
+     * While conditional GET requests are enabled the page's entity tag is computed from the etags of the appointments
+     * on the page and the counts read from delta_appointments, never from company-metrics-api. A conditional request
+     * first reads only the etags, company status and sort fields of the page; when its tag matches ifNoneMatch, a not
+     * modified slice is returned without reading the rest of the appointments, mapping them or calling
+     * company-metrics-api for their counts.
+     */
+    public CompanyAppointmentsSlice fetchAppointmentsForCompany(FetchAppointmentsRequest request,
+            @Nullable String ifNoneMatch) throws NotFoundException, ServiceUnavailableException {
+        CompanyAppointmentsContinuationToken after = request.getContinuationToken() != null
+                ? CompanyAppointmentsContinuationToken.decode(request.getContinuationToken(), request.getOrderBy())
+                : null;
         String companyNumber = request.getCompanyNumber();
         String orderBy = request.getOrderBy();
         String filter = request.getFilter();
         String registerType = request.getRegisterType();
-        int startIndex = Optional.ofNullable(request.getStartIndex())
+        int startIndex = after != null ? after.offset() : Optional.ofNullable(request.getStartIndex())
                 .orElse(DEFAULT_START_INDEX);
         int itemsPerPage = Optional.ofNullable(request.getItemsPerPage())
                 .orElse(DEFAULT_ITEMS_PER_PAGE);
@@ -75,12 +116,54 @@ public class CompanyAppointmentService {
                 String.format("Fetching appointments for company [%s] with order by [%s]", companyNumber, orderBy),
                 DataMapHolder.getLogMap());
 
-        List<CompanyAppointmentDocument> allAppointmentData = companyAppointmentRepository.getCompanyAppointments(
-                companyNumber, orderBy, registerType, startIndex, itemsPerPage, registerView,
-                filterEnabled);
+        // start the metrics call alongside the page query when its result will be needed for a non-empty page; a
+        // conditional request only needs the metrics counts once its entity tag has not matched
+        Future<MetricsApi> speculativeMetrics = concurrentMetricsEnabled
+                && (registerView || !localCountsEnabled && ifNoneMatch == null)
+                ? startMetricsCall(companyNumber) : null;
+
+        // the entity tag needs the counts from delta_appointments, so they are read with the page whenever conditional
+        // GET requests are enabled even if the response's counts come from company-metrics-api
+        final boolean conditional = conditionalGetEnabled && ifNoneMatch != null;
+        CompanyAppointmentsPage page = null;
+        List<CompanyAppointmentDocument> allAppointmentData;
+        try {
+            // a keyset page reads one appointment beyond the page to learn whether another page follows
+            final int limit = after == null ? itemsPerPage : itemsPerPage + 1;
+            if (conditional) {
+                page = after == null
+                        ? companyAppointmentRepository.getCompanyAppointmentEtagsPage(companyNumber, orderBy,
+                        registerType, startIndex, itemsPerPage, registerView, filterEnabled)
+                        : companyAppointmentRepository.getCompanyAppointmentEtagsPageAfter(companyNumber, orderBy,
+                                registerType, after, limit, registerView, filterEnabled);
+                allAppointmentData = page.getItems();
+            } else if (localCountsEnabled || conditionalGetEnabled) {
+                page = after == null
+                        ? companyAppointmentRepository.getCompanyAppointmentsPage(companyNumber, orderBy,
+                        registerType, startIndex, itemsPerPage, registerView, filterEnabled)
+                        : companyAppointmentRepository.getCompanyAppointmentsPageAfter(companyNumber, orderBy,
+                                registerType, after, limit, registerView, filterEnabled);
+                allAppointmentData = page.getItems();
+            } else {
+                allAppointmentData = after == null
+                        ? companyAppointmentRepository.getCompanyAppointments(companyNumber, orderBy, registerType,
+                        startIndex, itemsPerPage, registerView, filterEnabled)
+                        : companyAppointmentRepository.getCompanyAppointmentsAfter(companyNumber, orderBy,
+                                registerType, after, limit, registerView, filterEnabled);
+            }
+        } catch (RuntimeException ex) {
+            cancel(speculativeMetrics);
+            throw ex;
+        }
 
         if (allAppointmentData.isEmpty()) {
-            return new OfficerList()
+            cancel(speculativeMetrics);
+            String entityTag = conditionalGetEnabled
+                    ? entityTag(List.of(), 0, 0, 0, 0, startIndex, itemsPerPage) : null;
+            if (matches(ifNoneMatch, entityTag)) {
+                return CompanyAppointmentsSlice.notModified(entityTag);
+            }
+            return new CompanyAppointmentsSlice(new OfficerList()
                     .totalResults(0)
                     .items(Collections.emptyList())
                     .activeCount(0)
@@ -90,29 +173,67 @@ public class CompanyAppointmentService {
                     .startIndex(startIndex)
                     .itemsPerPage(itemsPerPage)
                     .links(new LinkTypes())
-                    .etag("");
+                    .etag(""), null, entityTag);
         }
 
-        MetricsApi metricsApi = companyMetricsApiService.invokeGetMetricsApi(companyNumber).getData();
+        boolean hasMore = false;
+        if (after != null && allAppointmentData.size() > itemsPerPage) {
+            allAppointmentData = allAppointmentData.subList(0, itemsPerPage);
+            hasMore = true;
+        }
 
-        if (registerView && !companyRegisterService.isRegisterHeldInCompaniesHouse(registerType,
-                metricsApi.getRegisters())) {
-            throw new NotFoundException("Register not held at Companies House");
+        MetricsApi metricsApi = null;
+        if (registerView) {
+            metricsApi = getMetrics(companyNumber, speculativeMetrics);
+            checkRegisterHeld(registerType, metricsApi);
         }
 
-        AppointmentsApi appointmentsCounts = Optional.ofNullable(metricsApi.getCounts())
-                .map(CountsApi::getAppointments)
-                .orElseThrow(() -> new NotFoundException(
-                        String.format("Appointments metrics for company number [%s] not found", companyNumber)));
+        String companyStatus = allAppointmentData.getFirst().getCompanyStatus();
+        Counts pageCounts = page != null
+                ? counts(pageCounts(page), registerView, registerType, companyStatus, filterEnabled) : null;
+        String entityTag = null;
+        if (conditionalGetEnabled) {
+            entityTag = entityTag(allAppointmentData.stream()
+                            .map(document -> document.getData().getEtag())
+                            .toList(),
+                    pageCounts.getTotalResults(), pageCounts.getActive(), pageCounts.getInactive(),
+                    pageCounts.getResigned(), startIndex, itemsPerPage);
+            if (matches(ifNoneMatch, entityTag)) {
+                cancel(speculativeMetrics);
+                return CompanyAppointmentsSlice.notModified(entityTag);
+            }
+        }
 
-        Counts counts = registerView ? new Counts(appointmentsCounts, registerType) :
-                new Counts(appointmentsCounts, allAppointmentData.getFirst().getCompanyStatus(), filterEnabled);
+        // with local counts, company-metrics-api is only needed for where the registers are held
+        Counts counts;
+        if (localCountsEnabled) {
+            counts = pageCounts;
+        } else {
+            if (metricsApi == null) {
+                metricsApi = getMetrics(companyNumber, speculativeMetrics);
+            }
+            AppointmentsApi appointmentsCounts = Optional.ofNullable(metricsApi.getCounts())
+                    .map(CountsApi::getAppointments)
+                    .orElseThrow(() -> new NotFoundException(
+                            String.format("Appointments metrics for company number [%s] not found", companyNumber)));
+            counts = counts(appointmentsCounts, registerView, registerType, companyStatus, filterEnabled);
+        }
 
-        List<OfficerSummary> officerSummaries = allAppointmentData.stream()
+        // the etags read for a conditional request carry the sort fields for the continuation token, but not the
+        // fields the appointments are mapped from
+        List<CompanyAppointmentDocument> mappedAppointmentData = conditional
+                ? readAppointments(companyNumber, allAppointmentData) : allAppointmentData;
+
+        String nextContinuationToken = hasMore
+                ? companyAppointmentRepository.continuationTokenAfter(orderBy,
+                        allAppointmentData.getLast(), startIndex + itemsPerPage).encode()
+                : null;
+
+        List<OfficerSummary> officerSummaries = mappedAppointmentData.stream()
                 .map(companyAppointmentMapper::map)
                 .toList();
 
-        return new OfficerList()
+        return new CompanyAppointmentsSlice(new OfficerList()
                 .totalResults(counts.getTotalResults())
                 .items(officerSummaries)
                 .activeCount(counts.getActive())
@@ -122,7 +243,126 @@ public class CompanyAppointmentService {
                 .startIndex(startIndex)
                 .itemsPerPage(itemsPerPage)
                 .links(new LinkTypes().self(String.format("/company/%s/officers", companyNumber)))
-                .etag(allAppointmentData.getFirst().getData().getEtag());
+                .etag(allAppointmentData.getFirst().getData().getEtag()), nextContinuationToken, entityTag);
+    }
+
+    /**
+     * The entity tag of the appointment, read without the rest of the appointment. Empty when conditional GET
+     * requests are disabled.
+     */
+    public Optional<String> fetchAppointmentEntityTag(String companyNumber, String appointmentID)
+            throws NotFoundException {
+        if (!conditionalGetEnabled) {
+            return Optional.empty();
+        }
+        CompanyAppointmentDocument appointmentDocument = companyAppointmentRepository
+                .readEtagByCompanyNumberAndAppointmentID(companyNumber, appointmentID)
+                .orElseThrow(() -> new NotFoundException(
+                        String.format("Appointment [%s] for company [%s] not found", appointmentID, companyNumber)));
+        return Optional.of(EntityTags.strong(appointmentDocument.getData().getEtag()));
+    }
+
+    /**
+     * The entity tag of the appointment response. Empty when conditional GET requests are disabled.
+     */
+    public Optional<String> entityTagOf(OfficerSummary officerSummary) {
+        return conditionalGetEnabled ? Optional.ofNullable(officerSummary.getEtag()).map(EntityTags::strong)
+                : Optional.empty();
+    }
+
+    /**
+     * The appointments with the ids of those given, in their order. An appointment deleted since its etag was read is
+     * left out.
+     */
+    private List<CompanyAppointmentDocument> readAppointments(String companyNumber,
+            List<CompanyAppointmentDocument> etags) {
+        Map<String, CompanyAppointmentDocument> appointments = companyAppointmentRepository
+                .readByCompanyNumberAndIDs(companyNumber, etags.stream()
+                        .map(CompanyAppointmentDocument::getId)
+                        .toList())
+                .stream()
+                .collect(Collectors.toMap(CompanyAppointmentDocument::getId, Function.identity()));
+        return etags.stream()
+                .map(document -> appointments.get(document.getId()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static boolean matches(@Nullable String ifNoneMatch, @Nullable String entityTag) {
+        return ifNoneMatch != null && entityTag != null && EntityTags.matches(ifNoneMatch, entityTag);
+    }
+
+    private static AppointmentsApi pageCounts(CompanyAppointmentsPage page) {
+        return new AppointmentsApi()
+                .totalCount(page.getTotalCount())
+                .activeCount(page.getActiveCount())
+                .resignedCount(page.getResignedCount())
+                .activeDirectorsCount(page.getActiveDirectorsCount())
+                .activeSecretariesCount(page.getActiveSecretariesCount())
+                .activeLlpMembersCount(page.getActiveLlpMembersCount());
+    }
+
+    private static Counts counts(AppointmentsApi appointmentsCounts, boolean registerView, String registerType,
+            String companyStatus, boolean filterEnabled) {
+        return registerView ? new Counts(appointmentsCounts, registerType)
+                : new Counts(appointmentsCounts, companyStatus, filterEnabled);
+    }
+
+    private static String entityTag(List<String> etags, Integer totalResults, Integer active,
+            @Nullable Integer inactive, Integer resigned, Integer startIndex, Integer itemsPerPage) {
+        List<Object> values = new ArrayList<>(Arrays.asList(totalResults, active, inactive, resigned, startIndex,
+                itemsPerPage));
+        values.addAll(etags);
+        return EntityTags.of(values);
+    }
+
+    private Future<MetricsApi> startMetricsCall(String companyNumber) {
+        final String requestId = DataMapHolder.getRequestId();
+        return metricsExecutor.submit(() -> {
+            DataMapHolder.initialise(requestId);
+            try {
+                return companyMetricsApiService.invokeGetMetricsApi(companyNumber).getData();
+            } finally {
+                DataMapHolder.clear();
+            }
+        });
+    }
+
+    /**
+     * Returns the metrics from the call started alongside the page query, if any, rethrowing its exception
+     * unchanged, or otherwise calls company-metrics-api now.
+     */
+    private MetricsApi getMetrics(String companyNumber, @Nullable Future<MetricsApi> speculativeMetrics) {
+        if (speculativeMetrics == null) {
+            return companyMetricsApiService.invokeGetMetricsApi(companyNumber).getData();
+        }
+        try {
+            return speculativeMetrics.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            speculativeMetrics.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for company metrics");
+        }
+    }
+
+    private static void cancel(@Nullable Future<MetricsApi> speculativeMetrics) {
+        if (speculativeMetrics != null) {
+            speculativeMetrics.cancel(true);
+        }
+    }
+
+    private void checkRegisterHeld(String registerType, MetricsApi metricsApi) {
+        if (!companyRegisterService.isRegisterHeldInCompaniesHouse(registerType, metricsApi.getRegisters())) {
+            throw new NotFoundException("Register not held at Companies House");
+        }
     }
 
     private boolean checkFilterEnabled(String filter) {
@@ -13,13 +13,14 @@ import uk.gov.companieshouse.api.appointment.ItemLinkTypes;
 import uk.gov.companieshouse.api.appointment.OfficerLinkTypes;
 import uk.gov.companieshouse.api.appointment.OfficerSummary;
 import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
-import uk.gov.companieshouse.company_appointments.api.ResourceChangedApiService;
+import uk.gov.companieshouse.company_appointments.api.CompanyMetricsCache;
 import uk.gov.companieshouse.company_appointments.exception.BadGatewayException;
 import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
 import uk.gov.companieshouse.company_appointments.exception.ConflictException;
 import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
 import uk.gov.companieshouse.company_appointments.model.DeleteAppointmentParameters;
 import uk.gov.companieshouse.company_appointments.model.data.ResourceChangedRequest;
+import uk.gov.companieshouse.company_appointments.officerappointments.OfficerAppointmentsCache;
 import uk.gov.companieshouse.company_appointments.repository.CompanyAppointmentRepository;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
@@ -32,16 +33,25 @@ public class DeleteAppointmentService {
             .withZone(UTC);
 
     private final CompanyAppointmentRepository companyAppointmentRepository;
-    private final ResourceChangedApiService resourceChangedApiService;
+    private final AppointmentEventOutbox appointmentEventOutbox;
     private final ResourceChangedDataCleaner resourceChangedDataCleaner;
+    private final OfficerAppointmentCountsService officerAppointmentCountsService;
+    private final OfficerAppointmentsCache officerAppointmentsCache;
+    private final CompanyMetricsCache companyMetricsCache;
 
     public DeleteAppointmentService(
             CompanyAppointmentRepository companyAppointmentRepository,
-            ResourceChangedApiService resourceChangedApiService,
-            ResourceChangedDataCleaner resourceChangedDataCleaner) {
+            AppointmentEventOutbox appointmentEventOutbox,
+            ResourceChangedDataCleaner resourceChangedDataCleaner,
+            OfficerAppointmentCountsService officerAppointmentCountsService,
+            OfficerAppointmentsCache officerAppointmentsCache,
+            CompanyMetricsCache companyMetricsCache) {
         this.companyAppointmentRepository = companyAppointmentRepository;
-        this.resourceChangedApiService = resourceChangedApiService;
+        this.appointmentEventOutbox = appointmentEventOutbox;
         this.resourceChangedDataCleaner = resourceChangedDataCleaner;
+        this.officerAppointmentCountsService = officerAppointmentCountsService;
+        this.officerAppointmentsCache = officerAppointmentsCache;
+        this.companyMetricsCache = companyMetricsCache;
     }
 
     public void deleteAppointment(DeleteAppointmentParameters deleteAppointmentParameters) {
@@ -56,8 +66,8 @@ public class DeleteAppointmentService {
         }
 
         try {
-            companyAppointmentRepository.readByCompanyNumberAndID(companyNumber, appointmentId)
-                    .ifPresentOrElse(document -> {
+            appointmentEventOutbox.inTransaction(() -> companyAppointmentRepository.readByCompanyNumberAndID(
+                    companyNumber, appointmentId).ifPresentOrElse(document -> {
                         LOGGER.info("Appointment found", DataMapHolder.getLogMap());
 
                         Instant requestDeltaAtInstant = LocalDateTime.parse(requestDeltaAt, DELTA_AT_FORMATTER)
@@ -68,8 +78,14 @@ public class DeleteAppointmentService {
                         } else {
                             LOGGER.info("Deleting appointment", DataMapHolder.getLogMap());
                             companyAppointmentRepository.deleteByCompanyNumberAndID(companyNumber, appointmentId);
-                            publishResourceChanged(companyNumber, appointmentId,
-                                    resourceChangedDataCleaner.cleanOutNullValues(document));
+                            officerAppointmentCountsService.appointmentDeleted(document);
+                            appointmentEventOutbox.afterCommit(() -> {
+                                officerAppointmentsCache.evict(document.getOfficerId());
+                                companyMetricsCache.evict(companyNumber);
+                            });
+                            appointmentEventOutbox.resourceChanged(deletedRequest(companyNumber, appointmentId,
+                                    resourceChangedDataCleaner.cleanOutNullValues(document)));
+                            LOGGER.info("ChsKafka api DELETED invoked", DataMapHolder.getLogMap());
                         }
                     }, () -> {
                         LOGGER.info(
@@ -82,9 +98,10 @@ public class DeleteAppointmentService {
                                         .officer(new OfficerLinkTypes()
                                                 .appointments(appointmentsUri)));
 
-                        publishResourceChanged(companyNumber, appointmentId,
-                                resourceChangedDataCleaner.cleanOutNullValues(officerSummary));
-                    });
+                        appointmentEventOutbox.resourceChangedWithoutWrite(deletedRequest(companyNumber,
+                                appointmentId, resourceChangedDataCleaner.cleanOutNullValues(officerSummary)));
+                        LOGGER.info("ChsKafka api DELETED invoked", DataMapHolder.getLogMap());
+                    }));
         } catch (TransientDataAccessException ex) {
             LOGGER.info("Recoverable MongoDB error when deleting appointment", DataMapHolder.getLogMap());
             throw new BadGatewayException("Recoverable MongoDB error when deleting appointment", ex);
@@ -94,15 +111,14 @@ public class DeleteAppointmentService {
         }
     }
 
-    private void publishResourceChanged(String companyNumber, String appointmentId, Object officersData) {
-        ResourceChangedRequest resourceChangedRequest = ResourceChangedRequest.builder()
+    private static ResourceChangedRequest deletedRequest(String companyNumber, String appointmentId,
+            Object officersData) {
+        return ResourceChangedRequest.builder()
                 .companyNumber(companyNumber)
                 .appointmentId(appointmentId)
                 .officerData(officersData)
                 .delete(true)
                 .build();
-        resourceChangedApiService.invokeChsKafkaApi(resourceChangedRequest);
-        LOGGER.info("ChsKafka api DELETED invoked", DataMapHolder.getLogMap());
     }
 }
 
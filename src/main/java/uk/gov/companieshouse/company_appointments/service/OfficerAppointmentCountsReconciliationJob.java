@@ -0,0 +1,40 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.repository.OfficerAppointmentCountsRepository;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * Periodically recomputes the materialised officer appointment counts from delta_appointments, correcting any that
+ * have drifted from failed or concurrent increments.
+ */
+@Component
+@ConditionalOnProperty(prefix = "officer-appointments.counts-reconciliation", name = "enabled")
+public class OfficerAppointmentCountsReconciliationJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompanyAppointmentsApplication.APPLICATION_NAME_SPACE);
+
+    private final OfficerAppointmentCountsRepository repository;
+
+    public OfficerAppointmentCountsReconciliationJob(OfficerAppointmentCountsRepository repository) {
+        this.repository = repository;
+    }
+
+    @Scheduled(cron = "${officer-appointments.counts-reconciliation.cron}")
+    public void reconcileCounts() {
+        LOGGER.info("Reconciling officer appointment counts", DataMapHolder.getLogMap());
+        try {
+            long corrected = repository.reconcileCounts();
+            LOGGER.info("Corrected appointment counts for %d officers".formatted(corrected),
+                    DataMapHolder.getLogMap());
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to reconcile officer appointment counts", ex, DataMapHolder.getLogMap());
+        }
+    }
+}
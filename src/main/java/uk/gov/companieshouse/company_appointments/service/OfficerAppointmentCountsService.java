@@ -0,0 +1,75 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import static uk.gov.companieshouse.company_appointments.model.data.CompanyStatus.CLOSED;
+import static uk.gov.companieshouse.company_appointments.model.data.CompanyStatus.CONVERTED_CLOSED;
+import static uk.gov.companieshouse.company_appointments.model.data.CompanyStatus.DISSOLVED;
+
+import java.util.List;
+import org.springframework.dao.DataAccessException;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.repository.OfficerAppointmentCountsRepository;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * Keeps the officer_appointment_counts collection in step with delta_appointments by applying the difference an
+ * upsert or delete makes to each affected officer's counts. A failed increment is logged rather than failing the
+ * write, as retrying the write would not reapply it; the reconciliation job corrects any drift and seeds the counts
+ * of officers that have none.
+ */
+@Component
+public class OfficerAppointmentCountsService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompanyAppointmentsApplication.APPLICATION_NAME_SPACE);
+    private static final List<String> INACTIVE_STATUSES = List.of(DISSOLVED.getStatus(), CONVERTED_CLOSED.getStatus(),
+            CLOSED.getStatus());
+    private static final Counts NONE = new Counts(0, 0, 0);
+
+    private final OfficerAppointmentCountsRepository repository;
+
+    public OfficerAppointmentCountsService(OfficerAppointmentCountsRepository repository) {
+        this.repository = repository;
+    }
+
+    public void appointmentSaved(@Nullable CompanyAppointmentDocument existing, CompanyAppointmentDocument saved) {
+        if (existing != null && !saved.getOfficerId().equals(existing.getOfficerId())) {
+            increment(existing.getOfficerId(), NONE.minus(Counts.of(existing)));
+            increment(saved.getOfficerId(), Counts.of(saved));
+        } else {
+            increment(saved.getOfficerId(), Counts.of(saved).minus(existing != null ? Counts.of(existing) : NONE));
+        }
+    }
+
+    public void appointmentDeleted(CompanyAppointmentDocument deleted) {
+        increment(deleted.getOfficerId(), NONE.minus(Counts.of(deleted)));
+    }
+
+    private void increment(String officerId, Counts delta) {
+        if (officerId == null || NONE.equals(delta)) {
+            return;
+        }
+        try {
+            repository.incrementCounts(officerId, delta.total(), delta.resigned(), delta.inactive());
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to update appointment counts for officer ID %s".formatted(officerId), ex,
+                    DataMapHolder.getLogMap());
+        }
+    }
+
+    private record Counts(int total, int resigned, int inactive) {
+
+        static Counts of(CompanyAppointmentDocument document) {
+            boolean resigned = document.getData() != null && document.getData().getResignedOn() != null;
+            boolean inactive = !resigned && INACTIVE_STATUSES.contains(document.getCompanyStatus());
+            return new Counts(1, resigned ? 1 : 0, inactive ? 1 : 0);
+        }
+
+        Counts minus(Counts other) {
+            return new Counts(total - other.total, resigned - other.resigned, inactive - other.inactive);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package uk.gov.companieshouse.company_appointments.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Strong entity tags for conditional GET requests, and matching of If-None-Match headers against them.
+ */
+public final class EntityTags {
+
+    private static final String WEAK_PREFIX = "W/";
+    private static final String ANY = "*";
+    private static final char SEPARATOR = '\u001f';
+
+    private EntityTags() {
+    }
+
+    /**
+     * The strong entity tag with the given opaque value.
+     */
+    public static String strong(String value) {
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * The strong entity tag for a representation derived from the given values, which changes whenever any of the
+     * values, or their order, changes.
+     */
+    public static String of(List<?> values) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object value : values) {
+                digest.update(String.valueOf(value).getBytes(UTF_8));
+                digest.update((byte) SEPARATOR);
+            }
+            return strong(HexFormat.of().formatHex(digest.digest()));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Whether an If-None-Match header matches the entity tag. Entity tags are compared weakly, as required for GET
+     * requests, so a weak tag in the header matches the strong tag of the same value.
+     */
+    public static boolean matches(String ifNoneMatch, String entityTag) {
+        if (StringUtils.isBlank(ifNoneMatch) || entityTag == null) {
+            return false;
+        }
+        String opaqueTag = StringUtils.removeStart(entityTag, WEAK_PREFIX);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (ANY.equals(trimmed) || opaqueTag.equals(StringUtils.removeStart(trimmed, WEAK_PREFIX))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,140 @@
+package uk.gov.companieshouse.company_appointments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import uk.gov.companieshouse.api.appointment.FullRecordCompanyOfficerApi;
+import uk.gov.companieshouse.api.appointment.OfficerSummary;
+import uk.gov.companieshouse.company_appointments.controller.CompanyAppointmentBatchController;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
+import uk.gov.companieshouse.company_appointments.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.company_appointments.model.AppointmentDeltasResult;
+import uk.gov.companieshouse.company_appointments.model.AppointmentsBatch;
+import uk.gov.companieshouse.company_appointments.model.AppointmentsBatch.Item;
+import uk.gov.companieshouse.company_appointments.model.AppointmentsBatchRequest;
+import uk.gov.companieshouse.company_appointments.model.view.CompanyAppointmentFullRecordView;
+import uk.gov.companieshouse.company_appointments.service.CompanyAppointmentBatchService;
+import uk.gov.companieshouse.company_appointments.service.CompanyAppointmentBulkUpsertService;
+
+@ExtendWith(MockitoExtension.class)
+class CompanyAppointmentBatchControllerTest {
+
+    private static final String COMPANY_NUMBER = "123456";
+    private static final List<String> APPOINTMENT_IDS = List.of("345678", "456789");
+
+    @InjectMocks
+    private CompanyAppointmentBatchController controller;
+
+    @Mock
+    private CompanyAppointmentBatchService service;
+
+    @Mock
+    private CompanyAppointmentBulkUpsertService bulkUpsertService;
+
+    @Mock
+    private FullRecordCompanyOfficerApi delta;
+
+    @Mock
+    private OfficerSummary officerSummary;
+
+    @Mock
+    private CompanyAppointmentFullRecordView appointmentView;
+
+    @Test
+    void testControllerReturns200StatusAndBatchOfAppointments() {
+        // given
+        AppointmentsBatch<OfficerSummary> batch = new AppointmentsBatch<>(List.of(
+                Item.found("345678", officerSummary), Item.notFound("456789")));
+        when(service.fetchAppointments(COMPANY_NUMBER, APPOINTMENT_IDS)).thenReturn(batch);
+
+        // when
+        ResponseEntity<AppointmentsBatch<OfficerSummary>> response = controller.fetchAppointments(COMPANY_NUMBER,
+                new AppointmentsBatchRequest(APPOINTMENT_IDS));
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(batch, response.getBody());
+        verify(service).fetchAppointments(COMPANY_NUMBER, APPOINTMENT_IDS);
+    }
+
+    @Test
+    void testControllerReturns400StatusIfBatchInvalid() {
+        // given
+        when(service.fetchAppointments(any(), any())).thenThrow(BadRequestException.class);
+
+        // when
+        ResponseEntity<AppointmentsBatch<OfficerSummary>> response = controller.fetchAppointments(COMPANY_NUMBER,
+                new AppointmentsBatchRequest(List.of()));
+
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void testControllerReturns200StatusAndBatchOfFullRecordAppointments() {
+        // given
+        AppointmentsBatch<CompanyAppointmentFullRecordView> fullRecordBatch = new AppointmentsBatch<>(List.of(
+                Item.found("345678", appointmentView), Item.notFound("456789")));
+        when(service.fetchFullRecordAppointments(COMPANY_NUMBER, APPOINTMENT_IDS)).thenReturn(fullRecordBatch);
+
+        // when
+        ResponseEntity<AppointmentsBatch<CompanyAppointmentFullRecordView>> response =
+                controller.fetchFullRecordAppointments(COMPANY_NUMBER, new AppointmentsBatchRequest(APPOINTMENT_IDS));
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(fullRecordBatch, response.getBody());
+    }
+
+    @Test
+    void testControllerReturns400StatusIfFullRecordBatchInvalid() {
+        // given
+        when(service.fetchFullRecordAppointments(any(), any())).thenThrow(BadRequestException.class);
+
+        // when
+        ResponseEntity<AppointmentsBatch<CompanyAppointmentFullRecordView>> response =
+                controller.fetchFullRecordAppointments(COMPANY_NUMBER, new AppointmentsBatchRequest(null));
+
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void testControllerReturns200StatusAndResultOfEachDelta() {
+        // given
+        AppointmentDeltasResult result = new AppointmentDeltasResult(List.of(
+                new AppointmentDeltasResult.Item("345678", 200)));
+        when(bulkUpsertService.upsertAppointmentDeltas(COMPANY_NUMBER, List.of(delta))).thenReturn(result);
+
+        // when
+        ResponseEntity<AppointmentDeltasResult> response = controller.submitOfficerData(COMPANY_NUMBER,
+                List.of(delta));
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+    }
+
+    @Test
+    void testControllerReturns503StatusIfDeltasCannotBeWritten() {
+        // given
+        when(bulkUpsertService.upsertAppointmentDeltas(any(), any())).thenThrow(ServiceUnavailableException.class);
+
+        // when
+        ResponseEntity<AppointmentDeltasResult> response = controller.submitOfficerData(COMPANY_NUMBER,
+                List.of(delta));
+
+        // then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+}
@@ -1,10 +1,14 @@
 package uk.gov.companieshouse.company_appointments;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,6 +22,7 @@ import uk.gov.companieshouse.company_appointments.controller.CompanyAppointmentC
 import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
 import uk.gov.companieshouse.company_appointments.exception.NotFoundException;
 import uk.gov.companieshouse.company_appointments.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.company_appointments.model.CompanyAppointmentsSlice;
 import uk.gov.companieshouse.company_appointments.model.FetchAppointmentsRequest;
 import uk.gov.companieshouse.company_appointments.service.CompanyAppointmentService;
 
@@ -26,6 +31,7 @@ class CompanyAppointmentControllerTest {
 
     private static final String COMPANY_NUMBER = "123456";
     private static final String APPOINTMENT_ID = "345678";
+    private static final String ENTITY_TAG = "\"etag\"";
 
     private CompanyAppointmentController companyAppointmentController;
 
@@ -50,7 +56,7 @@ class CompanyAppointmentControllerTest {
 
         // when
         ResponseEntity<OfficerSummary> response = companyAppointmentController.fetchAppointment(COMPANY_NUMBER,
-                APPOINTMENT_ID);
+                APPOINTMENT_ID, null);
 
         // then
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -65,7 +71,7 @@ class CompanyAppointmentControllerTest {
 
         // when
         ResponseEntity<OfficerSummary> response = companyAppointmentController.fetchAppointment(COMPANY_NUMBER,
-                APPOINTMENT_ID);
+                APPOINTMENT_ID, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         verify(companyAppointmentService).fetchAppointment(any(), any());
@@ -80,29 +86,30 @@ class CompanyAppointmentControllerTest {
                         .withFilter("false")
                         .build();
 
-        when(companyAppointmentService.fetchAppointmentsForCompany(any())).thenReturn(officerList);
+        when(companyAppointmentService.fetchAppointmentsForCompany(any(), any())).thenReturn(
+                new CompanyAppointmentsSlice(officerList, null));
 
         // when
         ResponseEntity<OfficerList> response = companyAppointmentController.fetchAppointmentsForCompany(COMPANY_NUMBER,
-                "false", null, null, null, null, null);
+                "false", null, null, null, null, null, null, null);
 
         // then
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(officerList, response.getBody());
-        verify(companyAppointmentService).fetchAppointmentsForCompany(request);
+        verify(companyAppointmentService).fetchAppointmentsForCompany(request, null);
     }
 
     @Test
     void testControllerReturns404StatusIfAppointmentForCompanyNotFound() {
         // given
-        when(companyAppointmentService.fetchAppointmentsForCompany(any())).thenThrow(NotFoundException.class);
+        when(companyAppointmentService.fetchAppointmentsForCompany(any(), any())).thenThrow(NotFoundException.class);
 
         // when
         ResponseEntity<OfficerList> response = companyAppointmentController.fetchAppointmentsForCompany(COMPANY_NUMBER,
-                "false", null, null, null, null, null);
+                "false", null, null, null, null, null, null, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
-        verify(companyAppointmentService).fetchAppointmentsForCompany(any());
+        verify(companyAppointmentService).fetchAppointmentsForCompany(any(), any());
     }
 
     @Test
@@ -115,14 +122,14 @@ class CompanyAppointmentControllerTest {
                         .withOrderBy("invalid")
                         .build();
 
-        when(companyAppointmentService.fetchAppointmentsForCompany(any())).thenThrow(BadRequestException.class);
+        when(companyAppointmentService.fetchAppointmentsForCompany(any(), any())).thenThrow(BadRequestException.class);
 
         // when
         ResponseEntity<OfficerList> response = companyAppointmentController.fetchAppointmentsForCompany(COMPANY_NUMBER,
-                "false", "invalid", null, null, null, null);
+                "false", "invalid", null, null, null, null, null, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
-        verify(companyAppointmentService).fetchAppointmentsForCompany(request);
+        verify(companyAppointmentService).fetchAppointmentsForCompany(request, null);
     }
 
     @Test
@@ -136,14 +143,15 @@ class CompanyAppointmentControllerTest {
                         .withItemsPerPage(50)
                         .build();
 
-        when(companyAppointmentService.fetchAppointmentsForCompany(any())).thenReturn(officerList);
+        when(companyAppointmentService.fetchAppointmentsForCompany(any(), any())).thenReturn(
+                new CompanyAppointmentsSlice(officerList, null));
 
         // when
         ResponseEntity<OfficerList> response = companyAppointmentController.fetchAppointmentsForCompany(COMPANY_NUMBER,
-                "false", null, 20, 50, null, null);
+                "false", null, 20, 50, null, null, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(companyAppointmentService).fetchAppointmentsForCompany(request);
+        verify(companyAppointmentService).fetchAppointmentsForCompany(request, null);
     }
 
     @Test
@@ -157,14 +165,136 @@ class CompanyAppointmentControllerTest {
                         .withRegisterType("directors")
                         .build();
 
-        when(companyAppointmentService.fetchAppointmentsForCompany(any()))
+        when(companyAppointmentService.fetchAppointmentsForCompany(any(), any()))
                 .thenThrow(ServiceUnavailableException.class);
 
         // when
         ResponseEntity<OfficerList> response = companyAppointmentController.fetchAppointmentsForCompany(COMPANY_NUMBER,
-                "false", null, null, null, true, "directors");
+                "false", null, null, null, true, "directors", null, null);
 
         assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
-        verify(companyAppointmentService).fetchAppointmentsForCompany(request);
+        verify(companyAppointmentService).fetchAppointmentsForCompany(request, null);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testControllerReturnsNextContinuationTokenForKeysetPage() {
+        // given
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .withItemsPerPage(2)
+                        .withContinuationToken("")
+                        .build();
+
+        when(companyAppointmentService.fetchAppointmentsForCompany(any(), any())).thenReturn(
+                new CompanyAppointmentsSlice(officerList, "next"));
+
+        // when
+        ResponseEntity<OfficerList> response = companyAppointmentController.fetchAppointmentsForCompany(COMPANY_NUMBER,
+                null, null, null, 2, null, null, "", null);
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(officerList, response.getBody());
+        assertEquals("next", response.getHeaders().getFirst(CompanyAppointmentController.CONTINUATION_TOKEN_HEADER));
+        verify(companyAppointmentService).fetchAppointmentsForCompany(request, null);
+    }
+
+    @Test
+    void testControllerOmitsContinuationTokenOnLastKeysetPage() {
+        // given
+        when(companyAppointmentService.fetchAppointmentsForCompany(any(), any())).thenReturn(
+                new CompanyAppointmentsSlice(officerList, null));
+
+        // when
+        ResponseEntity<OfficerList> response = companyAppointmentController.fetchAppointmentsForCompany(COMPANY_NUMBER,
+                null, null, null, null, null, null, "token", null);
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertFalse(response.getHeaders().containsKey(CompanyAppointmentController.CONTINUATION_TOKEN_HEADER));
+    }
+
+    @Test
+    void testControllerReturns400StatusForInvalidContinuationToken() {
+        // given
+        when(companyAppointmentService.fetchAppointmentsForCompany(any(), any())).thenThrow(BadRequestException.class);
+
+        // when
+        ResponseEntity<OfficerList> response = companyAppointmentController.fetchAppointmentsForCompany(COMPANY_NUMBER,
+                null, null, null, null, null, null, "invalid", null);
+
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void testControllerReturns304StatusIfAppointmentEntityTagMatches() {
+        // given
+        when(companyAppointmentService.fetchAppointmentEntityTag(COMPANY_NUMBER, APPOINTMENT_ID)).thenReturn(
+                Optional.of(ENTITY_TAG));
+
+        // when
+        ResponseEntity<OfficerSummary> response = companyAppointmentController.fetchAppointment(COMPANY_NUMBER,
+                APPOINTMENT_ID, ENTITY_TAG);
+
+        // then
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(ENTITY_TAG, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        verify(companyAppointmentService, never()).fetchAppointment(any(), any());
+    }
+
+    @Test
+    void testControllerReturns200StatusAndEntityTagIfAppointmentEntityTagDoesNotMatch() {
+        // given
+        when(companyAppointmentService.fetchAppointmentEntityTag(COMPANY_NUMBER, APPOINTMENT_ID)).thenReturn(
+                Optional.of(ENTITY_TAG));
+        when(companyAppointmentService.fetchAppointment(COMPANY_NUMBER, APPOINTMENT_ID)).thenReturn(officerSummary);
+        when(companyAppointmentService.entityTagOf(officerSummary)).thenReturn(Optional.of(ENTITY_TAG));
+
+        // when
+        ResponseEntity<OfficerSummary> response = companyAppointmentController.fetchAppointment(COMPANY_NUMBER,
+                APPOINTMENT_ID, "\"stale\"");
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(ENTITY_TAG, response.getHeaders().getETag());
+        assertEquals(officerSummary, response.getBody());
+    }
+
+    @Test
+    void testControllerReturns304StatusIfAppointmentsForCompanyEntityTagMatches() {
+        // given
+        when(companyAppointmentService.fetchAppointmentsForCompany(any(), any())).thenReturn(
+                CompanyAppointmentsSlice.notModified(ENTITY_TAG));
+
+        // when
+        ResponseEntity<OfficerList> response = companyAppointmentController.fetchAppointmentsForCompany(COMPANY_NUMBER,
+                null, null, null, null, null, null, null, "W/" + ENTITY_TAG);
+
+        // then
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(ENTITY_TAG, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        verify(companyAppointmentService).fetchAppointmentsForCompany(
+                FetchAppointmentsRequest.Builder.builder().withCompanyNumber(COMPANY_NUMBER).build(),
+                "W/" + ENTITY_TAG);
+    }
+
+    @Test
+    void testControllerReturns200StatusAndEntityTagIfAppointmentsForCompanyEntityTagDoesNotMatch() {
+        // given
+        when(companyAppointmentService.fetchAppointmentsForCompany(any(), any())).thenReturn(
+                new CompanyAppointmentsSlice(officerList, null, ENTITY_TAG));
+
+        // when
+        ResponseEntity<OfficerList> response = companyAppointmentController.fetchAppointmentsForCompany(COMPANY_NUMBER,
+                null, null, null, null, null, null, null, "\"stale\"");
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(ENTITY_TAG, response.getHeaders().getETag());
+        assertEquals(officerList, response.getBody());
+    }
+}
@@ -108,6 +108,15 @@ class RoleHelperTest {
         assertFalse(result);
     }
 
+    @Test
+    void testPersistedRegisterTypeIsUsedWhenPresent() {
+        DeltaOfficerData officerData = DeltaOfficerData.Builder.builder().officerRole("director").build();
+        CompanyAppointmentDocument appointmentDocument = buildCompanyAppointmentDocument(officerData)
+                .registerType("secretaries");
+        assertTrue(RoleHelper.isSecretary(appointmentDocument));
+        assertFalse(RoleHelper.isDirector(appointmentDocument));
+    }
+
     private CompanyAppointmentDocument buildCompanyAppointmentDocument(DeltaOfficerData data) {
         return new CompanyAppointmentDocument()
                 .id("1")
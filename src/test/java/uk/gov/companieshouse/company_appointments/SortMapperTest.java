@@ -69,4 +69,17 @@ class SortMapperTest {
 
         assertEquals("Invalid order by parameter [invalid]", thrown.getMessage());
     }
+
+    @Test
+    void testKeysetSortBreaksTiesOnIdInDirectionOfLastField() {
+
+        assertEquals(sortMapper.getSort(null).and(Sort.by(Sort.Direction.DESC, "_id")),
+                sortMapper.getKeysetSort(null));
+        assertEquals(sortMapper.getSort("appointed_on").and(Sort.by(Sort.Direction.DESC, "_id")),
+                sortMapper.getKeysetSort("appointed_on"));
+        assertEquals(sortMapper.getSort("surname").and(Sort.by(Sort.Direction.ASC, "_id")),
+                sortMapper.getKeysetSort("surname"));
+        assertEquals(sortMapper.getSort("resigned_on").and(Sort.by(Sort.Direction.DESC, "_id")),
+                sortMapper.getKeysetSort("resigned_on"));
+    }
 }
@@ -6,15 +6,17 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.companieshouse.api.InternalApiClient;
@@ -35,7 +37,6 @@ class CompanyMetricsApiServiceTest {
     private static final MetricsApi METRICS_RESPONSE_BODY = new MetricsApi();
     private static final ApiResponse<MetricsApi> SUCCESS_RESPONSE = new ApiResponse<>(200, null, METRICS_RESPONSE_BODY);
 
-    @InjectMocks
     private CompanyMetricsApiService service;
 
     @Mock
@@ -50,6 +51,13 @@ class CompanyMetricsApiServiceTest {
     @Mock
     private ApiErrorResponseException apiErrorResponseException;
 
+    @BeforeEach
+    void setUp() {
+        service = new CompanyMetricsApiService(metricsApiClient,
+                new CompanyMetricsCache(false, 10, Duration.ofMinutes(1), Duration.ofSeconds(10),
+                        new SimpleMeterRegistry()));
+    }
+
     @Test
     void shouldReturnSuccessResponseFromMetricsApi() throws Exception {
         // given
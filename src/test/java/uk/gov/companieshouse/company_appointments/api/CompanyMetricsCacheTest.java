@@ -0,0 +1,141 @@
+package uk.gov.companieshouse.company_appointments.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.api.metrics.MetricsApi;
+import uk.gov.companieshouse.api.model.ApiResponse;
+import uk.gov.companieshouse.company_appointments.exception.BadGatewayException;
+import uk.gov.companieshouse.company_appointments.exception.NotFoundException;
+
+class CompanyMetricsCacheTest {
+
+    private static final String COMPANY_NUMBER = "12345678";
+    private static final String OTHER_COMPANY_NUMBER = "87654321";
+    private static final Duration RECOMPUTE_WINDOW = Duration.ofMillis(200);
+
+    private final ApiResponse<MetricsApi> response = new ApiResponse<>(200, null, new MetricsApi());
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Supplier<ApiResponse<MetricsApi>> loader = () -> {
+        loads.incrementAndGet();
+        return response;
+    };
+
+    private SimpleMeterRegistry meterRegistry;
+    private CompanyMetricsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CompanyMetricsCache(true, 10, Duration.ofMinutes(1), RECOMPUTE_WINDOW, meterRegistry);
+    }
+
+    @Test
+    void shouldLoadOnceAndServeRepeatRequestsFromCache() {
+        // when
+        ApiResponse<MetricsApi> first = cache.get(COMPANY_NUMBER, loader);
+        ApiResponse<MetricsApi> second = cache.get(COMPANY_NUMBER, loader);
+
+        // then
+        assertSame(response, first);
+        assertSame(response, second);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, getsCount("hit"));
+        assertEquals(1.0, getsCount("miss"));
+    }
+
+    @Test
+    void shouldCacheNotFoundAsNegativeEntry() {
+        // given
+        Supplier<ApiResponse<MetricsApi>> notFoundLoader = () -> {
+            loads.incrementAndGet();
+            throw new NotFoundException("Company Metrics API responded with 404 Not Found");
+        };
+
+        // when
+        assertThrows(NotFoundException.class, () -> cache.get(COMPANY_NUMBER, notFoundLoader));
+        assertThrows(NotFoundException.class, () -> cache.get(COMPANY_NUMBER, notFoundLoader));
+
+        // then
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheOtherFailures() {
+        // given
+        Supplier<ApiResponse<MetricsApi>> failingLoader = () -> {
+            loads.incrementAndGet();
+            throw new BadGatewayException("Error calling Company Metrics API endpoint", null);
+        };
+
+        // when
+        assertThrows(BadGatewayException.class, () -> cache.get(COMPANY_NUMBER, failingLoader));
+        ApiResponse<MetricsApi> actual = cache.get(COMPANY_NUMBER, loader);
+
+        // then
+        assertSame(response, actual);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldEvictCompanyOnly() {
+        // given
+        cache.get(COMPANY_NUMBER, loader);
+        cache.get(OTHER_COMPANY_NUMBER, loader);
+
+        // when
+        cache.evict(COMPANY_NUMBER);
+        cache.get(COMPANY_NUMBER, loader);
+        cache.get(OTHER_COMPANY_NUMBER, loader);
+
+        // then
+        assertEquals(3, loads.get());
+        assertEquals(1.0, meterRegistry.get("company.metrics.cache.invalidations").counter().count());
+    }
+
+    @Test
+    void shouldOnlyCacheMetricsLoadedAfterEvictionUntilRecomputeWindowEnds() throws InterruptedException {
+        // given
+        cache.get(OTHER_COMPANY_NUMBER, loader);
+        cache.evict(COMPANY_NUMBER);
+        cache.get(COMPANY_NUMBER, loader);
+
+        // when
+        Thread.sleep(RECOMPUTE_WINDOW.multipliedBy(2));
+        cache.get(COMPANY_NUMBER, loader);
+        cache.get(COMPANY_NUMBER, loader);
+        cache.get(OTHER_COMPANY_NUMBER, loader);
+
+        // then
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void shouldAlwaysLoadWhenDisabled() {
+        // given
+        cache = new CompanyMetricsCache(false, 10, Duration.ofMinutes(1), RECOMPUTE_WINDOW, meterRegistry);
+
+        // when
+        cache.get(COMPANY_NUMBER, loader);
+        cache.get(COMPANY_NUMBER, loader);
+        cache.evict(COMPANY_NUMBER);
+
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    private double getsCount(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", CompanyMetricsCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
@@ -0,0 +1,58 @@
+package uk.gov.companieshouse.company_appointments.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.google.api.client.http.HttpTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.apache.http.message.BasicHttpRequest;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.api.InternalApiClient;
+
+class InternalApiClientConfigTest {
+
+    private final InternalApiClientConfig config = new InternalApiClientConfig("apiKey", "http://metrics",
+            "http://chs-kafka");
+
+    @Test
+    void shouldRecordLatencyPerEndpointRatherThanPerCompany() {
+        assertEquals("/company/{company_number}/metrics", InternalApiClientConfig.uriTemplate(
+                new BasicHttpRequest("GET", "http://metrics/company/12345678/metrics")));
+        assertEquals("/private/resource-changed", InternalApiClientConfig.uriTemplate(
+                new BasicHttpRequest("POST", "/private/resource-changed")));
+    }
+
+    @Test
+    void shouldPublishConnectionPoolMetrics() throws IOException {
+        // given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        // when
+        HttpTransport transport = config.internalApiHttpTransport(meterRegistry, 10, 5, Duration.ofSeconds(60));
+
+        // then
+        assertEquals(10.0, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", InternalApiClientConfig.POOL_NAME)
+                .gauge()
+                .value());
+        assertEquals(0.0, meterRegistry.get("internal.api.client.connections.opened").counter().count());
+        transport.shutdown();
+    }
+
+    @Test
+    void shouldReuseOneClientAcrossCalls() throws IOException {
+        // given
+        HttpTransport transport = config.internalApiHttpTransport(new SimpleMeterRegistry(), 10, 5,
+                Duration.ofSeconds(60));
+
+        // when
+        Supplier<InternalApiClient> metricsApiClient = config.metricsApiClient(transport);
+
+        // then
+        assertSame(metricsApiClient.get(), metricsApiClient.get());
+        transport.shutdown();
+    }
+}
@@ -0,0 +1,50 @@
+package uk.gov.companieshouse.company_appointments.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.testing.http.MockHttpTransport;
+import java.io.IOException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+
+class PooledApiKeyHttpClientTest {
+
+    private static final GenericUrl URL = new GenericUrl("http://localhost/company/12345678/metrics");
+
+    private final MockHttpTransport transport = new MockHttpTransport();
+    private final PooledApiKeyHttpClient client = new PooledApiKeyHttpClient("apiKey", transport);
+
+    @AfterEach
+    void tearDown() {
+        DataMapHolder.clear();
+    }
+
+    @Test
+    void shouldSetRequestIdOfCurrentRequestOnEachCall() throws IOException {
+        // given
+        DataMapHolder.initialise("first");
+        HttpRequest first = client.getHttpRequestFactory().buildGetRequest(URL);
+
+        // when
+        DataMapHolder.initialise("second");
+        HttpRequest second = client.getHttpRequestFactory().buildGetRequest(URL);
+
+        // then
+        assertEquals("first", first.getHeaders().getFirstHeaderStringValue(PooledApiKeyHttpClient.REQUEST_ID_HEADER));
+        assertEquals("second",
+                second.getHeaders().getFirstHeaderStringValue(PooledApiKeyHttpClient.REQUEST_ID_HEADER));
+    }
+
+    @Test
+    void shouldBuildEveryRequestOnSharedTransport() throws IOException {
+        // when
+        HttpRequest request = client.getHttpRequestFactory().buildGetRequest(URL);
+
+        // then
+        assertSame(transport, request.getTransport());
+    }
+}
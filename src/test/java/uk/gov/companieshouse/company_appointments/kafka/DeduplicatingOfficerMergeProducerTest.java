@@ -0,0 +1,153 @@
+package uk.gov.companieshouse.company_appointments.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import uk.gov.companieshouse.company_appointments.exception.BadGatewayException;
+import uk.gov.companieshouse.company_appointments.repository.OfficerMergeMarkers;
+
+@ExtendWith(MockitoExtension.class)
+class DeduplicatingOfficerMergeProducerTest {
+
+    private static final String OFFICER_ID = "officer_id";
+    private static final String PREVIOUS_OFFICER_ID = "previous_officer_id";
+    private static final String KEY = OFFICER_ID + "/" + PREVIOUS_OFFICER_ID;
+    private static final Instant NOW = Instant.parse("2024-05-06T12:00:00Z");
+    private static final Duration WINDOW = Duration.ofMinutes(5);
+    private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    @Mock
+    private OfficerMergeKafkaProducer delegate;
+    @Mock
+    private OfficerMergeMarkers markers;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void shouldPublishEveryMergeWhenDisabled() {
+        // given
+        DeduplicatingOfficerMergeProducer producer = producer(false, Optional.empty());
+
+        // when
+        producer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+        producer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+
+        // then
+        verify(delegate, times(2)).invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+    }
+
+    @Test
+    void shouldSuppressRepeatMergeWithinWindow() {
+        // given
+        DeduplicatingOfficerMergeProducer producer = producer(true, Optional.empty());
+
+        // when
+        producer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+        producer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+        producer.invokeOfficerMerge(OFFICER_ID, "other_previous_officer_id");
+
+        // then
+        verify(delegate).invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+        verify(delegate).invokeOfficerMerge(OFFICER_ID, "other_previous_officer_id");
+        assertEquals(1.0, suppressed("local"));
+    }
+
+    @Test
+    void shouldSuppressMergeMarkedByAnotherInstance() {
+        // given
+        DeduplicatingOfficerMergeProducer producer = producer(true, Optional.of(markers));
+        when(markers.claim(KEY, NOW, NOW.plus(WINDOW))).thenReturn(false);
+
+        // when
+        producer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+
+        // then
+        verifyNoInteractions(delegate);
+        assertEquals(1.0, suppressed("marker"));
+    }
+
+    @Test
+    void shouldPublishMergeAfterClaimingMarker() {
+        // given
+        DeduplicatingOfficerMergeProducer producer = producer(true, Optional.of(markers));
+        when(markers.claim(KEY, NOW, NOW.plus(WINDOW))).thenReturn(true);
+
+        // when
+        producer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+
+        // then
+        verify(delegate).invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+        assertEquals(0.0, suppressed("marker"));
+    }
+
+    @Test
+    void shouldForgetMergeThatFailedToPublish() {
+        // given
+        DeduplicatingOfficerMergeProducer producer = producer(true, Optional.of(markers));
+        when(markers.claim(anyString(), any(), any())).thenReturn(true);
+        doThrow(BadGatewayException.class).doNothing().when(delegate)
+                .invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+
+        // when
+        assertThrows(BadGatewayException.class,
+                () -> producer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID));
+        producer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+
+        // then
+        verify(markers).release(KEY, NOW.plus(WINDOW));
+        verify(delegate, times(2)).invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+        assertEquals(0.0, suppressed("local"));
+    }
+
+    @Test
+    void shouldForgetMergeWhenClaimingMarkerFails() {
+        // given
+        DeduplicatingOfficerMergeProducer producer = producer(true, Optional.of(markers));
+        when(markers.claim(KEY, NOW, NOW.plus(WINDOW)))
+                .thenThrow(new DataAccessResourceFailureException("MongoDB unavailable"))
+                .thenReturn(true);
+
+        // when
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> producer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID));
+        producer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+
+        // then
+        verify(markers, never()).release(any(), any());
+        verify(delegate).invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+        assertEquals(0.0, suppressed("local"));
+    }
+
+    private DeduplicatingOfficerMergeProducer producer(boolean enabled, Optional<OfficerMergeMarkers> markers) {
+        return new DeduplicatingOfficerMergeProducer(delegate, markers, CLOCK, enabled, WINDOW, 100, meterRegistry);
+    }
+
+    private double suppressed(String by) {
+        return meterRegistry.get("officer.merge.dedup.suppressed").tag("by", by).counter().count();
+    }
+}
@@ -0,0 +1,81 @@
+package uk.gov.companieshouse.company_appointments.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication.APPLICATION_NAME_SPACE;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.kafka.ConfluentKafkaContainer;
+import uk.gov.companieshouse.company_appointments.config.KafkaProducerConfig;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.officermerge.OfficerMerge;
+
+/**
+ * Compares the throughput of publishing officer-merge messages one at a time, waiting for each acknowledgement, with
+ * publishing them asynchronously from a batching, compressing producer.
+ */
+@Testcontainers
+class OfficerMergeKafkaProducerBenchmarkITest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(APPLICATION_NAME_SPACE);
+    private static final String TOPIC = "officer-merge";
+    private static final int WARM_UP_MESSAGES = 200;
+    private static final int MESSAGES = 5000;
+
+    @Container
+    private static final ConfluentKafkaContainer kafka = new ConfluentKafkaContainer("confluentinc/cp-kafka:7.6.1");
+
+    @DisplayName("Asynchronous officer-merge publishing delivers every message")
+    @Test
+    void benchmarkAsynchronousPublishing() {
+        // given
+        DataMapHolder.get().requestId("benchmark");
+
+        // when
+        double synchronousRate = measure(false, 0, 16384, "none");
+        double asynchronousRate = measure(true, 5, 65536, "lz4");
+
+        // then
+        LOGGER.info("Officer-merge messages per second over %d messages: synchronous %.0f, asynchronous %.0f"
+                .formatted(MESSAGES, synchronousRate, asynchronousRate), DataMapHolder.getLogMap());
+    }
+
+    private static double measure(boolean async, int lingerMs, int batchSize, String compressionType) {
+        ProducerFactory<String, OfficerMerge> producerFactory = new KafkaProducerConfig()
+                .producerFactory(kafka.getBootstrapServers(), lingerMs, batchSize, compressionType);
+        KafkaTemplate<String, OfficerMerge> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OfficerMergeKafkaProducer producer = new OfficerMergeKafkaProducer(kafkaTemplate, TOPIC, async, false,
+                1000, Duration.ofSeconds(30), meterRegistry);
+        try {
+            publish(producer, kafkaTemplate, WARM_UP_MESSAGES);
+            long start = System.nanoTime();
+            publish(producer, kafkaTemplate, MESSAGES);
+            long elapsed = System.nanoTime() - start;
+
+            assertEquals(WARM_UP_MESSAGES + MESSAGES, meterRegistry.get("officer.merge.kafka.sends")
+                    .tag("outcome", "delivered").counter().count());
+            return MESSAGES * 1e9 / elapsed;
+        } finally {
+            producerFactory.reset();
+        }
+    }
+
+    private static void publish(OfficerMergeKafkaProducer producer, KafkaTemplate<String, OfficerMerge> kafkaTemplate,
+            int messages) {
+        for (int i = 0; i < messages; i++) {
+            producer.invokeOfficerMerge("officer_" + i, "previous_officer_" + i);
+        }
+        // flushing waits for every batch to be acknowledged, so the asynchronous rate includes delivery
+        kafkaTemplate.flush();
+    }
+}
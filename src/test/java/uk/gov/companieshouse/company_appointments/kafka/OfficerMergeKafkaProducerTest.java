@@ -1,11 +1,14 @@
 package uk.gov.companieshouse.company_appointments.kafka;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,18 +30,22 @@ class OfficerMergeKafkaProducerTest {
     private static final String PREVIOUS_OFFICER_ID = "previous_officer_id";
     private static final String CONTEXT_ID = "context_id";
     private static final String OFFICER_MERGE_TOPIC = "officer-merge";
+    private static final Duration IN_FLIGHT_TIMEOUT = Duration.ofMillis(10);
 
     @Mock
     private KafkaTemplate<String, OfficerMerge> kafkaTemplate;
 
     private OfficerMergeKafkaProducer officerMergeKafkaProducer;
+    private SimpleMeterRegistry meterRegistry;
 
     @Mock
     private SendResult<String, OfficerMerge> sendResult;
 
     @BeforeEach
     void setup() {
-        officerMergeKafkaProducer = new OfficerMergeKafkaProducer(kafkaTemplate, OFFICER_MERGE_TOPIC);
+        meterRegistry = new SimpleMeterRegistry();
+        officerMergeKafkaProducer = new OfficerMergeKafkaProducer(kafkaTemplate, OFFICER_MERGE_TOPIC, false, false, 1,
+                IN_FLIGHT_TIMEOUT, meterRegistry);
     }
 
     @Test
@@ -87,4 +94,101 @@ class OfficerMergeKafkaProducerTest {
         assertThrows(BadGatewayException.class, executable);
         verify(kafkaTemplate).send(OFFICER_MERGE_TOPIC, officerMerge);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnBeforeAcknowledgementWhenAsyncEnabled() {
+        // given
+        officerMergeKafkaProducer = asyncProducer();
+        CompletableFuture<SendResult<String, OfficerMerge>> future = new CompletableFuture<>();
+
+        DataMapHolder.get().requestId(CONTEXT_ID);
+        when(kafkaTemplate.send(anyString(), any())).thenReturn(future);
+
+        // when
+        officerMergeKafkaProducer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+
+        // then
+        assertEquals(1.0, meterRegistry.get("officer.merge.kafka.in.flight").gauge().value());
+        future.complete(sendResult);
+        assertEquals(0.0, meterRegistry.get("officer.merge.kafka.in.flight").gauge().value());
+        assertEquals(1.0, sends("delivered"));
+        verify(kafkaTemplate).send(OFFICER_MERGE_TOPIC, new OfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID, CONTEXT_ID));
+    }
+
+    @Test
+    void shouldCountFailedDeliveryWithoutThrowingWhenAsyncEnabled() {
+        // given
+        officerMergeKafkaProducer = asyncProducer();
+
+        DataMapHolder.get().requestId(CONTEXT_ID);
+        when(kafkaTemplate.send(anyString(), any())).thenReturn(CompletableFuture.failedFuture(new RuntimeException()));
+
+        // when
+        officerMergeKafkaProducer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+
+        // then
+        assertEquals(1.0, sends("failed"));
+        assertEquals(0.0, meterRegistry.get("officer.merge.kafka.in.flight").gauge().value());
+    }
+
+    @Test
+    void shouldThrowBadGatewayExceptionWhenInFlightWindowIsFull() {
+        // given
+        officerMergeKafkaProducer = asyncProducer();
+
+        DataMapHolder.get().requestId(CONTEXT_ID);
+        when(kafkaTemplate.send(anyString(), any())).thenReturn(new CompletableFuture<>());
+        officerMergeKafkaProducer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+
+        // when
+        Executable executable = () -> officerMergeKafkaProducer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+
+        // then
+        assertThrows(BadGatewayException.class, executable);
+        verify(kafkaTemplate).send(OFFICER_MERGE_TOPIC, new OfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID, CONTEXT_ID));
+    }
+
+    @Test
+    void shouldReleaseInFlightWindowWhenAsyncSendThrowsKafkaException() {
+        // given
+        officerMergeKafkaProducer = asyncProducer();
+
+        DataMapHolder.get().requestId(CONTEXT_ID);
+        when(kafkaTemplate.send(anyString(), any())).thenThrow(KafkaException.class);
+
+        // when
+        Executable executable = () -> officerMergeKafkaProducer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+
+        // then
+        assertThrows(BadGatewayException.class, executable);
+        assertEquals(0.0, meterRegistry.get("officer.merge.kafka.in.flight").gauge().value());
+        assertEquals(1.0, sends("failed"));
+    }
+
+    @Test
+    void shouldWaitForAcknowledgementWhenAsyncAndOutboxEnabled() {
+        // given
+        officerMergeKafkaProducer = new OfficerMergeKafkaProducer(kafkaTemplate, OFFICER_MERGE_TOPIC, true, true, 1,
+                IN_FLIGHT_TIMEOUT, meterRegistry);
+
+        DataMapHolder.get().requestId(CONTEXT_ID);
+        when(kafkaTemplate.send(anyString(), any())).thenReturn(CompletableFuture.failedFuture(new RuntimeException()));
+
+        // when
+        Executable executable = () -> officerMergeKafkaProducer.invokeOfficerMerge(OFFICER_ID, PREVIOUS_OFFICER_ID);
+
+        // then
+        assertThrows(BadGatewayException.class, executable);
+        assertEquals(1.0, sends("failed"));
+        assertEquals(0.0, meterRegistry.get("officer.merge.kafka.in.flight").gauge().value());
+    }
+
+    private OfficerMergeKafkaProducer asyncProducer() {
+        return new OfficerMergeKafkaProducer(kafkaTemplate, OFFICER_MERGE_TOPIC, true, false, 1, IN_FLIGHT_TIMEOUT,
+                meterRegistry);
+    }
+
+    private double sends(String outcome) {
+        return meterRegistry.get("officer.merge.kafka.sends").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,83 @@
+package uk.gov.companieshouse.company_appointments.model;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
+
+class CompanyAppointmentsContinuationTokenTest {
+
+    private static final Date APPOINTED_ON = Date.from(Instant.parse("2020-08-26T00:00:00Z"));
+
+    @DisplayName("Should round trip the position of the last appointment with the types of its sort values")
+    @Test
+    void roundTrip() {
+        // given
+        List<Object> position = Arrays.asList(20, "Company", null, "Forename", APPOINTED_ON, null, "appointmentId");
+        CompanyAppointmentsContinuationToken token = new CompanyAppointmentsContinuationToken(null, position, 35);
+
+        // when
+        CompanyAppointmentsContinuationToken actual = CompanyAppointmentsContinuationToken.decode(token.encode(),
+                null);
+
+        // then
+        assertEquals(token, actual);
+    }
+
+    @DisplayName("Should decode a blank token as the position before the first appointment")
+    @ParameterizedTest
+    @NullAndEmptySource
+    void blankToken(String token) {
+        // when
+        CompanyAppointmentsContinuationToken actual = CompanyAppointmentsContinuationToken.decode(token,
+                "surname");
+
+        // then
+        assertTrue(actual.isStart());
+        assertEquals(0, actual.offset());
+    }
+
+    @DisplayName("Should reject a token issued for a different order by")
+    @Test
+    void differentOrderBy() {
+        // given
+        String token = new CompanyAppointmentsContinuationToken("surname", List.of("Surname", "appointmentId"), 2)
+                .encode();
+
+        // when
+        Executable executable = () -> CompanyAppointmentsContinuationToken.decode(token, "appointed_on");
+
+        // then
+        assertThrows(BadRequestException.class, executable);
+    }
+
+    @DisplayName("Should reject a malformed token")
+    @ParameterizedTest
+    @ValueSource(strings = {"not base64!", "1|surname|2", "2|surname|2|{\"position\": [\"id\"]}",
+            "1|surname|-1|{\"position\": [\"id\"]}", "1|surname|2|{\"position\": []}", "1|surname|2|not json",
+            "1|surname|2|{\"position\": \"id\"}"})
+    void malformedToken(String token) {
+        // given
+        String encoded = token.startsWith("not") ? token
+                : Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(UTF_8));
+
+        // when
+        Executable executable = () -> CompanyAppointmentsContinuationToken.decode(encoded, "surname");
+
+        // then
+        assertThrows(BadRequestException.class, executable);
+    }
+}
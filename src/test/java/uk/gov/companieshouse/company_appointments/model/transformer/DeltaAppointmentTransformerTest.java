@@ -24,6 +24,8 @@ import uk.gov.companieshouse.company_appointments.exception.FailedToTransformExc
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
 import uk.gov.companieshouse.company_appointments.model.data.DeltaOfficerData;
 import uk.gov.companieshouse.company_appointments.model.data.DeltaSensitiveData;
+import uk.gov.companieshouse.company_appointments.model.data.SortKeys;
+import uk.gov.companieshouse.company_appointments.roles.RegisterTypes;
 
 @ExtendWith(MockitoExtension.class)
 class DeltaAppointmentTransformerTest {
@@ -59,7 +61,9 @@ class DeltaAppointmentTransformerTest {
                 .deltaAt(Instant.parse("2022-01-12T00:00:00.000000Z"))
                 .officerRoleSortOrder(22)
                 .companyName("companyName")
-                .companyStatus("active");
+                .companyStatus("active")
+                .sortBucket(SortKeys.ACTIVE_BUCKET)
+                .active(true);
 
         FullRecordCompanyOfficerApi fullRecordCompanyOfficerApi = buildFullRecordOfficer();
 
@@ -80,6 +84,82 @@ class DeltaAppointmentTransformerTest {
                 fullRecordCompanyOfficerApi.getExternalData().getSensitiveData());
     }
 
+    @Test
+    void testDeltaIsTransformedWithSortKeys() throws FailedToTransformException {
+        // given
+        Instant appointedOn = Instant.parse("2020-01-12T00:00:00Z");
+        Instant resignedOn = Instant.parse("2022-01-12T00:00:00Z");
+        DeltaOfficerData data = new DeltaOfficerData()
+                .setAppointedOn(appointedOn)
+                .setResignedOn(resignedOn);
+
+        when(officerDataTransformer.transform(any(Data.class))).thenReturn(data);
+        when(sensitiveDataTransformer.transform(any(SensitiveData.class))).thenReturn(deltaSensitiveData);
+
+        // when
+        CompanyAppointmentDocument result = deltaAppointmentTransformer.transform(buildFullRecordOfficer());
+
+        // then
+        assertThat(result.getSortBucket()).isEqualTo(SortKeys.RESIGNED_BUCKET);
+        assertThat(result.getSortDate()).isEqualTo(resignedOn);
+
+        // when
+        data.setResignedOn(null);
+        result = deltaAppointmentTransformer.transform(buildFullRecordOfficer());
+
+        // then
+        assertThat(result.getSortBucket()).isEqualTo(SortKeys.ACTIVE_BUCKET);
+        assertThat(result.getSortDate()).isEqualTo(appointedOn);
+    }
+
+    @Test
+    void testDeltaIsTransformedWithRegisterClassification() throws FailedToTransformException {
+        // given
+        DeltaOfficerData data = new DeltaOfficerData()
+                .setOfficerRole("nominee-secretary")
+                .setResignedOn(Instant.parse("2022-01-12T00:00:00Z"));
+
+        when(officerDataTransformer.transform(any(Data.class))).thenReturn(data);
+        when(sensitiveDataTransformer.transform(any(SensitiveData.class))).thenReturn(deltaSensitiveData);
+
+        // when
+        CompanyAppointmentDocument result = deltaAppointmentTransformer.transform(buildFullRecordOfficer());
+
+        // then
+        assertThat(result.getRegisterType()).isEqualTo(RegisterTypes.SECRETARIES);
+        assertThat(result.getActive()).isFalse();
+
+        // when
+        data.setOfficerRole("judicial-factor").setResignedOn(null);
+        result = deltaAppointmentTransformer.transform(buildFullRecordOfficer());
+
+        // then
+        assertThat(result.getRegisterType()).isNull();
+        assertThat(result.getActive()).isTrue();
+    }
+
+    @Test
+    void testDeltaIsTransformedWithContentEtag() throws FailedToTransformException {
+        // given
+        when(officerDataTransformer.transform(any(Data.class)))
+                .thenAnswer(invocation -> new DeltaOfficerData().setSurname("surname"));
+        FullRecordCompanyOfficerApi replayed = buildFullRecordOfficer();
+        replayed.getInternalData().setDeltaAt(OffsetDateTime.parse("2023-01-12T00:00:00Z"));
+        replayed.getInternalData().setUpdatedBy("anotherUpdatedBy");
+        FullRecordCompanyOfficerApi changed = buildFullRecordOfficer();
+        changed.getExternalData().setOfficerId("anotherOfficerId");
+
+        // when
+        String etag = deltaAppointmentTransformer.transform(buildFullRecordOfficer()).getData().getEtag();
+        String replayedEtag = deltaAppointmentTransformer.transform(replayed).getData().getEtag();
+        String changedEtag = deltaAppointmentTransformer.transform(changed).getData().getEtag();
+
+        // then
+        assertThat(etag).hasSize(40);
+        assertThat(replayedEtag).isEqualTo(etag);
+        assertThat(changedEtag).isNotEqualTo(etag);
+    }
+
     @Test
     void testApiThrowsExceptionWhenTransformFails() {
         final var fullRecordCompanyOfficerApi = new FullRecordCompanyOfficerApi();
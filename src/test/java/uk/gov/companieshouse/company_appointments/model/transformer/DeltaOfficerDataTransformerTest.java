@@ -96,9 +96,8 @@ class DeltaOfficerDataTransformerTest {
         DeltaOfficerData actual = transformer.transform(buildSource());
 
         // then
-        assertThat(actual.getEtag()).isNotNull();
-        expected.setEtag(actual.getEtag());
-
+        // the etag is derived from the whole appointment by DeltaAppointmentTransformer
+        assertThat(actual.getEtag()).isNull();
         assertThat(actual).isEqualTo(expected);
         verify(identificationTransformer).transform(identification);
         verify(identityVerificationDetailsTransformer).transform(identityVerificationDetails);
@@ -134,9 +133,8 @@ class DeltaOfficerDataTransformerTest {
         DeltaOfficerData actual = transformer.transform(source);
 
         // then
-        assertThat(actual.getEtag()).isNotNull();
-        expected.setEtag(actual.getEtag());
-
+        // the etag is derived from the whole appointment by DeltaAppointmentTransformer
+        assertThat(actual.getEtag()).isNull();
         assertThat(actual).isEqualTo(expected);
         verifyNoInteractions(identificationTransformer);
         verifyNoInteractions(identityVerificationDetailsTransformer);
@@ -167,9 +165,8 @@ class DeltaOfficerDataTransformerTest {
         DeltaOfficerData actual = transformer.transform(source);
 
         // then
-        assertThat(actual.getEtag()).isNotNull();
-        expected.setEtag(actual.getEtag());
-
+        // the etag is derived from the whole appointment by DeltaAppointmentTransformer
+        assertThat(actual.getEtag()).isNull();
         assertThat(actual).isEqualTo(expected);
         verify(identificationTransformer).transform(identification);
         verify(identityVerificationDetailsTransformer).transform(identityVerificationDetails);
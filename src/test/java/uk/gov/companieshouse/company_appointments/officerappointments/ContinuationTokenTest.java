@@ -0,0 +1,126 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.Base64;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaOfficerData;
+
+class ContinuationTokenTest {
+
+    private static final String APPOINTMENT_ID = "appointmentId";
+    private static final Instant APPOINTED_ON = Instant.parse("2020-08-26T00:00:00Z");
+    private static final Instant APPOINTED_BEFORE = Instant.parse("1992-01-01T00:00:00Z");
+    private static final Instant RESIGNED_ON = Instant.parse("2021-08-26T00:00:00Z");
+
+    @DisplayName("Should position an active appointment on its appointed on date")
+    @Test
+    void afterActiveAppointment() {
+        // given
+        CompanyAppointmentDocument document = new CompanyAppointmentDocument()
+                .id(APPOINTMENT_ID)
+                .data(new DeltaOfficerData().setAppointedOn(APPOINTED_ON).setAppointedBefore(APPOINTED_BEFORE));
+
+        // when
+        ContinuationToken actual = ContinuationToken.after(document, 5);
+
+        // then
+        assertEquals(new ContinuationToken(false, APPOINTED_ON, APPOINTMENT_ID, 5), actual);
+    }
+
+    @DisplayName("Should position an active appointment without an appointed on date on its appointed before date")
+    @Test
+    void afterActiveAppointmentAppointedBefore() {
+        // given
+        CompanyAppointmentDocument document = new CompanyAppointmentDocument()
+                .id(APPOINTMENT_ID)
+                .data(new DeltaOfficerData().setAppointedBefore(APPOINTED_BEFORE));
+
+        // when
+        ContinuationToken actual = ContinuationToken.after(document, 5);
+
+        // then
+        assertEquals(new ContinuationToken(false, APPOINTED_BEFORE, APPOINTMENT_ID, 5), actual);
+    }
+
+    @DisplayName("Should position a resigned appointment on its resigned on date")
+    @Test
+    void afterResignedAppointment() {
+        // given
+        CompanyAppointmentDocument document = new CompanyAppointmentDocument()
+                .id(APPOINTMENT_ID)
+                .data(new DeltaOfficerData().setAppointedOn(APPOINTED_ON).setResignedOn(RESIGNED_ON));
+
+        // when
+        ContinuationToken actual = ContinuationToken.after(document, 5);
+
+        // then
+        assertEquals(new ContinuationToken(true, RESIGNED_ON, APPOINTMENT_ID, 5), actual);
+    }
+
+    @DisplayName("Should decode an encoded token to the same position")
+    @Test
+    void encodeAndDecode() {
+        // given
+        ContinuationToken token = new ContinuationToken(true, RESIGNED_ON, APPOINTMENT_ID, 35);
+
+        // when
+        ContinuationToken actual = ContinuationToken.decode(token.encode());
+
+        // then
+        assertEquals(token, actual);
+    }
+
+    @DisplayName("Should decode an encoded token without a sort date to the same position")
+    @Test
+    void encodeAndDecodeWithoutSortDate() {
+        // given
+        ContinuationToken token = new ContinuationToken(false, null, APPOINTMENT_ID, 35);
+
+        // when
+        ContinuationToken actual = ContinuationToken.decode(token.encode());
+
+        // then
+        assertEquals(token, actual);
+    }
+
+    @DisplayName("Should decode a blank token to the start of the appointments")
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = " ")
+    void decodeBlank(String token) {
+        // given
+
+        // when
+        ContinuationToken actual = ContinuationToken.decode(token);
+
+        // then
+        assertEquals(ContinuationToken.START, actual);
+        assertTrue(actual.isStart());
+    }
+
+    @DisplayName("Should throw a bad request exception when the token is invalid")
+    @ParameterizedTest
+    @ValueSource(strings = {"not base64!", "2|A||0|id", "1|X||0|id", "1|A|date|0|id", "1|A||-1|id", "1|A||0|"})
+    void decodeInvalid(String token) {
+        // given
+        String encoded = token.contains("|") ? Base64.getUrlEncoder().encodeToString(token.getBytes(UTF_8)) : token;
+
+        // when
+        Executable executable = () -> ContinuationToken.decode(encoded);
+
+        // then
+        assertThrows(BadRequestException.class, executable);
+    }
+}
@@ -0,0 +1,292 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+import static uk.gov.companieshouse.company_appointments.repository.DeltaAppointmentsIndexes.COLLECTION;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.commons.io.IOUtils;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
+import uk.gov.companieshouse.company_appointments.model.CompanyAppointmentsContinuationToken;
+import uk.gov.companieshouse.company_appointments.repository.CompanyAppointmentRepository;
+import uk.gov.companieshouse.company_appointments.repository.DeltaAppointmentsIndexManager;
+
+/**
+ * Records every query the repositories send to delta_appointments and explains it against the declared indexes,
+ * failing if any winning plan scans the collection or sorts in memory, or if any aggregation stage left out of the
+ * query plan sorts more than a page of entries in memory.
+ */
+@Testcontainers
+@SpringBootTest(classes = CompanyAppointmentsApplication.class, webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestPropertySource(properties = {"delta-appointments.indexes.enabled=true",
+        "delta-appointments.indexes.create-missing=true"})
+class DeltaAppointmentsExplainPlanITest {
+
+    private static final String OFFICER_ID = "5VEOBB4a9dlB_iugw_vieHjWpCk";
+    private static final String COMPANY_NUMBER = "12345678";
+    private static final List<String> FILTER_STATUSES = List.of("dissolved", "converted-closed", "removed");
+    private static final int PAGE_SIZE = 35;
+    private static final int COPIES = 60;
+    private static final int OFFICER_COPY_INTERVAL = 4;
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "aggregate", "count", "delete",
+            "findAndModify");
+    private static final Set<String> DISALLOWED_STAGES = Set.of("COLLSCAN", "SORT");
+    private static final Set<String> SESSION_FIELDS = Set.of("$db", "lsid", "$clusterTime", "txnNumber",
+            "$readPreference", "apiVersion");
+    private static final List<BsonDocument> COMMANDS = new CopyOnWriteArrayList<>();
+
+    @Container
+    private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:5");
+
+    @Autowired
+    private OfficerAppointmentsRepository officerAppointmentsRepository;
+    @Autowired
+    private CompanyAppointmentRepository companyAppointmentRepository;
+    @Autowired
+    private DeltaAppointmentsIndexManager indexManager;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void start() throws IOException {
+        System.setProperty("spring.data.mongodb.uri", mongoDBContainer.getReplicaSetUrl());
+        MongoTemplate mongoTemplate = new MongoTemplate(
+                new SimpleMongoClientDatabaseFactory(mongoDBContainer.getReplicaSetUrl()));
+        mongoTemplate.createCollection(COLLECTION);
+        List<Document> documents = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            String resource = i == 1 ? "/appointment-data.json" : "/appointment-data%d.json".formatted(i);
+            Document fixture = Document.parse(IOUtils.resourceToString(resource, StandardCharsets.UTF_8));
+            documents.add(fixture);
+            for (int copy = 1; copy <= COPIES; copy++) {
+                documents.add(copyOf(fixture, copy));
+            }
+        }
+        mongoTemplate.insert(documents, COLLECTION);
+        new SortKeyBackfillRunner(mongoTemplate, 10).run(null);
+
+        System.setProperty("company-metrics-api.endpoint", "localhost");
+    }
+
+    @DisplayName("Every repository query on delta_appointments uses an index and sorts no more than a page in memory")
+    @Test
+    void everyRepositoryQueryUsesAnIndex() {
+        // given
+        indexManager.ensureIndexes().join();
+        COMMANDS.clear();
+
+        // when
+        runOfficerAppointmentsQueries();
+        runCompanyAppointmentsQueries();
+
+        // then
+        assertFalse(COMMANDS.isEmpty());
+        List<String> failures = new ArrayList<>();
+        for (BsonDocument command : COMMANDS) {
+            Document explain = mongoTemplate.getDb().runCommand(new BsonDocument("explain", command)
+                    .append("verbosity", new BsonString("executionStats")));
+            List<String> stages = new ArrayList<>();
+            collectWinningPlanStages(explain, stages);
+            assertFalse(stages.isEmpty() && !command.containsKey("delete"), "No winning plan for " + command.toJson());
+            if (stages.stream().anyMatch(DISALLOWED_STAGES::contains)) {
+                failures.add("%s used %s".formatted(command.toJson(), stages));
+            }
+            List<Document> sorts = new ArrayList<>();
+            collectAggregationSorts(explain, sorts);
+            sorts.stream()
+                    .filter(sort -> !(sort.get("limit") instanceof Number limit) || limit.longValue() > PAGE_SIZE)
+                    .forEach(sort -> failures.add("%s sorted in memory by %s".formatted(command.toJson(),
+                            sort.toJson())));
+        }
+        if (!failures.isEmpty()) {
+            fail(String.join("\n", failures));
+        }
+    }
+
+    private void runOfficerAppointmentsQueries() {
+        for (boolean filterEnabled : new boolean[]{false, true}) {
+            List<String> filterStatuses = filterEnabled ? FILTER_STATUSES : List.of();
+            officerAppointmentsRepository.findOfficerAppointmentsIds(OFFICER_ID, filterEnabled, filterStatuses, 0,
+                    PAGE_SIZE);
+            officerAppointmentsRepository.findRecentOfficerAppointments(OFFICER_ID, filterEnabled, filterStatuses, 0,
+                    PAGE_SIZE);
+            officerAppointmentsRepository.countTotal(OFFICER_ID, filterEnabled, filterStatuses);
+            officerAppointmentsRepository.findOfficerAppointmentsPage(OFFICER_ID, filterEnabled, filterStatuses, 0,
+                    PAGE_SIZE, -1);
+            officerAppointmentsRepository.findOfficerAppointmentsPage(OFFICER_ID, filterEnabled, filterStatuses, 0,
+                    PAGE_SIZE, 500);
+            for (ContinuationToken continuationToken : List.of(ContinuationToken.START,
+                    new ContinuationToken(false, Instant.parse("2023-08-26T12:00:00Z"), "active_appointed_on_2", 2),
+                    new ContinuationToken(false, null, "active_appointed_before_9", 5),
+                    new ContinuationToken(true, Instant.parse("2024-08-26T12:00:00Z"), "active_resigned_on_1", 6))) {
+                officerAppointmentsRepository.findOfficerAppointmentsAfter(OFFICER_ID, filterEnabled, filterStatuses,
+                        continuationToken, 2);
+            }
+        }
+        officerAppointmentsRepository.findFullOfficerAppointments(
+                officerAppointmentsRepository.findOfficerAppointmentsIds(OFFICER_ID, false, List.of(), 0, PAGE_SIZE)
+                        .getIds());
+        officerAppointmentsRepository.countResigned(OFFICER_ID);
+        officerAppointmentsRepository.countInactive(OFFICER_ID);
+        officerAppointmentsRepository.findLatestAppointment(OFFICER_ID);
+        officerAppointmentsRepository.findLastUpdatedAppointment(OFFICER_ID);
+        officerAppointmentsRepository.findActiveOfficerAppointmentsBySortKeys(OFFICER_ID, FILTER_STATUSES, 0,
+                PAGE_SIZE);
+        officerAppointmentsRepository.findResignedOfficerAppointmentsBySortKeys(OFFICER_ID, 0, PAGE_SIZE);
+        officerAppointmentsRepository.countActiveBySortKeys(OFFICER_ID, FILTER_STATUSES);
+    }
+
+    private void runCompanyAppointmentsQueries() {
+        companyAppointmentRepository.readByCompanyNumberAndID(COMPANY_NUMBER, "active_appointed_on_1");
+        companyAppointmentRepository.readByCompanyNumberAndAppointmentID(COMPANY_NUMBER, "active_appointed_on_1");
+        companyAppointmentRepository.deleteByCompanyNumberAndID(COMPANY_NUMBER, "missing");
+        for (String orderBy : new String[]{null, "appointed_on", "surname", "resigned_on"}) {
+            companyAppointmentRepository.getCompanyAppointments(COMPANY_NUMBER, orderBy, null, 0, PAGE_SIZE, false,
+                    false);
+            companyAppointmentRepository.getCompanyAppointments(COMPANY_NUMBER, orderBy, null, 0, PAGE_SIZE, false,
+                    true);
+            companyAppointmentRepository.getCompanyAppointments(COMPANY_NUMBER, orderBy, "directors", 0, PAGE_SIZE,
+                    true, false);
+            companyAppointmentRepository.getCompanyAppointmentsPage(COMPANY_NUMBER, orderBy, null, 0, PAGE_SIZE,
+                    false, false);
+            CompanyAppointmentsContinuationToken after = companyAppointmentRepository.continuationTokenAfter(orderBy,
+                    companyAppointmentRepository.getCompanyAppointmentsAfter(COMPANY_NUMBER, orderBy, null,
+                            CompanyAppointmentsContinuationToken.decode(null, orderBy), 1, false, false).getFirst(),
+                    1);
+            companyAppointmentRepository.getCompanyAppointmentsAfter(COMPANY_NUMBER, orderBy, null, after, PAGE_SIZE,
+                    false, false);
+            companyAppointmentRepository.getCompanyAppointmentsPageAfter(COMPANY_NUMBER, orderBy, null, after,
+                    PAGE_SIZE, false, false);
+        }
+    }
+
+    /**
+     * Copies a fixture into another of its officer's appointments at every few copies and into an appointment of
+     * another officer and company otherwise, with its dates moved back a day per copy so that sorts see distinct
+     * values.
+     */
+    private static Document copyOf(Document fixture, int copy) {
+        Document document = Document.parse(fixture.toJson());
+        String id = "%s_%d".formatted(fixture.getString("_id"), copy);
+        document.put("_id", id);
+        document.put("appointment_id", id);
+        if (copy % OFFICER_COPY_INTERVAL != 0) {
+            document.put("officer_id", "officer_%d".formatted(copy));
+            document.put("company_number", "%08d".formatted(copy));
+        }
+        Document data = document.get("data", Document.class);
+        for (String field : List.of("appointed_on", "resigned_on")) {
+            if (data.get(field) instanceof Date date) {
+                data.put(field, Date.from(date.toInstant().minus(copy, ChronoUnit.DAYS)));
+            }
+        }
+        return document;
+    }
+
+    private static void collectWinningPlanStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            document.forEach((key, value) -> {
+                if ("winningPlan".equals(key)) {
+                    collectStages(value, stages);
+                } else {
+                    collectWinningPlanStages(value, stages);
+                }
+            });
+        } else if (node instanceof List<?> list) {
+            list.forEach(item -> collectWinningPlanStages(item, stages));
+        }
+    }
+
+    /**
+     * Collects the $sort stages that an aggregation runs after its $cursor stage, including those in $facet and
+     * $unionWith sub-pipelines; these never use an index, so only top-k sorts with a limit are kept in bounded memory.
+     */
+    private static void collectAggregationSorts(Object node, List<Document> sorts) {
+        if (node instanceof Document document) {
+            document.forEach((key, value) -> {
+                if ("stages".equals(key)) {
+                    collectPipelineSorts(value, sorts);
+                } else if (!"command".equals(key)) {
+                    collectAggregationSorts(value, sorts);
+                }
+            });
+        } else if (node instanceof List<?> list) {
+            list.forEach(item -> collectAggregationSorts(item, sorts));
+        }
+    }
+
+    private static void collectPipelineSorts(Object node, List<Document> sorts) {
+        if (node instanceof Document document) {
+            document.forEach((key, value) -> {
+                if ("$sort".equals(key) && value instanceof Document sort) {
+                    sorts.add(sort);
+                } else if (!"$cursor".equals(key)) {
+                    collectPipelineSorts(value, sorts);
+                }
+            });
+        } else if (node instanceof List<?> list) {
+            list.forEach(item -> collectPipelineSorts(item, sorts));
+        }
+    }
+
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            if (document.get("stage") instanceof String stage) {
+                stages.add(stage);
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(item -> collectStages(item, stages));
+        }
+    }
+
+    @TestConfiguration
+    static class CommandRecorderConfig {
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer commandRecorder() {
+            return builder -> builder.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    BsonDocument command = event.getCommand();
+                    String commandName = event.getCommandName();
+                    if (QUERY_COMMANDS.contains(commandName) && command.isString(commandName)
+                            && COLLECTION.equals(command.getString(commandName).getValue())) {
+                        BsonDocument recorded = command.clone();
+                        SESSION_FIELDS.forEach(recorded::remove);
+                        COMMANDS.add(recorded);
+                    }
+                }
+            });
+        }
+    }
+}
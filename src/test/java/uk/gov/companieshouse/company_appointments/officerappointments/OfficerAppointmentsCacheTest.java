@@ -0,0 +1,155 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.api.officer.AppointmentList;
+
+class OfficerAppointmentsCacheTest {
+
+    private static final String OFFICER_ID = "officerId";
+    private static final String OTHER_OFFICER_ID = "otherOfficerId";
+    private static final String INTERNAL_APP_PRIVILEGES = "internal-app";
+
+    private final AppointmentList appointmentList = new AppointmentList();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Supplier<Optional<AppointmentList>> loader = () -> {
+        loads.incrementAndGet();
+        return Optional.of(appointmentList);
+    };
+
+    private SimpleMeterRegistry meterRegistry;
+    private OfficerAppointmentsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new OfficerAppointmentsCache(true, 10, Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @Test
+    void shouldLoadOnceAndServeRepeatRequestsFromCache() {
+        // given
+        OfficerAppointmentsRequest request = new OfficerAppointmentsRequest(OFFICER_ID, null, 0, 35);
+
+        // when
+        Optional<AppointmentList> first = cache.get(request, loader);
+        Optional<AppointmentList> second = cache.get(request, loader);
+
+        // then
+        assertSame(appointmentList, first.orElseThrow());
+        assertSame(appointmentList, second.orElseThrow());
+        assertEquals(1, loads.get());
+        assertEquals(1.0, getsCount("hit"));
+        assertEquals(1.0, getsCount("miss"));
+    }
+
+    @Test
+    void shouldCachePagesSeparatelyForEachPrivilegeTier() {
+        // given
+        OfficerAppointmentsRequest external = new OfficerAppointmentsRequest(OFFICER_ID, null, 0, 100);
+        OfficerAppointmentsRequest internal = new OfficerAppointmentsRequest(OFFICER_ID, null, 0, 100,
+                INTERNAL_APP_PRIVILEGES);
+
+        // when
+        cache.get(external, loader);
+        cache.get(internal, loader);
+
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheOfficersWithoutAppointments() {
+        // given
+        OfficerAppointmentsRequest request = new OfficerAppointmentsRequest(OFFICER_ID, null, 0, 35);
+        Supplier<Optional<AppointmentList>> emptyLoader = () -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        };
+
+        // when
+        Optional<AppointmentList> first = cache.get(request, emptyLoader);
+        Optional<AppointmentList> second = cache.get(request, emptyLoader);
+
+        // then
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldEvictEveryPageForOfficerOnly() {
+        // given
+        OfficerAppointmentsRequest firstPage = new OfficerAppointmentsRequest(OFFICER_ID, null, 0, 35);
+        OfficerAppointmentsRequest secondPage = new OfficerAppointmentsRequest(OFFICER_ID, null, 35, 35);
+        OfficerAppointmentsRequest otherOfficer = new OfficerAppointmentsRequest(OTHER_OFFICER_ID, null, 0, 35);
+        cache.get(firstPage, loader);
+        cache.get(secondPage, loader);
+        cache.get(otherOfficer, loader);
+
+        // when
+        cache.evict(OFFICER_ID);
+        cache.get(firstPage, loader);
+        cache.get(secondPage, loader);
+        cache.get(otherOfficer, loader);
+
+        // then
+        assertEquals(5, loads.get());
+        assertEquals(1.0, meterRegistry.get("officer.appointments.cache.invalidations").counter().count());
+    }
+
+    @Test
+    void shouldNotCachePageLoadedWhileOfficerWasEvicted() {
+        // given
+        OfficerAppointmentsRequest request = new OfficerAppointmentsRequest(OFFICER_ID, null, 0, 35);
+        Supplier<Optional<AppointmentList>> racingLoader = () -> {
+            if (loads.incrementAndGet() == 1) {
+                cache.evict(OFFICER_ID);
+            }
+            return Optional.of(appointmentList);
+        };
+
+        // when
+        Optional<AppointmentList> first = cache.get(request, racingLoader);
+        Optional<AppointmentList> second = cache.get(request, racingLoader);
+        Optional<AppointmentList> third = cache.get(request, racingLoader);
+
+        // then
+        assertSame(appointmentList, first.orElseThrow());
+        assertSame(appointmentList, second.orElseThrow());
+        assertSame(appointmentList, third.orElseThrow());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldAlwaysLoadWhenDisabled() {
+        // given
+        cache = new OfficerAppointmentsCache(false, 10, Duration.ofMinutes(1), meterRegistry);
+        OfficerAppointmentsRequest request = new OfficerAppointmentsRequest(OFFICER_ID, null, 0, 35);
+
+        // when
+        cache.get(request, loader);
+        cache.get(request, loader);
+        cache.evict(OFFICER_ID);
+
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    private double getsCount(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", OfficerAppointmentsCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
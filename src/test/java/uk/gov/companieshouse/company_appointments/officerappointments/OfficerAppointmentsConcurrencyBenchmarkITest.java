@@ -0,0 +1,132 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication.APPLICATION_NAME_SPACE;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import org.apache.commons.io.IOUtils;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.test.annotation.DirtiesContext;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.companieshouse.api.officer.AppointmentList;
+import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
+import uk.gov.companieshouse.company_appointments.repository.OfficerAppointmentCountsRepository;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * Compares the latency of building an officer appointments page with the counts and page fetch run one after another
+ * against running them concurrently on virtual threads.
+ */
+@Testcontainers
+@SpringBootTest(classes = CompanyAppointmentsApplication.class, webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class OfficerAppointmentsConcurrencyBenchmarkITest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(APPLICATION_NAME_SPACE);
+    private static final String OFFICER_ID = "benchmarkOfficerId";
+    private static final int APPOINTMENTS = 5000;
+    private static final int WARM_UP_ITERATIONS = 10;
+    private static final int ITERATIONS = 50;
+
+    @Container
+    private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:5");
+
+    @Autowired
+    private OfficerAppointmentsRepository repository;
+    @Autowired
+    private OfficerAppointmentsMapper mapper;
+    @Autowired
+    private FilterService filterService;
+    @Autowired
+    private ItemsPerPageService itemsPerPageService;
+    @Autowired
+    private OfficerAppointmentsMetrics metrics;
+    @Autowired
+    private OfficerAppointmentCountsRepository countsRepository;
+    @Autowired
+    private OfficerAppointmentsCache cache;
+    @Autowired
+    private ExecutorService virtualThreadExecutor;
+
+    @BeforeAll
+    static void start() throws IOException {
+        System.setProperty("spring.data.mongodb.uri", mongoDBContainer.getReplicaSetUrl());
+        MongoTemplate mongoTemplate = new MongoTemplate(
+                new SimpleMongoClientDatabaseFactory(mongoDBContainer.getReplicaSetUrl()));
+        mongoTemplate.createCollection("delta_appointments");
+
+        String template = IOUtils.resourceToString("/appointment-data.json", StandardCharsets.UTF_8);
+        List<Document> documents = new ArrayList<>(APPOINTMENTS);
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            Document document = Document.parse(template)
+                    .append("_id", "appointment_" + i)
+                    .append("officer_id", OFFICER_ID);
+            if (i % 3 == 0) {
+                document.get("data", Document.class).append("resigned_on", new Date(1_600_000_000_000L + i));
+            }
+            if (i % 5 == 0) {
+                document.append("company_status", "dissolved");
+            }
+            documents.add(document);
+        }
+        mongoTemplate.insert(documents, "delta_appointments");
+
+        System.setProperty("company-metrics-api.endpoint", "localhost");
+    }
+
+    @DisplayName("Concurrent officer appointments queries return the same page as sequential ones")
+    @Test
+    void benchmarkConcurrentQueries() {
+        // given
+        // a sorting threshold of -1 always sorts active-then-resigned, so the page fetch need not wait for the counts
+        SortingThresholdService sortingThresholdService = new SortingThresholdService(-1, -1, false,
+                Duration.ofMillis(200), 100, 10000, new SimpleMeterRegistry());
+        OfficerAppointmentsService sequential = new OfficerAppointmentsService(repository, mapper, filterService,
+                itemsPerPageService, sortingThresholdService, metrics, false, false, countsRepository, false, cache,
+                virtualThreadExecutor, false, false);
+        OfficerAppointmentsService concurrent = new OfficerAppointmentsService(repository, mapper, filterService,
+                itemsPerPageService, sortingThresholdService, metrics, false, false, countsRepository, false, cache,
+                virtualThreadExecutor, true, false);
+        OfficerAppointmentsRequest request = new OfficerAppointmentsRequest(OFFICER_ID, null, 100, 35);
+
+        // when
+        Duration sequentialLatency = measure(sequential, request);
+        Duration concurrentLatency = measure(concurrent, request);
+
+        // then
+        LOGGER.info("Officer appointments mean latency over %d requests: sequential %d us, concurrent %d us"
+                .formatted(ITERATIONS, sequentialLatency.toNanos() / ITERATIONS / 1000,
+                        concurrentLatency.toNanos() / ITERATIONS / 1000));
+        assertEquals(sequential.getOfficerAppointments(request), concurrent.getOfficerAppointments(request));
+    }
+
+    private static Duration measure(OfficerAppointmentsService service, OfficerAppointmentsRequest request) {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            service.getOfficerAppointments(request);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Optional<AppointmentList> appointmentList = service.getOfficerAppointments(request);
+            assertEquals(APPOINTMENTS, appointmentList.orElseThrow().getTotalResults());
+        }
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+}
@@ -1,10 +1,13 @@
 package uk.gov.companieshouse.company_appointments.officerappointments;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.company_appointments.officerappointments.OfficerAppointmentsController.CONTINUATION_TOKEN_HEADER;
 
 import java.util.Optional;
 import org.junit.jupiter.api.DisplayName;
@@ -39,7 +42,8 @@ class OfficerAppointmentsControllerTest {
         when(service.getOfficerAppointments(any())).thenReturn(Optional.of(officerAppointments));
 
         // when
-        ResponseEntity<AppointmentList> response = controller.getOfficerAppointments(OFFICER_ID, null, 0, 5, "");
+        ResponseEntity<AppointmentList> response = controller.getOfficerAppointments(OFFICER_ID, null, 0, 5, "",
+                null, null);
 
         // then
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -54,7 +58,8 @@ class OfficerAppointmentsControllerTest {
         when(service.getOfficerAppointments(any())).thenReturn(Optional.empty());
 
         // when
-        ResponseEntity<AppointmentList> response = controller.getOfficerAppointments(OFFICER_ID, null, null, null, "");
+        ResponseEntity<AppointmentList> response = controller.getOfficerAppointments(OFFICER_ID, null, null, null, "",
+                null, null);
 
         // then
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
@@ -69,11 +74,103 @@ class OfficerAppointmentsControllerTest {
         when(service.getOfficerAppointments(any())).thenThrow(BadRequestException.class);
 
         // when
-        ResponseEntity<AppointmentList> response = controller.getOfficerAppointments(OFFICER_ID, "invalid", null, null, "");
+        ResponseEntity<AppointmentList> response = controller.getOfficerAppointments(OFFICER_ID, "invalid", null, null, "",
+                null, null);
 
         // then
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertNull(response.getBody());
         verify(service).getOfficerAppointments(new OfficerAppointmentsRequest(OFFICER_ID, "invalid", null, null, ""));
     }
+
+    @Test
+    @DisplayName("Call to get officer appointments with a continuation token returns the next token in a header")
+    void testGetOfficerAppointmentsWithContinuationToken() {
+        // given
+        when(service.getOfficerAppointmentsAfter(any())).thenReturn(
+                Optional.of(new OfficerAppointmentsSlice(officerAppointments, "next-token")));
+
+        // when
+        ResponseEntity<AppointmentList> response = controller.getOfficerAppointments(OFFICER_ID, null, null, 5, "",
+                "token", null);
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(officerAppointments, response.getBody());
+        assertEquals("next-token", response.getHeaders().getFirst(CONTINUATION_TOKEN_HEADER));
+        verify(service).getOfficerAppointmentsEntityTag(
+                new OfficerAppointmentsRequest(OFFICER_ID, null, null, 5, "", "token"));
+        verify(service).getOfficerAppointmentsAfter(
+                new OfficerAppointmentsRequest(OFFICER_ID, null, null, 5, "", "token"));
+        verifyNoMoreInteractions(service);
+    }
+
+    @Test
+    @DisplayName("Call to get the last page of officer appointments by continuation token returns no next token")
+    void testGetOfficerAppointmentsWithContinuationTokenLastPage() {
+        // given
+        when(service.getOfficerAppointmentsAfter(any())).thenReturn(
+                Optional.of(new OfficerAppointmentsSlice(officerAppointments, null)));
+
+        // when
+        ResponseEntity<AppointmentList> response = controller.getOfficerAppointments(OFFICER_ID, null, null, 5, "",
+                "", null);
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(officerAppointments, response.getBody());
+        assertFalse(response.getHeaders().containsKey(CONTINUATION_TOKEN_HEADER));
+    }
+
+    @Test
+    @DisplayName("Call to get officer appointments returns http 400 bad request when continuation token is invalid")
+    void testGetOfficerAppointmentsInvalidContinuationToken() {
+        // given
+        when(service.getOfficerAppointmentsAfter(any())).thenThrow(
+                new BadRequestException("Invalid continuation token supplied: token"));
+
+        // when
+        ResponseEntity<AppointmentList> response = controller.getOfficerAppointments(OFFICER_ID, null, null, null, "",
+                "token", null);
+
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    @DisplayName("Call to get officer appointments returns http 304 not modified when the entity tag matches")
+    void testGetOfficerAppointmentsNotModified() {
+        // given
+        when(service.getOfficerAppointmentsEntityTag(any())).thenReturn(Optional.of("\"etag\""));
+
+        // when
+        ResponseEntity<AppointmentList> response = controller.getOfficerAppointments(OFFICER_ID, null, null, null, "",
+                null, "\"etag\"");
+
+        // then
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"etag\"", response.getHeaders().getETag());
+        assertNull(response.getBody());
+        verify(service).getOfficerAppointmentsEntityTag(new OfficerAppointmentsRequest(OFFICER_ID, null, null, null,
+                "", null));
+        verifyNoMoreInteractions(service);
+    }
+
+    @Test
+    @DisplayName("Call to get officer appointments returns the entity tag with the officer appointments")
+    void testGetOfficerAppointmentsWithEntityTag() throws BadRequestException {
+        // given
+        when(service.getOfficerAppointmentsEntityTag(any())).thenReturn(Optional.of("\"etag\""));
+        when(service.getOfficerAppointments(any())).thenReturn(Optional.of(officerAppointments));
+
+        // when
+        ResponseEntity<AppointmentList> response = controller.getOfficerAppointments(OFFICER_ID, null, 0, 5, "",
+                null, "\"stale\"");
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"etag\"", response.getHeaders().getETag());
+        assertEquals(officerAppointments, response.getBody());
+    }
 }
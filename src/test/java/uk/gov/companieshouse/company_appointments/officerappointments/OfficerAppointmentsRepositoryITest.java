@@ -7,7 +7,10 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 import org.apache.commons.io.IOUtils;
 import org.bson.Document;
 import org.junit.jupiter.api.BeforeAll;
@@ -23,6 +26,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.companieshouse.api.officer.AppointmentList;
 import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
 
@@ -44,8 +48,14 @@ class OfficerAppointmentsRepositoryITest {
     @Container
     private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:5");
     private static final String MISSING_OFFICER_ID = "missing";
+    private static final String ALL_FIELDS_OFFICER_ID = "allFieldsOfficerId";
+    private static final String ALL_FIELDS_APPOINTMENT_ID = "all_fields_appointment";
     @Autowired
     private OfficerAppointmentsRepository repository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private OfficerAppointmentsMapper officerAppointmentsMapper;
 
     @BeforeAll
     static void start() throws IOException {
@@ -74,6 +84,10 @@ class OfficerAppointmentsRepositoryITest {
                 "delta_appointments");
         mongoTemplate.insert(Document.parse(IOUtils.resourceToString("/appointment-data.json", StandardCharsets.UTF_8)),
                 "delta_appointments");
+        mongoTemplate.insert(Document.parse(
+                        IOUtils.resourceToString("/appointment-data-all-fields.json", StandardCharsets.UTF_8)),
+                "delta_appointments");
+        new SortKeyBackfillRunner(mongoTemplate, 2).run(null);
 
         System.setProperty("company-metrics-api.endpoint", "localhost");
     }
@@ -436,4 +450,203 @@ class OfficerAppointmentsRepositoryITest {
         // then
         assertTrue(appointments.isEmpty());
     }
+
+    @DisplayName("Repository returns the sorted page, counts and latest appointment in a single round trip")
+    @Test
+    void findOfficerAppointmentsPage() {
+        // given
+
+        // when
+        OfficerAppointmentsPage page = repository.findOfficerAppointmentsPage(OFFICER_ID, false, emptyList(), 1, 5,
+                -1);
+
+        // then
+        assertEquals(7, page.getTotalResults());
+        assertEquals(2, page.getResignedCount());
+        assertEquals(1, page.getInactiveCount());
+        assertEquals("active_appointed_on_1", page.getLatestAppointment().getId());
+        assertEquals(repository.findOfficerAppointmentsIds(OFFICER_ID, false, emptyList(), 1, 5).getIds(),
+                page.getItems().stream().map(CompanyAppointmentDocument::getId).toList());
+        assertNull(page.getLatestAppointment().getDeltaAt());
+        assertTrue(page.getItems().stream().allMatch(item -> item.getDeltaAt() == null));
+    }
+
+    @DisplayName("Repository returns only active appointments in a single round trip when the filter is enabled")
+    @Test
+    void findActiveOfficerAppointmentsPage() {
+        // given
+
+        // when
+        OfficerAppointmentsPage page = repository.findOfficerAppointmentsPage(OFFICER_ID, true, FILTER_STATUSES,
+                START_INDEX, DEFAULT_ITEMS_PER_PAGE, -1);
+
+        // then
+        assertEquals(4, page.getTotalResults());
+        assertEquals(List.of("active_appointed_on_1", "active_appointed_on_2", "active_appointed_before_1",
+                        "active_appointed_before_2"),
+                page.getItems().stream().map(CompanyAppointmentDocument::getId).toList());
+    }
+
+    @DisplayName("Repository returns recent appointments in a single round trip when over the sorting threshold")
+    @Test
+    void findOfficerAppointmentsPageOverSortingThreshold() {
+        // given
+
+        // when
+        OfficerAppointmentsPage page = repository.findOfficerAppointmentsPage(OFFICER_ID, false, emptyList(), 1, 4,
+                6);
+
+        // then
+        assertEquals(7, page.getTotalResults());
+        assertEquals(repository.findRecentOfficerAppointments(OFFICER_ID, false, emptyList(), 1, 4).stream()
+                        .map(CompanyAppointmentDocument::getId).toList(),
+                page.getItems().stream().map(CompanyAppointmentDocument::getId).toList());
+    }
+
+    @DisplayName("Repository returns an empty page and zero counts in a single round trip when there are no matches")
+    @Test
+    void findOfficerAppointmentsPageNoResults() {
+        // given
+
+        // when
+        OfficerAppointmentsPage page = repository.findOfficerAppointmentsPage(MISSING_OFFICER_ID, false, emptyList(),
+                START_INDEX, DEFAULT_ITEMS_PER_PAGE, -1);
+
+        // then
+        assertTrue(page.getItems().isEmpty());
+        assertEquals(0, page.getTotalResults());
+        assertEquals(0, page.getResignedCount());
+        assertEquals(0, page.getInactiveCount());
+        assertNull(page.getLatestAppointment());
+    }
+
+    @DisplayName("Repository walks every page by continuation token in the same order as the sorted appointments")
+    @Test
+    void findOfficerAppointmentsAfter() {
+        // given
+        List<String> expected = repository.findOfficerAppointmentsIds(OFFICER_ID, false, emptyList(), START_INDEX,
+                DEFAULT_ITEMS_PER_PAGE).getIds();
+
+        // when
+        List<String> actual = findAllAfter(false, emptyList(), 2);
+
+        // then
+        assertEquals(7, actual.size());
+        assertEquals(expected, actual);
+    }
+
+    @DisplayName("Repository walks every page by continuation token with the filter applied")
+    @Test
+    void findActiveOfficerAppointmentsAfter() {
+        // given
+
+        // when
+        List<String> actual = findAllAfter(true, FILTER_STATUSES, 3);
+
+        // then
+        assertEquals(List.of("active_appointed_on_1", "active_appointed_on_2", "active_appointed_before_1",
+                "active_appointed_before_2"), actual);
+    }
+
+    @DisplayName("Repository returns no appointments after a continuation token when there are no matches")
+    @Test
+    void findOfficerAppointmentsAfterNoResults() {
+        // given
+
+        // when
+        List<CompanyAppointmentDocument> appointments = repository.findOfficerAppointmentsAfter(MISSING_OFFICER_ID,
+                false, emptyList(), ContinuationToken.START, DEFAULT_ITEMS_PER_PAGE);
+
+        // then
+        assertTrue(appointments.isEmpty());
+    }
+
+    private List<String> findAllAfter(boolean filterEnabled, List<String> filterStatuses, int pageSize) {
+        List<String> ids = new ArrayList<>();
+        ContinuationToken continuationToken = ContinuationToken.START;
+        List<CompanyAppointmentDocument> page;
+        do {
+            page = repository.findOfficerAppointmentsAfter(OFFICER_ID, filterEnabled, filterStatuses,
+                    continuationToken, pageSize);
+            page.forEach(appointment -> ids.add(appointment.getId()));
+            if (!page.isEmpty()) {
+                continuationToken = ContinuationToken.decode(
+                        ContinuationToken.after(page.getLast(), ids.size()).encode());
+            }
+        } while (page.size() == pageSize);
+        return ids;
+    }
+
+    @DisplayName("Repository reads the active then resigned ranges by persisted sort keys in the sorted order")
+    @Test
+    void findOfficerAppointmentsBySortKeys() {
+        // given
+        List<String> expected = repository.findOfficerAppointmentsIds(OFFICER_ID, false, emptyList(), START_INDEX,
+                DEFAULT_ITEMS_PER_PAGE).getIds();
+
+        // when
+        List<CompanyAppointmentDocument> active = repository.findActiveOfficerAppointmentsBySortKeys(OFFICER_ID,
+                emptyList(), START_INDEX, DEFAULT_ITEMS_PER_PAGE);
+        List<CompanyAppointmentDocument> resigned = repository.findResignedOfficerAppointmentsBySortKeys(OFFICER_ID,
+                START_INDEX, DEFAULT_ITEMS_PER_PAGE);
+
+        // then
+        assertEquals(5, repository.countActiveBySortKeys(OFFICER_ID, emptyList()));
+        assertEquals(expected, Stream.concat(active.stream(), resigned.stream())
+                .map(CompanyAppointmentDocument::getId)
+                .toList());
+    }
+
+    @DisplayName("Repository reads a page of active appointments by persisted sort keys with the filter applied")
+    @Test
+    void findActiveOfficerAppointmentsBySortKeysWithPaging() {
+        // given
+
+        // when
+        List<CompanyAppointmentDocument> appointments = repository.findActiveOfficerAppointmentsBySortKeys(
+                OFFICER_ID, FILTER_STATUSES, 1, 2);
+
+        // then
+        assertEquals(List.of("active_appointed_on_2", "active_appointed_before_1"),
+                appointments.stream().map(CompanyAppointmentDocument::getId).toList());
+        assertEquals(4, repository.countActiveBySortKeys(OFFICER_ID, FILTER_STATUSES));
+    }
+
+    @DisplayName("Repository projects every field read by the officer appointments mappers")
+    @Test
+    void projectsFieldsReadByOfficerAppointmentsMappers() {
+        // given
+        CompanyAppointmentDocument stored = mongoTemplate.findById(ALL_FIELDS_APPOINTMENT_ID,
+                CompanyAppointmentDocument.class);
+        Optional<AppointmentList> expected = mapAppointment(stored);
+
+        // when
+        List<CompanyAppointmentDocument> recent = repository.findRecentOfficerAppointments(ALL_FIELDS_OFFICER_ID,
+                false, emptyList(), START_INDEX, DEFAULT_ITEMS_PER_PAGE);
+        List<CompanyAppointmentDocument> full = repository.findFullOfficerAppointments(
+                List.of(ALL_FIELDS_APPOINTMENT_ID));
+        List<CompanyAppointmentDocument> resigned = repository.findResignedOfficerAppointmentsBySortKeys(
+                ALL_FIELDS_OFFICER_ID, START_INDEX, DEFAULT_ITEMS_PER_PAGE);
+        List<CompanyAppointmentDocument> after = repository.findOfficerAppointmentsAfter(ALL_FIELDS_OFFICER_ID,
+                false, emptyList(), ContinuationToken.START, DEFAULT_ITEMS_PER_PAGE);
+
+        // then
+        assertEquals(expected, mapAppointment(recent.getFirst()));
+        assertEquals(expected, mapAppointment(full.getFirst()));
+        assertEquals(expected, mapAppointment(resigned.getFirst()));
+        assertEquals(expected, mapAppointment(after.getFirst()));
+        assertNull(recent.getFirst().getSensitiveData().getUsualResidentialAddress());
+        assertNull(recent.getFirst().getInternalId());
+    }
+
+    private Optional<AppointmentList> mapAppointment(CompanyAppointmentDocument appointment) {
+        return officerAppointmentsMapper.mapOfficerAppointments(OfficerAppointmentsMapper.MapperRequest.builder()
+                .startIndex(START_INDEX)
+                .itemsPerPage(DEFAULT_ITEMS_PER_PAGE)
+                .firstAppointment(appointment)
+                .officerAppointments(List.of(appointment))
+                .totalResults(1)
+                .resignedCount(1)
+                .build());
+    }
 }
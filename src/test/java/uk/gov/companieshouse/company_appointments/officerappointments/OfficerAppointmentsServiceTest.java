@@ -1,33 +1,53 @@
 package uk.gov.companieshouse.company_appointments.officerappointments;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Named;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
 import uk.gov.companieshouse.api.officer.AppointmentList;
 import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaOfficerData;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaTimestamp;
+import uk.gov.companieshouse.company_appointments.model.data.OfficerAppointmentCounts;
 import uk.gov.companieshouse.company_appointments.officerappointments.OfficerAppointmentsMapper.MapperRequest;
 import uk.gov.companieshouse.company_appointments.officerappointments.OfficerAppointmentsServiceTest.ServiceTestArgument.Builder;
+import uk.gov.companieshouse.company_appointments.repository.OfficerAppointmentCountsRepository;
 
 @ExtendWith(MockitoExtension.class)
 class OfficerAppointmentsServiceTest {
@@ -40,8 +60,8 @@ class OfficerAppointmentsServiceTest {
     private static final String REMOVED = "removed";
     private static final String CONVERTED_CLOSED = "converted-closed";
     private static final String DISSOLVED = "dissolved";
+    private static final Instant APPOINTED_ON = Instant.parse("2020-08-26T00:00:00Z");
 
-    @InjectMocks
     private OfficerAppointmentsService service;
     @Mock
     private OfficerAppointmentsRepository repository;
@@ -59,6 +79,23 @@ class OfficerAppointmentsServiceTest {
     private CompanyAppointmentDocument companyAppointmentDocument;
     @Mock
     private OfficerAppointments officerAppointments;
+    @Mock
+    private OfficerAppointmentsMetrics metrics;
+    @Mock
+    private OfficerAppointmentsPage officerAppointmentsPage;
+    @Mock
+    private OfficerAppointmentCountsRepository countsRepository;
+
+    private final OfficerAppointmentsCache cache = new OfficerAppointmentsCache(false, 10, Duration.ofSeconds(30),
+            new SimpleMeterRegistry());
+    private final ExecutorService queryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @BeforeEach
+    void setUp() {
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, false, false, countsRepository, false, cache, queryExecutor, false,
+                false);
+    }
 
     private static Stream<Arguments> getOfficerAppointments() {
         return Stream.of(
@@ -162,6 +199,7 @@ class OfficerAppointmentsServiceTest {
         verify(filterService).prepareFilter(argument.request().filter(), OFFICER_ID);
         verify(repository).countTotal(OFFICER_ID, argument.filterEnabled(), argument.filterStatuses());
         verify(sortingThresholdService).shouldSortByActiveThenResigned(3, null);
+        verify(sortingThresholdService).recordSortedAggregation(eq(3), isNull(), any());
         verify(repository).findOfficerAppointmentsIds(OFFICER_ID, argument.filterEnabled(), argument.filterStatuses(),
                 argument.startIndex(), argument.itemsPerPage());
         verify(repository).findFullOfficerAppointments(List.of(APPOINTMENT_ID));
@@ -411,6 +449,603 @@ class OfficerAppointmentsServiceTest {
                 .build());
     }
 
+    @DisplayName("Should record the number of MongoDB round trips made in multiple round trip mode")
+    @Test
+    void getOfficerAppointmentsRecordsMultipleRoundTrips() throws BadRequestException {
+        // given
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .build();
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(ITEMS_PER_PAGE);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(false, List.of()));
+        when(repository.countTotal(any(), anyBoolean(), any())).thenReturn(3);
+        when(sortingThresholdService.shouldSortByActiveThenResigned(anyInt(), any())).thenReturn(true);
+        when(repository.findOfficerAppointmentsIds(anyString(), anyBoolean(), any(), anyInt(), anyInt()))
+                .thenReturn(officerAppointments);
+        when(officerAppointments.getIds()).thenReturn(List.of(APPOINTMENT_ID));
+        when(repository.findFullOfficerAppointments(any())).thenReturn(List.of(companyAppointmentDocument));
+        when(filterService.findFirstActiveAppointment(any())).thenReturn(Optional.empty());
+        when(repository.findLatestAppointment(any())).thenReturn(companyAppointmentDocument);
+        when(mapper.mapOfficerAppointments(any())).thenReturn(Optional.of(appointmentList));
+
+        // when
+        service.getOfficerAppointments(request);
+
+        // then
+        verify(metrics).recordRoundTrips(OfficerAppointmentsMetrics.MULTIPLE_ROUND_TRIPS, 6);
+    }
+
+    @Test
+    void getOfficerAppointmentsEntityTagChangesWhenAnAppointmentIsWrittenOrDeleted() {
+        // given
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, false, false, countsRepository, true, cache, queryExecutor, false,
+                true);
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .build();
+
+        when(repository.findLastUpdatedAppointment(OFFICER_ID))
+                .thenReturn(lastUpdated(Instant.parse("2024-01-01T00:00:00Z")))
+                .thenReturn(lastUpdated(Instant.parse("2024-01-01T00:00:00Z")))
+                .thenReturn(lastUpdated(Instant.parse("2024-01-02T00:00:00Z")))
+                .thenReturn(lastUpdated(Instant.parse("2024-01-02T00:00:00Z")));
+        when(countsRepository.findById(OFFICER_ID))
+                .thenReturn(Optional.of(counts(2)))
+                .thenReturn(Optional.of(counts(2)))
+                .thenReturn(Optional.of(counts(2)))
+                .thenReturn(Optional.of(counts(1)));
+
+        // when
+        Optional<String> first = service.getOfficerAppointmentsEntityTag(request);
+        Optional<String> unchanged = service.getOfficerAppointmentsEntityTag(request);
+        Optional<String> written = service.getOfficerAppointmentsEntityTag(request);
+        Optional<String> deleted = service.getOfficerAppointmentsEntityTag(request);
+
+        // then
+        assertTrue(first.isPresent());
+        assertEquals(first, unchanged);
+        assertNotEquals(first, written);
+        assertNotEquals(written, deleted);
+        verify(repository, never()).countTotal(any(), anyBoolean(), any());
+    }
+
+    @Test
+    void getOfficerAppointmentsEntityTagEmptyWhenOfficerHasNoAppointments() {
+        // given
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, false, false, countsRepository, false, cache, queryExecutor, false,
+                true);
+
+        // when
+        Optional<String> actual = service.getOfficerAppointmentsEntityTag(OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .build());
+
+        // then
+        assertTrue(actual.isEmpty());
+        verify(repository).findLastUpdatedAppointment(OFFICER_ID);
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void getOfficerAppointmentsEntityTagEmptyWhenConditionalGetDisabled() {
+        // when
+        Optional<String> actual = service.getOfficerAppointmentsEntityTag(OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .build());
+
+        // then
+        assertTrue(actual.isEmpty());
+        verifyNoInteractions(repository);
+    }
+
+    @DisplayName("Should fetch the page, counts and latest appointment in a single round trip when enabled")
+    @Test
+    void getOfficerAppointmentsInSingleRoundTrip() throws BadRequestException {
+        // given
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, true, false, countsRepository, false, cache, queryExecutor, false,
+                false);
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .build();
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(ITEMS_PER_PAGE);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(false, List.of()));
+        when(sortingThresholdService.getSortingThreshold(any())).thenReturn(-1);
+        when(repository.findOfficerAppointmentsPage(anyString(), anyBoolean(), any(), anyInt(), anyInt(), anyInt()))
+                .thenReturn(officerAppointmentsPage);
+        when(officerAppointmentsPage.getItems()).thenReturn(List.of(companyAppointmentDocument));
+        when(officerAppointmentsPage.getTotalResults()).thenReturn(3);
+        when(officerAppointmentsPage.getResignedCount()).thenReturn(1);
+        when(officerAppointmentsPage.getInactiveCount()).thenReturn(1);
+        when(filterService.findFirstActiveAppointment(any())).thenReturn(Optional.of(companyAppointmentDocument));
+        when(mapper.mapOfficerAppointments(any())).thenReturn(Optional.of(appointmentList));
+
+        // when
+        Optional<AppointmentList> actual = service.getOfficerAppointments(request);
+
+        // then
+        assertTrue(actual.isPresent());
+        assertEquals(appointmentList, actual.get());
+        verify(repository).findOfficerAppointmentsPage(OFFICER_ID, false, List.of(), START_INDEX, ITEMS_PER_PAGE,
+                -1);
+        verifyNoMoreInteractions(repository);
+        verify(metrics).recordRoundTrips(OfficerAppointmentsMetrics.SINGLE_ROUND_TRIP, 1);
+        verify(sortingThresholdService).countDecision(null, true);
+        verify(mapper).mapOfficerAppointments(MapperRequest.builder()
+                .startIndex(START_INDEX)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .firstAppointment(companyAppointmentDocument)
+                .officerAppointments(List.of(companyAppointmentDocument))
+                .totalResults(3)
+                .resignedCount(1)
+                .inactiveCount(1)
+                .build());
+    }
+
+    @DisplayName("Should fall back to the latest appointment from the single round trip when no active appointments")
+    @Test
+    void getOfficerAppointmentsInSingleRoundTripUsesLatestAppointment() throws BadRequestException {
+        // given
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, true, false, countsRepository, false, cache, queryExecutor, false,
+                false);
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .filter("active")
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .build();
+        List<String> filterStatuses = List.of(DISSOLVED, CONVERTED_CLOSED, REMOVED);
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(ITEMS_PER_PAGE);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(true, filterStatuses));
+        when(sortingThresholdService.getSortingThreshold(any())).thenReturn(500);
+        when(repository.findOfficerAppointmentsPage(anyString(), anyBoolean(), any(), anyInt(), anyInt(), anyInt()))
+                .thenReturn(officerAppointmentsPage);
+        when(officerAppointmentsPage.getItems()).thenReturn(List.of());
+        when(officerAppointmentsPage.getTotalResults()).thenReturn(0);
+        when(officerAppointmentsPage.getLatestAppointment()).thenReturn(companyAppointmentDocument);
+        when(filterService.findFirstActiveAppointment(any())).thenReturn(Optional.empty());
+        when(mapper.mapOfficerAppointments(any())).thenReturn(Optional.of(appointmentList));
+
+        // when
+        Optional<AppointmentList> actual = service.getOfficerAppointments(request);
+
+        // then
+        assertTrue(actual.isPresent());
+        verify(repository).findOfficerAppointmentsPage(OFFICER_ID, true, filterStatuses, START_INDEX,
+                ITEMS_PER_PAGE, 500);
+        verifyNoMoreInteractions(repository);
+        verify(mapper).mapOfficerAppointments(MapperRequest.builder()
+                .startIndex(START_INDEX)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .firstAppointment(companyAppointmentDocument)
+                .officerAppointments(List.of())
+                .totalResults(0)
+                .resignedCount(0)
+                .inactiveCount(0)
+                .build());
+    }
+
+    @DisplayName("Should stitch the active and resigned ranges read by persisted sort keys when enabled")
+    @Test
+    void getOfficerAppointmentsByPersistedSortKeys() throws BadRequestException {
+        // given
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, false, true, countsRepository, false, cache, queryExecutor, false,
+                false);
+        CompanyAppointmentDocument resigned = new CompanyAppointmentDocument().id("resignedAppointmentId");
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .itemsPerPage(2)
+                .build();
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(2);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(false, List.of()));
+        when(repository.countTotal(any(), anyBoolean(), any())).thenReturn(3);
+        when(repository.findActiveOfficerAppointmentsBySortKeys(any(), any(), anyInt(), anyInt()))
+                .thenReturn(List.of(companyAppointmentDocument));
+        when(repository.findResignedOfficerAppointmentsBySortKeys(any(), anyInt(), anyInt()))
+                .thenReturn(List.of(resigned));
+        when(repository.countResigned(any())).thenReturn(1);
+        when(repository.countInactive(any())).thenReturn(0);
+        when(filterService.findFirstActiveAppointment(any())).thenReturn(Optional.of(companyAppointmentDocument));
+        when(mapper.mapOfficerAppointments(any())).thenReturn(Optional.of(appointmentList));
+
+        // when
+        Optional<AppointmentList> actual = service.getOfficerAppointments(request);
+
+        // then
+        assertTrue(actual.isPresent());
+        verify(repository).findActiveOfficerAppointmentsBySortKeys(OFFICER_ID, List.of(), START_INDEX, 2);
+        verify(repository).findResignedOfficerAppointmentsBySortKeys(OFFICER_ID, 0, 1);
+        verifyNoInteractions(sortingThresholdService);
+        verify(metrics).recordRoundTrips(OfficerAppointmentsMetrics.MULTIPLE_ROUND_TRIPS, 5);
+        verify(mapper).mapOfficerAppointments(MapperRequest.builder()
+                .startIndex(START_INDEX)
+                .itemsPerPage(2)
+                .firstAppointment(companyAppointmentDocument)
+                .officerAppointments(List.of(companyAppointmentDocument, resigned))
+                .totalResults(3)
+                .resignedCount(1)
+                .inactiveCount(0)
+                .build());
+    }
+
+    @DisplayName("Should start the resigned range after the active appointments when the page is past them")
+    @Test
+    void getOfficerAppointmentsByPersistedSortKeysPastActive() throws BadRequestException {
+        // given
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, false, true, countsRepository, false, cache, queryExecutor, false,
+                false);
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .startIndex(5)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .build();
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(ITEMS_PER_PAGE);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(false, List.of()));
+        when(repository.countTotal(any(), anyBoolean(), any())).thenReturn(7);
+        when(repository.findActiveOfficerAppointmentsBySortKeys(any(), any(), anyInt(), anyInt()))
+                .thenReturn(List.of());
+        when(repository.countActiveBySortKeys(any(), any())).thenReturn(3);
+        when(repository.findResignedOfficerAppointmentsBySortKeys(any(), anyInt(), anyInt()))
+                .thenReturn(List.of(companyAppointmentDocument));
+        when(filterService.findFirstActiveAppointment(any())).thenReturn(Optional.empty());
+        when(repository.findLatestAppointment(any())).thenReturn(companyAppointmentDocument);
+        when(mapper.mapOfficerAppointments(any())).thenReturn(Optional.of(appointmentList));
+
+        // when
+        Optional<AppointmentList> actual = service.getOfficerAppointments(request);
+
+        // then
+        assertTrue(actual.isPresent());
+        verify(repository).findActiveOfficerAppointmentsBySortKeys(OFFICER_ID, List.of(), 5, ITEMS_PER_PAGE);
+        verify(repository).countActiveBySortKeys(OFFICER_ID, List.of());
+        verify(repository).findResignedOfficerAppointmentsBySortKeys(OFFICER_ID, 2, ITEMS_PER_PAGE);
+    }
+
+    @DisplayName("Should read the officer's materialised counts instead of counting appointments when enabled")
+    @Test
+    void getOfficerAppointmentsWithMaterialisedCounts() throws BadRequestException {
+        // given
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, false, false, countsRepository, true, cache, queryExecutor, false,
+                false);
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .build();
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(ITEMS_PER_PAGE);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(false, List.of()));
+        when(countsRepository.findById(any())).thenReturn(Optional.of(new OfficerAppointmentCounts()
+                .officerId(OFFICER_ID)
+                .totalResults(7)
+                .resignedCount(2)
+                .inactiveCount(1)));
+        when(sortingThresholdService.shouldSortByActiveThenResigned(anyInt(), any())).thenReturn(false);
+        when(repository.findRecentOfficerAppointments(anyString(), anyBoolean(), any(), anyInt(), anyInt()))
+                .thenReturn(List.of(companyAppointmentDocument));
+        when(filterService.findFirstActiveAppointment(any())).thenReturn(Optional.of(companyAppointmentDocument));
+        when(mapper.mapOfficerAppointments(any())).thenReturn(Optional.of(appointmentList));
+
+        // when
+        Optional<AppointmentList> actual = service.getOfficerAppointments(request);
+
+        // then
+        assertTrue(actual.isPresent());
+        verify(countsRepository).findById(OFFICER_ID);
+        verify(repository).findRecentOfficerAppointments(OFFICER_ID, false, List.of(), START_INDEX, ITEMS_PER_PAGE);
+        verifyNoMoreInteractions(repository);
+        verify(metrics).recordRoundTrips(OfficerAppointmentsMetrics.MULTIPLE_ROUND_TRIPS, 2);
+        verify(mapper).mapOfficerAppointments(MapperRequest.builder()
+                .startIndex(START_INDEX)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .firstAppointment(companyAppointmentDocument)
+                .officerAppointments(List.of(companyAppointmentDocument))
+                .totalResults(7)
+                .resignedCount(2)
+                .inactiveCount(1)
+                .build());
+    }
+
+    @DisplayName("Should use the active count from the materialised counts when the filter is enabled")
+    @Test
+    void getActiveOfficerAppointmentsWithMaterialisedCounts() throws BadRequestException {
+        // given
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, false, false, countsRepository, true, cache, queryExecutor, false,
+                false);
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .filter("active")
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .build();
+        List<String> filterStatuses = List.of(DISSOLVED, CONVERTED_CLOSED, REMOVED);
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(ITEMS_PER_PAGE);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(true, filterStatuses));
+        when(countsRepository.findById(any())).thenReturn(Optional.of(new OfficerAppointmentCounts()
+                .officerId(OFFICER_ID)
+                .totalResults(7)
+                .resignedCount(2)
+                .inactiveCount(1)));
+        when(sortingThresholdService.shouldSortByActiveThenResigned(anyInt(), any())).thenReturn(false);
+        when(repository.findRecentOfficerAppointments(anyString(), anyBoolean(), any(), anyInt(), anyInt()))
+                .thenReturn(List.of(companyAppointmentDocument));
+        when(filterService.findFirstActiveAppointment(any())).thenReturn(Optional.of(companyAppointmentDocument));
+        when(mapper.mapOfficerAppointments(any())).thenReturn(Optional.of(appointmentList));
+
+        // when
+        service.getOfficerAppointments(request);
+
+        // then
+        verify(sortingThresholdService).shouldSortByActiveThenResigned(4, null);
+        verify(mapper).mapOfficerAppointments(MapperRequest.builder()
+                .startIndex(START_INDEX)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .firstAppointment(companyAppointmentDocument)
+                .officerAppointments(List.of(companyAppointmentDocument))
+                .totalResults(4)
+                .resignedCount(0)
+                .inactiveCount(0)
+                .build());
+    }
+
+    @DisplayName("Should count appointments when the officer has no materialised counts")
+    @Test
+    void getOfficerAppointmentsWithoutMaterialisedCounts() throws BadRequestException {
+        // given
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, false, false, countsRepository, true, cache, queryExecutor, false,
+                false);
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .build();
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(ITEMS_PER_PAGE);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(false, List.of()));
+        when(countsRepository.findById(any())).thenReturn(Optional.empty());
+        when(repository.countTotal(any(), anyBoolean(), any())).thenReturn(3);
+        when(sortingThresholdService.shouldSortByActiveThenResigned(anyInt(), any())).thenReturn(false);
+        when(repository.findRecentOfficerAppointments(anyString(), anyBoolean(), any(), anyInt(), anyInt()))
+                .thenReturn(List.of(companyAppointmentDocument));
+        when(repository.countResigned(any())).thenReturn(1);
+        when(repository.countInactive(any())).thenReturn(1);
+        when(filterService.findFirstActiveAppointment(any())).thenReturn(Optional.of(companyAppointmentDocument));
+        when(mapper.mapOfficerAppointments(any())).thenReturn(Optional.of(appointmentList));
+
+        // when
+        service.getOfficerAppointments(request);
+
+        // then
+        verify(repository).countTotal(OFFICER_ID, false, List.of());
+        verify(repository).countResigned(OFFICER_ID);
+        verify(repository).countInactive(OFFICER_ID);
+        verify(metrics).recordRoundTrips(OfficerAppointmentsMetrics.MULTIPLE_ROUND_TRIPS, 5);
+    }
+
+    @DisplayName("Should count appointments when the officer's materialised counts are inconsistent")
+    @Test
+    void getOfficerAppointmentsWithInconsistentMaterialisedCounts() throws BadRequestException {
+        // given
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, false, false, countsRepository, true, cache, queryExecutor, false,
+                false);
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .build();
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(ITEMS_PER_PAGE);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(false, List.of()));
+        when(countsRepository.findById(any())).thenReturn(Optional.of(new OfficerAppointmentCounts()
+                .officerId(OFFICER_ID)
+                .totalResults(-1)
+                .resignedCount(0)
+                .inactiveCount(0)));
+        when(repository.countTotal(any(), anyBoolean(), any())).thenReturn(3);
+        when(sortingThresholdService.shouldSortByActiveThenResigned(anyInt(), any())).thenReturn(false);
+        when(repository.findRecentOfficerAppointments(anyString(), anyBoolean(), any(), anyInt(), anyInt()))
+                .thenReturn(List.of(companyAppointmentDocument));
+        when(repository.countResigned(any())).thenReturn(1);
+        when(repository.countInactive(any())).thenReturn(1);
+        when(filterService.findFirstActiveAppointment(any())).thenReturn(Optional.of(companyAppointmentDocument));
+        when(mapper.mapOfficerAppointments(any())).thenReturn(Optional.of(appointmentList));
+
+        // when
+        service.getOfficerAppointments(request);
+
+        // then
+        verify(repository).countTotal(OFFICER_ID, false, List.of());
+        verify(repository).countResigned(OFFICER_ID);
+        verify(repository).countInactive(OFFICER_ID);
+        verify(mapper).mapOfficerAppointments(MapperRequest.builder()
+                .startIndex(START_INDEX)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .firstAppointment(companyAppointmentDocument)
+                .officerAppointments(List.of(companyAppointmentDocument))
+                .totalResults(3)
+                .resignedCount(1)
+                .inactiveCount(1)
+                .build());
+    }
+
+    @DisplayName("Should fetch the page after the continuation token and return the token for the next page")
+    @Test
+    void getOfficerAppointmentsAfter() throws BadRequestException {
+        // given
+        ContinuationToken continuationToken = new ContinuationToken(false, APPOINTED_ON, APPOINTMENT_ID, 2);
+        CompanyAppointmentDocument last = new CompanyAppointmentDocument()
+                .id("lastAppointmentId")
+                .data(new DeltaOfficerData().setResignedOn(APPOINTED_ON));
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .itemsPerPage(2)
+                .continuationToken(continuationToken.encode())
+                .build();
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(2);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(false, List.of()));
+        when(repository.countTotal(any(), anyBoolean(), any())).thenReturn(5);
+        when(repository.findOfficerAppointmentsAfter(any(), anyBoolean(), any(), any(), anyInt()))
+                .thenReturn(List.of(companyAppointmentDocument, last));
+        when(repository.countResigned(any())).thenReturn(1);
+        when(repository.countInactive(any())).thenReturn(1);
+        when(filterService.findFirstActiveAppointment(any())).thenReturn(Optional.of(companyAppointmentDocument));
+        when(mapper.mapOfficerAppointments(any())).thenReturn(Optional.of(appointmentList));
+
+        // when
+        Optional<OfficerAppointmentsSlice> actual = service.getOfficerAppointmentsAfter(request);
+
+        // then
+        assertTrue(actual.isPresent());
+        assertEquals(appointmentList, actual.get().appointmentList());
+        assertEquals(new ContinuationToken(true, APPOINTED_ON, "lastAppointmentId", 4),
+                ContinuationToken.decode(actual.get().nextContinuationToken()));
+        verify(repository).findOfficerAppointmentsAfter(OFFICER_ID, false, List.of(), continuationToken, 2);
+        verify(metrics).recordRoundTrips(OfficerAppointmentsMetrics.KEYSET, 4);
+        verify(mapper).mapOfficerAppointments(MapperRequest.builder()
+                .startIndex(2)
+                .itemsPerPage(2)
+                .firstAppointment(companyAppointmentDocument)
+                .officerAppointments(List.of(companyAppointmentDocument, last))
+                .totalResults(5)
+                .resignedCount(1)
+                .inactiveCount(1)
+                .build());
+    }
+
+    @DisplayName("Should fetch the first page from a blank continuation token and return no token on the last page")
+    @Test
+    void getOfficerAppointmentsAfterLastPage() throws BadRequestException {
+        // given
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .filter("active")
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .continuationToken("")
+                .build();
+        List<String> filterStatuses = List.of(DISSOLVED, CONVERTED_CLOSED, REMOVED);
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(ITEMS_PER_PAGE);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(true, filterStatuses));
+        when(repository.countTotal(any(), anyBoolean(), any())).thenReturn(1);
+        when(repository.findOfficerAppointmentsAfter(any(), anyBoolean(), any(), any(), anyInt()))
+                .thenReturn(List.of(companyAppointmentDocument));
+        when(filterService.findFirstActiveAppointment(any())).thenReturn(Optional.empty());
+        when(repository.findLatestAppointment(any())).thenReturn(companyAppointmentDocument);
+        when(mapper.mapOfficerAppointments(any())).thenReturn(Optional.of(appointmentList));
+
+        // when
+        Optional<OfficerAppointmentsSlice> actual = service.getOfficerAppointmentsAfter(request);
+
+        // then
+        assertTrue(actual.isPresent());
+        assertNull(actual.get().nextContinuationToken());
+        verify(repository).findOfficerAppointmentsAfter(OFFICER_ID, true, filterStatuses, ContinuationToken.START,
+                ITEMS_PER_PAGE);
+        verify(metrics).recordRoundTrips(OfficerAppointmentsMetrics.KEYSET, 3);
+    }
+
+    @DisplayName("Should run the counts and page fetch concurrently when the sort order does not depend on the total")
+    @Test
+    void getOfficerAppointmentsConcurrently() throws BadRequestException {
+        // given
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, false, false, countsRepository, false, cache, queryExecutor, true,
+                false);
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .build();
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(ITEMS_PER_PAGE);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(false, List.of()));
+        when(sortingThresholdService.getSortingThreshold(any())).thenReturn(-1);
+        when(repository.countTotal(any(), anyBoolean(), any())).thenReturn(3);
+        when(repository.countResigned(any())).thenReturn(1);
+        when(repository.countInactive(any())).thenReturn(1);
+        when(repository.findOfficerAppointmentsIds(anyString(), anyBoolean(), any(), anyInt(), anyInt()))
+                .thenReturn(officerAppointments);
+        when(officerAppointments.getIds()).thenReturn(List.of(APPOINTMENT_ID));
+        when(repository.findFullOfficerAppointments(any())).thenReturn(List.of(companyAppointmentDocument));
+        when(filterService.findFirstActiveAppointment(any())).thenReturn(Optional.of(companyAppointmentDocument));
+        when(mapper.mapOfficerAppointments(any())).thenReturn(Optional.of(appointmentList));
+
+        // when
+        Optional<AppointmentList> actual = service.getOfficerAppointments(request);
+
+        // then
+        assertTrue(actual.isPresent());
+        verify(sortingThresholdService, never()).shouldSortByActiveThenResigned(anyInt(), any());
+        verify(sortingThresholdService).countDecision(null, true);
+        verify(metrics).recordRoundTrips(OfficerAppointmentsMetrics.MULTIPLE_ROUND_TRIPS, 5);
+        verify(mapper).mapOfficerAppointments(MapperRequest.builder()
+                .startIndex(START_INDEX)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .firstAppointment(companyAppointmentDocument)
+                .officerAppointments(List.of(companyAppointmentDocument))
+                .totalResults(3)
+                .resignedCount(1)
+                .inactiveCount(1)
+                .build());
+    }
+
+    @DisplayName("Should propagate the first failure of the concurrent queries unchanged")
+    @Test
+    void getOfficerAppointmentsConcurrentlyPropagatesFailure() throws BadRequestException {
+        // given
+        service = new OfficerAppointmentsService(repository, mapper, filterService, itemsPerPageService,
+                sortingThresholdService, metrics, false, true, countsRepository, false, cache, queryExecutor, true,
+                false);
+        OfficerAppointmentsRequest request = OfficerAppointmentsRequest.builder()
+                .officerId(OFFICER_ID)
+                .itemsPerPage(ITEMS_PER_PAGE)
+                .build();
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("MongoDB unavailable");
+
+        when(itemsPerPageService.adjustItemsPerPage(any(), any())).thenReturn(ITEMS_PER_PAGE);
+        when(filterService.prepareFilter(any(), any())).thenReturn(new Filter(false, List.of()));
+        lenient().when(repository.countTotal(any(), anyBoolean(), any())).thenReturn(3);
+        when(repository.countResigned(any())).thenThrow(failure);
+        lenient().when(repository.countInactive(any())).thenReturn(1);
+        lenient().when(repository.findActiveOfficerAppointmentsBySortKeys(any(), any(), anyInt(), anyInt()))
+                .thenReturn(List.of(companyAppointmentDocument));
+        lenient().when(repository.findResignedOfficerAppointmentsBySortKeys(any(), anyInt(), anyInt()))
+                .thenReturn(List.of());
+
+        // when
+        Executable executable = () -> service.getOfficerAppointments(request);
+
+        // then
+        assertSame(failure, assertThrows(DataAccessResourceFailureException.class, executable));
+        verifyNoInteractions(mapper, metrics);
+    }
+
+    private static CompanyAppointmentDocument lastUpdated(Instant at) {
+        return new CompanyAppointmentDocument()
+                .id(APPOINTMENT_ID)
+                .updated(new DeltaTimestamp(at));
+    }
+
+    private static OfficerAppointmentCounts counts(int totalResults) {
+        return new OfficerAppointmentCounts()
+                .officerId(OFFICER_ID)
+                .totalResults(totalResults)
+                .resignedCount(1)
+                .inactiveCount(0);
+    }
+
     record ServiceTestArgument(OfficerAppointmentsRequest request, boolean filterEnabled, List<String> filterStatuses,
                                int startIndex, int itemsPerPage, int resignedCount, int inactiveCount) {
 
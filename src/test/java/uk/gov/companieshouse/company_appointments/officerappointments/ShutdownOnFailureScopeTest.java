@@ -0,0 +1,70 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
+import uk.gov.companieshouse.company_appointments.logging.DataMapHolder;
+
+class ShutdownOnFailureScopeTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+        DataMapHolder.clear();
+    }
+
+    @Test
+    void shouldReturnResultsOfEverySubtaskWithCallersRequestId() {
+        // given
+        DataMapHolder.initialise("requestId");
+
+        // when
+        try (ShutdownOnFailureScope scope = new ShutdownOnFailureScope(executor)) {
+            Supplier<Integer> first = scope.fork(() -> 1);
+            Supplier<String> second = scope.fork(DataMapHolder::getRequestId);
+            scope.join();
+
+            // then
+            assertEquals(1, first.get());
+            assertEquals("requestId", second.get());
+        }
+    }
+
+    @Test
+    void shouldCancelRemainingSubtasksAndRethrowFirstFailure() throws InterruptedException {
+        // given
+        BadRequestException failure = new BadRequestException("failed");
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        // when
+        try (ShutdownOnFailureScope scope = new ShutdownOnFailureScope(executor)) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+            scope.fork(() -> {
+                throw failure;
+            });
+
+            // then
+            assertSame(failure, assertThrows(BadRequestException.class, scope::join));
+        }
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,86 @@
+package uk.gov.companieshouse.company_appointments.officerappointments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import org.apache.commons.io.IOUtils;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers
+class SortKeyBackfillRunnerITest {
+
+    private static final String COLLECTION = "delta_appointments";
+
+    @Container
+    private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:5");
+
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mongoTemplate = new MongoTemplate(new SimpleMongoClientDatabaseFactory(mongoDBContainer.getReplicaSetUrl()));
+        mongoTemplate.dropCollection(COLLECTION);
+        for (String resource : new String[]{"/appointment-data.json", "/appointment-data2.json",
+                "/appointment-data5.json"}) {
+            mongoTemplate.insert(Document.parse(IOUtils.resourceToString(resource, StandardCharsets.UTF_8)),
+                    COLLECTION);
+        }
+    }
+
+    @DisplayName("Backfill sets the sort bucket and sort date on documents without them and creates the index")
+    @Test
+    void backfillSortKeys() {
+        // given
+        SortKeyBackfillRunner runner = new SortKeyBackfillRunner(mongoTemplate, 2);
+
+        // when
+        runner.run(null);
+
+        // then
+        assertSortKeys("active_appointed_on_1", 0, "2025-08-26T12:00:00Z");
+        assertSortKeys("active_resigned_on_1", 1, "2024-08-26T12:00:00Z");
+        assertSortKeys("active_appointed_before_1", 0, "2018-08-26T00:00:00Z");
+        assertTrue(mongoTemplate.getCollection(COLLECTION).listIndexes()
+                .map(index -> index.getString("name"))
+                .into(new ArrayList<>())
+                .contains(SortKeyBackfillRunner.SORT_KEYS_INDEX));
+    }
+
+    @DisplayName("Backfill leaves documents that already have sort keys untouched")
+    @Test
+    void backfillSkipsDocumentsWithSortKeys() {
+        // given
+        mongoTemplate.getCollection(COLLECTION).updateOne(new Document("_id", "active_appointed_on_1"),
+                new Document("$set", new Document("sort_bucket", 0).append("sort_date", null)));
+        SortKeyBackfillRunner runner = new SortKeyBackfillRunner(mongoTemplate, 2);
+
+        // when
+        runner.run(null);
+
+        // then
+        Document document = mongoTemplate.getCollection(COLLECTION)
+                .find(new Document("_id", "active_appointed_on_1")).first();
+        assertFalse(document.get("sort_date") instanceof Date);
+        assertSortKeys("active_resigned_on_1", 1, "2024-08-26T12:00:00Z");
+    }
+
+    private void assertSortKeys(String id, int expectedBucket, String expectedDate) {
+        Document document = mongoTemplate.getCollection(COLLECTION).find(new Document("_id", id)).first();
+        assertEquals(expectedBucket, document.getInteger("sort_bucket"));
+        assertEquals(Date.from(Instant.parse(expectedDate)), document.getDate("sort_date"));
+    }
+}
@@ -1,21 +1,29 @@
 package uk.gov.companieshouse.company_appointments.officerappointments;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 class SortingThresholdServiceTest {
 
+    private static final Duration LATENCY_SLO = Duration.ofMillis(200);
+    private static final String INTERNAL_APP_PRIVILEGES = "internal-app";
+
     @ParameterizedTest
     @MethodSource("sortingThresholdScenarios")
     void testShouldSortByActiveThenResignedGivenTotalResultsAndThresholds(SortingThresholdTestArgument argument) {
         // given
         SortingThresholdService service = new SortingThresholdService(argument.internalSortingThreshold(),
-                argument.externalSortingThreshold());
+                argument.externalSortingThreshold(), false, LATENCY_SLO, 10, 1000, new SimpleMeterRegistry());
 
         // when
         boolean actual = service.shouldSortByActiveThenResigned(argument.totalResults(), argument.authPrivileges());
@@ -24,6 +32,159 @@ class SortingThresholdServiceTest {
         assertEquals(argument.expected(), actual);
     }
 
+    @Test
+    void shouldStartAdaptiveThresholdsFromConfiguredThresholdsWithinBounds() {
+        // given
+        SortingThresholdService service = new SortingThresholdService(-1, 5, true, LATENCY_SLO, 10, 1000,
+                new SimpleMeterRegistry());
+
+        // when
+        int internal = service.getSortingThreshold(INTERNAL_APP_PRIVILEGES);
+        int external = service.getSortingThreshold(null);
+
+        // then
+        assertEquals(1000, internal);
+        assertEquals(10, external);
+    }
+
+    @Test
+    void shouldLowerAdaptiveThresholdWhenAggregationIsSlowerThanSlo() {
+        // given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SortingThresholdService service = new SortingThresholdService(500, 500, true, LATENCY_SLO, 10, 1000,
+                meterRegistry);
+
+        // when
+        recordLinearLatencies(service, null, Duration.ofMillis(20), Duration.ofMillis(1));
+
+        // then
+        assertEquals(180, service.getSortingThreshold(null));
+        assertEquals(500, service.getSortingThreshold(INTERNAL_APP_PRIVILEGES));
+        assertEquals(180.0, meterRegistry.get("officer.appointments.sorting.threshold")
+                .tag("tier", SortingThresholdService.EXTERNAL).gauge().value());
+        assertEquals(1.0, meterRegistry.get("officer.appointments.sorting.threshold.adjustments")
+                .tag("tier", SortingThresholdService.EXTERNAL).tag("direction", "decrease").counter().count());
+        assertFalse(service.shouldSortByActiveThenResigned(181, null));
+    }
+
+    @Test
+    void shouldRaiseAdaptiveThresholdNoHigherThanMaximumWhenAggregationIsFast() {
+        // given
+        SortingThresholdService service = new SortingThresholdService(500, 500, true, LATENCY_SLO, 10, 1000,
+                new SimpleMeterRegistry());
+
+        // when
+        recordLinearLatencies(service, INTERNAL_APP_PRIVILEGES, Duration.ofMillis(1), Duration.ofNanos(10_000));
+
+        // then
+        assertEquals(1000, service.getSortingThreshold(INTERNAL_APP_PRIVILEGES));
+        assertTrue(service.shouldSortByActiveThenResigned(1000, INTERNAL_APP_PRIVILEGES));
+    }
+
+    @Test
+    void shouldNotMistakeFixedCostOfSmallSortsForCostPerAppointment() {
+        // given
+        SortingThresholdService service = new SortingThresholdService(500, 500, true, LATENCY_SLO, 10, 1000,
+                new SimpleMeterRegistry());
+
+        // when
+        // 30ms per sort and 0.1ms per appointment: 3ms per appointment for the smallest officer sampled
+        recordLinearLatencies(service, null, Duration.ofMillis(30), Duration.ofNanos(100_000));
+
+        // then
+        assertEquals(1000, service.getSortingThreshold(null));
+    }
+
+    @Test
+    void shouldIgnoreSmallAdjustmentsToAdaptiveThreshold() {
+        // given
+        SortingThresholdService service = new SortingThresholdService(500, 500, true, LATENCY_SLO, 10, 1000,
+                new SimpleMeterRegistry());
+
+        // when
+        recordLinearLatencies(service, null, Duration.ofMillis(20), Duration.ofNanos(375_000));
+
+        // then
+        assertEquals(500, service.getSortingThreshold(null));
+    }
+
+    @Test
+    void shouldKeepAdaptiveThresholdUntilSampledTotalsVary() {
+        // given
+        SortingThresholdService service = new SortingThresholdService(500, 500, true, LATENCY_SLO, 10, 1000,
+                new SimpleMeterRegistry());
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            service.recordSortedAggregation(100, null, Duration.ofMillis(400));
+        }
+
+        // then
+        assertEquals(500, service.getSortingThreshold(null));
+    }
+
+    @Test
+    void shouldIgnoreAggregationLatencyWhenNotAdaptive() {
+        // given
+        SortingThresholdService service = new SortingThresholdService(500, 500, false, LATENCY_SLO, 10, 1000,
+                new SimpleMeterRegistry());
+
+        // when
+        service.recordSortedAggregation(100, null, Duration.ofMillis(400));
+
+        // then
+        assertEquals(500, service.getSortingThreshold(null));
+    }
+
+    @Test
+    void shouldCountSortOrderDecisions() {
+        // given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SortingThresholdService service = new SortingThresholdService(500, 25, false, LATENCY_SLO, 10, 1000,
+                meterRegistry);
+
+        // when
+        service.shouldSortByActiveThenResigned(10, null);
+        service.shouldSortByActiveThenResigned(30, null);
+        service.shouldSortByActiveThenResigned(30, null);
+
+        // then
+        assertEquals(1.0, meterRegistry.get("officer.appointments.sorting.decisions")
+                .tag("tier", SortingThresholdService.EXTERNAL).tag("order", "active_then_resigned").counter().count());
+        assertEquals(2.0, meterRegistry.get("officer.appointments.sorting.decisions")
+                .tag("tier", SortingThresholdService.EXTERNAL).tag("order", "recent").counter().count());
+    }
+
+    @Test
+    void shouldCountSortOrderDecisionsMadeElsewhere() {
+        // given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SortingThresholdService service = new SortingThresholdService(500, 25, false, LATENCY_SLO, 10, 1000,
+                meterRegistry);
+
+        // when
+        service.countDecision(INTERNAL_APP_PRIVILEGES, true);
+        service.countDecision(INTERNAL_APP_PRIVILEGES, false);
+
+        // then
+        assertEquals(1.0, meterRegistry.get("officer.appointments.sorting.decisions")
+                .tag("tier", SortingThresholdService.INTERNAL).tag("order", "active_then_resigned").counter().count());
+        assertEquals(1.0, meterRegistry.get("officer.appointments.sorting.decisions")
+                .tag("tier", SortingThresholdService.INTERNAL).tag("order", "recent").counter().count());
+    }
+
+    /**
+     * Records sorts of officers with between 20 and 100 appointments taking the fixed latency plus the latency per
+     * appointment.
+     */
+    private static void recordLinearLatencies(SortingThresholdService service, String authPrivileges,
+            Duration fixedLatency, Duration latencyPerAppointment) {
+        for (int totalResults : new int[]{20, 100, 50, 80, 30, 60}) {
+            service.recordSortedAggregation(totalResults, authPrivileges,
+                    fixedLatency.plus(latencyPerAppointment.multipliedBy(totalResults)));
+        }
+    }
+
     private static Stream<Arguments> sortingThresholdScenarios() {
         return Stream.of(
                 Arguments.of(
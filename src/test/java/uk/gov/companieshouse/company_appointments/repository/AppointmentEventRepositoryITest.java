@@ -0,0 +1,116 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.companieshouse.company_appointments.model.data.AppointmentEvent;
+
+@Testcontainers
+class AppointmentEventRepositoryITest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:01:00Z");
+    private static final String DEAD_LETTER_COLLECTION = "appointment_events_dead_letter";
+
+    @Container
+    private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:5");
+
+    private MongoTemplate mongoTemplate;
+    private AppointmentEventRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = new MongoTemplate(new SimpleMongoClientDatabaseFactory(mongoDBContainer.getReplicaSetUrl()));
+        mongoTemplate.dropCollection(AppointmentEvent.class);
+        mongoTemplate.dropCollection(DEAD_LETTER_COLLECTION);
+        repository = new AppointmentEventRepositoryImpl(mongoTemplate);
+        repository.ensureIndexes();
+    }
+
+    @DisplayName("Indexes the outbox by next attempt and by appointment, each in event order")
+    @Test
+    void ensureIndexesCreatesOutboxIndexes() {
+        // when
+        repository.ensureIndexes();
+
+        // then
+        List<Document> keys = mongoTemplate.getCollection(mongoTemplate.getCollectionName(AppointmentEvent.class))
+                .listIndexes().map(index -> index.get("key", Document.class)).into(new ArrayList<>());
+        assertTrue(keys.contains(new Document("next_attempt_at", 1).append("_id", 1)));
+        assertTrue(keys.contains(new Document("appointment_id", 1).append("_id", 1)));
+    }
+
+    @DisplayName("Finds the events of appointments whose earliest event is due, skipping those backing off")
+    @Test
+    void findDueSkipsAppointmentsWhoseEarliestEventIsNotDue() {
+        // given
+        mongoTemplate.insertAll(List.of(
+                event("1", "backingOff", NOW.plusSeconds(60)),
+                event("2", "due", NOW.minusSeconds(60)),
+                event("3", "backingOff", NOW.minusSeconds(60)),
+                event("4", "due", NOW.plusSeconds(60)),
+                event("5", "alsoDue", NOW)));
+
+        // when
+        List<AppointmentEvent> events = repository.findDue(NOW, 10);
+
+        // then
+        assertEquals(List.of("2", "4", "5"), events.stream().map(AppointmentEvent::getId).toList());
+    }
+
+    @DisplayName("Finds no more events than the limit, oldest first")
+    @Test
+    void findDueLimitsEvents() {
+        // given
+        mongoTemplate.insertAll(List.of(
+                event("1", "first", NOW),
+                event("2", "second", NOW),
+                event("3", "first", NOW)));
+
+        // when
+        List<AppointmentEvent> events = repository.findDue(NOW, 2);
+
+        // then
+        assertEquals(List.of("1", "2"), events.stream().map(AppointmentEvent::getId).toList());
+    }
+
+    @DisplayName("Moves a dead lettered event out of the outbox")
+    @Test
+    void deadLetterMovesEvent() {
+        // given
+        AppointmentEvent event = event("1", "appointmentId", NOW);
+        mongoTemplate.insert(event);
+
+        // when
+        repository.deadLetter(event.attempts(10));
+
+        // then
+        assertNull(mongoTemplate.findById("1", AppointmentEvent.class));
+        Document deadLettered = mongoTemplate.getCollection(DEAD_LETTER_COLLECTION)
+                .find(new Document("_id", "1")).first();
+        assertEquals("appointmentId", deadLettered.getString("appointment_id"));
+        assertEquals(10, deadLettered.getInteger("attempts"));
+    }
+
+    private static AppointmentEvent event(String id, String appointmentId, Instant nextAttemptAt) {
+        return new AppointmentEvent()
+                .id(id)
+                .type(AppointmentEvent.Type.RESOURCE_CHANGED)
+                .companyNumber("12345678")
+                .appointmentId(appointmentId)
+                .createdAt(NOW)
+                .nextAttemptAt(nextAttemptAt);
+    }
+}
@@ -1,17 +1,28 @@
 package uk.gov.companieshouse.company_appointments.repository;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static uk.gov.companieshouse.company_appointments.roles.DirectorRoles.DIRECTOR;
+import static uk.gov.companieshouse.company_appointments.roles.LlpRoles.LLP_MEMBER;
 import static uk.gov.companieshouse.company_appointments.roles.SecretarialRoles.SECRETARY;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.apache.commons.io.IOUtils;
 import org.bson.Document;
 import org.junit.jupiter.api.BeforeAll;
@@ -20,17 +31,26 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.companieshouse.api.appointment.OfficerSummary;
 import uk.gov.companieshouse.company_appointments.CompanyAppointmentsApplication;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
+import uk.gov.companieshouse.company_appointments.mapper.CompanyAppointmentMapper;
 import uk.gov.companieshouse.company_appointments.mapper.SortMapper;
+import uk.gov.companieshouse.company_appointments.model.CompanyAppointmentsContinuationToken;
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentsPage;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaTimestamp;
 import uk.gov.companieshouse.company_appointments.roles.DirectorRoles;
 import uk.gov.companieshouse.company_appointments.roles.LlpRoles;
 import uk.gov.companieshouse.company_appointments.roles.SecretarialRoles;
@@ -50,6 +70,7 @@ class CompanyAppointmentRepositoryTest {
     private static final LocalDateTime RESIGNED_ON_BASE = LocalDateTime.of(2022, 1, 1, 10, 0);
     private static final String SURNAME = "Surname";
     private static final String COLLECTION = "delta_appointments";
+    private static final String ALL_FIELDS_APPOINTMENT_ID = "all_fields_appointment";
 
     @Container
     private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:5");
@@ -58,6 +79,8 @@ class CompanyAppointmentRepositoryTest {
     private CompanyAppointmentRepository repository;
     @Autowired
     private MongoTemplate mongoTemplate;
+    @Autowired
+    private CompanyAppointmentMapper companyAppointmentMapper;
 
     private Document templateDocument;
 
@@ -347,6 +370,317 @@ class CompanyAppointmentRepositoryTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void shouldFindPageOfAppointmentsWithCountsForCompany() {
+        // given
+        insertAppointment(APPOINTMENT_ID + 1, SURNAME + "B", SECRETARY.getRole(), APPOINTED_ON_BASE,
+                null);
+        insertAppointment(APPOINTMENT_ID + 2, SURNAME + "A", DIRECTOR.getRole(),
+                APPOINTED_ON_BASE.plusDays(2), null);
+        insertAppointment(APPOINTMENT_ID + 3, SURNAME + "C", DIRECTOR.getRole(),
+                APPOINTED_ON_BASE.plusDays(1), null);
+        insertAppointment(APPOINTMENT_ID + 4, SURNAME + "D", LLP_MEMBER.getRole(),
+                APPOINTED_ON_BASE.plusDays(1), null);
+        insertAppointment(APPOINTMENT_ID + 5, SURNAME + "A", DIRECTOR.getRole(),
+                APPOINTED_ON_BASE.plusDays(1), RESIGNED_ON_BASE);
+
+        // when
+        CompanyAppointmentsPage result = repository.getCompanyAppointmentsPage(COMPANY_NUMBER,
+                null, null, 1, 2, false, false);
+
+        // then
+        assertEquals(List.of(APPOINTMENT_ID + 2, APPOINTMENT_ID + 3), result.getItems().stream()
+                .map(CompanyAppointmentDocument::getId)
+                .toList());
+        assertEquals(5, result.getTotalCount());
+        assertEquals(4, result.getActiveCount());
+        assertEquals(1, result.getResignedCount());
+        assertEquals(2, result.getActiveDirectorsCount());
+        assertEquals(1, result.getActiveSecretariesCount());
+        assertEquals(1, result.getActiveLlpMembersCount());
+    }
+
+    @Test
+    void shouldFindPageOfRegisterViewAppointmentsWithCompanyCounts() {
+        // given
+        insertAppointment(APPOINTMENT_ID + 1, SURNAME + "B", SECRETARY.getRole(), APPOINTED_ON_BASE,
+                null);
+        insertAppointment(APPOINTMENT_ID + 2, SURNAME + "A", DIRECTOR.getRole(),
+                APPOINTED_ON_BASE.plusDays(2), null);
+        insertAppointment(APPOINTMENT_ID + 3, SURNAME + "A", DIRECTOR.getRole(),
+                APPOINTED_ON_BASE.plusDays(1), RESIGNED_ON_BASE);
+
+        // when
+        CompanyAppointmentsPage result = repository.getCompanyAppointmentsPage(COMPANY_NUMBER,
+                null, REGISTER_TYPE_DIRECTORS, 0, 5, true, false);
+
+        // then
+        assertEquals(1, result.getItems().size());
+        assertEquals(APPOINTMENT_ID + 2, result.getItems().getFirst().getId());
+        assertEquals(3, result.getTotalCount());
+        assertEquals(1, result.getActiveDirectorsCount());
+        assertEquals(1, result.getActiveSecretariesCount());
+        assertEquals(0, result.getActiveLlpMembersCount());
+    }
+
+    @Test
+    void shouldFindEtagsOfPageWithCountsForCompany() {
+        // given
+        insertAppointment(APPOINTMENT_ID + 1, SURNAME + "B", SECRETARY.getRole(), APPOINTED_ON_BASE,
+                null);
+        insertAppointment(APPOINTMENT_ID + 2, SURNAME + "A", DIRECTOR.getRole(),
+                APPOINTED_ON_BASE.plusDays(2), null);
+        insertAppointment(APPOINTMENT_ID + 3, SURNAME + "C", DIRECTOR.getRole(),
+                APPOINTED_ON_BASE.plusDays(1), RESIGNED_ON_BASE);
+
+        // when
+        CompanyAppointmentsPage result = repository.getCompanyAppointmentEtagsPage(COMPANY_NUMBER,
+                "surname", null, 0, 2, false, false);
+
+        // then
+        assertEquals(List.of(APPOINTMENT_ID + 2, APPOINTMENT_ID + 1), result.getItems().stream()
+                .map(CompanyAppointmentDocument::getId)
+                .toList());
+        CompanyAppointmentDocument first = result.getItems().getFirst();
+        assertNotNull(first.getData().getEtag());
+        assertEquals(SURNAME + "A", first.getData().getSurname());
+        assertNull(first.getData().getAppointedOn());
+        assertNull(first.getSensitiveData());
+        assertEquals(3, result.getTotalCount());
+        assertEquals(2, result.getActiveCount());
+        assertEquals(1, result.getResignedCount());
+    }
+
+    @Test
+    void shouldFindEmptyPageWithZeroCountsForCompanyWithoutAppointments() {
+        // when
+        CompanyAppointmentsPage result = repository.getCompanyAppointmentsPage(COMPANY_NUMBER,
+                null, null, 0, 5, false, false);
+
+        // then
+        assertTrue(result.getItems().isEmpty());
+        assertEquals(0, result.getTotalCount());
+        assertEquals(0, result.getActiveCount());
+        assertEquals(0, result.getResignedCount());
+    }
+
+    @ParameterizedTest
+    @NullSource
+    @ValueSource(strings = {"appointed_on", "surname", "resigned_on"})
+    void shouldSeekThroughAppointmentsWithTiedSortValuesInKeysetPages(String orderBy) {
+        // given
+        for (int i = 0; i < 8; i++) {
+            insertAppointment(APPOINTMENT_ID + i, SURNAME + i % 2, i % 2 == 0 ? DIRECTOR.getRole() : SECRETARY.getRole(),
+                    APPOINTED_ON_BASE.plusDays(i % 3), i < 6 ? null : RESIGNED_ON_BASE);
+        }
+        List<String> expected = repository.getCompanyAppointmentsAfter(COMPANY_NUMBER, orderBy, null,
+                        CompanyAppointmentsContinuationToken.decode(null, orderBy), 100, false, false).stream()
+                .map(CompanyAppointmentDocument::getId)
+                .toList();
+
+        // when
+        List<String> actual = new ArrayList<>();
+        CompanyAppointmentsContinuationToken token = CompanyAppointmentsContinuationToken.decode(null, orderBy);
+        while (token != null) {
+            List<CompanyAppointmentDocument> items = repository.getCompanyAppointmentsAfter(COMPANY_NUMBER, orderBy,
+                    null, token, 4, false, false);
+            List<CompanyAppointmentDocument> page = items.subList(0, Math.min(3, items.size()));
+            page.forEach(item -> actual.add(item.getId()));
+            token = items.size() > 3
+                    ? CompanyAppointmentsContinuationToken.decode(repository.continuationTokenAfter(orderBy,
+                    page.getLast(), actual.size()).encode(), orderBy)
+                    : null;
+        }
+
+        // then
+        assertEquals(8, new HashSet<>(expected).size());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void shouldFindPageOfAppointmentsAfterTokenWithCountsForCompany() {
+        // given
+        insertAppointment(APPOINTMENT_ID + 1, SURNAME + "B", SECRETARY.getRole(), APPOINTED_ON_BASE,
+                null);
+        insertAppointment(APPOINTMENT_ID + 2, SURNAME + "A", DIRECTOR.getRole(),
+                APPOINTED_ON_BASE.plusDays(2), null);
+        insertAppointment(APPOINTMENT_ID + 3, SURNAME + "C", DIRECTOR.getRole(),
+                APPOINTED_ON_BASE.plusDays(1), null);
+        insertAppointment(APPOINTMENT_ID + 4, SURNAME + "A", DIRECTOR.getRole(),
+                APPOINTED_ON_BASE.plusDays(1), RESIGNED_ON_BASE);
+        CompanyAppointmentDocument second = repository.readByCompanyNumberAndID(COMPANY_NUMBER, APPOINTMENT_ID + 2)
+                .orElseThrow();
+
+        // when
+        CompanyAppointmentsPage result = repository.getCompanyAppointmentsPageAfter(COMPANY_NUMBER,
+                null, null, repository.continuationTokenAfter(null, second, 2), 5, false, false);
+
+        // then
+        assertEquals(List.of(APPOINTMENT_ID + 3, APPOINTMENT_ID + 4), result.getItems().stream()
+                .map(CompanyAppointmentDocument::getId)
+                .toList());
+        assertEquals(4, result.getTotalCount());
+        assertEquals(3, result.getActiveCount());
+        assertEquals(1, result.getResignedCount());
+    }
+
+    @Test
+    void shouldRejectContinuationTokenWithPositionForAnotherSort() {
+        // given
+        CompanyAppointmentsContinuationToken token = new CompanyAppointmentsContinuationToken("surname",
+                List.of(APPOINTMENT_ID), 1);
+
+        // when
+        Executable executable = () -> repository.getCompanyAppointmentsAfter(COMPANY_NUMBER, "surname", null, token,
+                5, false, false);
+
+        // then
+        assertThrows(BadRequestException.class, executable);
+    }
+
+    @Test
+    void shouldFindRegisterViewAndActiveAppointmentsOnBackfilledRegisterClassification() {
+        // given
+        insertAppointment(APPOINTMENT_ID + 1, SURNAME + "B", SECRETARY.getRole(), APPOINTED_ON_BASE,
+                null);
+        insertAppointment(APPOINTMENT_ID + 2, SURNAME + "A", DIRECTOR.getRole(),
+                APPOINTED_ON_BASE.plusDays(2), null);
+        insertAppointment(APPOINTMENT_ID + 3, SURNAME + "A", DIRECTOR.getRole(),
+                APPOINTED_ON_BASE.plusDays(1), RESIGNED_ON_BASE);
+        new RegisterClassificationBackfillRunner(mongoTemplate, 2).run(null);
+        CompanyAppointmentRepositoryImpl classifiedRepository = new CompanyAppointmentRepositoryImpl(mongoTemplate,
+                new SortMapper(), true, false);
+
+        // when
+        List<CompanyAppointmentDocument> directors = classifiedRepository.getCompanyAppointments(COMPANY_NUMBER,
+                null, REGISTER_TYPE_DIRECTORS, 0, 5, true, false);
+        List<CompanyAppointmentDocument> active = classifiedRepository.getCompanyAppointments(COMPANY_NUMBER,
+                null, null, 0, 5, false, true);
+        CompanyAppointmentsPage page = classifiedRepository.getCompanyAppointmentsPage(COMPANY_NUMBER,
+                null, null, 0, 5, false, false);
+
+        // then
+        assertEquals(List.of(APPOINTMENT_ID + 2), directors.stream().map(CompanyAppointmentDocument::getId).toList());
+        assertEquals(List.of(APPOINTMENT_ID + 1, APPOINTMENT_ID + 2), active.stream()
+                .map(CompanyAppointmentDocument::getId)
+                .toList());
+        assertEquals(2, page.getActiveCount());
+        assertEquals(1, page.getActiveDirectorsCount());
+        assertEquals(1, page.getActiveSecretariesCount());
+    }
+
+    @Test
+    void shouldProjectEveryFieldReadByCompanyAppointmentMapper() throws IOException {
+        // given
+        mongoTemplate.insert(Document.parse(
+                IOUtils.resourceToString("/appointment-data-all-fields.json", StandardCharsets.UTF_8)), COLLECTION);
+        CompanyAppointmentDocument stored = mongoTemplate.findById(ALL_FIELDS_APPOINTMENT_ID,
+                CompanyAppointmentDocument.class);
+        // a field missing from the fixture could be read by the mapper without the comparison noticing
+        assertAllFieldsPopulated(stored);
+        assertAllFieldsPopulated(stored.getData());
+        assertAllFieldsPopulated(stored.getSensitiveData());
+        OfficerSummary expected = companyAppointmentMapper.map(stored);
+
+        // when
+        List<CompanyAppointmentDocument> listed = repository.getCompanyAppointments(COMPANY_NUMBER,
+                null, null, 0, 5, false, false);
+        List<CompanyAppointmentDocument> listedAfter = repository.getCompanyAppointmentsAfter(COMPANY_NUMBER,
+                null, null, CompanyAppointmentsContinuationToken.decode(null, null), 5, false, false);
+        CompanyAppointmentsPage page = repository.getCompanyAppointmentsPage(COMPANY_NUMBER,
+                null, null, 0, 5, false, false);
+
+        // then
+        assertEquals(expected, companyAppointmentMapper.map(listed.getFirst()));
+        assertEquals(expected, companyAppointmentMapper.map(listedAfter.getFirst()));
+        assertEquals(expected, companyAppointmentMapper.map(page.getItems().getFirst()));
+        assertNull(listed.getFirst().getSensitiveData().getUsualResidentialAddress());
+        assertNull(listed.getFirst().getInternalId());
+    }
+
+    @Test
+    void shouldFindAppointmentsForCompanyByIds() {
+        // given
+        insertAppointment(APPOINTMENT_ID + 1, SURNAME, DIRECTOR.getRole(), APPOINTED_ON_BASE, null);
+        insertAppointment(APPOINTMENT_ID + 2, SURNAME, DIRECTOR.getRole(), APPOINTED_ON_BASE, null);
+        insertAppointment(APPOINTMENT_ID + 3, SURNAME, DIRECTOR.getRole(), APPOINTED_ON_BASE, null);
+        templateDocument.put("company_number", "87654321");
+        insertAppointment(APPOINTMENT_ID + 4, SURNAME, DIRECTOR.getRole(), APPOINTED_ON_BASE, null);
+
+        // when
+        List<CompanyAppointmentDocument> result = repository.readByCompanyNumberAndIDs(COMPANY_NUMBER,
+                List.of(APPOINTMENT_ID + 3, APPOINTMENT_ID + 1, APPOINTMENT_ID + 4, "missing"));
+
+        // then
+        assertEquals(Set.of(APPOINTMENT_ID + 1, APPOINTMENT_ID + 3), result.stream()
+                .map(CompanyAppointmentDocument::getId)
+                .collect(Collectors.toSet()));
+    }
+
+    @Test
+    void shouldUpsertAppointmentAndReturnPreviousStateUnlessStoredDeltaIsLater() {
+        // given
+        insertAppointment(APPOINTMENT_ID + 1, SURNAME, DIRECTOR.getRole(), APPOINTED_ON_BASE, null);
+        CompanyAppointmentDocument existing = repository.findById(APPOINTMENT_ID + 1).orElseThrow();
+        CompanyAppointmentDocument newer = repository.findById(APPOINTMENT_ID + 1).orElseThrow();
+        newer.deltaAt(newer.getDeltaAt().plusSeconds(60))
+                .officerId("newOfficerId")
+                .previousOfficerId(null)
+                .created(new DeltaTimestamp(Instant.parse("2024-01-01T00:00:00Z")))
+                .getData().setSurname("Newer");
+        CompanyAppointmentDocument stale = repository.findById(APPOINTMENT_ID + 1).orElseThrow();
+        stale.deltaAt(stale.getDeltaAt().minusSeconds(60)).getData().setSurname("Stale");
+        CompanyAppointmentDocument inserted = repository.findById(APPOINTMENT_ID + 1).orElseThrow();
+        inserted.id(APPOINTMENT_ID + 2).appointmentId(APPOINTMENT_ID + 2)
+                .created(new DeltaTimestamp(Instant.parse("2024-01-01T00:00:00Z")));
+
+        // when
+        Optional<CompanyAppointmentDocument> updatedResult = repository.upsertOneUnlessStale(newer);
+        Executable staleResult = () -> repository.upsertOneUnlessStale(stale);
+        Optional<CompanyAppointmentDocument> insertedResult = repository.upsertOneUnlessStale(inserted);
+
+        // then
+        assertEquals(existing.getOfficerId(), updatedResult.orElseThrow().getOfficerId());
+        assertEquals(existing.getDeltaAt(), updatedResult.orElseThrow().getDeltaAt());
+        assertNull(updatedResult.orElseThrow().getData().getSurname());
+        assertThrows(DuplicateKeyException.class, staleResult);
+        assertTrue(insertedResult.isEmpty());
+
+        CompanyAppointmentDocument updated = repository.findById(APPOINTMENT_ID + 1).orElseThrow();
+        assertEquals("Newer", updated.getData().getSurname());
+        assertEquals("newOfficerId", updated.getOfficerId());
+        assertNull(updated.getPreviousOfficerId());
+        assertEquals(existing.getCreated(), updated.getCreated());
+        assertEquals(new DeltaTimestamp(Instant.parse("2024-01-01T00:00:00Z")),
+                repository.findById(APPOINTMENT_ID + 2).orElseThrow().getCreated());
+    }
+
+    @Test
+    void shouldRejectDeltaWithStoredEtagAndOnlyAdvanceItsDeltaAtWhenSkippingUnchangedDeltas() {
+        // given
+        insertAppointment(APPOINTMENT_ID + 1, SURNAME, DIRECTOR.getRole(), APPOINTED_ON_BASE, null);
+        CompanyAppointmentRepositoryImpl skippingRepository = new CompanyAppointmentRepositoryImpl(mongoTemplate,
+                new SortMapper(), false, true);
+        CompanyAppointmentDocument existing = repository.findById(APPOINTMENT_ID + 1).orElseThrow();
+        CompanyAppointmentDocument unchanged = repository.findById(APPOINTMENT_ID + 1).orElseThrow();
+        unchanged.deltaAt(unchanged.getDeltaAt().plusSeconds(60))
+                .updatedBy("anotherUpdatedBy");
+        CompanyAppointmentDocument changed = repository.findById(APPOINTMENT_ID + 1).orElseThrow();
+        changed.deltaAt(changed.getDeltaAt().plusSeconds(60)).getData().setEtag("changedEtag");
+
+        // when
+        Executable unchangedResult = () -> skippingRepository.upsertOneUnlessStale(unchanged);
+        skippingRepository.advanceDeltaAts(List.of(unchanged));
+
+        // then
+        assertThrows(DuplicateKeyException.class, unchangedResult);
+        CompanyAppointmentDocument advanced = repository.findById(APPOINTMENT_ID + 1).orElseThrow();
+        assertEquals(unchanged.getDeltaAt(), advanced.getDeltaAt());
+        assertEquals(existing.getUpdatedBy(), advanced.getUpdatedBy());
+        assertTrue(skippingRepository.upsertOneUnlessStale(changed).isPresent());
+        assertEquals("changedEtag", repository.findById(APPOINTMENT_ID + 1).orElseThrow().getData().getEtag());
+    }
+
     @SuppressWarnings({"unchecked"})
     private void insertAppointment(String appointmentId, String surname, String officerRole,
             LocalDateTime appointedOn, LocalDateTime resignedOn) {
@@ -388,4 +722,18 @@ class CompanyAppointmentRepositoryTest {
 
         mongoTemplate.insert(templateDocument, "delta_appointments");
     }
-}
\ No newline at end of file
+
+    private static void assertAllFieldsPopulated(Object object) {
+        for (Field field : object.getClass().getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            field.setAccessible(true);
+            try {
+                assertNotNull(field.get(object), "Fixture does not populate " + field.getName());
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.gov.companieshouse.company_appointments.repository.DeltaAppointmentsIndexes.COLLECTION;
+
+import com.mongodb.client.model.IndexOptions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers
+class DeltaAppointmentsIndexManagerITest {
+
+    @Container
+    private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:5");
+    private static final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = new MongoTemplate(new SimpleMongoClientDatabaseFactory(mongoDBContainer.getReplicaSetUrl()));
+        mongoTemplate.dropCollection(COLLECTION);
+        mongoTemplate.createCollection(COLLECTION);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        executor.close();
+    }
+
+    @DisplayName("Creates every missing declared index and reports healthy once they are built")
+    @Test
+    void createsMissingIndexes() {
+        // given
+        DeltaAppointmentsIndexManager manager = new DeltaAppointmentsIndexManager(mongoTemplate, executor, true,
+                true);
+
+        // when
+        manager.ensureIndexes().join();
+
+        // then
+        List<String> names = indexNames();
+        DeltaAppointmentsIndexes.ALL.forEach(declared -> assertTrue(names.contains(declared.name())));
+        assertEquals(Status.UP, manager.health().getStatus());
+    }
+
+    @DisplayName("Accepts an existing index with the declared keys under a different name")
+    @Test
+    void acceptsRenamedIndex() {
+        // given
+        mongoTemplate.getCollection(COLLECTION).createIndex(DeltaAppointmentsIndexes.OFFICER_COUNTS.keys(),
+                new IndexOptions().name("legacy_officer_counts"));
+        DeltaAppointmentsIndexManager manager = new DeltaAppointmentsIndexManager(mongoTemplate, executor, true,
+                true);
+
+        // when
+        manager.ensureIndexes().join();
+
+        // then
+        assertFalse(indexNames().contains(DeltaAppointmentsIndexes.OFFICER_COUNTS.name()));
+        assertEquals(Status.UP, manager.health().getStatus());
+    }
+
+    @DisplayName("Reports DOWN when failing on drift and an index name is taken by a different definition")
+    @Test
+    void reportsConflictingIndexAsDrift() {
+        // given
+        mongoTemplate.getCollection(COLLECTION).createIndex(new Document("company_number", 1),
+                new IndexOptions().name(DeltaAppointmentsIndexes.COMPANY_SURNAME_ORDER.name()));
+        DeltaAppointmentsIndexManager manager = new DeltaAppointmentsIndexManager(mongoTemplate, executor, true,
+                true);
+
+        // when
+        manager.ensureIndexes().join();
+
+        // then
+        assertEquals(DeltaAppointmentsIndexes.ALL.size() + 1, indexNames().size());
+        assertEquals(Status.DOWN, manager.health().getStatus());
+    }
+
+    @DisplayName("Only reports missing indexes when not creating them, staying UP unless failing on drift")
+    @Test
+    void reportsMissingIndexesWithoutCreatingThem() {
+        // given
+        DeltaAppointmentsIndexManager failing = new DeltaAppointmentsIndexManager(mongoTemplate, executor, false,
+                true);
+        DeltaAppointmentsIndexManager warning = new DeltaAppointmentsIndexManager(mongoTemplate, executor, false,
+                false);
+
+        // when
+        failing.ensureIndexes().join();
+        warning.ensureIndexes().join();
+
+        // then
+        assertEquals(List.of("_id_"), indexNames());
+        assertEquals(Status.DOWN, failing.health().getStatus());
+        assertEquals(Status.UP, warning.health().getStatus());
+    }
+
+    private List<String> indexNames() {
+        return mongoTemplate.getCollection(COLLECTION).listIndexes()
+                .map(index -> index.getString("name"))
+                .into(new ArrayList<>());
+    }
+}
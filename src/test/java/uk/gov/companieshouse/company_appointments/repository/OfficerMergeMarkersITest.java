@@ -0,0 +1,72 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers
+class OfficerMergeMarkersITest {
+
+    private static final String KEY = "officer_id/previous_officer_id";
+    private static final Instant NOW = Instant.parse("2024-05-06T12:00:00Z");
+    private static final Duration WINDOW = Duration.ofMinutes(5);
+
+    @Container
+    private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:5");
+
+    private OfficerMergeMarkers markers;
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = new MongoTemplate(
+                new SimpleMongoClientDatabaseFactory(mongoDBContainer.getReplicaSetUrl()));
+        mongoTemplate.dropCollection(OfficerMergeMarkers.COLLECTION);
+        markers = new OfficerMergeMarkers(mongoTemplate);
+        markers.run(null);
+    }
+
+    @DisplayName("A marker can only be claimed again once it has expired or been released")
+    @Test
+    void claimMarker() {
+        // given
+        Instant expiresAt = NOW.plus(WINDOW);
+
+        // when
+        boolean first = markers.claim(KEY, NOW, expiresAt);
+        boolean whileLive = markers.claim(KEY, NOW.plusSeconds(1), NOW.plus(WINDOW).plusSeconds(1));
+        boolean afterExpiry = markers.claim(KEY, expiresAt, expiresAt.plus(WINDOW));
+
+        // then
+        assertTrue(first);
+        assertFalse(whileLive);
+        assertTrue(afterExpiry);
+    }
+
+    @DisplayName("Releasing a marker allows it to be claimed again, unless it has since been claimed afresh")
+    @Test
+    void releaseMarker() {
+        // given
+        Instant expiresAt = NOW.plus(WINDOW);
+        markers.claim(KEY, NOW, expiresAt);
+
+        // when
+        markers.release(KEY, NOW);
+        boolean afterStaleRelease = markers.claim(KEY, NOW, expiresAt);
+        markers.release(KEY, expiresAt);
+        boolean afterRelease = markers.claim(KEY, NOW, expiresAt);
+
+        // then
+        assertFalse(afterStaleRelease);
+        assertTrue(afterRelease);
+    }
+}
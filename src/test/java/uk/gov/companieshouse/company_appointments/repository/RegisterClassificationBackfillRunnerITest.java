@@ -0,0 +1,85 @@
+package uk.gov.companieshouse.company_appointments.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import org.apache.commons.io.IOUtils;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers
+class RegisterClassificationBackfillRunnerITest {
+
+    private static final String COLLECTION = "delta_appointments";
+
+    @Container
+    private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:5");
+
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mongoTemplate = new MongoTemplate(new SimpleMongoClientDatabaseFactory(mongoDBContainer.getReplicaSetUrl()));
+        mongoTemplate.dropCollection(COLLECTION);
+        for (String resource : new String[]{"/appointment-data.json", "/appointment-data2.json",
+                "/appointment-data7.json"}) {
+            mongoTemplate.insert(Document.parse(IOUtils.resourceToString(resource, StandardCharsets.UTF_8)),
+                    COLLECTION);
+        }
+    }
+
+    @DisplayName("Backfill sets the register type and active flag on documents without them and creates the index")
+    @Test
+    void backfillRegisterClassification() {
+        // given
+        RegisterClassificationBackfillRunner runner = new RegisterClassificationBackfillRunner(mongoTemplate, 2);
+
+        // when
+        runner.run(null);
+
+        // then
+        assertClassification("active_appointed_on_1", "directors", true);
+        assertClassification("active_resigned_on_1", "secretaries", false);
+        assertClassification("active_appointed_before_2", "secretaries", true);
+        assertTrue(mongoTemplate.getCollection(COLLECTION).listIndexes()
+                .map(index -> index.getString("name"))
+                .into(new ArrayList<>())
+                .contains(RegisterClassificationBackfillRunner.ACTIVE_REGISTER_INDEX));
+    }
+
+    @DisplayName("Backfill leaves documents that already have a classification untouched")
+    @Test
+    void backfillSkipsClassifiedDocuments() {
+        // given
+        mongoTemplate.getCollection(COLLECTION).updateOne(new Document("_id", "active_appointed_on_1"),
+                new Document("$set", new Document("is_active", false)));
+        RegisterClassificationBackfillRunner runner = new RegisterClassificationBackfillRunner(mongoTemplate, 2);
+
+        // when
+        runner.run(null);
+
+        // then
+        Document document = mongoTemplate.getCollection(COLLECTION)
+                .find(new Document("_id", "active_appointed_on_1")).first();
+        assertNull(document.get("register_type"));
+        assertEquals(false, document.getBoolean("is_active"));
+        assertClassification("active_resigned_on_1", "secretaries", false);
+    }
+
+    private void assertClassification(String id, String expectedRegisterType, boolean expectedActive) {
+        Document document = mongoTemplate.getCollection(COLLECTION).find(new Document("_id", id)).first();
+        assertEquals(expectedRegisterType, document.getString("register_type"));
+        assertEquals(expectedActive, document.getBoolean("is_active"));
+    }
+}
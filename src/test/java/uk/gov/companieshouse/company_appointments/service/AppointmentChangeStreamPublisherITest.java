@@ -0,0 +1,252 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.commons.io.IOUtils;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.companieshouse.company_appointments.api.ResourceChangedApiService;
+import uk.gov.companieshouse.company_appointments.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.ResourceChangedRequest;
+import uk.gov.companieshouse.company_appointments.repository.ChangeStreamResumeTokens;
+
+@Testcontainers
+class AppointmentChangeStreamPublisherITest {
+
+    private static final String COLLECTION = "delta_appointments";
+    private static final String APPOINTMENT_ID = "all_fields_appointment";
+    private static final String COMPANY_NUMBER = "12345678";
+    private static final ResourceChangedRequest CHANGED_REQUEST = new ResourceChangedRequest(COMPANY_NUMBER,
+            APPOINTMENT_ID, null, false);
+    private static final Map<String, Object> CLEANED_DATA = Map.of("name", "SURNAME, Forename");
+
+    // A single node replica set; pre-images of deleted documents need MongoDB 6.0 or later
+    @Container
+    private static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6");
+
+    private final ResourceChangedApiService resourceChangedApiService = mock(ResourceChangedApiService.class);
+    private final ResourceChangedDataCleaner resourceChangedDataCleaner = mock(ResourceChangedDataCleaner.class);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private MongoTemplate mongoTemplate;
+    private ChangeStreamResumeTokens resumeTokens;
+    private AppointmentChangeStreamPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = new MongoTemplate(new SimpleMongoClientDatabaseFactory(mongoDBContainer.getReplicaSetUrl()));
+        mongoTemplate.dropCollection(COLLECTION);
+        mongoTemplate.dropCollection("change_stream_resume_tokens");
+        mongoTemplate.createCollection(COLLECTION);
+        resumeTokens = new ChangeStreamResumeTokens(mongoTemplate, Clock.systemUTC());
+        publisher = publisher();
+        publisher.run(null);
+        publisher.publishChanges();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.destroy();
+        executor.shutdownNow();
+    }
+
+    @DisplayName("Publishes inserts, and deletes with the deleted appointment read from the pre-image")
+    @Test
+    void publishesInsertAndDelete() throws IOException {
+        // given
+        when(resourceChangedDataCleaner.cleanOutNullValues(any(CompanyAppointmentDocument.class)))
+                .thenReturn(CLEANED_DATA);
+        insertAppointment(APPOINTMENT_ID);
+        mongoTemplate.getCollection(COLLECTION).deleteOne(new Document("_id", APPOINTMENT_ID));
+
+        // when
+        publisher.publishChanges();
+
+        // then
+        ArgumentCaptor<CompanyAppointmentDocument> deleted = ArgumentCaptor.forClass(CompanyAppointmentDocument.class);
+        verify(resourceChangedDataCleaner).cleanOutNullValues(deleted.capture());
+        assertEquals(APPOINTMENT_ID, deleted.getValue().getId());
+        assertEquals("SURNAME", deleted.getValue().getData().getSurname());
+        verify(resourceChangedApiService).invokeChsKafkaApi(CHANGED_REQUEST);
+        verify(resourceChangedApiService).invokeChsKafkaApi(
+                new ResourceChangedRequest(COMPANY_NUMBER, APPOINTMENT_ID, CLEANED_DATA, true));
+        assertTrue(resumeTokens.find(AppointmentChangeStreamPublisher.STREAM).isPresent());
+    }
+
+    @DisplayName("Does not publish updates that only advance delta_at or set derived fields")
+    @Test
+    void skipsDeltaAtOnlyUpdates() throws IOException {
+        // given
+        insertAppointment(APPOINTMENT_ID);
+        publisher.publishChanges();
+
+        // when
+        mongoTemplate.getCollection(COLLECTION).updateOne(new Document("_id", APPOINTMENT_ID),
+                new Document("$set", new Document("delta_at", Date.from(Instant.parse("2025-01-01T00:00:00Z")))));
+        publisher.publishChanges();
+        mongoTemplate.getCollection(COLLECTION).updateOne(new Document("_id", APPOINTMENT_ID),
+                new Document("$set", new Document("sort_bucket", 2).append("register_type", "secretaries")
+                        .append("is_active", true)));
+        publisher.publishChanges();
+        mongoTemplate.getCollection(COLLECTION).updateOne(new Document("_id", APPOINTMENT_ID),
+                new Document("$set", new Document("data.occupation", "Actuary")));
+        publisher.publishChanges();
+
+        // then
+        verify(resourceChangedApiService, times(2)).invokeChsKafkaApi(CHANGED_REQUEST);
+        verifyNoMoreInteractions(resourceChangedApiService);
+    }
+
+    @DisplayName("Resumes from the saved resume token after being reopened")
+    @Test
+    void resumesFromSavedToken() throws IOException {
+        // given
+        insertAppointment(APPOINTMENT_ID);
+        publisher.publishChanges();
+        publisher.destroy();
+        insertAppointment("another_appointment");
+
+        // when
+        publisher = publisher();
+        publisher.publishChanges();
+
+        // then
+        verify(resourceChangedApiService).invokeChsKafkaApi(CHANGED_REQUEST);
+        verify(resourceChangedApiService).invokeChsKafkaApi(
+                new ResourceChangedRequest(COMPANY_NUMBER, "another_appointment", null, false));
+        verifyNoMoreInteractions(resourceChangedApiService);
+    }
+
+    @DisplayName("Only the instance holding the lease reads the stream")
+    @Test
+    void publishesFromLeaseHolderOnly() throws IOException {
+        // given
+        AppointmentChangeStreamPublisher other = publisher(Duration.ZERO, 10);
+        insertAppointment(APPOINTMENT_ID);
+
+        // when
+        other.publishChanges();
+        publisher.publishChanges();
+
+        // then
+        verify(resourceChangedApiService).invokeChsKafkaApi(CHANGED_REQUEST);
+        verifyNoMoreInteractions(resourceChangedApiService);
+
+        // when
+        publisher.destroy();
+        insertAppointment("another_appointment");
+        other.publishChanges();
+        other.destroy();
+
+        // then
+        verify(resourceChangedApiService).invokeChsKafkaApi(
+                new ResourceChangedRequest(COMPANY_NUMBER, "another_appointment", null, false));
+        verifyNoMoreInteractions(resourceChangedApiService);
+    }
+
+    @DisplayName("Publishes a change again once publishing it has failed")
+    @Test
+    void republishesAfterFailure() throws IOException {
+        // given
+        doThrow(new ServiceUnavailableException("chs-kafka-api unavailable"))
+                .doNothing()
+                .when(resourceChangedApiService).invokeChsKafkaApi(CHANGED_REQUEST);
+        insertAppointment(APPOINTMENT_ID);
+
+        // when
+        publisher.publishChanges();
+        publisher.publishChanges();
+        publisher.publishChanges();
+
+        // then
+        verify(resourceChangedApiService, times(2)).invokeChsKafkaApi(CHANGED_REQUEST);
+        verifyNoMoreInteractions(resourceChangedApiService);
+    }
+
+    @DisplayName("Waits out the backoff before publishing a failed change again")
+    @Test
+    void backsOffAfterFailure() throws IOException {
+        // given
+        publisher.destroy();
+        publisher = publisher(Duration.ofMinutes(1), 10);
+        doThrow(new ServiceUnavailableException("chs-kafka-api unavailable"))
+                .when(resourceChangedApiService).invokeChsKafkaApi(CHANGED_REQUEST);
+        insertAppointment(APPOINTMENT_ID);
+
+        // when
+        publisher.publishChanges();
+        publisher.publishChanges();
+
+        // then
+        verify(resourceChangedApiService).invokeChsKafkaApi(CHANGED_REQUEST);
+    }
+
+    @DisplayName("Skips a change that fails on every attempt so that later changes are published")
+    @Test
+    void skipsChangeAfterMaxAttempts() throws IOException {
+        // given
+        publisher.destroy();
+        publisher = publisher(Duration.ZERO, 2);
+        doThrow(new ServiceUnavailableException("chs-kafka-api rejected request"))
+                .when(resourceChangedApiService).invokeChsKafkaApi(CHANGED_REQUEST);
+        insertAppointment(APPOINTMENT_ID);
+
+        // when
+        publisher.publishChanges();
+        publisher.publishChanges();
+        insertAppointment("another_appointment");
+        publisher.publishChanges();
+
+        // then
+        verify(resourceChangedApiService, times(2)).invokeChsKafkaApi(CHANGED_REQUEST);
+        verify(resourceChangedApiService).invokeChsKafkaApi(
+                new ResourceChangedRequest(COMPANY_NUMBER, "another_appointment", null, false));
+        verifyNoMoreInteractions(resourceChangedApiService);
+    }
+
+    private AppointmentChangeStreamPublisher publisher() {
+        return publisher(Duration.ZERO, 10);
+    }
+
+    private AppointmentChangeStreamPublisher publisher(Duration initialBackoff, int maxAttempts) {
+        return new AppointmentChangeStreamPublisher(mongoTemplate, resumeTokens, resourceChangedApiService,
+                resourceChangedDataCleaner, executor, Clock.systemUTC(), 10, 4, Duration.ofSeconds(1),
+                Duration.ofSeconds(30), initialBackoff, Duration.ofMinutes(5), maxAttempts,
+                new SimpleMeterRegistry());
+    }
+
+    private void insertAppointment(String id) throws IOException {
+        Document document = Document.parse(IOUtils.resourceToString("/appointment-data-all-fields.json",
+                StandardCharsets.UTF_8));
+        document.put("_id", id);
+        mongoTemplate.getCollection(COLLECTION).insertOne(document);
+    }
+}
@@ -0,0 +1,126 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import uk.gov.companieshouse.company_appointments.exception.ConflictException;
+import uk.gov.companieshouse.company_appointments.exception.ServiceUnavailableException;
+
+class AppointmentDeltaCoalescerTest {
+
+    private static final Instant DELTA_AT = Instant.parse("2024-05-06T12:00:00Z");
+    private static final Duration WINDOW = Duration.ofMillis(500);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<String> written = ConcurrentHashMap.newKeySet();
+    private SimpleMeterRegistry meterRegistry;
+    private AppointmentDeltaCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new AppointmentDeltaCoalescer(true, WINDOW, 4, executor, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void writesDeltaAtOnceWhenDisabled() {
+        // given
+        AppointmentDeltaCoalescer disabled = new AppointmentDeltaCoalescer(false, WINDOW, 4, executor, meterRegistry);
+
+        // when
+        disabled.coalesce("company/appointment", DELTA_AT, () -> written.add("delta"));
+
+        // then
+        assertEquals(Set.of("delta"), written);
+    }
+
+    @Test
+    void writesOnlyLatestDeltaForAnAppointmentWithinTheWindow() {
+        // when
+        List<Future<?>> outcomes = List.of(
+                submit("company/appointment", DELTA_AT, "earliest"),
+                submit("company/appointment", DELTA_AT.plusSeconds(2), "latest"),
+                submit("company/appointment", DELTA_AT.plusSeconds(1), "middle"));
+
+        // then
+        assertInstanceOf(ConflictException.class, failureOf(outcomes.get(0)));
+        assertNull(failureOf(outcomes.get(1)));
+        assertInstanceOf(ConflictException.class, failureOf(outcomes.get(2)));
+        assertEquals(Set.of("latest"), written);
+        assertEquals(2.0, meterRegistry.get("appointment.deltas.coalesced").counter().count());
+    }
+
+    @Test
+    void writesDeltasForDifferentAppointmentsSeparately() {
+        // when
+        List<Future<?>> outcomes = List.of(
+                submit("company/first", DELTA_AT, "first"),
+                submit("company/second", DELTA_AT, "second"));
+
+        // then
+        outcomes.forEach(outcome -> assertNull(failureOf(outcome)));
+        assertEquals(Set.of("first", "second"), written);
+    }
+
+    @Test
+    void writesLatestDeltaOffTheThreadThatOpenedTheWindow() {
+        // given
+        Set<Thread> writers = ConcurrentHashMap.newKeySet();
+
+        // when
+        coalescer.coalesce("company/appointment", DELTA_AT, () -> writers.add(Thread.currentThread()));
+
+        // then
+        assertEquals(1, writers.size());
+        assertNotEquals(Thread.currentThread(), writers.iterator().next());
+    }
+
+    @Test
+    void reportsFailedWriteToCallerOfLatestDelta() {
+        // when
+        Executable write = () -> coalescer.coalesce("company/appointment", DELTA_AT, () -> {
+            throw new ServiceUnavailableException("Error connecting to MongoDB");
+        });
+
+        // then
+        assertThrows(ServiceUnavailableException.class, write);
+    }
+
+    private Future<?> submit(String appointmentKey, Instant deltaAt, String delta) {
+        return executor.submit(() -> coalescer.coalesce(appointmentKey, deltaAt, () -> written.add(delta)));
+    }
+
+    private static Throwable failureOf(Future<?> outcome) {
+        try {
+            outcome.get();
+            return null;
+        } catch (ExecutionException ex) {
+            return ex.getCause();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
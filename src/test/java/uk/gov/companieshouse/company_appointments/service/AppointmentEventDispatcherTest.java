@@ -0,0 +1,175 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.company_appointments.api.ResourceChangedApiService;
+import uk.gov.companieshouse.company_appointments.exception.BadGatewayException;
+import uk.gov.companieshouse.company_appointments.kafka.OfficerMergeProducer;
+import uk.gov.companieshouse.company_appointments.model.data.AppointmentEvent;
+import uk.gov.companieshouse.company_appointments.model.data.ResourceChangedRequest;
+import uk.gov.companieshouse.company_appointments.repository.AppointmentEventRepository;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentEventDispatcherTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:01:00Z");
+    private static final Instant CREATED_AT = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    @Mock
+    private AppointmentEventRepository repository;
+    @Mock
+    private ResourceChangedApiService resourceChangedApiService;
+    @Mock
+    private OfficerMergeProducer officerMergeProducer;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AppointmentEventDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new AppointmentEventDispatcher(repository, resourceChangedApiService, officerMergeProducer,
+                executor, Clock.fixed(NOW, ZoneOffset.UTC), 100, LEASE, Duration.ofSeconds(1),
+                Duration.ofSeconds(10), 5, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void publishesAndRemovesEventsOfAnAppointmentInOrder() {
+        // given
+        AppointmentEvent merge = event("1", AppointmentEvent.Type.OFFICER_MERGE, CREATED_AT);
+        AppointmentEvent changed = event("2", AppointmentEvent.Type.RESOURCE_CHANGED, CREATED_AT);
+        when(repository.findDue(NOW, 100)).thenReturn(List.of(merge, changed));
+        when(repository.claim(any(), any(), any())).thenReturn(true);
+
+        // when
+        dispatcher.dispatchPendingEvents();
+
+        // then
+        InOrder inOrder = inOrder(repository, officerMergeProducer, resourceChangedApiService);
+        inOrder.verify(repository).claim("1", CREATED_AT, NOW.plus(LEASE));
+        inOrder.verify(officerMergeProducer).invokeOfficerMerge("officerId", "previousOfficerId");
+        inOrder.verify(repository).deleteById("1");
+        inOrder.verify(repository).claim("2", CREATED_AT, NOW.plus(LEASE));
+        inOrder.verify(resourceChangedApiService).invokeChsKafkaApi(
+                new ResourceChangedRequest("12345678", "appointmentId", null, false));
+        inOrder.verify(repository).deleteById("2");
+        assertEquals(2, meterRegistry.get("appointment.events.outbox.latency").timers().stream()
+                .mapToLong(timer -> timer.count())
+                .sum());
+        assertEquals(60000.0, meterRegistry.get("appointment.events.outbox.oldest.age").gauge().value());
+    }
+
+    @Test
+    void reschedulesFailedEventAndHoldsBackLaterEventsOfTheAppointment() {
+        // given
+        AppointmentEvent changed = event("1", AppointmentEvent.Type.RESOURCE_CHANGED, CREATED_AT).attempts(2);
+        AppointmentEvent merge = event("2", AppointmentEvent.Type.OFFICER_MERGE, CREATED_AT);
+        when(repository.findDue(NOW, 100)).thenReturn(List.of(changed, merge));
+        when(repository.claim("1", CREATED_AT, NOW.plus(LEASE))).thenReturn(true);
+        when(resourceChangedApiService.invokeChsKafkaApi(any())).thenThrow(
+                new BadGatewayException("Error calling resource changed endpoint", null));
+
+        // when
+        dispatcher.dispatchPendingEvents();
+
+        // then
+        verify(repository).retryLater("1", 3, NOW.plus(Duration.ofSeconds(4)));
+        verify(repository, never()).deleteById(any());
+        verifyNoInteractions(officerMergeProducer);
+        assertEquals(1.0, meterRegistry.get("appointment.events.outbox.failures")
+                .tag("type", "RESOURCE_CHANGED").counter().count());
+    }
+
+    @Test
+    void deadLettersEventAfterMaximumAttemptsAndPublishesLaterEventsOfTheAppointment() {
+        // given
+        AppointmentEvent changed = event("1", AppointmentEvent.Type.RESOURCE_CHANGED, CREATED_AT).attempts(4);
+        AppointmentEvent merge = event("2", AppointmentEvent.Type.OFFICER_MERGE, CREATED_AT);
+        when(repository.findDue(NOW, 100)).thenReturn(List.of(changed, merge));
+        when(repository.claim(any(), any(), any())).thenReturn(true);
+        when(resourceChangedApiService.invokeChsKafkaApi(any())).thenThrow(
+                new BadGatewayException("Error calling resource changed endpoint", null));
+
+        // when
+        dispatcher.dispatchPendingEvents();
+
+        // then
+        verify(repository).deadLetter(changed);
+        assertEquals(5, changed.getAttempts());
+        verify(repository, never()).retryLater(any(), anyInt(), any());
+        verify(officerMergeProducer).invokeOfficerMerge("officerId", "previousOfficerId");
+        verify(repository).deleteById("2");
+        assertEquals(1.0, meterRegistry.get("appointment.events.outbox.dead.lettered")
+                .tag("type", "RESOURCE_CHANGED").counter().count());
+    }
+
+    @Test
+    void skipsAppointmentWhoseOldestEventIsNotDueOrLeasedElsewhere() {
+        // given
+        AppointmentEvent backingOff = event("1", AppointmentEvent.Type.RESOURCE_CHANGED, CREATED_AT)
+                .nextAttemptAt(NOW.plusSeconds(5));
+        AppointmentEvent leased = event("2", AppointmentEvent.Type.RESOURCE_CHANGED, CREATED_AT)
+                .appointmentId("otherAppointmentId");
+        when(repository.findDue(NOW, 100)).thenReturn(List.of(backingOff, leased));
+        when(repository.claim("2", CREATED_AT, NOW.plus(LEASE))).thenReturn(false);
+
+        // when
+        dispatcher.dispatchPendingEvents();
+
+        // then
+        verify(repository, never()).claim("1", backingOff.getNextAttemptAt(), NOW.plus(LEASE));
+        verifyNoInteractions(resourceChangedApiService);
+        verify(repository, never()).deleteById(any());
+    }
+
+    @Test
+    void capsBackoffAtMaximum() {
+        assertEquals(Duration.ofSeconds(1), dispatcher.backoff(1));
+        assertEquals(Duration.ofSeconds(8), dispatcher.backoff(4));
+        assertEquals(Duration.ofSeconds(10), dispatcher.backoff(5));
+        assertEquals(Duration.ofSeconds(10), dispatcher.backoff(100));
+    }
+
+    private static AppointmentEvent event(String id, AppointmentEvent.Type type, Instant createdAt) {
+        return new AppointmentEvent()
+                .id(id)
+                .type(type)
+                .companyNumber("12345678")
+                .appointmentId("appointmentId")
+                .delete(false)
+                .officerId("officerId")
+                .previousOfficerId("previousOfficerId")
+                .requestId("requestId")
+                .createdAt(createdAt)
+                .nextAttemptAt(createdAt);
+    }
+}
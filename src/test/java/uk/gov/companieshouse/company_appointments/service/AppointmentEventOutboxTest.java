@@ -0,0 +1,169 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.gov.companieshouse.company_appointments.api.ResourceChangedApiService;
+import uk.gov.companieshouse.company_appointments.kafka.OfficerMergeProducer;
+import uk.gov.companieshouse.company_appointments.model.data.AppointmentEvent;
+import uk.gov.companieshouse.company_appointments.model.data.ResourceChangedRequest;
+import uk.gov.companieshouse.company_appointments.repository.AppointmentEventRepository;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentEventOutboxTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    private static final ResourceChangedRequest REQUEST = new ResourceChangedRequest("12345678", "appointmentId",
+            Map.of("name", "value"), true);
+
+    @Mock
+    private AppointmentEventRepository repository;
+    @Mock
+    private ResourceChangedApiService resourceChangedApiService;
+    @Mock
+    private OfficerMergeProducer officerMergeProducer;
+    @Captor
+    private ArgumentCaptor<AppointmentEvent> captor;
+
+    @Test
+    void publishesEventsSynchronouslyWhenDisabled() {
+        // given
+        AppointmentEventOutbox outbox = outbox(false);
+
+        // when
+        outbox.resourceChanged(REQUEST);
+        outbox.officerMerge("appointmentId", "officerId", "previousOfficerId");
+
+        // then
+        verify(resourceChangedApiService).invokeChsKafkaApi(REQUEST);
+        verify(officerMergeProducer).invokeOfficerMerge("officerId", "previousOfficerId");
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void appendsResourceChangedEventWhenEnabled() {
+        // given
+        AppointmentEventOutbox outbox = outbox(true);
+
+        // when
+        outbox.resourceChanged(REQUEST);
+
+        // then
+        verify(repository).insert(captor.capture());
+        AppointmentEvent event = captor.getValue();
+        assertNotNull(event.getId());
+        assertEquals(AppointmentEvent.Type.RESOURCE_CHANGED, event.getType());
+        assertEquals("12345678", event.getCompanyNumber());
+        assertEquals("appointmentId", event.getAppointmentId());
+        assertEquals(Map.of("name", "value"), event.getOfficerData());
+        assertEquals(true, event.getDelete());
+        assertEquals(NOW, event.getCreatedAt());
+        assertEquals(NOW, event.getNextAttemptAt());
+        verifyNoInteractions(resourceChangedApiService);
+    }
+
+    @Test
+    void appendsOfficerMergeEventWhenEnabled() {
+        // given
+        AppointmentEventOutbox outbox = outbox(true);
+
+        // when
+        outbox.officerMerge("appointmentId", "officerId", "previousOfficerId");
+
+        // then
+        verify(repository).insert(captor.capture());
+        AppointmentEvent event = captor.getValue();
+        assertEquals(AppointmentEvent.Type.OFFICER_MERGE, event.getType());
+        assertEquals("appointmentId", event.getAppointmentId());
+        assertEquals("officerId", event.getOfficerId());
+        assertEquals("previousOfficerId", event.getPreviousOfficerId());
+        verifyNoInteractions(officerMergeProducer);
+    }
+
+    @Test
+    void leavesResourceChangedEventToChangeStreamWhenEnabled() {
+        // given
+        AppointmentEventOutbox outbox = outbox(false, true);
+
+        // when
+        outbox.resourceChanged(REQUEST);
+        outbox.officerMerge("appointmentId", "officerId", "previousOfficerId");
+
+        // then
+        verifyNoInteractions(resourceChangedApiService);
+        verify(officerMergeProducer).invokeOfficerMerge("officerId", "previousOfficerId");
+    }
+
+    @Test
+    void publishesResourceChangedEventWithoutWriteWhenChangeStreamEnabled() {
+        // given
+        AppointmentEventOutbox outbox = outbox(false, true);
+
+        // when
+        outbox.resourceChangedWithoutWrite(REQUEST);
+
+        // then
+        verify(resourceChangedApiService).invokeChsKafkaApi(REQUEST);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void runsAfterCommitActionOnceTransactionCommits() {
+        // given
+        AppointmentEventOutbox outbox = outbox(true);
+        AtomicBoolean evicted = new AtomicBoolean();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            outbox.afterCommit(() -> evicted.set(true));
+
+            // then
+            assertFalse(evicted.get());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertTrue(evicted.get());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void runsAfterCommitActionAtOnceOutsideTransaction() {
+        // given
+        AppointmentEventOutbox outbox = outbox(false);
+        AtomicBoolean evicted = new AtomicBoolean();
+
+        // when
+        outbox.afterCommit(() -> evicted.set(true));
+
+        // then
+        assertTrue(evicted.get());
+    }
+
+    private AppointmentEventOutbox outbox(boolean enabled) {
+        return outbox(enabled, false);
+    }
+
+    private AppointmentEventOutbox outbox(boolean enabled, boolean changeStreamEnabled) {
+        return new AppointmentEventOutbox(repository, resourceChangedApiService, officerMergeProducer,
+                TransactionOperations.withoutTransaction(), Clock.fixed(NOW, ZoneOffset.UTC), enabled,
+                changeStreamEnabled);
+    }
+}
@@ -0,0 +1,150 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.api.appointment.OfficerSummary;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
+import uk.gov.companieshouse.company_appointments.mapper.CompanyAppointmentMapper;
+import uk.gov.companieshouse.company_appointments.model.AppointmentsBatch;
+import uk.gov.companieshouse.company_appointments.model.AppointmentsBatch.Item;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaItemLinkTypes;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaOfficerData;
+import uk.gov.companieshouse.company_appointments.model.view.CompanyAppointmentFullRecordView;
+import uk.gov.companieshouse.company_appointments.repository.CompanyAppointmentRepository;
+
+@ExtendWith(MockitoExtension.class)
+class CompanyAppointmentBatchServiceTest {
+
+    private static final String COMPANY_NUMBER = "123456";
+    private static final String FIRST_ID = "first";
+    private static final String SECOND_ID = "second";
+    private static final String MISSING_ID = "missing";
+
+    private CompanyAppointmentBatchService service;
+
+    @Mock
+    private CompanyAppointmentRepository repository;
+    @Mock
+    private CompanyAppointmentMapper mapper;
+    @Mock
+    private OfficerSummary firstSummary;
+    @Mock
+    private OfficerSummary secondSummary;
+
+    @BeforeEach
+    void setUp() {
+        service = new CompanyAppointmentBatchService(repository, mapper, 3);
+    }
+
+    @Test
+    void fetchAppointmentsReturnsItemPerIdInRequestOrderWithOneQuery() {
+        // given
+        CompanyAppointmentDocument first = buildDocument(FIRST_ID);
+        CompanyAppointmentDocument second = buildDocument(SECOND_ID);
+        when(repository.readByCompanyNumberAndIDs(any(), any())).thenReturn(List.of(first, second));
+        when(mapper.map(first)).thenReturn(firstSummary);
+        when(mapper.map(second)).thenReturn(secondSummary);
+
+        // when
+        AppointmentsBatch<OfficerSummary> result = service.fetchAppointments(COMPANY_NUMBER,
+                List.of(SECOND_ID, MISSING_ID, FIRST_ID));
+
+        // then
+        assertEquals(List.of(
+                Item.found(SECOND_ID, secondSummary),
+                Item.<OfficerSummary>notFound(MISSING_ID),
+                Item.found(FIRST_ID, firstSummary)), result.items());
+        verify(repository).readByCompanyNumberAndIDs(COMPANY_NUMBER, List.of(SECOND_ID, MISSING_ID, FIRST_ID));
+    }
+
+    @Test
+    void fetchAppointmentsReturnsOneItemPerDistinctId() {
+        // given
+        CompanyAppointmentDocument first = buildDocument(FIRST_ID);
+        when(repository.readByCompanyNumberAndIDs(any(), any())).thenReturn(List.of(first));
+        when(mapper.map(first)).thenReturn(firstSummary);
+
+        // when
+        AppointmentsBatch<OfficerSummary> result = service.fetchAppointments(COMPANY_NUMBER,
+                List.of(FIRST_ID, FIRST_ID, FIRST_ID, FIRST_ID));
+
+        // then
+        assertEquals(List.of(Item.found(FIRST_ID, firstSummary)), result.items());
+        verify(repository).readByCompanyNumberAndIDs(COMPANY_NUMBER, List.of(FIRST_ID));
+    }
+
+    @Test
+    void fetchFullRecordAppointmentsMapsFullRecordViews() {
+        // given
+        when(repository.readByCompanyNumberAndIDs(any(), any())).thenReturn(List.of(buildDocument(FIRST_ID)));
+
+        // when
+        AppointmentsBatch<CompanyAppointmentFullRecordView> result = service.fetchFullRecordAppointments(
+                COMPANY_NUMBER, List.of(FIRST_ID, MISSING_ID));
+
+        // then
+        assertEquals(2, result.items().size());
+        assertEquals(200, result.items().getFirst().status());
+        assertEquals("Surname", result.items().getFirst().appointment().getSurname());
+        assertEquals(404, result.items().get(1).status());
+        assertNull(result.items().get(1).appointment());
+        verifyNoInteractions(mapper);
+    }
+
+    @Test
+    void fetchAppointmentsThrowsBadRequestExceptionWhenNoIdsSupplied() {
+        // when
+        Executable executable = () -> service.fetchAppointments(COMPANY_NUMBER, Collections.emptyList());
+
+        // then
+        assertThrows(BadRequestException.class, executable);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void fetchAppointmentsThrowsBadRequestExceptionWhenNullIdSupplied() {
+        // when
+        Executable executable = () -> service.fetchAppointments(COMPANY_NUMBER, Arrays.asList(FIRST_ID, null));
+
+        // then
+        assertThrows(BadRequestException.class, executable);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void fetchAppointmentsThrowsBadRequestExceptionWhenBatchTooLarge() {
+        // when
+        Executable executable = () -> service.fetchAppointments(COMPANY_NUMBER,
+                List.of("one", "two", "three", "four"));
+
+        // then
+        assertThrows(BadRequestException.class, executable);
+        verifyNoInteractions(repository);
+    }
+
+    private static CompanyAppointmentDocument buildDocument(String id) {
+        return new CompanyAppointmentDocument()
+                .id(id)
+                .data(DeltaOfficerData.Builder.builder()
+                        .surname("Surname")
+                        .officerRole("director")
+                        .links(new DeltaItemLinkTypes().setSelf("/company/123456/appointments/" + id))
+                        .build());
+    }
+}
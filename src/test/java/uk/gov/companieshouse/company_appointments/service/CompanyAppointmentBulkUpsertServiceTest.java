@@ -0,0 +1,194 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import uk.gov.companieshouse.api.appointment.ExternalData;
+import uk.gov.companieshouse.api.appointment.FullRecordCompanyOfficerApi;
+import uk.gov.companieshouse.api.appointment.InternalData;
+import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
+import uk.gov.companieshouse.company_appointments.exception.ConflictException;
+import uk.gov.companieshouse.company_appointments.exception.FailedToTransformException;
+import uk.gov.companieshouse.company_appointments.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.company_appointments.model.AppointmentDeltasResult;
+import uk.gov.companieshouse.company_appointments.model.AppointmentDeltasResult.Item;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaTimestamp;
+import uk.gov.companieshouse.company_appointments.model.transformer.DeltaAppointmentTransformer;
+
+@ExtendWith(MockitoExtension.class)
+class CompanyAppointmentBulkUpsertServiceTest {
+
+    private static final String COMPANY_NUMBER = "12345678";
+    private static final String OFFICER_ID = "officerId";
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Instant DELTA_AT = Instant.parse("2023-06-01T00:00:00Z");
+    private static final Instant LATER_DELTA_AT = Instant.parse("2023-07-01T00:00:00Z");
+    private static final DeltaTimestamp INSTANT = new DeltaTimestamp(NOW);
+
+    private CompanyAppointmentBulkUpsertService service;
+
+    @Mock
+    private DeltaAppointmentTransformer transformer;
+    @Mock
+    private CompanyAppointmentFullRecordService fullRecordService;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @BeforeEach
+    void setUp() {
+        service = new CompanyAppointmentBulkUpsertService(transformer, fullRecordService,
+                Clock.fixed(NOW, ZoneOffset.UTC), executor, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void upsertsEachDeltaThroughTheConditionalUpsert() {
+        // given
+        FullRecordCompanyOfficerApi newDelta = delta("new");
+        FullRecordCompanyOfficerApi updateDelta = delta("existing");
+        CompanyAppointmentDocument newDocument = document("new", DELTA_AT);
+        CompanyAppointmentDocument updateDocument = document("existing", LATER_DELTA_AT);
+        when(transformer.transform(newDelta)).thenReturn(newDocument);
+        when(transformer.transform(updateDelta)).thenReturn(updateDocument);
+
+        // when
+        AppointmentDeltasResult result = service.upsertAppointmentDeltas(COMPANY_NUMBER,
+                List.of(newDelta, updateDelta));
+
+        // then
+        assertEquals(List.of(new Item("new", 200), new Item("existing", 200)), result.items());
+        verify(fullRecordService).upsertDocument(newDocument, INSTANT);
+        verify(fullRecordService).upsertDocument(updateDocument, INSTANT);
+    }
+
+    @Test
+    void reportsDeltaRejectedAsStaleAsConflict() {
+        // given
+        FullRecordCompanyOfficerApi staleDelta = delta("existing");
+        CompanyAppointmentDocument staleDocument = document("existing", DELTA_AT);
+        when(transformer.transform(staleDelta)).thenReturn(staleDocument);
+        doThrow(new ConflictException("Received stale delta")).when(fullRecordService)
+                .upsertDocument(staleDocument, INSTANT);
+
+        // when
+        AppointmentDeltasResult result = service.upsertAppointmentDeltas(COMPANY_NUMBER, List.of(staleDelta));
+
+        // then
+        assertEquals(List.of(new Item("existing", 409)), result.items());
+    }
+
+    @Test
+    void writesOnlyLatestDeltaForAnAppointmentInTheBatch() {
+        // given
+        FullRecordCompanyOfficerApi laterDelta = delta("appointment").internalData(new InternalData()
+                .deltaAt(LATER_DELTA_AT.atOffset(ZoneOffset.UTC)));
+        FullRecordCompanyOfficerApi earlierDelta = delta("appointment").internalData(new InternalData()
+                .deltaAt(DELTA_AT.atOffset(ZoneOffset.UTC)));
+        CompanyAppointmentDocument laterDocument = document("appointment", LATER_DELTA_AT);
+        when(transformer.transform(laterDelta)).thenReturn(laterDocument);
+        when(transformer.transform(earlierDelta)).thenReturn(document("appointment", DELTA_AT));
+
+        // when
+        AppointmentDeltasResult result = service.upsertAppointmentDeltas(COMPANY_NUMBER,
+                List.of(laterDelta, earlierDelta));
+
+        // then
+        assertEquals(List.of(new Item("appointment", 200), new Item("appointment", 409)), result.items());
+        verify(fullRecordService).upsertDocument(laterDocument, INSTANT);
+        verifyNoMoreInteractions(fullRecordService);
+    }
+
+    @Test
+    void reportsUntransformableDeltaAndDeltaForAnotherCompanyAsInvalid() {
+        // given
+        FullRecordCompanyOfficerApi invalidDelta = delta("invalid");
+        FullRecordCompanyOfficerApi otherCompanyDelta = delta("other");
+        when(transformer.transform(invalidDelta)).thenThrow(new FailedToTransformException("invalid"));
+        when(transformer.transform(otherCompanyDelta)).thenReturn(document("other", DELTA_AT)
+                .companyNumber("87654321"));
+
+        // when
+        AppointmentDeltasResult result = service.upsertAppointmentDeltas(COMPANY_NUMBER,
+                List.of(invalidDelta, otherCompanyDelta));
+
+        // then
+        assertEquals(List.of(new Item("invalid", 400), new Item("other", 400)), result.items());
+        verifyNoInteractions(fullRecordService);
+    }
+
+    @Test
+    void reportsFailedWriteAndFailedChangeEventAsServiceUnavailable() {
+        // given
+        FullRecordCompanyOfficerApi failedDelta = delta("failed");
+        FullRecordCompanyOfficerApi unpublishedDelta = delta("unpublished");
+        CompanyAppointmentDocument failedDocument = document("failed", DELTA_AT);
+        CompanyAppointmentDocument unpublishedDocument = document("unpublished", DELTA_AT);
+        when(transformer.transform(failedDelta)).thenReturn(failedDocument);
+        when(transformer.transform(unpublishedDelta)).thenReturn(unpublishedDocument);
+        doThrow(new DataAccessResourceFailureException("down")).when(fullRecordService)
+                .upsertDocument(failedDocument, INSTANT);
+        doThrow(new ServiceUnavailableException("Error calling resource changed endpoint")).when(fullRecordService)
+                .upsertDocument(unpublishedDocument, INSTANT);
+
+        // when
+        AppointmentDeltasResult result = service.upsertAppointmentDeltas(COMPANY_NUMBER,
+                List.of(failedDelta, unpublishedDelta));
+
+        // then
+        assertEquals(List.of(new Item("failed", 503), new Item("unpublished", 503)), result.items());
+    }
+
+    @Test
+    void throwsBadRequestExceptionForEmptyOrOversizedBatch() {
+        // when
+        Executable empty = () -> service.upsertAppointmentDeltas(COMPANY_NUMBER, Collections.emptyList());
+        Executable oversized = () -> service.upsertAppointmentDeltas(COMPANY_NUMBER,
+                List.of(delta("1"), delta("2"), delta("3"), delta("4")));
+
+        // then
+        assertThrows(BadRequestException.class, empty);
+        assertThrows(BadRequestException.class, oversized);
+        verifyNoInteractions(transformer, fullRecordService);
+    }
+
+    private static FullRecordCompanyOfficerApi delta(String appointmentId) {
+        return new FullRecordCompanyOfficerApi()
+                .externalData(new ExternalData()
+                        .appointmentId(appointmentId)
+                        .companyNumber(COMPANY_NUMBER));
+    }
+
+    private static CompanyAppointmentDocument document(String appointmentId, Instant deltaAt) {
+        return new CompanyAppointmentDocument()
+                .id(appointmentId)
+                .appointmentId(appointmentId)
+                .companyNumber(COMPANY_NUMBER)
+                .officerId(OFFICER_ID)
+                .deltaAt(deltaAt);
+    }
+}
@@ -6,16 +6,19 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Assert;
@@ -32,12 +35,15 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionOperations;
 import uk.gov.companieshouse.api.appointment.Data;
 import uk.gov.companieshouse.api.appointment.DateOfBirth;
 import uk.gov.companieshouse.api.appointment.ExternalData;
 import uk.gov.companieshouse.api.appointment.FullRecordCompanyOfficerApi;
 import uk.gov.companieshouse.api.appointment.InternalData;
 import uk.gov.companieshouse.api.appointment.SensitiveData;
+import uk.gov.companieshouse.company_appointments.api.CompanyMetricsCache;
 import uk.gov.companieshouse.company_appointments.api.ResourceChangedApiService;
 import uk.gov.companieshouse.company_appointments.exception.ConflictException;
 import uk.gov.companieshouse.company_appointments.exception.FailedToTransformException;
@@ -50,10 +56,13 @@ import uk.gov.companieshouse.company_appointments.model.data.DeltaItemLinkTypes;
 import uk.gov.companieshouse.company_appointments.model.data.DeltaOfficerData;
 import uk.gov.companieshouse.company_appointments.model.data.DeltaOfficerLinkTypes;
 import uk.gov.companieshouse.company_appointments.model.data.DeltaSensitiveData;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaTimestamp;
 import uk.gov.companieshouse.company_appointments.model.data.ResourceChangedRequest;
 import uk.gov.companieshouse.company_appointments.model.transformer.DeltaAppointmentTransformer;
 import uk.gov.companieshouse.company_appointments.model.view.CompanyAppointmentFullRecordView;
 import uk.gov.companieshouse.company_appointments.model.view.DateOfBirthView;
+import uk.gov.companieshouse.company_appointments.officerappointments.OfficerAppointmentsCache;
+import uk.gov.companieshouse.company_appointments.repository.AppointmentEventRepository;
 import uk.gov.companieshouse.company_appointments.repository.CompanyAppointmentRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -71,9 +80,19 @@ class CompanyAppointmentFullRecordServiceTest {
     private CompanyAppointmentMapper companyAppointmentMapper;
     @Mock
     private OfficerMergeProducer officerMergeProducer;
+    @Mock
+    private OfficerAppointmentCountsService officerAppointmentCountsService;
+    @Mock
+    private OfficerAppointmentsCache officerAppointmentsCache;
+    @Mock
+    private CompanyMetricsCache companyMetricsCache;
+    @Mock
+    private AppointmentEventRepository appointmentEventRepository;
     @Captor
     private ArgumentCaptor<CompanyAppointmentDocument> captor;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private final FullRecordCompanyOfficerApi fullRecordCompanyOfficerApi = buildFullRecordOfficer();
 
     private static final String COMPANY_NUMBER = "123456";
@@ -99,7 +118,11 @@ class CompanyAppointmentFullRecordServiceTest {
     void setUp() {
         companyAppointmentService =
                 new CompanyAppointmentFullRecordService(deltaAppointmentTransformer,
-                        companyAppointmentRepository, resourceChangedApiService, CLOCK, officerMergeProducer);
+                        companyAppointmentRepository, new AppointmentEventOutbox(appointmentEventRepository,
+                        resourceChangedApiService, officerMergeProducer, TransactionOperations.withoutTransaction(),
+                        CLOCK, false, false), CLOCK, officerAppointmentCountsService, officerAppointmentsCache,
+                        companyMetricsCache, new AppointmentDeltaCoalescer(false, Duration.ZERO, 1,
+                        ForkJoinPool.commonPool(), meterRegistry), meterRegistry);
     }
 
     @Test
@@ -155,9 +178,7 @@ class CompanyAppointmentFullRecordServiceTest {
         CompanyAppointmentDocument transformedAppointmentApi = builtDeltaAppointmentApi(
                 data, sensitiveData, Instant.parse("2022-01-13T00:00:00.000000Z"));
 
-        when(companyAppointmentRepository.readByCompanyNumberAndID(
-                transformedAppointmentApi.getCompanyNumber(),
-                transformedAppointmentApi.getId())).thenReturn(
+        when(companyAppointmentRepository.upsertOneUnlessStale(transformedAppointmentApi)).thenReturn(
                 Optional.of(deltaAppointmentDocument));
         when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class)))
                 .thenReturn(transformedAppointmentApi);
@@ -166,8 +187,11 @@ class CompanyAppointmentFullRecordServiceTest {
         companyAppointmentService.upsertAppointmentDelta(fullRecordCompanyOfficerApi);
 
         // then
-        verify(companyAppointmentRepository).save(captor.capture());
+        verify(companyAppointmentRepository).upsertOneUnlessStale(captor.capture());
         assertNotNull(captor.getValue().getData().getEtag());
+        verify(officerAppointmentCountsService).appointmentSaved(deltaAppointmentDocument, transformedAppointmentApi);
+        verify(officerAppointmentsCache).evict(transformedAppointmentApi.getOfficerId());
+        verify(companyMetricsCache).evict(transformedAppointmentApi.getCompanyNumber());
     }
 
     @Test
@@ -175,8 +199,7 @@ class CompanyAppointmentFullRecordServiceTest {
         // given
         when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class))).thenReturn(
                 new CompanyAppointmentDocument());
-        when(companyAppointmentRepository.readByCompanyNumberAndID(any(),
-                any())).thenThrow(new DataAccessException("...") {
+        when(companyAppointmentRepository.upsertOneUnlessStale(any())).thenThrow(new DataAccessException("...") {
         });
 
         // When
@@ -210,7 +233,7 @@ class CompanyAppointmentFullRecordServiceTest {
                 .companyNumber("012345678");
         when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class))).thenReturn(
                 deltaAppointmentDocument);
-        when(companyAppointmentRepository.readByCompanyNumberAndID(any(), any())).thenReturn(Optional.empty());
+        when(companyAppointmentRepository.upsertOneUnlessStale(any())).thenReturn(Optional.empty());
         when(resourceChangedApiService.invokeChsKafkaApi(any())).thenThrow(ServiceUnavailableException.class);
 
         // When
@@ -219,7 +242,8 @@ class CompanyAppointmentFullRecordServiceTest {
 
         // then
         assertThrows(ServiceUnavailableException.class, executable);
-        verify(companyAppointmentRepository).save(deltaAppointmentDocument);
+        verify(companyAppointmentRepository).upsertOneUnlessStale(deltaAppointmentDocument);
+        verify(officerAppointmentCountsService).appointmentSaved(null, deltaAppointmentDocument);
     }
 
     @Test
@@ -240,7 +264,7 @@ class CompanyAppointmentFullRecordServiceTest {
         when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class))).thenReturn(
                 deltaAppointmentDocument);
 
-        when(companyAppointmentRepository.readByCompanyNumberAndID(any(), any())).thenReturn(Optional.of(existingDocument));
+        when(companyAppointmentRepository.upsertOneUnlessStale(any())).thenReturn(Optional.of(existingDocument));
         when(resourceChangedApiService.invokeChsKafkaApi(any())).thenThrow(ServiceUnavailableException.class);
 
         // When
@@ -249,7 +273,36 @@ class CompanyAppointmentFullRecordServiceTest {
 
         // then
         assertThrows(ServiceUnavailableException.class, executable);
-        verify(companyAppointmentRepository).save(deltaAppointmentDocument);
+        verify(companyAppointmentRepository).upsertOneUnlessStale(deltaAppointmentDocument);
+    }
+
+    @Test
+    void testUpdateAppointmentKeepsCreatedOfExistingAppointment() {
+        // given
+        DeltaTimestamp created = new DeltaTimestamp(Instant.parse("2020-01-01T00:00:00.000000Z"));
+        CompanyAppointmentDocument deltaAppointmentDocument = new CompanyAppointmentDocument()
+                .id("appointmentId")
+                .officerId("officerId")
+                .companyNumber("012345678")
+                .deltaAt(Instant.parse("2023-11-06T16:30:00.000000Z"));
+        CompanyAppointmentDocument existingDocument = new CompanyAppointmentDocument()
+                .id("appointmentId")
+                .officerId("officerId")
+                .created(created)
+                .deltaAt(Instant.parse("2023-11-06T12:00:00.000000Z"));
+
+        when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class))).thenReturn(
+                deltaAppointmentDocument);
+        when(companyAppointmentRepository.upsertOneUnlessStale(any())).thenReturn(Optional.of(existingDocument));
+
+        // When
+        companyAppointmentService.upsertAppointmentDelta(fullRecordCompanyOfficerApi);
+
+        // then
+        assertEquals(created, deltaAppointmentDocument.getCreated());
+        assertEquals(new DeltaTimestamp(Instant.now(CLOCK)), deltaAppointmentDocument.getUpdated());
+        verify(officerAppointmentCountsService).appointmentSaved(existingDocument, deltaAppointmentDocument);
+        verifyNoInteractions(officerMergeProducer);
     }
 
     @ParameterizedTest
@@ -264,7 +317,6 @@ class CompanyAppointmentFullRecordServiceTest {
 
         DeltaOfficerData data = DeltaOfficerData.Builder.builder().build();
         DeltaSensitiveData sensitiveData = new DeltaSensitiveData();
-        String expectedCompanyNumber = "companyNumber";
         String expectedId = "id";
 
         CompanyAppointmentDocument deltaAppointmentDocument = buildDeltaAppointmentDocument(
@@ -275,15 +327,14 @@ class CompanyAppointmentFullRecordServiceTest {
         when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class)))
                 .thenReturn(transformedAppointmentApi);
 
-        when(companyAppointmentRepository.readByCompanyNumberAndID(expectedCompanyNumber,
-                expectedId)).thenReturn(deltaExists ? Optional.of(deltaAppointmentDocument)
-                : Optional.empty());
+        when(companyAppointmentRepository.upsertOneUnlessStale(transformedAppointmentApi)).thenReturn(
+                deltaExists ? Optional.of(deltaAppointmentDocument) : Optional.empty());
 
         // When
         companyAppointmentService.upsertAppointmentDelta(fullRecordCompanyOfficerApi);
 
         // then
-        verify(companyAppointmentRepository).save(any(CompanyAppointmentDocument.class));
+        verify(companyAppointmentRepository).upsertOneUnlessStale(any(CompanyAppointmentDocument.class));
     }
 
     @Test
@@ -293,7 +344,6 @@ class CompanyAppointmentFullRecordServiceTest {
 
         DeltaOfficerData data = DeltaOfficerData.Builder.builder().build();
         DeltaSensitiveData sensitiveData = new DeltaSensitiveData();
-        String expectedCompanyNumber = "companyNumber";
         String expectedId = "id";
 
         CompanyAppointmentDocument deltaAppointmentDocument = buildDeltaAppointmentDocument(
@@ -304,16 +354,51 @@ class CompanyAppointmentFullRecordServiceTest {
         when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class)))
                 .thenReturn(transformedAppointmentApi);
 
-        when(companyAppointmentRepository.readByCompanyNumberAndID(expectedCompanyNumber,
-                expectedId)).thenReturn(Optional.of(deltaAppointmentDocument));
+        when(companyAppointmentRepository.upsertOneUnlessStale(transformedAppointmentApi))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
+        when(companyAppointmentRepository.readDeltaStatesByIDs(List.of(expectedId)))
+                .thenReturn(List.of(deltaAppointmentDocument));
 
         // when
         Executable actual = () -> companyAppointmentService.upsertAppointmentDelta(fullRecordCompanyOfficerApi);
 
         // then
         assertThrows(ConflictException.class, actual);
-        verify(companyAppointmentRepository, times(0)).save(
-                any(CompanyAppointmentDocument.class));
+        verifyNoInteractions(officerAppointmentCountsService);
+        verifyNoInteractions(resourceChangedApiService);
+    }
+
+    @Test
+    void testSkipUnchangedDelta() {
+        // given
+        fullRecordCompanyOfficerApi.getInternalData().setDeltaAt(DELTA_AT_LATER);
+
+        DeltaSensitiveData sensitiveData = new DeltaSensitiveData();
+        String expectedId = "id";
+
+        CompanyAppointmentDocument storedDocument = buildDeltaAppointmentDocument(
+                Instant.parse("2022-01-13T00:00:00.000000Z"),
+                DeltaOfficerData.Builder.builder().etag("contentEtag").build(), sensitiveData);
+        CompanyAppointmentDocument transformedAppointmentApi = builtDeltaAppointmentApi(
+                DeltaOfficerData.Builder.builder().etag("contentEtag").build(), sensitiveData,
+                DELTA_AT_LATER.toInstant());
+
+        when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class)))
+                .thenReturn(transformedAppointmentApi);
+        when(companyAppointmentRepository.upsertOneUnlessStale(transformedAppointmentApi))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
+        when(companyAppointmentRepository.readDeltaStatesByIDs(List.of(expectedId)))
+                .thenReturn(List.of(storedDocument));
+
+        // when
+        companyAppointmentService.upsertAppointmentDelta(fullRecordCompanyOfficerApi);
+
+        // then
+        verify(companyAppointmentRepository).advanceDeltaAts(List.of(transformedAppointmentApi));
+        assertEquals(1.0, meterRegistry.get("appointment.deltas.unchanged").counter().count());
+        verifyNoInteractions(officerAppointmentCountsService);
+        verifyNoInteractions(resourceChangedApiService);
+        verifyNoInteractions(companyMetricsCache);
     }
 
     @Test
@@ -341,9 +426,7 @@ class CompanyAppointmentFullRecordServiceTest {
         CompanyAppointmentDocument transformedAppointmentApi = builtDeltaAppointmentApi(
                 data, sensitiveData, Instant.parse("2022-01-13T00:00:00.000000Z"));
 
-        when(companyAppointmentRepository.readByCompanyNumberAndID(
-                transformedAppointmentApi.getCompanyNumber(),
-                transformedAppointmentApi.getId())).thenReturn(
+        when(companyAppointmentRepository.upsertOneUnlessStale(transformedAppointmentApi)).thenReturn(
                 Optional.of(deltaAppointmentDocument));
         when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class)))
                 .thenReturn(transformedAppointmentApi);
@@ -352,8 +435,10 @@ class CompanyAppointmentFullRecordServiceTest {
         companyAppointmentService.upsertAppointmentDelta(fullRecordCompanyOfficerApi);
 
         // then
-        verify(companyAppointmentRepository).save(captor.capture());
+        verify(companyAppointmentRepository).upsertOneUnlessStale(captor.capture());
         verify(officerMergeProducer).invokeOfficerMerge("officerId", "oldOfficerId");
+        verify(officerAppointmentsCache).evict("officerId");
+        verify(officerAppointmentsCache).evict("oldOfficerId");
         assertNotNull(captor.getValue().getData().getEtag());
         verify(resourceChangedApiService).invokeChsKafkaApi(new ResourceChangedRequest(
                 transformedAppointmentApi.getCompanyNumber(), transformedAppointmentApi.getId(), null, false));
@@ -374,9 +459,7 @@ class CompanyAppointmentFullRecordServiceTest {
                 data, sensitiveData, Instant.parse("2022-01-13T00:00:00.000000Z"));
         transformedAppointmentApi.previousOfficerId("oldOfficerId");
 
-        when(companyAppointmentRepository.readByCompanyNumberAndID(
-                transformedAppointmentApi.getCompanyNumber(),
-                transformedAppointmentApi.getId())).thenReturn(
+        when(companyAppointmentRepository.upsertOneUnlessStale(transformedAppointmentApi)).thenReturn(
                 Optional.of(deltaAppointmentDocument));
         when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class)))
                 .thenReturn(transformedAppointmentApi);
@@ -385,8 +468,10 @@ class CompanyAppointmentFullRecordServiceTest {
         companyAppointmentService.upsertAppointmentDelta(fullRecordCompanyOfficerApi);
 
         // then
-        verify(companyAppointmentRepository).save(captor.capture());
+        verify(companyAppointmentRepository).upsertOneUnlessStale(captor.capture());
         verify(officerMergeProducer).invokeOfficerMerge("officerId", "oldOfficerId");
+        verify(officerAppointmentsCache).evict("officerId");
+        verify(officerAppointmentsCache).evict("oldOfficerId");
         assertNotNull(captor.getValue().getData().getEtag());
         verify(resourceChangedApiService).invokeChsKafkaApi(new ResourceChangedRequest(
                 transformedAppointmentApi.getCompanyNumber(), transformedAppointmentApi.getId(), null, false));
@@ -412,9 +497,7 @@ class CompanyAppointmentFullRecordServiceTest {
                 data, sensitiveData, Instant.parse("2022-01-13T00:00:00.000000Z"));
         transformedAppointmentApi.previousOfficerId(previousOfficerId);
 
-        when(companyAppointmentRepository.readByCompanyNumberAndID(
-                transformedAppointmentApi.getCompanyNumber(),
-                transformedAppointmentApi.getId())).thenReturn(
+        when(companyAppointmentRepository.upsertOneUnlessStale(transformedAppointmentApi)).thenReturn(
                 Optional.of(deltaAppointmentDocument));
         when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class)))
                 .thenReturn(transformedAppointmentApi);
@@ -423,7 +506,7 @@ class CompanyAppointmentFullRecordServiceTest {
         companyAppointmentService.upsertAppointmentDelta(fullRecordCompanyOfficerApi);
 
         // then
-        verify(companyAppointmentRepository).save(captor.capture());
+        verify(companyAppointmentRepository).upsertOneUnlessStale(captor.capture());
         verifyNoInteractions(officerMergeProducer);
         assertNotNull(captor.getValue().getData().getEtag());
         verify(resourceChangedApiService).invokeChsKafkaApi(new ResourceChangedRequest(
@@ -444,7 +527,7 @@ class CompanyAppointmentFullRecordServiceTest {
         CompanyAppointmentDocument transformedAppointmentApi = builtDeltaAppointmentApi(
                 data, sensitiveData, Instant.parse("2022-01-13T00:00:00.000000Z"));
 
-        when(companyAppointmentRepository.readByCompanyNumberAndID(anyString(), anyString()))
+        when(companyAppointmentRepository.upsertOneUnlessStale(any()))
                 .thenReturn(Optional.of(deltaAppointmentDocument));
         when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class)))
                 .thenReturn(transformedAppointmentApi);
@@ -456,7 +539,7 @@ class CompanyAppointmentFullRecordServiceTest {
 
         // then
         assertThrows(ServiceUnavailableException.class, executable);
-        verify(companyAppointmentRepository).save(captor.capture());
+        verify(companyAppointmentRepository).upsertOneUnlessStale(captor.capture());
         verifyNoInteractions(resourceChangedApiService);
     }
 
@@ -476,9 +559,7 @@ class CompanyAppointmentFullRecordServiceTest {
                 data, sensitiveData, Instant.parse("2022-01-13T00:00:00.000000Z"));
         transformedAppointmentApi.previousOfficerId(transformedAppointmentApi.getOfficerId());
 
-        when(companyAppointmentRepository.readByCompanyNumberAndID(
-                transformedAppointmentApi.getCompanyNumber(),
-                transformedAppointmentApi.getId())).thenReturn(
+        when(companyAppointmentRepository.upsertOneUnlessStale(transformedAppointmentApi)).thenReturn(
                 Optional.of(deltaAppointmentDocument));
         when(deltaAppointmentTransformer.transform(any(FullRecordCompanyOfficerApi.class)))
                 .thenReturn(transformedAppointmentApi);
@@ -487,7 +568,7 @@ class CompanyAppointmentFullRecordServiceTest {
         companyAppointmentService.upsertAppointmentDelta(fullRecordCompanyOfficerApi);
 
         // then
-        verify(companyAppointmentRepository).save(captor.capture());
+        verify(companyAppointmentRepository).upsertOneUnlessStale(captor.capture());
         verifyNoInteractions(officerMergeProducer);
         assertNotNull(captor.getValue().getData().getEtag());
         verify(resourceChangedApiService).invokeChsKafkaApi(new ResourceChangedRequest(
@@ -1,24 +1,35 @@
 package uk.gov.companieshouse.company_appointments.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.Clock;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -34,12 +45,16 @@ import uk.gov.companieshouse.api.metrics.CountsApi;
 import uk.gov.companieshouse.api.metrics.MetricsApi;
 import uk.gov.companieshouse.api.model.ApiResponse;
 import uk.gov.companieshouse.company_appointments.api.CompanyMetricsApiService;
+import uk.gov.companieshouse.company_appointments.exception.BadGatewayException;
 import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
 import uk.gov.companieshouse.company_appointments.exception.NotFoundException;
 import uk.gov.companieshouse.company_appointments.exception.ServiceUnavailableException;
 import uk.gov.companieshouse.company_appointments.mapper.CompanyAppointmentMapper;
+import uk.gov.companieshouse.company_appointments.model.CompanyAppointmentsContinuationToken;
+import uk.gov.companieshouse.company_appointments.model.CompanyAppointmentsSlice;
 import uk.gov.companieshouse.company_appointments.model.FetchAppointmentsRequest;
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentsPage;
 import uk.gov.companieshouse.company_appointments.model.data.DeltaContactDetails;
 import uk.gov.companieshouse.company_appointments.model.data.DeltaItemLinkTypes;
 import uk.gov.companieshouse.company_appointments.model.data.DeltaOfficerData;
@@ -48,6 +63,7 @@ import uk.gov.companieshouse.company_appointments.model.data.DeltaPrincipalOffic
 import uk.gov.companieshouse.company_appointments.model.data.DeltaSensitiveData;
 import uk.gov.companieshouse.company_appointments.model.data.DeltaServiceAddress;
 import uk.gov.companieshouse.company_appointments.repository.CompanyAppointmentRepository;
+import uk.gov.companieshouse.company_appointments.util.EntityTags;
 
 @ExtendWith(MockitoExtension.class)
 class CompanyAppointmentServiceTest {
@@ -69,6 +85,8 @@ class CompanyAppointmentServiceTest {
     @Mock
     private MetricsApi metricsApi;
 
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
     private static final String COMPANY_NUMBER = "123456";
     private static final String APPOINTMENT_ID = "345678";
     private static final String ACTIVE = "active";
@@ -77,13 +95,22 @@ class CompanyAppointmentServiceTest {
     private static final String REGISTER_TYPE_SECRETARIES = "secretaries";
     private static final String REGISTER_TYPE_LLPMEMBERS = "llp_members";
 
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
     @BeforeEach
     void setUp() {
         CompanyAppointmentMapper companyAppointmentMapper = new CompanyAppointmentMapper();
         companyAppointmentService = new CompanyAppointmentService(companyAppointmentRepository,
                 companyAppointmentMapper,
                 companyRegisterService,
-                companyMetricsApiService
+                companyMetricsApiService,
+                false,
+                executor,
+                false,
+                false
         );
     }
 
@@ -138,7 +165,7 @@ class CompanyAppointmentServiceTest {
         when(companyAppointmentRepository.getCompanyAppointments(any(), any(), any(), anyInt(),
                 anyInt(), anyBoolean(), anyBoolean())).thenReturn(allAppointmentData);
 
-        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request);
+        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request, null).officerList();
 
         assertEquals(1, result.getTotalResults());
         assertEquals(1, result.getActiveCount());
@@ -174,7 +201,7 @@ class CompanyAppointmentServiceTest {
         when(companyAppointmentRepository.getCompanyAppointments(any(), any(), any(), anyInt(),
                 anyInt(), anyBoolean(), anyBoolean())).thenReturn(allAppointmentData);
 
-        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request);
+        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request, null).officerList();
 
         assertEquals(1, result.getTotalResults());
         assertEquals(1, result.getActiveCount());
@@ -205,7 +232,7 @@ class CompanyAppointmentServiceTest {
         when(companyAppointmentRepository.getCompanyAppointments(any(), any(), any(), anyInt(),
                 anyInt(), anyBoolean(), anyBoolean())).thenReturn(allAppointmentData);
 
-        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request);
+        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request, null).officerList();
 
         assertEquals(2, result.getTotalResults());
         assertEquals(2, result.getInactiveCount());
@@ -224,7 +251,7 @@ class CompanyAppointmentServiceTest {
         when(companyAppointmentRepository.getCompanyAppointments(any(), any(), any(), anyInt(),
                 anyInt(), anyBoolean(), anyBoolean())).thenReturn(Collections.emptyList());
 
-        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request);
+        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request, null).officerList();
 
         assertEquals(buildBaseResponse(), result);
     }
@@ -241,7 +268,7 @@ class CompanyAppointmentServiceTest {
         when(companyAppointmentRepository.getCompanyAppointments(any(), any(), any(), anyInt(),
                 anyInt(), anyBoolean(), anyBoolean())).thenReturn(Collections.emptyList());
 
-        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request);
+        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request, null).officerList();
 
         assertEquals(buildBaseResponse(), result);
     }
@@ -255,7 +282,7 @@ class CompanyAppointmentServiceTest {
                         .build();
 
         BadRequestException exception = assertThrows(BadRequestException.class,
-                () -> companyAppointmentService.fetchAppointmentsForCompany(request));
+                () -> companyAppointmentService.fetchAppointmentsForCompany(request, null));
         assertEquals("Invalid filter parameter supplied: incorrect filter",
                 exception.getMessage());
     }
@@ -285,7 +312,7 @@ class CompanyAppointmentServiceTest {
         when(companyAppointmentRepository.getCompanyAppointments(any(), any(), any(), anyInt(),
                 anyInt(), anyBoolean(), anyBoolean())).thenReturn(allAppointmentData);
 
-        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request);
+        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request, null).officerList();
 
         assertEquals(2, result.getTotalResults());
         assertEquals(0, result.getInactiveCount());
@@ -315,7 +342,7 @@ class CompanyAppointmentServiceTest {
         when(companyAppointmentRepository.getCompanyAppointments(any(), any(), any(), anyInt(),
                 anyInt(), anyBoolean(), anyBoolean())).thenReturn(allAppointmentData);
 
-        companyAppointmentService.fetchAppointmentsForCompany(request);
+        companyAppointmentService.fetchAppointmentsForCompany(request, null);
 
         verify(companyRegisterService, never()).isRegisterHeldInCompaniesHouse(any(), any());
     }
@@ -341,7 +368,7 @@ class CompanyAppointmentServiceTest {
         when(companyAppointmentRepository.getCompanyAppointments(any(), any(), any(), anyInt(),
                 anyInt(), anyBoolean(), anyBoolean())).thenReturn(allAppointmentData);
 
-        companyAppointmentService.fetchAppointmentsForCompany(request);
+        companyAppointmentService.fetchAppointmentsForCompany(request, null);
 
         verify(companyRegisterService, never()).isRegisterHeldInCompaniesHouse(any(), any());
     }
@@ -369,7 +396,7 @@ class CompanyAppointmentServiceTest {
                 false);
 
         NotFoundException exception = assertThrows(NotFoundException.class,
-                () -> companyAppointmentService.fetchAppointmentsForCompany(request));
+                () -> companyAppointmentService.fetchAppointmentsForCompany(request, null));
         assertEquals("Register not held at Companies House", exception.getMessage());
     }
 
@@ -401,7 +428,7 @@ class CompanyAppointmentServiceTest {
                 anyInt(), anyBoolean(), anyBoolean())).thenReturn(allAppointmentData);
 
         BadRequestException exception = assertThrows(BadRequestException.class,
-                () -> companyAppointmentService.fetchAppointmentsForCompany(request));
+                () -> companyAppointmentService.fetchAppointmentsForCompany(request, null));
         assertEquals("Incorrect register type, must be directors, secretaries or llp_members", exception.getMessage());
     }
 
@@ -423,7 +450,7 @@ class CompanyAppointmentServiceTest {
         when(companyMetricsApiService.invokeGetMetricsApi(anyString())).thenReturn(
                 new ApiResponse<>(200, null, metricsApi));
 
-        Executable result = () -> companyAppointmentService.fetchAppointmentsForCompany(request);
+        Executable result = () -> companyAppointmentService.fetchAppointmentsForCompany(request, null);
 
         NotFoundException exception = assertThrows(NotFoundException.class, result);
         assertEquals("Appointments metrics for company number [" + COMPANY_NUMBER + "] not found",
@@ -449,7 +476,7 @@ class CompanyAppointmentServiceTest {
         when(metricsApi.getCounts()).thenReturn(new CountsApi());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
-                () -> companyAppointmentService.fetchAppointmentsForCompany(request));
+                () -> companyAppointmentService.fetchAppointmentsForCompany(request, null));
         assertEquals("Appointments metrics for company number [" + COMPANY_NUMBER + "] not found",
                 exception.getMessage());
         verifyNoMoreInteractions(companyAppointmentRepository);
@@ -481,7 +508,7 @@ class CompanyAppointmentServiceTest {
         when(companyRegisterService.isRegisterHeldInCompaniesHouse(eq(REGISTER_TYPE_DIRECTORS), any())).thenReturn(
                 true);
 
-        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request);
+        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request, null).officerList();
 
         assertEquals(1, result.getTotalResults());
         assertEquals(1, result.getItems().size());
@@ -513,7 +540,7 @@ class CompanyAppointmentServiceTest {
         when(companyRegisterService.isRegisterHeldInCompaniesHouse(eq(REGISTER_TYPE_SECRETARIES), any())).thenReturn(
                 true);
 
-        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request);
+        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request, null).officerList();
 
         assertEquals(1, result.getTotalResults());
         assertEquals(1, result.getItems().size());
@@ -545,12 +572,481 @@ class CompanyAppointmentServiceTest {
         when(companyRegisterService.isRegisterHeldInCompaniesHouse(eq(REGISTER_TYPE_LLPMEMBERS), any())).thenReturn(
                 true);
 
-        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request);
+        OfficerList result = companyAppointmentService.fetchAppointmentsForCompany(request, null).officerList();
 
         assertEquals(1, result.getTotalResults());
         assertEquals(1, result.getItems().size());
     }
 
+    @Test
+    void testFetchAppointmentsForCompanyWithLocalCountsDoesNotCallMetricsApi() {
+        // given
+        CompanyAppointmentService localCountsService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, true,
+                executor, false, false);
+        CompanyAppointmentDocument appointmentDocument = buildCompanyAppointmentDocument(buildOfficerData().build(),
+                ACTIVE);
+
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .withOrderBy(ORDER_BY)
+                        .build();
+
+        when(companyAppointmentRepository.getCompanyAppointmentsPage(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean())).thenReturn(new CompanyAppointmentsPage()
+                .items(List.of(appointmentDocument))
+                .totalCount(3)
+                .activeCount(2)
+                .resignedCount(1));
+
+        // when
+        OfficerList result = localCountsService.fetchAppointmentsForCompany(request, null).officerList();
+
+        // then
+        assertEquals(3, result.getTotalResults());
+        assertEquals(2, result.getActiveCount());
+        assertEquals(0, result.getInactiveCount());
+        assertEquals(1, result.getResignedCount());
+        assertEquals(1, result.getItems().size());
+        verify(companyAppointmentRepository).getCompanyAppointmentsPage(eq(COMPANY_NUMBER),
+                eq(ORDER_BY), isNull(), eq(0), eq(35), eq(false), eq(false));
+        verify(companyAppointmentRepository, never()).getCompanyAppointments(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean());
+        verifyNoInteractions(companyMetricsApiService);
+    }
+
+    @Test
+    void testFetchAppointmentsForCompanyWithLocalCountsOnlyReadsRegistersFromMetricsApi() {
+        // given
+        CompanyAppointmentService localCountsService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, true,
+                executor, false, false);
+        CompanyAppointmentDocument appointmentDocument = buildCompanyAppointmentDocument(buildOfficerData().build(),
+                ACTIVE);
+
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .withRegisterView(true)
+                        .withRegisterType(REGISTER_TYPE_DIRECTORS)
+                        .build();
+
+        when(companyAppointmentRepository.getCompanyAppointmentsPage(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean())).thenReturn(new CompanyAppointmentsPage()
+                .items(List.of(appointmentDocument))
+                .totalCount(4)
+                .activeCount(3)
+                .resignedCount(1)
+                .activeDirectorsCount(2)
+                .activeSecretariesCount(1));
+        when(companyMetricsApiService.invokeGetMetricsApi(anyString())).thenReturn(
+                new ApiResponse<>(200, null, metricsApi));
+        when(companyRegisterService.isRegisterHeldInCompaniesHouse(eq(REGISTER_TYPE_DIRECTORS), any())).thenReturn(
+                true);
+
+        // when
+        OfficerList result = localCountsService.fetchAppointmentsForCompany(request, null).officerList();
+
+        // then
+        assertEquals(2, result.getTotalResults());
+        assertEquals(2, result.getActiveCount());
+        assertEquals(0, result.getResignedCount());
+        verify(metricsApi, never()).getCounts();
+    }
+
+    @Test
+    void testFetchAppointmentsForCompanyWithLocalCountsReturnsEmptyResponseForEmptyPage() {
+        // given
+        CompanyAppointmentService localCountsService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, true,
+                executor, false, false);
+
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .build();
+
+        when(companyAppointmentRepository.getCompanyAppointmentsPage(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean())).thenReturn(new CompanyAppointmentsPage()
+                .items(List.of()));
+
+        // when
+        OfficerList result = localCountsService.fetchAppointmentsForCompany(request, null).officerList();
+
+        // then
+        assertEquals(0, result.getTotalResults());
+        assertEquals(Collections.emptyList(), result.getItems());
+        verifyNoInteractions(companyMetricsApiService);
+    }
+
+    @Test
+    void testFetchAppointmentsForCompanyWithConcurrentMetricsUsesMetricsFetchedAlongsidePageQuery() {
+        // given
+        CompanyAppointmentService concurrentService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, false,
+                executor, true, false);
+        CompanyAppointmentDocument appointmentDocument = buildCompanyAppointmentDocument(buildOfficerData().build(),
+                ACTIVE);
+
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .withOrderBy(ORDER_BY)
+                        .build();
+
+        when(companyMetricsApiService.invokeGetMetricsApi(COMPANY_NUMBER)).thenReturn(
+                new ApiResponse<>(200, null, metricsApi));
+        when(metricsApi.getCounts()).thenReturn(new CountsApi().appointments(new AppointmentsApi()
+                .totalCount(3)
+                .activeCount(2)
+                .resignedCount(1)));
+        when(companyAppointmentRepository.getCompanyAppointments(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean())).thenReturn(List.of(appointmentDocument));
+
+        // when
+        OfficerList result = concurrentService.fetchAppointmentsForCompany(request, null).officerList();
+
+        // then
+        assertEquals(3, result.getTotalResults());
+        assertEquals(2, result.getActiveCount());
+        assertEquals(1, result.getResignedCount());
+        verify(companyMetricsApiService).invokeGetMetricsApi(COMPANY_NUMBER);
+    }
+
+    @Test
+    void testFetchAppointmentsForCompanyWithConcurrentMetricsIgnoresMetricsForEmptyPage() {
+        // given
+        CompanyAppointmentService concurrentService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, false,
+                executor, true, false);
+
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .build();
+
+        // the speculative call may or may not have run by the time it is cancelled
+        lenient().when(companyMetricsApiService.invokeGetMetricsApi(COMPANY_NUMBER)).thenThrow(
+                new NotFoundException("Company Metrics API responded with 404 Not Found"));
+        when(companyAppointmentRepository.getCompanyAppointments(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean())).thenReturn(Collections.emptyList());
+
+        // when
+        OfficerList result = concurrentService.fetchAppointmentsForCompany(request, null).officerList();
+
+        // then
+        assertEquals(buildBaseResponse(), result);
+    }
+
+    @Test
+    void testFetchAppointmentsForCompanyWithConcurrentMetricsRethrowsNotFoundUnchanged() {
+        // given
+        CompanyAppointmentService concurrentService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, false,
+                executor, true, false);
+        CompanyAppointmentDocument appointmentDocument = buildCompanyAppointmentDocument(buildOfficerData().build(),
+                ACTIVE);
+        NotFoundException notFound = new NotFoundException("Company Metrics API responded with 404 Not Found");
+
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .build();
+
+        when(companyMetricsApiService.invokeGetMetricsApi(COMPANY_NUMBER)).thenThrow(notFound);
+        when(companyAppointmentRepository.getCompanyAppointments(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean())).thenReturn(List.of(appointmentDocument));
+
+        // when
+        Executable executable = () -> concurrentService.fetchAppointmentsForCompany(request, null);
+
+        // then
+        assertSame(notFound, assertThrows(NotFoundException.class, executable));
+    }
+
+    @Test
+    void testFetchAppointmentsForCompanyWithConcurrentMetricsRethrowsBadGatewayUnchanged() {
+        // given
+        CompanyAppointmentService concurrentService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, false,
+                executor, true, false);
+        CompanyAppointmentDocument appointmentDocument = buildCompanyAppointmentDocument(buildOfficerData().build(),
+                ACTIVE);
+        BadGatewayException badGateway = new BadGatewayException("Error calling Company Metrics API endpoint", null);
+
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .build();
+
+        when(companyMetricsApiService.invokeGetMetricsApi(COMPANY_NUMBER)).thenThrow(badGateway);
+        when(companyAppointmentRepository.getCompanyAppointments(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean())).thenReturn(List.of(appointmentDocument));
+
+        // when
+        Executable executable = () -> concurrentService.fetchAppointmentsForCompany(request, null);
+
+        // then
+        assertSame(badGateway, assertThrows(BadGatewayException.class, executable));
+    }
+
+    @Test
+    void testFetchAppointmentsForCompanyAfterReturnsPageAndTokenForNextPage() {
+        // given
+        CompanyAppointmentDocument first = buildCompanyAppointmentDocument(buildOfficerData().build(), ACTIVE);
+        CompanyAppointmentDocument second = buildCompanyAppointmentDocument(buildOfficerData().build(), ACTIVE);
+        CompanyAppointmentDocument third = buildCompanyAppointmentDocument(buildOfficerData().build(), ACTIVE);
+        CompanyAppointmentsContinuationToken after = new CompanyAppointmentsContinuationToken(ORDER_BY,
+                List.of("Surname", "1"), 4);
+
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .withOrderBy(ORDER_BY)
+                        .withItemsPerPage(2)
+                        .withContinuationToken(after.encode())
+                        .build();
+
+        when(companyMetricsApiService.invokeGetMetricsApi(anyString())).thenReturn(
+                new ApiResponse<>(200, null, metricsApi));
+        when(metricsApi.getCounts()).thenReturn(new CountsApi().appointments(new AppointmentsApi()
+                .totalCount(7)
+                .activeCount(7)
+                .resignedCount(0)));
+        when(companyAppointmentRepository.getCompanyAppointmentsAfter(any(), any(), any(), any(),
+                anyInt(), anyBoolean(), anyBoolean())).thenReturn(new ArrayList<>(List.of(first, second, third)));
+        when(companyAppointmentRepository.continuationTokenAfter(ORDER_BY, second, 6)).thenReturn(
+                new CompanyAppointmentsContinuationToken(ORDER_BY, List.of("Surname", "2"), 6));
+
+        // when
+        CompanyAppointmentsSlice result = companyAppointmentService.fetchAppointmentsForCompany(request, null);
+
+        // then
+        assertEquals(2, result.officerList().getItems().size());
+        assertEquals(4, result.officerList().getStartIndex());
+        assertEquals(7, result.officerList().getTotalResults());
+        assertEquals(new CompanyAppointmentsContinuationToken(ORDER_BY, List.of("Surname", "2"), 6),
+                CompanyAppointmentsContinuationToken.decode(result.nextContinuationToken(), ORDER_BY));
+        verify(companyAppointmentRepository).getCompanyAppointmentsAfter(COMPANY_NUMBER, ORDER_BY, null, after, 3,
+                false, false);
+    }
+
+    @Test
+    void testFetchAppointmentsForCompanyAfterReturnsNoTokenOnLastPage() {
+        // given
+        CompanyAppointmentDocument appointmentDocument = buildCompanyAppointmentDocument(buildOfficerData().build(),
+                ACTIVE);
+
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .withContinuationToken("")
+                        .build();
+
+        when(companyMetricsApiService.invokeGetMetricsApi(anyString())).thenReturn(
+                new ApiResponse<>(200, null, metricsApi));
+        when(metricsApi.getCounts()).thenReturn(new CountsApi().appointments(new AppointmentsApi()
+                .totalCount(1)
+                .activeCount(1)
+                .resignedCount(0)));
+        when(companyAppointmentRepository.getCompanyAppointmentsAfter(any(), any(), any(), any(),
+                anyInt(), anyBoolean(), anyBoolean())).thenReturn(List.of(appointmentDocument));
+
+        // when
+        CompanyAppointmentsSlice result = companyAppointmentService.fetchAppointmentsForCompany(request, null);
+
+        // then
+        assertEquals(1, result.officerList().getItems().size());
+        assertEquals(0, result.officerList().getStartIndex());
+        assertNull(result.nextContinuationToken());
+        verify(companyAppointmentRepository, never()).continuationTokenAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    void testFetchAppointmentEntityTagReadsOnlyTheEtag() throws NotFoundException {
+        // given
+        CompanyAppointmentService conditionalService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, false,
+                executor, false, true);
+        when(companyAppointmentRepository.readEtagByCompanyNumberAndAppointmentID(COMPANY_NUMBER, APPOINTMENT_ID))
+                .thenReturn(Optional.of(buildCompanyAppointmentDocument(buildOfficerData().build(), ACTIVE)));
+
+        // when
+        Optional<String> result = conditionalService.fetchAppointmentEntityTag(COMPANY_NUMBER, APPOINTMENT_ID);
+
+        // then
+        assertEquals(Optional.of("\"etag\""), result);
+        verify(companyAppointmentRepository, never()).readByCompanyNumberAndAppointmentID(any(), any());
+    }
+
+    @Test
+    void testFetchAppointmentEntityTagThrowsNotFoundExceptionIfAppointmentDoesntExist() {
+        // given
+        CompanyAppointmentService conditionalService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, false,
+                executor, false, true);
+
+        // when
+        Executable executable = () -> conditionalService.fetchAppointmentEntityTag(COMPANY_NUMBER, APPOINTMENT_ID);
+
+        // then
+        assertThrows(NotFoundException.class, executable);
+    }
+
+    @Test
+    void testEntityTagOfAppointmentsPageIsComputedFromThePageAndItsCounts() {
+        // given
+        CompanyAppointmentService conditionalService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, true,
+                executor, false, true);
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .withOrderBy(ORDER_BY)
+                        .build();
+
+        when(companyAppointmentRepository.getCompanyAppointmentsPage(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean())).thenReturn(new CompanyAppointmentsPage()
+                .items(List.of(buildCompanyAppointmentDocument(buildOfficerData().etag("etag1").build(), ACTIVE),
+                        buildCompanyAppointmentDocument(buildOfficerData().etag("etag2").build(), ACTIVE)))
+                .totalCount(3)
+                .activeCount(2)
+                .resignedCount(1));
+
+        // when
+        CompanyAppointmentsSlice result = conditionalService.fetchAppointmentsForCompany(request, null);
+
+        // then
+        assertEquals(EntityTags.of(List.of(3, 2, 0, 1, 0, 35, "etag1", "etag2")), result.entityTag());
+        assertEquals(2, result.officerList().getItems().size());
+        verify(companyAppointmentRepository).getCompanyAppointmentsPage(COMPANY_NUMBER, ORDER_BY, null, 0, 35,
+                false, false);
+    }
+
+    @Test
+    void testAppointmentsPageIsNotModifiedWhenEntityTagMatches() {
+        // given
+        CompanyAppointmentService conditionalService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, false,
+                executor, true, true);
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .build();
+
+        when(companyAppointmentRepository.getCompanyAppointmentEtagsPage(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean())).thenReturn(new CompanyAppointmentsPage()
+                .items(List.of(buildCompanyAppointmentDocument(buildOfficerData().etag("etag1").build(), ACTIVE)))
+                .totalCount(1)
+                .activeCount(1)
+                .resignedCount(0));
+        String entityTag = EntityTags.of(List.of(1, 1, 0, 0, 0, 35, "etag1"));
+
+        // when
+        CompanyAppointmentsSlice result = conditionalService.fetchAppointmentsForCompany(request,
+                "W/" + entityTag);
+
+        // then
+        assertTrue(result.isNotModified());
+        assertEquals(entityTag, result.entityTag());
+        verify(companyAppointmentRepository).getCompanyAppointmentEtagsPage(COMPANY_NUMBER, null, null, 0, 35, false,
+                false);
+        verifyNoMoreInteractions(companyAppointmentRepository);
+        verifyNoInteractions(companyMetricsApiService);
+    }
+
+    @Test
+    void testAppointmentsAreReadByIdAndCountedByMetricsWhenEntityTagDoesNotMatch() {
+        // given
+        CompanyAppointmentService conditionalService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, false,
+                executor, true, true);
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .build();
+
+        when(companyAppointmentRepository.getCompanyAppointmentEtagsPage(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean())).thenReturn(new CompanyAppointmentsPage()
+                .items(List.of(buildCompanyAppointmentDocument(buildOfficerData().etag("etag1").build(), ACTIVE)))
+                .totalCount(1)
+                .activeCount(1)
+                .resignedCount(0));
+        when(companyAppointmentRepository.readByCompanyNumberAndIDs(COMPANY_NUMBER, List.of("1"))).thenReturn(
+                List.of(buildCompanyAppointmentDocument(buildOfficerData().etag("etag1").build(), ACTIVE)));
+        when(companyMetricsApiService.invokeGetMetricsApi(COMPANY_NUMBER)).thenReturn(
+                new ApiResponse<>(200, null, metricsApi));
+        when(metricsApi.getCounts()).thenReturn(new CountsApi().appointments(new AppointmentsApi()
+                .totalCount(2)
+                .activeCount(2)
+                .resignedCount(0)));
+
+        // when
+        CompanyAppointmentsSlice result = conditionalService.fetchAppointmentsForCompany(request, "\"stale\"");
+
+        // then
+        assertFalse(result.isNotModified());
+        assertEquals(2, result.officerList().getTotalResults());
+        assertEquals(EntityTags.of(List.of(1, 1, 0, 0, 0, 35, "etag1")), result.entityTag());
+        verify(companyAppointmentRepository).getCompanyAppointmentEtagsPage(COMPANY_NUMBER, null, null, 0, 35, false,
+                false);
+        verify(companyAppointmentRepository).readByCompanyNumberAndIDs(COMPANY_NUMBER, List.of("1"));
+        verifyNoMoreInteractions(companyAppointmentRepository);
+        verify(companyMetricsApiService).invokeGetMetricsApi(COMPANY_NUMBER);
+    }
+
+    @Test
+    void testEntityTagOfAppointmentsPageChangesWhenAnAppointmentChanges() {
+        // given
+        CompanyAppointmentService conditionalService = new CompanyAppointmentService(companyAppointmentRepository,
+                new CompanyAppointmentMapper(), companyRegisterService, companyMetricsApiService, true,
+                executor, false, true);
+        FetchAppointmentsRequest request =
+                FetchAppointmentsRequest.Builder.builder()
+                        .withCompanyNumber(COMPANY_NUMBER)
+                        .build();
+
+        when(companyAppointmentRepository.getCompanyAppointmentsPage(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean()))
+                .thenReturn(new CompanyAppointmentsPage()
+                        .items(List.of(buildCompanyAppointmentDocument(buildOfficerData().etag("etag1").build(),
+                                ACTIVE)))
+                        .totalCount(1)
+                        .activeCount(1)
+                        .resignedCount(0));
+        when(companyAppointmentRepository.getCompanyAppointmentEtagsPage(any(), any(), any(), anyInt(),
+                anyInt(), anyBoolean(), anyBoolean()))
+                .thenReturn(new CompanyAppointmentsPage()
+                        .items(List.of(buildCompanyAppointmentDocument(buildOfficerData().etag("etag2").build(),
+                                ACTIVE)))
+                        .totalCount(1)
+                        .activeCount(1)
+                        .resignedCount(0));
+        when(companyAppointmentRepository.readByCompanyNumberAndIDs(COMPANY_NUMBER, List.of("1"))).thenReturn(
+                List.of(buildCompanyAppointmentDocument(buildOfficerData().etag("etag2").build(), ACTIVE)));
+
+        // when
+        String before = conditionalService.fetchAppointmentsForCompany(request, null).entityTag();
+        String after = conditionalService.fetchAppointmentsForCompany(request, before).entityTag();
+
+        // then
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    void testEntityTagsAreEmptyWhenConditionalGetDisabled() throws NotFoundException {
+        // when
+        Optional<String> appointmentEntityTag = companyAppointmentService.fetchAppointmentEntityTag(COMPANY_NUMBER,
+                APPOINTMENT_ID);
+
+        // then
+        assertTrue(appointmentEntityTag.isEmpty());
+        assertTrue(companyAppointmentService.entityTagOf(new OfficerSummary().etag("etag1")).isEmpty());
+        verifyNoInteractions(companyAppointmentRepository);
+        verifyNoInteractions(companyMetricsApiService);
+    }
+
     private CompanyAppointmentDocument buildCompanyAppointmentDocument(DeltaOfficerData data,
             String status) {
         return new CompanyAppointmentDocument()
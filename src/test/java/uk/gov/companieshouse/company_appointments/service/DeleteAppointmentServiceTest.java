@@ -11,33 +11,39 @@ import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.NestedRuntimeException;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.support.TransactionOperations;
 import uk.gov.companieshouse.api.appointment.ItemLinkTypes;
 import uk.gov.companieshouse.api.appointment.OfficerLinkTypes;
 import uk.gov.companieshouse.api.appointment.OfficerSummary;
+import uk.gov.companieshouse.company_appointments.api.CompanyMetricsCache;
 import uk.gov.companieshouse.company_appointments.api.ResourceChangedApiService;
 import uk.gov.companieshouse.company_appointments.exception.BadGatewayException;
 import uk.gov.companieshouse.company_appointments.exception.BadRequestException;
 import uk.gov.companieshouse.company_appointments.exception.ConflictException;
+import uk.gov.companieshouse.company_appointments.kafka.OfficerMergeProducer;
 import uk.gov.companieshouse.company_appointments.model.DeleteAppointmentParameters;
 import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
 import uk.gov.companieshouse.company_appointments.model.data.ResourceChangedRequest;
+import uk.gov.companieshouse.company_appointments.officerappointments.OfficerAppointmentsCache;
+import uk.gov.companieshouse.company_appointments.repository.AppointmentEventRepository;
 import uk.gov.companieshouse.company_appointments.repository.CompanyAppointmentRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -54,7 +60,6 @@ class DeleteAppointmentServiceTest {
     private static final Instant NEWER_DELTA_AT = LocalDateTime.parse("20240926171003950844", DELTA_AT_FORMATTER)
             .toInstant(UTC);
 
-    @InjectMocks
     private DeleteAppointmentService deleteAppointmentService;
 
     @Mock
@@ -63,11 +68,30 @@ class DeleteAppointmentServiceTest {
     private ResourceChangedApiService resourceChangedApiService;
     @Mock
     private ResourceChangedDataCleaner resourceChangedDataCleaner;
+    @Mock
+    private OfficerAppointmentCountsService officerAppointmentCountsService;
+    @Mock
+    private OfficerAppointmentsCache officerAppointmentsCache;
+    @Mock
+    private CompanyMetricsCache companyMetricsCache;
 
     @Mock
     private CompanyAppointmentDocument companyAppointmentDocument;
     @Mock
     private Object cleanOfficerSummary;
+    @Mock
+    private OfficerMergeProducer officerMergeProducer;
+    @Mock
+    private AppointmentEventRepository appointmentEventRepository;
+
+    @BeforeEach
+    void setUp() {
+        deleteAppointmentService = new DeleteAppointmentService(companyAppointmentRepository,
+                new AppointmentEventOutbox(appointmentEventRepository, resourceChangedApiService,
+                        officerMergeProducer, TransactionOperations.withoutTransaction(), Clock.systemUTC(), false, false),
+                resourceChangedDataCleaner, officerAppointmentCountsService, officerAppointmentsCache,
+                companyMetricsCache);
+    }
 
     @Test
     void shouldDeleteAppointment() {
@@ -75,6 +99,7 @@ class DeleteAppointmentServiceTest {
         when(companyAppointmentRepository.readByCompanyNumberAndID(anyString(), anyString()))
                 .thenReturn(Optional.of(companyAppointmentDocument));
         when(companyAppointmentDocument.getDeltaAt()).thenReturn(OLDER_DELTA_AT);
+        when(companyAppointmentDocument.getOfficerId()).thenReturn(OFFICER_ID);
         when(resourceChangedDataCleaner.cleanOutNullValues(any(CompanyAppointmentDocument.class))).thenReturn(
                 cleanOfficerSummary);
 
@@ -98,6 +123,9 @@ class DeleteAppointmentServiceTest {
         // then
         verify(companyAppointmentRepository).readByCompanyNumberAndID(COMPANY_NUMBER, APPOINTMENT_ID);
         verify(companyAppointmentRepository).deleteByCompanyNumberAndID(COMPANY_NUMBER, APPOINTMENT_ID);
+        verify(officerAppointmentCountsService).appointmentDeleted(companyAppointmentDocument);
+        verify(officerAppointmentsCache).evict(OFFICER_ID);
+        verify(companyMetricsCache).evict(COMPANY_NUMBER);
         verify(resourceChangedDataCleaner).cleanOutNullValues(companyAppointmentDocument);
         verify(resourceChangedApiService).invokeChsKafkaApi(expectedResourceChangeRequest);
     }
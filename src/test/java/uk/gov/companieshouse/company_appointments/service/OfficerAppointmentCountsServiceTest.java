@@ -0,0 +1,121 @@
+package uk.gov.companieshouse.company_appointments.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import uk.gov.companieshouse.company_appointments.model.data.CompanyAppointmentDocument;
+import uk.gov.companieshouse.company_appointments.model.data.DeltaOfficerData;
+import uk.gov.companieshouse.company_appointments.repository.OfficerAppointmentCountsRepository;
+
+@ExtendWith(MockitoExtension.class)
+class OfficerAppointmentCountsServiceTest {
+
+    private static final String OFFICER_ID = "officerId";
+    private static final String OLD_OFFICER_ID = "oldOfficerId";
+    private static final Instant RESIGNED_ON = Instant.parse("2023-01-12T00:00:00Z");
+
+    @InjectMocks
+    private OfficerAppointmentCountsService service;
+
+    @Mock
+    private OfficerAppointmentCountsRepository repository;
+
+    @Test
+    void shouldIncrementCountsWhenAppointmentInserted() {
+        // given
+        CompanyAppointmentDocument saved = appointment(OFFICER_ID, "dissolved", null);
+
+        // when
+        service.appointmentSaved(null, saved);
+
+        // then
+        verify(repository).incrementCounts(OFFICER_ID, 1, 0, 1);
+    }
+
+    @Test
+    void shouldApplyDifferenceWhenAppointmentResigns() {
+        // given
+        CompanyAppointmentDocument existing = appointment(OFFICER_ID, "dissolved", null);
+        CompanyAppointmentDocument saved = appointment(OFFICER_ID, "dissolved", RESIGNED_ON);
+
+        // when
+        service.appointmentSaved(existing, saved);
+
+        // then
+        verify(repository).incrementCounts(OFFICER_ID, 0, 1, -1);
+    }
+
+    @Test
+    void shouldNotUpdateCountsWhenUpdateDoesNotChangeThem() {
+        // given
+        CompanyAppointmentDocument existing = appointment(OFFICER_ID, "active", null);
+        CompanyAppointmentDocument saved = appointment(OFFICER_ID, "active", null);
+
+        // when
+        service.appointmentSaved(existing, saved);
+
+        // then
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void shouldMoveCountsWhenOfficerIdChanges() {
+        // given
+        CompanyAppointmentDocument existing = appointment(OLD_OFFICER_ID, "active", RESIGNED_ON);
+        CompanyAppointmentDocument saved = appointment(OFFICER_ID, "active", RESIGNED_ON);
+
+        // when
+        service.appointmentSaved(existing, saved);
+
+        // then
+        verify(repository).incrementCounts(OLD_OFFICER_ID, -1, -1, 0);
+        verify(repository).incrementCounts(OFFICER_ID, 1, 1, 0);
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void shouldDecrementCountsWhenAppointmentDeleted() {
+        // given
+        CompanyAppointmentDocument deleted = appointment(OFFICER_ID, "closed", null);
+
+        // when
+        service.appointmentDeleted(deleted);
+
+        // then
+        verify(repository).incrementCounts(OFFICER_ID, -1, 0, -1);
+    }
+
+    @Test
+    void shouldNotFailWriteWhenCountsUpdateFails() {
+        // given
+        doThrow(new DataAccessResourceFailureException("..."))
+                .when(repository).incrementCounts(anyString(), anyInt(), anyInt(), anyInt());
+
+        // when
+        Executable executable = () -> service.appointmentSaved(null, appointment(OFFICER_ID, "active", null));
+
+        // then
+        assertDoesNotThrow(executable);
+    }
+
+    private static CompanyAppointmentDocument appointment(String officerId, String companyStatus,
+            Instant resignedOn) {
+        return new CompanyAppointmentDocument()
+                .officerId(officerId)
+                .companyStatus(companyStatus)
+                .data(new DeltaOfficerData().setResignedOn(resignedOn));
+    }
+}
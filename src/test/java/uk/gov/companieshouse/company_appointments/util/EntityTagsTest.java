@@ -0,0 +1,64 @@
+package uk.gov.companieshouse.company_appointments.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class EntityTagsTest {
+
+    private static final String ENTITY_TAG = "\"etag\"";
+
+    @Test
+    void strongQuotesValue() {
+        assertEquals(ENTITY_TAG, EntityTags.strong("etag"));
+    }
+
+    @Test
+    void ofIsStableForSameValues() {
+        assertEquals(EntityTags.of(List.of("a", 1, "b")), EntityTags.of(List.of("a", 1, "b")));
+    }
+
+    @Test
+    void ofChangesWithValuesAndTheirOrder() {
+        String entityTag = EntityTags.of(List.of("a", "b"));
+
+        assertNotEquals(entityTag, EntityTags.of(List.of("b", "a")));
+        assertNotEquals(entityTag, EntityTags.of(List.of("ab")));
+        assertNotEquals(entityTag, EntityTags.of(List.of("a", "c")));
+    }
+
+    @Test
+    void matchesSameStrongTag() {
+        assertTrue(EntityTags.matches(ENTITY_TAG, ENTITY_TAG));
+    }
+
+    @Test
+    void matchesWeakTagWithSameValue() {
+        assertTrue(EntityTags.matches("W/" + ENTITY_TAG, ENTITY_TAG));
+    }
+
+    @Test
+    void matchesAnyTagInList() {
+        assertTrue(EntityTags.matches("\"other\", " + ENTITY_TAG, ENTITY_TAG));
+    }
+
+    @Test
+    void matchesWildcard() {
+        assertTrue(EntityTags.matches("*", ENTITY_TAG));
+    }
+
+    @Test
+    void doesNotMatchDifferentTag() {
+        assertFalse(EntityTags.matches("\"other\"", ENTITY_TAG));
+    }
+
+    @Test
+    void doesNotMatchBlankHeader() {
+        assertFalse(EntityTags.matches(null, ENTITY_TAG));
+        assertFalse(EntityTags.matches(" ", ENTITY_TAG));
+    }
+}